@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.cglib.core.ReflectUtils;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.model.EntityInstantiator;
+import org.springframework.data.mapping.model.PreferredConstructorDiscoverer;
+
+/**
+ * Generates, while building the image, the class Spring Data would otherwise generate at runtime to create
+ * an entity: an {@link EntityInstantiator} directly invoking the persistence constructor. The generated
+ * class is defined next to the entity (same package and class loader) so non public constructors can be
+ * called, and registered with {@link GeneratedEntityInstantiators}. Types Spring Data creates reflectively
+ * (interfaces, inner classes, private constructors...) and Kotlin types are left to reflection.
+ */
+class EntityInstantiatorGenerator {
+
+	static final String SUFFIX = "_NativeInstantiator";
+
+	private static final String ENTITY_INSTANTIATOR = Type.getInternalName(EntityInstantiator.class);
+
+	private static final String GENERATED_ENTITY_INSTANTIATORS = Type.getInternalName(GeneratedEntityInstantiators.class);
+
+	private static final String CREATE_INSTANCE_DESCRIPTOR = "(Lorg/springframework/data/mapping/PersistentEntity;Lorg/springframework/data/mapping/model/ParameterValueProvider;)Ljava/lang/Object;";
+
+	private static final String ARGUMENTS_DESCRIPTOR = "(Lorg/springframework/data/mapping/PersistentEntity;Lorg/springframework/data/mapping/model/ParameterValueProvider;)[Ljava/lang/Object;";
+
+	/**
+	 * Generate, define and register the instantiator for a type.
+	 * @return the generated class, or null if the type is not one Spring Data would generate an instantiator for
+	 */
+	static Class<?> generate(Class<?> type) throws Exception {
+		Constructor<?> constructor = findPersistenceConstructor(type);
+		if (constructor == null) {
+			return null;
+		}
+		String className = type.getName() + SUFFIX;
+		byte[] bytes = generate(className.replace('.', '/'), constructor);
+		Class<?> instantiatorClass = ReflectUtils.defineClass(className, bytes, type.getClassLoader(),
+				type.getProtectionDomain(), type);
+		EntityInstantiator instantiator = (EntityInstantiator) instantiatorClass.getDeclaredConstructor().newInstance();
+		GeneratedEntityInstantiators.register(type, constructor, instantiator);
+		return instantiatorClass;
+	}
+
+	/**
+	 * Mirrors the checks ClassGeneratingEntityInstantiator makes before generating an instantiator.
+	 */
+	private static Constructor<?> findPersistenceConstructor(Class<?> type) {
+		if (type.isInterface() || type.isArray() || type.isEnum() || type.isPrimitive()
+				|| Modifier.isAbstract(type.getModifiers()) || Modifier.isPrivate(type.getModifiers())
+				|| (type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) || type.getName().contains("$$")
+				|| isKotlinType(type)) {
+			return null;
+		}
+		PreferredConstructor<?, ?> preferredConstructor = PreferredConstructorDiscoverer.discover(type);
+		if (preferredConstructor == null || Modifier.isPrivate(preferredConstructor.getConstructor().getModifiers())) {
+			return null;
+		}
+		return preferredConstructor.getConstructor();
+	}
+
+	private static boolean isKotlinType(Class<?> type) {
+		for (Annotation annotation : type.getDeclaredAnnotations()) {
+			if (annotation.annotationType().getName().equals("kotlin.Metadata")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * <pre>
+	 * public final class Entity_NativeInstantiator implements EntityInstantiator {
+	 *     public Object createInstance(PersistentEntity entity, ParameterValueProvider provider) {
+	 *         Object[] args = GeneratedEntityInstantiators.arguments(entity, provider);
+	 *         return new Entity((String) args[0], ((Number) args[1]).intValue(), ...);
+	 *     }
+	 * }
+	 * </pre>
+	 */
+	static byte[] generate(String slashedClassName, Constructor<?> constructor) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, slashedClassName, null,
+				"java/lang/Object", new String[] { ENTITY_INSTANTIATOR });
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		String entityName = Type.getInternalName(constructor.getDeclaringClass());
+		Class<?>[] parameterTypes = constructor.getParameterTypes();
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "createInstance", CREATE_INSTANCE_DESCRIPTOR, null, null);
+		mv.visitCode();
+		if (parameterTypes.length > 0) {
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, GENERATED_ENTITY_INSTANTIATORS, "arguments", ARGUMENTS_DESCRIPTOR, false);
+			mv.visitVarInsn(Opcodes.ASTORE, 3);
+		}
+		mv.visitTypeInsn(Opcodes.NEW, entityName);
+		mv.visitInsn(Opcodes.DUP);
+		for (int i = 0; i < parameterTypes.length; i++) {
+			mv.visitVarInsn(Opcodes.ALOAD, 3);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(Opcodes.AALOAD);
+			visitConversion(mv, parameterTypes[i]);
+		}
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, entityName, "<init>", Type.getConstructorDescriptor(constructor), false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void visitConversion(MethodVisitor mv, Class<?> parameterType) {
+		if (!parameterType.isPrimitive()) {
+			if (parameterType != Object.class) {
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(parameterType));
+			}
+			return;
+		}
+		if (parameterType == boolean.class) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Boolean");
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+		} else if (parameterType == char.class) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Character");
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Character", "charValue", "()C", false);
+		} else {
+			String primitiveName = parameterType.getName();
+			mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Number");
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Number", primitiveName + "Value",
+					"()" + Type.getDescriptor(parameterType), false);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.PersistentProperty;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.PreferredConstructor.Parameter;
+import org.springframework.data.mapping.model.EntityInstantiator;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+
+/**
+ * The entity instantiators generated while building the image (see {@link EntityInstantiatorGenerator}). The
+ * class is initialized at build time so the instantiators are part of the image heap, the substituted
+ * ClassGeneratingEntityInstantiator returns them instead of falling back to reflection.
+ */
+public class GeneratedEntityInstantiators {
+
+	private static final Object[] EMPTY_ARGS = new Object[0];
+
+	// Keyed by type name, the hash code of a Class may not be the same at image runtime
+	private static final Map<String, Registration> instantiators = new ConcurrentHashMap<>();
+
+	/**
+	 * The instantiator generated for a type and the constructor it calls, with its parameter types, so they are
+	 * not computed again for each instance.
+	 */
+	private static class Registration {
+
+		private final Constructor<?> constructor;
+
+		private final Class<?>[] parameterTypes;
+
+		private final EntityInstantiator instantiator;
+
+		Registration(Constructor<?> constructor, EntityInstantiator instantiator) {
+			this.constructor = constructor;
+			this.parameterTypes = constructor.getParameterTypes();
+			this.instantiator = instantiator;
+		}
+
+	}
+
+	static void register(Class<?> type, Constructor<?> constructor, EntityInstantiator instantiator) {
+		instantiators.put(type.getName(), new Registration(constructor, instantiator));
+	}
+
+	static boolean isRegistered(Class<?> type) {
+		return instantiators.containsKey(type.getName());
+	}
+
+	/**
+	 * @return the generated instantiator for the entity, or null if there is none or it calls a different
+	 * constructor than the persistence constructor of the entity
+	 */
+	public static EntityInstantiator get(PersistentEntity<?, ?> entity) {
+		Registration registration = instantiators.get(entity.getType().getName());
+		if (registration == null) {
+			return null;
+		}
+		PreferredConstructor<?, ?> constructor = entity.getPersistenceConstructor();
+		if (constructor == null || !registration.constructor.equals(constructor.getConstructor())) {
+			return null;
+		}
+		return registration.instantiator;
+	}
+
+	/**
+	 * Called by the generated instantiators. The arguments for the persistence constructor as
+	 * ReflectionEntityInstantiator computes them, except null is replaced by the default value of primitive
+	 * parameters (as BeanUtils does when instantiating reflectively). The parameters are those of the entity,
+	 * value providers expect them to belong to it.
+	 */
+	public static <P extends PersistentProperty<P>> Object[] arguments(PersistentEntity<?, P> entity,
+			ParameterValueProvider<P> provider) {
+		Class<?>[] parameterTypes = instantiators.get(entity.getType().getName()).parameterTypes;
+		if (provider == null || parameterTypes.length == 0) {
+			return EMPTY_ARGS;
+		}
+		Object[] arguments = new Object[parameterTypes.length];
+		int i = 0;
+		for (Parameter<?, P> parameter : entity.getPersistenceConstructor().getParameters()) {
+			Object value = provider.getParameterValue(parameter);
+			arguments[i] = value == null && parameterTypes[i].isPrimitive() ? defaultValue(parameterTypes[i]) : value;
+			i++;
+		}
+		return arguments;
+	}
+
+	private static Object defaultValue(Class<?> primitiveType) {
+		if (primitiveType == boolean.class) {
+			return Boolean.FALSE;
+		} else if (primitiveType == char.class) {
+			return Character.valueOf('\0');
+		} else if (primitiveType == long.class) {
+			return Long.valueOf(0L);
+		} else if (primitiveType == float.class) {
+			return Float.valueOf(0f);
+		} else if (primitiveType == double.class) {
+			return Double.valueOf(0d);
+		} else if (primitiveType == byte.class) {
+			return Byte.valueOf((byte) 0);
+		} else if (primitiveType == short.class) {
+			return Short.valueOf((short) 0);
+		}
+		return Integer.valueOf(0);
+	}
+
+}
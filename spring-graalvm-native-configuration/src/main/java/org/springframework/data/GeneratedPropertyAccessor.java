@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data;
+
+import java.lang.reflect.Field;
+
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.PersistentProperty;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.model.PersistentPropertyAccessorFactory;
+
+import sun.misc.Unsafe;
+
+/**
+ * Base class of the property accessors generated while building the image (see
+ * {@link PropertyAccessorGenerator}). Generated subclasses read and write the fields of the entity directly,
+ * or through {@link Unsafe} for fields they cannot access, and hand properties they do not know (or that use
+ * property access) to the accessor the fallback factory creates for the bean.
+ */
+public abstract class GeneratedPropertyAccessor<T> implements PersistentPropertyAccessor<T> {
+
+	protected static final Unsafe UNSAFE;
+
+	static {
+		try {
+			Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			UNSAFE = (Unsafe) field.get(null);
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to access Unsafe", e);
+		}
+	}
+
+	protected final T bean;
+
+	private final PersistentEntity<?, ?> entity;
+
+	private final PersistentPropertyAccessorFactory fallbackFactory;
+
+	private PersistentPropertyAccessor<T> fallback;
+
+	protected GeneratedPropertyAccessor(T bean, PersistentEntity<?, ?> entity,
+			PersistentPropertyAccessorFactory fallbackFactory) {
+		this.bean = bean;
+		this.entity = entity;
+		this.fallbackFactory = fallbackFactory;
+	}
+
+	/**
+	 * @return an accessor of the same generated class for the bean
+	 */
+	public abstract GeneratedPropertyAccessor<T> newAccessor(T bean, PersistentEntity<?, ?> entity,
+			PersistentPropertyAccessorFactory fallbackFactory);
+
+	@Override
+	public T getBean() {
+		return bean;
+	}
+
+	protected Object getPropertyReflectively(PersistentProperty<?> property) {
+		return fallback().getProperty(property);
+	}
+
+	protected void setPropertyReflectively(PersistentProperty<?> property, Object value) {
+		fallback().setProperty(property, value);
+	}
+
+	private PersistentPropertyAccessor<T> fallback() {
+		if (fallback == null) {
+			fallback = fallbackFactory.getPropertyAccessor(entity, bean);
+		}
+		return fallback;
+	}
+
+	/**
+	 * Called when the offsets of the fields a generated accessor uses are computed, at image runtime.
+	 */
+	public static long offset(Class<?> type, String fieldName) {
+		try {
+			return UNSAFE.objectFieldOffset(type.getDeclaredField(fieldName));
+		} catch (NoSuchFieldException nsfe) {
+			throw new IllegalStateException("Unable to find field " + type.getName() + "." + fieldName, nsfe);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.model.PersistentPropertyAccessorFactory;
+
+/**
+ * Creates the property accessors generated while building the image (see {@link PropertyAccessorGenerator}),
+ * standing in for ClassGeneratingPropertyAccessorFactory. Entities without a generated accessor get the one
+ * from the delegate factory. The class is initialized at build time so the accessors registered during the
+ * build are part of the image heap.
+ */
+public class GeneratedPropertyAccessorFactory implements PersistentPropertyAccessorFactory {
+
+	// Keyed by type name, the hash code of a Class may not be the same at image runtime
+	private static final Map<String, GeneratedPropertyAccessor<?>> prototypes = new ConcurrentHashMap<>();
+
+	private final PersistentPropertyAccessorFactory delegate;
+
+	public GeneratedPropertyAccessorFactory(PersistentPropertyAccessorFactory delegate) {
+		this.delegate = delegate;
+	}
+
+	static void register(Class<?> type, GeneratedPropertyAccessor<?> prototype) {
+		prototypes.put(type.getName(), prototype);
+	}
+
+	static boolean isRegistered(Class<?> type) {
+		return prototypes.containsKey(type.getName());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> PersistentPropertyAccessor<T> getPropertyAccessor(PersistentEntity<?, ?> entity, T bean) {
+		GeneratedPropertyAccessor<T> prototype = (GeneratedPropertyAccessor<T>) prototypes.get(entity.getType().getName());
+		if (prototype == null || bean == null) {
+			return delegate.getPropertyAccessor(entity, bean);
+		}
+		return prototype.newAccessor(bean, entity, delegate);
+	}
+
+	@Override
+	public boolean isSupported(PersistentEntity<?, ?> entity) {
+		return true;
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.ClassUtils;
+
+/**
+ * The query methods of repositories parsed while building the image. The class is initialized at build time
+ * so the parsed {@link PartTree}s are part of the image heap, the substituted PartTree constructor takes the
+ * subject and predicate of the tree parsed for the same method name and domain type instead of parsing the
+ * method name again at startup. Only trees made of instances of the {@link #BUILD_TIME_CLASSES} are kept.
+ */
+public class ParsedPartTrees {
+
+	/**
+	 * The classes initialized at build time so parsed trees can be part of the image heap: those of the objects
+	 * a tree holds, and those of the caches filled while parsing (held by static fields of PropertyPath and
+	 * ClassTypeInformation). Their static initializers only create constants and empty caches.
+	 */
+	static final List<String> BUILD_TIME_CLASSES = Collections.unmodifiableList(Arrays.asList(
+			"org.springframework.data.repository.query.parser.PartTree",
+			"org.springframework.data.repository.query.parser.PartTree$Subject",
+			"org.springframework.data.repository.query.parser.PartTree$Predicate",
+			"org.springframework.data.repository.query.parser.PartTree$OrPart",
+			"org.springframework.data.repository.query.parser.Part",
+			"org.springframework.data.repository.query.parser.Part$Type",
+			"org.springframework.data.repository.query.parser.Part$IgnoreCaseType",
+			"org.springframework.data.repository.query.parser.OrderBySource",
+			"org.springframework.data.domain.Sort$Order",
+			"org.springframework.data.domain.Sort$Direction",
+			"org.springframework.data.domain.Sort$NullHandling",
+			"org.springframework.data.mapping.PropertyPath",
+			"org.springframework.data.mapping.PropertyPath$Key",
+			"org.springframework.data.util.TypeDiscoverer",
+			"org.springframework.data.util.ClassTypeInformation",
+			"org.springframework.data.util.ParentTypeAwareTypeInformation",
+			"org.springframework.data.util.ParameterizedTypeInformation",
+			"org.springframework.data.util.TypeVariableTypeInformation",
+			"org.springframework.data.util.GenericArrayTypeInformation",
+			"org.springframework.data.util.Lazy",
+			"org.springframework.util.ConcurrentReferenceHashMap",
+			"org.springframework.util.ConcurrentReferenceHashMap$Segment",
+			"org.springframework.util.ConcurrentReferenceHashMap$ReferenceManager",
+			"org.springframework.util.ConcurrentReferenceHashMap$ReferenceType",
+			"org.springframework.util.ConcurrentReferenceHashMap$SoftEntryReference",
+			"org.springframework.util.ConcurrentReferenceHashMap$WeakEntryReference",
+			"org.springframework.util.ConcurrentReferenceHashMap$Entry"));
+
+	// Keyed by domain type name and method name, the hash code of a Class may not be the same at image runtime
+	private static final Map<String, PartTree> partTrees = new ConcurrentHashMap<>();
+
+	/**
+	 * Parse the name of a query method as the repository infrastructure does when creating the query.
+	 * @return the parsed tree
+	 * @throws RuntimeException if the name cannot be parsed for the domain type (for example it names a
+	 * property the domain type does not have), or the tree holds an instance of a class that is not one of the
+	 * {@link #BUILD_TIME_CLASSES}, the query is then parsed at image runtime as usual
+	 */
+	static PartTree parse(String methodName, Class<?> domainClass) {
+		return partTrees.computeIfAbsent(key(methodName, domainClass), key -> {
+			PartTree partTree = new PartTree(methodName, domainClass);
+			checkBuildTimeClasses(partTree);
+			return partTree;
+		});
+	}
+
+	/**
+	 * @throws IllegalStateException if an object reachable from the root is an instance of a class that is not
+	 * one of the {@link #BUILD_TIME_CLASSES}
+	 */
+	static void checkBuildTimeClasses(Object root) {
+		for (Class<?> type : reachableClasses(root)) {
+			if (!BUILD_TIME_CLASSES.contains(type.getName())) {
+				throw new IllegalStateException("Holds an instance of " + type.getName()
+						+ ", which is not known to be safe to initialize at build time");
+			}
+		}
+	}
+
+	/**
+	 * @return those of the {@link #BUILD_TIME_CLASSES} that are on the classpath
+	 */
+	static List<Class<?>> getBuildTimeClasses() {
+		List<Class<?>> classes = new ArrayList<>();
+		ClassLoader classLoader = ParsedPartTrees.class.getClassLoader();
+		for (String name : BUILD_TIME_CLASSES) {
+			if (ClassUtils.isPresent(name, classLoader)) {
+				classes.add(ClassUtils.resolveClassName(name, classLoader));
+			}
+		}
+		return classes;
+	}
+
+	static boolean isParsed(String methodName, Class<?> domainClass) {
+		return partTrees.containsKey(key(methodName, domainClass));
+	}
+
+	/**
+	 * @return the tree parsed for the method name and domain type while building the image, or null
+	 */
+	public static PartTree get(String methodName, Class<?> domainClass) {
+		return partTrees.get(key(methodName, domainClass));
+	}
+
+	private static String key(String methodName, Class<?> domainClass) {
+		return domainClass.getName() + "#" + methodName;
+	}
+
+	/**
+	 * The classes of the objects reachable from a parsed tree (the parts, property paths, type information...),
+	 * outside the JDK. Instances of a class can only be in the image heap if the class is initialized at build
+	 * time. Objects of JDK classes are not looked into, except collections, maps and optionals, nor are static
+	 * fields.
+	 */
+	static Set<Class<?>> reachableClasses(Object root) {
+		Set<Class<?>> classes = new LinkedHashSet<>();
+		Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Object> pending = new ArrayDeque<>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			Object object = pending.pop();
+			if (!seen.add(object)) {
+				continue;
+			}
+			Class<?> type = object.getClass();
+			if (type.isArray()) {
+				if (!type.getComponentType().isPrimitive()) {
+					for (int i = 0, length = Array.getLength(object); i < length; i++) {
+						push(pending, Array.get(object, i));
+					}
+				}
+			} else if (isJdkType(type)) {
+				if (object instanceof Collection) {
+					((Collection<?>) object).forEach(element -> push(pending, element));
+				} else if (object instanceof Map) {
+					((Map<?, ?>) object).forEach((k, v) -> {
+						push(pending, k);
+						push(pending, v);
+					});
+				} else if (object instanceof Optional) {
+					((Optional<?>) object).ifPresent(pending::push);
+				}
+			} else {
+				for (Class<?> current = type; current != null && !isJdkType(current); current = current.getSuperclass()) {
+					if (!current.isSynthetic() && !current.getName().contains("$$Lambda")) {
+						classes.add(current);
+					}
+					for (Field field : current.getDeclaredFields()) {
+						if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+							continue;
+						}
+						try {
+							field.setAccessible(true);
+							push(pending, field.get(object));
+						} catch (Exception e) {
+							throw new IllegalStateException("Unable to read " + field + " of a parsed query method", e);
+						}
+					}
+				}
+			}
+		}
+		return classes;
+	}
+
+	private static void push(Deque<Object> pending, Object object) {
+		if (object != null) {
+			pending.push(object);
+		}
+	}
+
+	private static boolean isJdkType(Class<?> type) {
+		String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.")
+				|| name.startsWith("com.sun.");
+	}
+
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.cglib.core.ReflectUtils;
+
+/**
+ * Generates, while building the image, a property accessor for an entity that reads and writes its fields
+ * without reflection: non private fields declared by the entity are accessed directly, other fields through
+ * Unsafe using offsets held by a second generated class, whose initialization must run again at image
+ * runtime. The generated classes are defined next to the entity (same package and class loader) and the
+ * accessor registered with {@link GeneratedPropertyAccessorFactory}. Properties using property access, and
+ * fields that cannot be accessed from the package of the entity, are left to the fallback accessor, as is
+ * setting final fields (it uses a wither or rejects the change).
+ */
+class PropertyAccessorGenerator {
+
+	static final String SUFFIX = "_NativeAccessor";
+
+	static final String OFFSETS_SUFFIX = "_NativeAccessorOffsets";
+
+	private static final String GENERATED_PROPERTY_ACCESSOR = Type.getInternalName(GeneratedPropertyAccessor.class);
+
+	private static final String PERSISTENT_PROPERTY = "org/springframework/data/mapping/PersistentProperty";
+
+	private static final String UNSAFE = "sun/misc/Unsafe";
+
+	private static final String CONSTRUCTOR_DESCRIPTOR = "(Ljava/lang/Object;Lorg/springframework/data/mapping/PersistentEntity;Lorg/springframework/data/mapping/model/PersistentPropertyAccessorFactory;)V";
+
+	private static final String NEW_ACCESSOR_DESCRIPTOR = "(Ljava/lang/Object;Lorg/springframework/data/mapping/PersistentEntity;Lorg/springframework/data/mapping/model/PersistentPropertyAccessorFactory;)L"
+			+ GENERATED_PROPERTY_ACCESSOR + ";";
+
+	private static final String GET_PROPERTY_DESCRIPTOR = "(L" + PERSISTENT_PROPERTY + ";)Ljava/lang/Object;";
+
+	private static final String SET_PROPERTY_DESCRIPTOR = "(L" + PERSISTENT_PROPERTY + ";Ljava/lang/Object;)V";
+
+	/**
+	 * The classes generated for an entity.
+	 */
+	static class GeneratedAccessor {
+
+		private final Class<?> accessorClass;
+
+		private final Class<?> offsetsClass;
+
+		private final List<Field> unsafeAccessedFields;
+
+		GeneratedAccessor(Class<?> accessorClass, Class<?> offsetsClass, List<Field> unsafeAccessedFields) {
+			this.accessorClass = accessorClass;
+			this.offsetsClass = offsetsClass;
+			this.unsafeAccessedFields = unsafeAccessedFields;
+		}
+
+		Class<?> getAccessorClass() {
+			return accessorClass;
+		}
+
+		/**
+		 * @return the class computing the field offsets, null if no field is accessed through Unsafe
+		 */
+		Class<?> getOffsetsClass() {
+			return offsetsClass;
+		}
+
+		List<Field> getUnsafeAccessedFields() {
+			return unsafeAccessedFields;
+		}
+
+	}
+
+	/**
+	 * A field of the entity and how the generated accessor reaches it.
+	 */
+	static class Accessed {
+
+		final Field field;
+
+		// Index of the field offset in the offsets class, -1 if the field is accessed directly
+		final int offset;
+
+		Accessed(Field field, int offset) {
+			this.field = field;
+			this.offset = offset;
+		}
+
+	}
+
+	/**
+	 * Generate, define and register the property accessor for a type.
+	 * @return the generated classes, or null if the type has no field the accessor could reach
+	 */
+	static GeneratedAccessor generate(Class<?> type) throws Exception {
+		if (type.isInterface() || type.isArray() || type.isEnum() || type.isPrimitive()
+				|| Modifier.isPrivate(type.getModifiers()) || type.getName().contains("$$")) {
+			return null;
+		}
+		List<Accessed> fields = collectFields(type);
+		if (fields.isEmpty()) {
+			return null;
+		}
+		String accessorName = type.getName() + SUFFIX;
+		String offsetsName = type.getName() + OFFSETS_SUFFIX;
+		List<Field> unsafeAccessedFields = new ArrayList<>();
+		for (Accessed accessed : fields) {
+			if (accessed.offset != -1) {
+				unsafeAccessedFields.add(accessed.field);
+			}
+		}
+		Class<?> offsetsClass = null;
+		if (!unsafeAccessedFields.isEmpty()) {
+			offsetsClass = ReflectUtils.defineClass(offsetsName,
+					generateOffsets(offsetsName.replace('.', '/'), unsafeAccessedFields), type.getClassLoader(),
+					type.getProtectionDomain(), type);
+		}
+		byte[] bytes = generate(accessorName.replace('.', '/'), offsetsName.replace('.', '/'), type, fields);
+		Class<?> accessorClass = ReflectUtils.defineClass(accessorName, bytes, type.getClassLoader(),
+				type.getProtectionDomain(), type);
+		GeneratedPropertyAccessor<?> prototype = (GeneratedPropertyAccessor<?>) accessorClass
+				.getDeclaredConstructors()[0].newInstance(null, null, null);
+		GeneratedPropertyAccessorFactory.register(type, prototype);
+		return new GeneratedAccessor(accessorClass, offsetsClass, unsafeAccessedFields);
+	}
+
+	/**
+	 * The instance fields of the type and its superclasses, a field hiding one of a superclass wins as it
+	 * does for the reflective accessor.
+	 */
+	static List<Accessed> collectFields(Class<?> type) {
+		List<Accessed> fields = new ArrayList<>();
+		Set<String> names = new HashSet<>();
+		int offsets = 0;
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || field.isSynthetic() || !names.add(field.getName())) {
+					continue;
+				}
+				if (!isAccessible(field.getType(), type)) {
+					continue;
+				}
+				if (current == type && !Modifier.isPrivate(modifiers)) {
+					fields.add(new Accessed(field, -1));
+				} else if (!Modifier.isVolatile(modifiers) && isAccessible(current, type)) {
+					fields.add(new Accessed(field, offsets++));
+				}
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * @return true if code in the package of the entity can name the type
+	 */
+	private static boolean isAccessible(Class<?> type, Class<?> entity) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive() || Modifier.isPublic(type.getModifiers())) {
+			return true;
+		}
+		return !Modifier.isPrivate(type.getModifiers()) && type.getClassLoader() == entity.getClassLoader()
+				&& packageName(type).equals(packageName(entity));
+	}
+
+	private static String packageName(Class<?> type) {
+		String name = type.getName();
+		int lastDot = name.lastIndexOf('.');
+		return lastDot == -1 ? "" : name.substring(0, lastDot);
+	}
+
+	/**
+	 * <pre>
+	 * public final class Entity_NativeAccessorOffsets {
+	 *     static final long o0 = GeneratedPropertyAccessor.offset(Entity.class, "name");
+	 *     ...
+	 * }
+	 * </pre>
+	 */
+	static byte[] generateOffsets(String slashedClassName, List<Field> fields) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, slashedClassName, null,
+				"java/lang/Object", null);
+		for (int i = 0; i < fields.size(); i++) {
+			cw.visitField(Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "o" + i, "J", null, null).visitEnd();
+		}
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		mv.visitCode();
+		for (int i = 0; i < fields.size(); i++) {
+			mv.visitLdcInsn(Type.getType(fields.get(i).getDeclaringClass()));
+			mv.visitLdcInsn(fields.get(i).getName());
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, GENERATED_PROPERTY_ACCESSOR, "offset", "(Ljava/lang/Class;Ljava/lang/String;)J", false);
+			mv.visitFieldInsn(Opcodes.PUTSTATIC, slashedClassName, "o" + i, "J");
+		}
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * <pre>
+	 * public final class Entity_NativeAccessor extends GeneratedPropertyAccessor {
+	 *     public Object getProperty(PersistentProperty property) {
+	 *         if (property.usePropertyAccess()) {
+	 *             return getPropertyReflectively(property);
+	 *         }
+	 *         switch (property.getName()) {
+	 *         case "id": return ((Entity) bean).id;
+	 *         case "name": return UNSAFE.getObject(bean, Entity_NativeAccessorOffsets.o0);
+	 *         case "count": return Integer.valueOf(UNSAFE.getInt(bean, Entity_NativeAccessorOffsets.o1));
+	 *         default: return getPropertyReflectively(property);
+	 *         }
+	 *     }
+	 *     // setProperty alike for non final fields, values not of the field type (null for a primitive field,
+	 *     // an Integer for a long field...) are also set reflectively so they are converted or rejected alike
+	 * }
+	 * </pre>
+	 * The switch compiles as javac compiles a switch on strings.
+	 */
+	static byte[] generate(String slashedClassName, String slashedOffsetsName, Class<?> type, List<Accessed> fields) {
+		// Version without stack map frames, as the classes Spring Data generates
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, slashedClassName, null,
+				GENERATED_PROPERTY_ACCESSOR, null);
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitVarInsn(Opcodes.ALOAD, 3);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, GENERATED_PROPERTY_ACCESSOR, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "newAccessor", NEW_ACCESSOR_DESCRIPTOR, null, null);
+		mv.visitCode();
+		mv.visitTypeInsn(Opcodes.NEW, slashedClassName);
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitVarInsn(Opcodes.ALOAD, 3);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, slashedClassName, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		String entityName = Type.getInternalName(type);
+
+		// getProperty(property): this=0, property=1, name=2
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "getProperty", GET_PROPERTY_DESCRIPTOR, null, null);
+		mv.visitCode();
+		Label fallback = new Label();
+		Label[] fieldLabels = visitDispatch(mv, fields, 2, fallback);
+		for (int i = 0; i < fields.size(); i++) {
+			Accessed accessed = fields.get(i);
+			Class<?> fieldType = accessed.field.getType();
+			mv.visitLabel(fieldLabels[i]);
+			if (accessed.offset == -1) {
+				visitBean(mv, entityName);
+				mv.visitFieldInsn(Opcodes.GETFIELD, entityName, accessed.field.getName(), Type.getDescriptor(fieldType));
+			} else {
+				mv.visitFieldInsn(Opcodes.GETSTATIC, GENERATED_PROPERTY_ACCESSOR, "UNSAFE", "L" + UNSAFE + ";");
+				visitBean(mv, null);
+				mv.visitFieldInsn(Opcodes.GETSTATIC, slashedOffsetsName, "o" + accessed.offset, "J");
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, UNSAFE, "get" + unsafeSuffix(fieldType),
+						"(Ljava/lang/Object;J)" + unsafeDescriptor(fieldType), false);
+			}
+			visitBoxing(mv, fieldType);
+			mv.visitInsn(Opcodes.ARETURN);
+		}
+		mv.visitLabel(fallback);
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, GENERATED_PROPERTY_ACCESSOR, "getPropertyReflectively", GET_PROPERTY_DESCRIPTOR, false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// setProperty(property, value): this=0, property=1, value=2, name=3
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "setProperty", SET_PROPERTY_DESCRIPTOR, null, null);
+		mv.visitCode();
+		fallback = new Label();
+		List<Accessed> writable = new ArrayList<>();
+		for (Accessed accessed : fields) {
+			if (!Modifier.isFinal(accessed.field.getModifiers())) {
+				writable.add(accessed);
+			}
+		}
+		fieldLabels = visitDispatch(mv, writable, 3, fallback);
+		for (int i = 0; i < writable.size(); i++) {
+			Accessed accessed = writable.get(i);
+			Class<?> fieldType = accessed.field.getType();
+			mv.visitLabel(fieldLabels[i]);
+			visitTypeCheck(mv, fieldType, fallback);
+			if (accessed.offset == -1) {
+				visitBean(mv, entityName);
+				mv.visitVarInsn(Opcodes.ALOAD, 2);
+				visitUnboxing(mv, fieldType);
+				mv.visitFieldInsn(Opcodes.PUTFIELD, entityName, accessed.field.getName(), Type.getDescriptor(fieldType));
+			} else {
+				mv.visitFieldInsn(Opcodes.GETSTATIC, GENERATED_PROPERTY_ACCESSOR, "UNSAFE", "L" + UNSAFE + ";");
+				visitBean(mv, null);
+				mv.visitFieldInsn(Opcodes.GETSTATIC, slashedOffsetsName, "o" + accessed.offset, "J");
+				mv.visitVarInsn(Opcodes.ALOAD, 2);
+				visitUnboxing(mv, fieldType);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, UNSAFE, "put" + unsafeSuffix(fieldType),
+						"(Ljava/lang/Object;J" + unsafeDescriptor(fieldType) + ")V", false);
+			}
+			mv.visitInsn(Opcodes.RETURN);
+		}
+		mv.visitLabel(fallback);
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, GENERATED_PROPERTY_ACCESSOR, "setPropertyReflectively", SET_PROPERTY_DESCRIPTOR, false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Jump to the label of the field named as the property (or to the fallback when the property uses property
+	 * access or names no field): a lookupswitch on the hash code of the name then a comparison with each field
+	 * name having that hash code.
+	 */
+	private static Label[] visitDispatch(MethodVisitor mv, List<Accessed> fields, int nameSlot, Label fallback) {
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, PERSISTENT_PROPERTY, "usePropertyAccess", "()Z", true);
+		mv.visitJumpInsn(Opcodes.IFNE, fallback);
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, PERSISTENT_PROPERTY, "getName", "()Ljava/lang/String;", true);
+		mv.visitVarInsn(Opcodes.ASTORE, nameSlot);
+
+		Label[] fieldLabels = new Label[fields.size()];
+		Map<Integer, List<Integer>> byHash = new TreeMap<>();
+		for (int i = 0; i < fields.size(); i++) {
+			fieldLabels[i] = new Label();
+			byHash.computeIfAbsent(fields.get(i).field.getName().hashCode(), k -> new ArrayList<>()).add(i);
+		}
+		int[] keys = new int[byHash.size()];
+		Label[] hashLabels = new Label[byHash.size()];
+		int k = 0;
+		for (Integer hash : byHash.keySet()) {
+			keys[k] = hash;
+			hashLabels[k++] = new Label();
+		}
+		mv.visitVarInsn(Opcodes.ALOAD, nameSlot);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
+		mv.visitLookupSwitchInsn(fallback, keys, hashLabels);
+		k = 0;
+		for (List<Integer> sameHash : byHash.values()) {
+			mv.visitLabel(hashLabels[k++]);
+			for (int i : sameHash) {
+				mv.visitVarInsn(Opcodes.ALOAD, nameSlot);
+				mv.visitLdcInsn(fields.get(i).field.getName());
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+				mv.visitJumpInsn(Opcodes.IFNE, fieldLabels[i]);
+			}
+			mv.visitJumpInsn(Opcodes.GOTO, fallback);
+		}
+		return fieldLabels;
+	}
+
+	/**
+	 * Jump to the fallback unless the value is of the field type (or null for a reference type), which also
+	 * keeps Unsafe from storing a value of the wrong type.
+	 */
+	private static void visitTypeCheck(MethodVisitor mv, Class<?> fieldType, Label fallback) {
+		if (fieldType == Object.class) {
+			return;
+		}
+		Label checked = new Label();
+		if (!fieldType.isPrimitive()) {
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitJumpInsn(Opcodes.IFNULL, checked);
+		}
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitTypeInsn(Opcodes.INSTANCEOF, Type.getInternalName(fieldType.isPrimitive() ? boxedType(fieldType) : fieldType));
+		mv.visitJumpInsn(Opcodes.IFEQ, fallback);
+		mv.visitLabel(checked);
+	}
+
+	private static void visitBean(MethodVisitor mv, String entityName) {
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitFieldInsn(Opcodes.GETFIELD, GENERATED_PROPERTY_ACCESSOR, "bean", "Ljava/lang/Object;");
+		if (entityName != null) {
+			mv.visitTypeInsn(Opcodes.CHECKCAST, entityName);
+		}
+	}
+
+	private static String unsafeSuffix(Class<?> fieldType) {
+		if (!fieldType.isPrimitive()) {
+			return "Object";
+		}
+		String name = fieldType.getName();
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static String unsafeDescriptor(Class<?> fieldType) {
+		return fieldType.isPrimitive() ? Type.getDescriptor(fieldType) : "Ljava/lang/Object;";
+	}
+
+	private static void visitBoxing(MethodVisitor mv, Class<?> fieldType) {
+		if (fieldType.isPrimitive()) {
+			Type boxed = Type.getType(boxedType(fieldType));
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, boxed.getInternalName(), "valueOf",
+					"(" + Type.getDescriptor(fieldType) + ")" + boxed.getDescriptor(), false);
+		}
+	}
+
+	private static void visitUnboxing(MethodVisitor mv, Class<?> fieldType) {
+		if (!fieldType.isPrimitive()) {
+			if (fieldType != Object.class) {
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(fieldType));
+			}
+			return;
+		}
+		String boxed = Type.getInternalName(boxedType(fieldType));
+		mv.visitTypeInsn(Opcodes.CHECKCAST, boxed);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, boxed, fieldType.getName() + "Value",
+				"()" + Type.getDescriptor(fieldType), false);
+	}
+
+	private static Class<?> boxedType(Class<?> primitiveType) {
+		if (primitiveType == boolean.class) {
+			return Boolean.class;
+		} else if (primitiveType == char.class) {
+			return Character.class;
+		} else if (primitiveType == long.class) {
+			return Long.class;
+		} else if (primitiveType == float.class) {
+			return Float.class;
+		} else if (primitiveType == double.class) {
+			return Double.class;
+		} else if (primitiveType == byte.class) {
+			return Byte.class;
+		} else if (primitiveType == short.class) {
+			return Short.class;
+		}
+		return Integer.class;
+	}
+
+}
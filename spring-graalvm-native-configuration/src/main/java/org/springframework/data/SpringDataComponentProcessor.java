@@ -15,6 +15,7 @@
  */
 package org.springframework.data;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -30,9 +31,11 @@ import org.springframework.data.repository.Repository;
 import org.springframework.graalvm.domain.reflect.Flag;
 import org.springframework.graalvm.extension.ComponentProcessor;
 import org.springframework.graalvm.extension.NativeImageContext;
+import org.springframework.graalvm.support.ConfigOptions;
 import org.springframework.graalvm.type.Method;
 import org.springframework.graalvm.type.Type;
 import org.springframework.graalvm.type.TypeSystem;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 // This is an example from the mongodb sample.
@@ -144,6 +147,9 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 
 	private final SpringDataComponentLog log = SpringDataComponentLog.instance();
 	private Set<String> keysSeen = new HashSet<>();
+	private boolean instantiatorsInitialized = false;
+	private boolean accessorsInitialized = false;
+	private boolean partTreesInitialized = false;
 
 	static {
 		try {
@@ -186,6 +192,9 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 			registerRepositoryInterface(repositoryType, imageContext);
 			registerDomainType(repositoryDomainType, imageContext);
 			registerQueryMethodResultTypes(repositoryType, repositoryDomainType, imageContext);
+			if (ConfigOptions.shouldParseQueryMethods()) {
+				parseQueryMethods(repositoryType, repositoryDomainType, imageContext);
+			}
 			detectCustomRepositoryImplementations(repositoryType, imageContext);
 		} catch (Throwable t) {
 			System.out.println("WARNING: Problem with SpringDataComponentProcessor: " + t.getMessage());
@@ -288,6 +297,43 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 		}
 	}
 
+	private void parseQueryMethods(Type repositoryType, Type repositoryDomainType, NativeImageContext imageContext) {
+
+		Class<?> domainClass;
+		try {
+			domainClass = ClassUtils.forName(repositoryDomainType.getDottedName(), getClass().getClassLoader());
+		} catch (Throwable t) {
+			System.out.println(LOG_PREFIX + "WARNING: Unable to load " + repositoryDomainType.getDottedName()
+					+ ", query methods of " + repositoryType.getDottedName() + " will be parsed at startup: " + t);
+			return;
+		}
+
+		// Methods with a query annotation do not derive their query from the method name
+		Set<String> annotatedMethodNames = new HashSet<>();
+		repositoryType.getMethodsWithAnnotationName(queryAnnotationName, true).forEach(m -> annotatedMethodNames.add(m.getName()));
+
+		for (Method method : repositoryType.getMethods(this::isQueryMethod)) {
+
+			String methodName = method.getName();
+			if (annotatedMethodNames.contains(methodName) || ParsedPartTrees.isParsed(methodName, domainClass)) {
+				continue;
+			}
+
+			try {
+
+				ParsedPartTrees.parse(methodName, domainClass);
+				if (!partTreesInitialized) {
+					imageContext.initializeAtBuildTime(ParsedPartTrees.class);
+					ParsedPartTrees.getBuildTimeClasses().forEach(imageContext::initializeAtBuildTime);
+					partTreesInitialized = true;
+				}
+				log.queryMethodParsed(repositoryType, methodName);
+			} catch (Throwable t) {
+				log.message(String.format("Not parsing '%s#%s', it will be parsed at startup: %s", repositoryType.getDottedName(), methodName, t.getMessage()));
+			}
+		}
+	}
+
 	private boolean isProjectionInterface(Type repositoryDomainType, Type signatureType) {
 		return signatureType.isInterface() && !signatureType.isPartOfDomain("java.") && !isPartOfSpringData(signatureType) && !signatureType.isAssignableFrom(repositoryDomainType);
 	}
@@ -320,6 +366,14 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 		imageContext.addReflectiveAccess(domainType.getDottedName(), Flag.allDeclaredMethods,
 				Flag.allDeclaredConstructors, Flag.allDeclaredFields);
 
+		if (ConfigOptions.shouldGenerateEntityInstantiators() && !domainType.isInterface() && !domainType.isPartOfDomain("java.")) {
+			generateEntityInstantiator(domainType, imageContext);
+		}
+
+		if (ConfigOptions.shouldGeneratePropertyAccessors() && !domainType.isInterface() && !domainType.isPartOfDomain("java.")) {
+			generatePropertyAccessor(domainType, imageContext);
+		}
+
 		domainType.getAnnotations().forEach(it -> registerSpringDataAnnotation(it, imageContext));
 
 		domainType.getFields().forEach(field -> {
@@ -349,6 +403,68 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 		}
 	}
 
+	private void generateEntityInstantiator(Type domainType, NativeImageContext imageContext) {
+
+		try {
+
+			Class<?> type = ClassUtils.forName(domainType.getDottedName(), getClass().getClassLoader());
+			if (GeneratedEntityInstantiators.isRegistered(type)) {
+				return;
+			}
+
+			Class<?> instantiator = EntityInstantiatorGenerator.generate(type);
+			if (instantiator == null) {
+				log.message(String.format("Not generating an instantiator for '%s', it will be created reflectively.", domainType.getDottedName()));
+				return;
+			}
+
+			if (!instantiatorsInitialized) {
+				imageContext.initializeAtBuildTime(GeneratedEntityInstantiators.class);
+				instantiatorsInitialized = true;
+			}
+			imageContext.initializeAtBuildTime(instantiator);
+			log.instantiatorGenerated(domainType, instantiator);
+		} catch (Throwable t) {
+			System.out.println(LOG_PREFIX + "WARNING: Unable to generate an instantiator for " + domainType.getDottedName()
+					+ ", it will be created reflectively: " + t);
+		}
+	}
+
+	private void generatePropertyAccessor(Type domainType, NativeImageContext imageContext) {
+
+		try {
+
+			Class<?> type = ClassUtils.forName(domainType.getDottedName(), getClass().getClassLoader());
+			if (GeneratedPropertyAccessorFactory.isRegistered(type)) {
+				return;
+			}
+
+			PropertyAccessorGenerator.GeneratedAccessor accessor = PropertyAccessorGenerator.generate(type);
+			if (accessor == null) {
+				log.message(String.format("Not generating a property accessor for '%s', its properties will be accessed reflectively.", domainType.getDottedName()));
+				return;
+			}
+
+			if (!accessorsInitialized) {
+				imageContext.initializeAtBuildTime(GeneratedPropertyAccessor.class);
+				imageContext.initializeAtBuildTime(GeneratedPropertyAccessorFactory.class);
+				accessorsInitialized = true;
+			}
+			imageContext.initializeAtBuildTime(accessor.getAccessorClass());
+			if (accessor.getOffsetsClass() != null) {
+				// Offsets computed while building the image are not those of the image
+				imageContext.rerunInitialization(accessor.getOffsetsClass());
+				for (Field field : accessor.getUnsafeAccessedFields()) {
+					imageContext.addFieldAccess(field.getDeclaringClass().getName(), field.getName(), true, true);
+				}
+			}
+			log.propertyAccessorGenerated(domainType, accessor.getAccessorClass());
+		} catch (Throwable t) {
+			System.out.println(LOG_PREFIX + "WARNING: Unable to generate a property accessor for " + domainType.getDottedName()
+					+ ", its properties will be accessed reflectively: " + t);
+		}
+	}
+
 	protected boolean isQueryMethod(Method m) {
 		return REPOSITORY_METHOD_PATTERN.matcher(m.getName()).matches();
 	}
@@ -407,6 +523,9 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 		private final HashMap<Type, Type> repositoryInterfaces = new LinkedHashMap<>();
 		private final Set<Type> annotations = new LinkedHashSet<>();
 		private final Set<Type> customImplementations = new LinkedHashSet<>();
+		private final Set<Type> instantiators = new LinkedHashSet<>();
+		private final Set<Type> propertyAccessors = new LinkedHashSet<>();
+		private int queryMethodsParsed = 0;
 
 		private SpringDataComponentLog(boolean verbose) {
 			this.verbose = verbose;
@@ -442,6 +561,24 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 			message(String.format("Registering custom repository implementation '%s' for '%s'.", customImplementation.getDottedName(), repositoryInterface.getDottedName()));
 		}
 
+		void instantiatorGenerated(Type domainType, Class<?> instantiator) {
+
+			instantiators.add(domainType);
+			message(String.format("Generated instantiator '%s' for '%s'.", instantiator.getName(), domainType.getDottedName()));
+		}
+
+		void propertyAccessorGenerated(Type domainType, Class<?> accessor) {
+
+			propertyAccessors.add(domainType);
+			message(String.format("Generated property accessor '%s' for '%s'.", accessor.getName(), domainType.getDottedName()));
+		}
+
+		void queryMethodParsed(Type repositoryType, String methodName) {
+
+			queryMethodsParsed++;
+			message(String.format("Parsed query method '%s#%s'.", repositoryType.getDottedName(), methodName));
+		}
+
 		void printSummary() {
 
 			if(repositoryInterfaces.isEmpty()) {
@@ -451,6 +588,15 @@ public class SpringDataComponentProcessor implements ComponentProcessor {
 
 			System.out.println(String.format(LOG_PREFIX + "Found %s repositories, %s custom implementations and registered %s annotations used by domain types.",
 					repositoryInterfaces.size(), customImplementations.size(), annotations.size()));
+			if (!instantiators.isEmpty()) {
+				System.out.println(String.format(LOG_PREFIX + "Generated instantiators for %s domain types.", instantiators.size()));
+			}
+			if (!propertyAccessors.isEmpty()) {
+				System.out.println(String.format(LOG_PREFIX + "Generated property accessors for %s domain types.", propertyAccessors.size()));
+			}
+			if (queryMethodsParsed > 0) {
+				System.out.println(String.format(LOG_PREFIX + "Parsed %s query methods.", queryMethodsParsed));
+			}
 		}
 	}
 }
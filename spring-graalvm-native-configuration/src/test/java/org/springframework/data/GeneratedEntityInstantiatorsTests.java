@@ -0,0 +1,222 @@
+package org.springframework.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.PersistentProperty;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.PreferredConstructor.Parameter;
+import org.springframework.data.mapping.model.BasicPersistentEntity;
+import org.springframework.data.mapping.model.EntityInstantiator;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+import org.springframework.data.util.ClassTypeInformation;
+
+public class GeneratedEntityInstantiatorsTests {
+
+	@Test
+	public void primitivesAreUnboxed() throws Exception {
+		assertNotNull(EntityInstantiatorGenerator.generate(Primitives.class));
+		PersistentEntity<?, ?> entity = entity(Primitives.class);
+		EntityInstantiator instantiator = GeneratedEntityInstantiators.get(entity);
+		assertTrue(instantiator.getClass().getName().endsWith(EntityInstantiatorGenerator.SUFFIX));
+
+		Map<String, Object> values = new HashMap<>();
+		values.put("name", "n");
+		values.put("count", 1);
+		values.put("total", 2L);
+		values.put("ratio", 3.5d);
+		values.put("active", true);
+		values.put("initial", 'i');
+		values.put("small", (byte) 4);
+		values.put("medium", (short) 5);
+		values.put("fraction", 6.5f);
+		Primitives created = (Primitives) create(instantiator, entity, values);
+		assertEquals(2L, created.total);
+		assertFieldsEqual(instantiate(entity, values), created);
+	}
+
+	@Test
+	public void nullBecomesDefault() throws Exception {
+		assertNotNull(EntityInstantiatorGenerator.generate(Defaults.class));
+		PersistentEntity<?, ?> entity = entity(Defaults.class);
+		Defaults created = (Defaults) create(GeneratedEntityInstantiators.get(entity), entity, new HashMap<>());
+		assertNull(created.name);
+		assertEquals(0, created.count);
+		assertEquals('\0', created.initial);
+		// As when created reflectively
+		assertFieldsEqual(instantiate(entity, new HashMap<>()), created);
+	}
+
+	@Test
+	public void noArgConstructor() throws Exception {
+		assertNotNull(EntityInstantiatorGenerator.generate(NoArgs.class));
+		PersistentEntity<?, ?> entity = entity(NoArgs.class);
+		assertEquals(NoArgs.class, create(GeneratedEntityInstantiators.get(entity), entity, new HashMap<>()).getClass());
+	}
+
+	@Test
+	public void fallbackWhenConstructorDoesNotMatch() throws Exception {
+		PersistentEntity<?, ?> entity = entity(TwoConstructors.class);
+		assertNull(GeneratedEntityInstantiators.get(entity));
+		EntityInstantiator instantiator = new EntityInstantiator() {
+			@Override
+			public <T, E extends PersistentEntity<? extends T, P>, P extends PersistentProperty<P>> T createInstance(
+					E entity, ParameterValueProvider<P> provider) {
+				return null;
+			}
+		};
+		// Registered for a constructor other than the persistence constructor
+		GeneratedEntityInstantiators.register(TwoConstructors.class,
+				TwoConstructors.class.getDeclaredConstructor(String.class), instantiator);
+		assertNull(GeneratedEntityInstantiators.get(entity));
+		GeneratedEntityInstantiators.register(TwoConstructors.class,
+				TwoConstructors.class.getDeclaredConstructor(String.class, int.class), instantiator);
+		assertSame(instantiator, GeneratedEntityInstantiators.get(entity));
+	}
+
+	@Test
+	public void typesLeftToReflection() throws Exception {
+		assertNull(EntityInstantiatorGenerator.generate(Abstract.class));
+		assertNull(EntityInstantiatorGenerator.generate(PrivateConstructor.class));
+		assertNull(EntityInstantiatorGenerator.generate(Inner.class));
+		assertNull(GeneratedEntityInstantiators.get(entity(PrivateConstructor.class)));
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static PersistentEntity<?, ?> entity(Class<?> type) {
+		return new BasicPersistentEntity(ClassTypeInformation.from(type));
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Object create(EntityInstantiator instantiator, PersistentEntity entity, Map<String, Object> values) {
+		ParameterValueProvider provider = new ParameterValueProvider() {
+			@Override
+			public Object getParameterValue(Parameter parameter) {
+				return values.get(parameter.getName());
+			}
+		};
+		return instantiator.createInstance(entity, provider);
+	}
+
+	/**
+	 * Create the entity reflectively, as ReflectionEntityInstantiator does.
+	 */
+	private static Object instantiate(PersistentEntity<?, ?> entity, Map<String, Object> values) {
+		PreferredConstructor<?, ?> constructor = entity.getPersistenceConstructor();
+		Object[] arguments = new Object[constructor.getConstructor().getParameterCount()];
+		int i = 0;
+		for (Parameter<?, ?> parameter : constructor.getParameters()) {
+			arguments[i++] = values.get(parameter.getName());
+		}
+		return BeanUtils.instantiateClass(constructor.getConstructor(), arguments);
+	}
+
+	private static void assertFieldsEqual(Object expected, Object actual) throws Exception {
+		assertEquals(expected.getClass(), actual.getClass());
+		for (Field field : expected.getClass().getDeclaredFields()) {
+			field.setAccessible(true);
+			assertEquals(field.getName(), field.get(expected), field.get(actual));
+		}
+	}
+
+	public static class Primitives {
+
+		final String name;
+
+		final int count;
+
+		final long total;
+
+		final double ratio;
+
+		final boolean active;
+
+		final char initial;
+
+		final byte small;
+
+		final short medium;
+
+		final float fraction;
+
+		Primitives(String name, int count, long total, double ratio, boolean active, char initial, byte small,
+				short medium, float fraction) {
+			this.name = name;
+			this.count = count;
+			this.total = total;
+			this.ratio = ratio;
+			this.active = active;
+			this.initial = initial;
+			this.small = small;
+			this.medium = medium;
+			this.fraction = fraction;
+		}
+
+	}
+
+	public static class Defaults {
+
+		final String name;
+
+		final int count;
+
+		final char initial;
+
+		public Defaults(String name, int count, char initial) {
+			this.name = name;
+			this.count = count;
+			this.initial = initial;
+		}
+
+	}
+
+	public static class NoArgs {
+
+	}
+
+	public static class TwoConstructors {
+
+		final String name;
+
+		final int count;
+
+		public TwoConstructors(String name) {
+			this(name, 0);
+		}
+
+		@PersistenceConstructor
+		public TwoConstructors(String name, int count) {
+			this.name = name;
+			this.count = count;
+		}
+
+	}
+
+	public static abstract class Abstract {
+
+	}
+
+	public static class PrivateConstructor {
+
+		private PrivateConstructor(String name) {
+		}
+
+	}
+
+	public class Inner {
+
+	}
+
+}
@@ -0,0 +1,240 @@
+package org.springframework.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+
+public class ParsedPartTreesTests {
+
+	@Test
+	public void sampleQueryMethods() {
+		Map<String, List<String>> parts = new LinkedHashMap<>();
+		parseQueryMethods(OrderRepository.class, Order.class, parts);
+		parseQueryMethods(PersonRepository.class, Person.class, parts);
+		parseQueryMethods(VisitRepository.class, Visit.class, parts);
+		parseQueryMethods(PetRepository.class, Pet.class, parts);
+		parseQueryMethods(VetRepository.class, Vet.class, parts);
+
+		Map<String, List<String>> expected = new LinkedHashMap<>();
+		expected.put("Order#findByCustomerId", Arrays.asList("customerId SIMPLE_PROPERTY"));
+		expected.put("Order#findBy", Arrays.asList());
+		expected.put("Order#findSliceByCustomerId", Arrays.asList("customerId SIMPLE_PROPERTY"));
+		expected.put("Order#findOrderProjectionByCustomerId", Arrays.asList("customerId SIMPLE_PROPERTY"));
+		expected.put("Person#findByLastname", Arrays.asList("lastname SIMPLE_PROPERTY"));
+		expected.put("Visit#findByPetId", Arrays.asList("petId SIMPLE_PROPERTY"));
+		expected.put("Pet#findById", Arrays.asList("id SIMPLE_PROPERTY"));
+		// A CRUD method, not parsed while building the image
+		expected.put("Vet#findAll", null);
+		assertEquals(expected.keySet(), parts.keySet());
+		expected.forEach((method, expectedParts) -> assertEquals(method, expectedParts, parts.get(method)));
+	}
+
+	@Test
+	public void treeMatchesTheOneParsedAtRuntime() {
+		PartTree partTree = ParsedPartTrees.parse("findDistinctTop3ByCustomerIdAndOrderDateAfterOrderByOrderDateDesc",
+				Order.class);
+		PartTree parsed = new PartTree("findDistinctTop3ByCustomerIdAndOrderDateAfterOrderByOrderDateDesc", Order.class);
+		assertEquals(parsed.toString(), partTree.toString());
+		assertTrue(partTree.isDistinct());
+		assertEquals(Integer.valueOf(3), partTree.getMaxResults());
+		assertEquals(Sort.by(Sort.Direction.DESC, "orderDate"), partTree.getSort());
+		assertEquals(Arrays.asList("customerId SIMPLE_PROPERTY", "orderDate AFTER"), parts(partTree));
+	}
+
+	@Test
+	public void nestedProperty() {
+		PartTree partTree = ParsedPartTrees.parse("findByItemsCaption", Order.class);
+		assertEquals(Arrays.asList("items.caption SIMPLE_PROPERTY"), parts(partTree));
+	}
+
+	@Test
+	public void unknownPropertyIsNotRecorded() {
+		try {
+			ParsedPartTrees.parse("findByCustomer", Order.class);
+			fail("Expected a PropertyReferenceException");
+		} catch (PropertyReferenceException e) {
+			assertFalse(ParsedPartTrees.isParsed("findByCustomer", Order.class));
+			assertNull(ParsedPartTrees.get("findByCustomer", Order.class));
+		}
+	}
+
+	@Test
+	public void unreviewedClassIsRejected() {
+		PartTree partTree = ParsedPartTrees.parse("findByLastname", Person.class);
+		ParsedPartTrees.checkBuildTimeClasses(partTree);
+		try {
+			ParsedPartTrees.checkBuildTimeClasses(Arrays.asList(partTree, new Person()));
+			fail("Expected an IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(Person.class.getName()));
+		}
+	}
+
+	@Test
+	public void buildTimeClassesArePresent() {
+		List<String> names = new ArrayList<>();
+		ParsedPartTrees.getBuildTimeClasses().forEach(type -> names.add(type.getName()));
+		assertEquals(ParsedPartTrees.BUILD_TIME_CLASSES, names);
+	}
+
+	/**
+	 * Parse the methods of the repository as SpringDataComponentProcessor does and record the parts of each
+	 * tree, or null if the method name cannot be parsed.
+	 */
+	private static void parseQueryMethods(Class<?> repository, Class<?> domainClass, Map<String, List<String>> parts) {
+		for (Method method : repository.getDeclaredMethods()) {
+			String key = domainClass.getSimpleName() + "#" + method.getName();
+			PartTree partTree;
+			try {
+				partTree = ParsedPartTrees.parse(method.getName(), domainClass);
+			} catch (PropertyReferenceException e) {
+				assertFalse(ParsedPartTrees.isParsed(method.getName(), domainClass));
+				parts.put(key, null);
+				continue;
+			}
+			assertTrue(ParsedPartTrees.isParsed(method.getName(), domainClass));
+			assertSame(partTree, ParsedPartTrees.get(method.getName(), domainClass));
+			assertEquals(new PartTree(method.getName(), domainClass).toString(), partTree.toString());
+			parts.put(key, parts(partTree));
+		}
+	}
+
+	private static List<String> parts(PartTree partTree) {
+		List<String> parts = new ArrayList<>();
+		for (Part part : partTree.getParts()) {
+			parts.add(part.getProperty().toDotPath() + " " + part.getType());
+		}
+		return parts;
+	}
+
+	// The derived query methods of the repositories of the samples
+
+	interface OrderRepository extends Repository<Order, String> {
+
+		List<Order> findByCustomerId(String customerId);
+
+		List<Order> findBy(Sort sort);
+
+		Page<Order> findByCustomerId(String customerId, Pageable pageable);
+
+		Slice<Order> findSliceByCustomerId(String customerId, Pageable pageable);
+
+		List<Object> findOrderProjectionByCustomerId(String customerId);
+
+	}
+
+	interface PersonRepository extends Repository<Person, String> {
+
+		List<Person> findByLastname(String lastname);
+
+	}
+
+	interface VisitRepository extends Repository<Visit, Integer> {
+
+		List<Visit> findByPetId(Integer petId);
+
+	}
+
+	interface PetRepository extends Repository<Pet, Integer> {
+
+		Pet findById(Integer id);
+
+	}
+
+	interface VetRepository extends Repository<Vet, Integer> {
+
+		Collection<Vet> findAll();
+
+	}
+
+	static class Order {
+
+		private String id;
+
+		private String customerId;
+
+		private Date orderDate;
+
+		private List<LineItem> items;
+
+	}
+
+	static class LineItem {
+
+		private String caption;
+
+		private double price;
+
+	}
+
+	static class Person {
+
+		private String id;
+
+		private String firstname;
+
+		private String lastname;
+
+	}
+
+	static class BaseEntity {
+
+		private Integer id;
+
+	}
+
+	static class NamedEntity extends BaseEntity {
+
+		private String name;
+
+	}
+
+	static class Visit extends BaseEntity {
+
+		private LocalDate date;
+
+		private String description;
+
+		private Integer petId;
+
+	}
+
+	static class Pet extends NamedEntity {
+
+		private LocalDate birthDate;
+
+	}
+
+	static class Vet extends BaseEntity {
+
+		private String firstName;
+
+		private String lastName;
+
+	}
+
+}
@@ -0,0 +1,355 @@
+package org.springframework.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.PropertyAccessorGenerator.GeneratedAccessor;
+import org.springframework.data.mapping.Association;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.context.AbstractMappingContext;
+import org.springframework.data.mapping.model.AnnotationBasedPersistentProperty;
+import org.springframework.data.mapping.model.BasicPersistentEntity;
+import org.springframework.data.mapping.model.BeanWrapperPropertyAccessorFactory;
+import org.springframework.data.mapping.model.PersistentPropertyAccessorFactory;
+import org.springframework.data.mapping.model.Property;
+import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.util.TypeInformation;
+
+public class PropertyAccessorGeneratorTests {
+
+	private static final SampleMappingContext context = new SampleMappingContext();
+
+	// Fails the test if the generated accessor hands a property to the fallback accessor
+	private static final PersistentPropertyAccessorFactory NO_FALLBACK = new PersistentPropertyAccessorFactory() {
+		@Override
+		public <T> PersistentPropertyAccessor<T> getPropertyAccessor(PersistentEntity<?, ?> entity, T bean) {
+			throw new AssertionError("Fallback accessor used for " + entity.getName());
+		}
+
+		@Override
+		public boolean isSupported(PersistentEntity<?, ?> entity) {
+			return true;
+		}
+	};
+
+	@Test
+	public void fieldsOfAnyVisibility() throws Exception {
+		GeneratedAccessor generated = generate(Visibilities.class);
+		assertEquals(fields(Visibilities.class, "privateName"), generated.getUnsafeAccessedFields());
+		Object[] namesAndValues = { "publicName", "a", "packageName", "b", "protectedName", "c", "privateName", "d" };
+		assertHandledWithoutFallback(Visibilities.class, namesAndValues);
+		assertSameAsBeanWrapper(Visibilities.class, namesAndValues);
+	}
+
+	@Test
+	public void finalFields() throws Exception {
+		GeneratedAccessor generated = generate(Finals.class);
+		assertEquals(fields(Finals.class, "name", "count"), generated.getUnsafeAccessedFields());
+		// Read by the generated accessor, set by the fallback accessor
+		assertSameAsBeanWrapper(Finals.class, "name", "changed", "count", 2, "packageName", "changed");
+	}
+
+	@Test
+	public void inheritedFields() throws Exception {
+		GeneratedAccessor generated = generate(InheritingChild.class);
+		List<Field> unsafeAccessedFields = fields(InheritingChild.class, "childPrivate");
+		unsafeAccessedFields.addAll(fields(InheritedParent.class, "parentName", "parentPrivate", "parentTotal"));
+		assertEquals(unsafeAccessedFields, generated.getUnsafeAccessedFields());
+		Object[] namesAndValues = { "childName", "a", "childPrivate", "b", "parentName", "c", "parentPrivate", "d",
+				"parentTotal", 3L };
+		assertHandledWithoutFallback(InheritingChild.class, namesAndValues);
+		assertSameAsBeanWrapper(InheritingChild.class, namesAndValues);
+	}
+
+	@Test
+	public void shadowedFields() throws Exception {
+		generate(ShadowingChild.class);
+		assertHandledWithoutFallback(ShadowingChild.class, "name", "a", "count", 4);
+		assertSameAsBeanWrapper(ShadowingChild.class, "name", "a", "count", 4);
+		ShadowingChild bean = new ShadowingChild();
+		PersistentPropertyAccessor<ShadowingChild> accessor = accessor(bean, NO_FALLBACK);
+		accessor.setProperty(entity(ShadowingChild.class).getRequiredPersistentProperty("name"), "child");
+		assertEquals("child", bean.name);
+		assertEquals("parent", ((ShadowedParent) bean).name);
+	}
+
+	@Test
+	public void primitiveFields() throws Exception {
+		generate(Primitives.class);
+		Object[] namesAndValues = { "intValue", 1, "longValue", 2L, "doubleValue", 3.5d, "floatValue", 4.5f,
+				"booleanValue", true, "charValue", 'c', "byteValue", (byte) 5, "shortValue", (short) 6,
+				"privateInt", 7, "privateLong", 8L };
+		assertHandledWithoutFallback(Primitives.class, namesAndValues);
+		assertSameAsBeanWrapper(Primitives.class, namesAndValues);
+		// Widened or rejected by the fallback accessor
+		assertSameAsBeanWrapper(Primitives.class, "longValue", 2, "doubleValue", 3, "intValue", 1L, "privateLong", 8,
+				"booleanValue", "true");
+	}
+
+	@Test
+	public void nullValues() throws Exception {
+		generate(Nulls.class);
+		Object[] namesAndValues = { "name", null, "privateName", null, "boxed", null };
+		assertHandledWithoutFallback(Nulls.class, namesAndValues);
+		assertSameAsBeanWrapper(Nulls.class, namesAndValues);
+		// Null for a primitive field is left to the fallback accessor
+		assertSameAsBeanWrapper(Nulls.class, "count", null, "privateCount", null);
+		// As are values of another type
+		assertSameAsBeanWrapper(Nulls.class, "name", 1, "boxed", 1L, "privateName", 1);
+	}
+
+	@Test
+	public void collidingHashNames() throws Exception {
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+		assertEquals("AaAa".hashCode(), "BBBB".hashCode());
+		generate(CollidingNames.class);
+		Object[] namesAndValues = { "Aa", "a", "BB", "b", "AaAa", "c", "BBBB", "d", "AaBB", 1 };
+		assertHandledWithoutFallback(CollidingNames.class, namesAndValues);
+		assertSameAsBeanWrapper(CollidingNames.class, namesAndValues);
+	}
+
+	private static GeneratedAccessor generate(Class<?> type) throws Exception {
+		GeneratedAccessor generated = PropertyAccessorGenerator.generate(type);
+		assertNotNull(generated);
+		assertTrue(GeneratedPropertyAccessorFactory.isRegistered(type));
+		return generated;
+	}
+
+	/**
+	 * Set each property to its value and read it back with the generated accessor, failing if it needs the
+	 * fallback accessor.
+	 */
+	private static void assertHandledWithoutFallback(Class<?> type, Object... namesAndValues) {
+		BasicPersistentEntity<Object, SampleProperty> entity = entity(type);
+		Object bean = BeanUtils.instantiateClass(type);
+		PersistentPropertyAccessor<Object> accessor = accessor(bean, NO_FALLBACK);
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			SampleProperty property = entity.getRequiredPersistentProperty((String) namesAndValues[i]);
+			accessor.setProperty(property, namesAndValues[i + 1]);
+			assertEquals(property.getName(), namesAndValues[i + 1], accessor.getProperty(property));
+		}
+	}
+
+	/**
+	 * Read each property, then set it to its value and read it back, with the generated accessor and with the
+	 * one BeanWrapperPropertyAccessorFactory creates, checking both return (or throw) the same and leave the
+	 * fields of the beans with the same values.
+	 */
+	private static void assertSameAsBeanWrapper(Class<?> type, Object... namesAndValues) throws Exception {
+		BasicPersistentEntity<Object, SampleProperty> entity = entity(type);
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			SampleProperty property = entity.getRequiredPersistentProperty((String) namesAndValues[i]);
+			Object value = namesAndValues[i + 1];
+			Object generatedBean = BeanUtils.instantiateClass(type);
+			Object reflectiveBean = BeanUtils.instantiateClass(type);
+			PersistentPropertyAccessor<Object> generated = accessor(generatedBean,
+					BeanWrapperPropertyAccessorFactory.INSTANCE);
+			PersistentPropertyAccessor<Object> reflective = BeanWrapperPropertyAccessorFactory.INSTANCE
+					.getPropertyAccessor(entity, reflectiveBean);
+			assertEquals(property.getName(), reflective.getProperty(property), generated.getProperty(property));
+			assertEquals(property.getName() + "=" + value, access(reflective, property, value),
+					access(generated, property, value));
+			assertEquals(property.getName() + "=" + value, fieldValues(reflectiveBean), fieldValues(generatedBean));
+		}
+	}
+
+	private static <T> PersistentPropertyAccessor<T> accessor(T bean, PersistentPropertyAccessorFactory fallback) {
+		PersistentPropertyAccessor<T> accessor = new GeneratedPropertyAccessorFactory(fallback)
+				.getPropertyAccessor(entity(bean.getClass()), bean);
+		assertTrue(accessor instanceof GeneratedPropertyAccessor);
+		return accessor;
+	}
+
+	private static BasicPersistentEntity<Object, SampleProperty> entity(Class<?> type) {
+		return context.getRequiredPersistentEntity(type);
+	}
+
+	/**
+	 * @return the value read back after setting it, or the type of the exception thrown
+	 */
+	private static Object access(PersistentPropertyAccessor<?> accessor, SampleProperty property, Object value) {
+		try {
+			accessor.setProperty(property, value);
+			return accessor.getProperty(property);
+		} catch (RuntimeException e) {
+			return e.getClass();
+		}
+	}
+
+	private static Map<String, Object> fieldValues(Object bean) throws Exception {
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (Class<?> type = bean.getClass(); type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				field.setAccessible(true);
+				values.put(type.getSimpleName() + "." + field.getName(), field.get(bean));
+			}
+		}
+		return values;
+	}
+
+	private static List<Field> fields(Class<?> type, String... names) throws Exception {
+		List<Field> fields = new ArrayList<>();
+		for (String name : names) {
+			fields.add(type.getDeclaredField(name));
+		}
+		return fields;
+	}
+
+	static class SampleMappingContext
+			extends AbstractMappingContext<BasicPersistentEntity<Object, SampleProperty>, SampleProperty> {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected <T> BasicPersistentEntity<Object, SampleProperty> createPersistentEntity(
+				TypeInformation<T> typeInformation) {
+			return new BasicPersistentEntity<>((TypeInformation<Object>) typeInformation);
+		}
+
+		@Override
+		protected SampleProperty createPersistentProperty(Property property,
+				BasicPersistentEntity<Object, SampleProperty> owner, SimpleTypeHolder simpleTypeHolder) {
+			return new SampleProperty(property, owner, simpleTypeHolder);
+		}
+
+	}
+
+	static class SampleProperty extends AnnotationBasedPersistentProperty<SampleProperty> {
+
+		SampleProperty(Property property, PersistentEntity<?, SampleProperty> owner,
+				SimpleTypeHolder simpleTypeHolder) {
+			super(property, owner, simpleTypeHolder);
+		}
+
+		@Override
+		protected Association<SampleProperty> createAssociation() {
+			return null;
+		}
+
+	}
+
+	static class Visibilities {
+
+		public String publicName;
+
+		String packageName;
+
+		protected String protectedName;
+
+		private String privateName;
+
+	}
+
+	static class Finals {
+
+		private final String name;
+
+		private final int count;
+
+		final String packageName;
+
+		Finals() {
+			this.name = "name";
+			this.count = 1;
+			this.packageName = "packageName";
+		}
+
+	}
+
+	static class InheritedParent {
+
+		String parentName;
+
+		private String parentPrivate;
+
+		protected long parentTotal;
+
+	}
+
+	static class InheritingChild extends InheritedParent {
+
+		String childName;
+
+		private String childPrivate;
+
+	}
+
+	static class ShadowedParent {
+
+		String name = "parent";
+
+		private int count = -1;
+
+	}
+
+	static class ShadowingChild extends ShadowedParent {
+
+		String name;
+
+		private int count;
+
+	}
+
+	static class Primitives {
+
+		int intValue;
+
+		long longValue;
+
+		double doubleValue;
+
+		float floatValue;
+
+		boolean booleanValue;
+
+		char charValue;
+
+		byte byteValue;
+
+		short shortValue;
+
+		private int privateInt;
+
+		private long privateLong;
+
+	}
+
+	static class Nulls {
+
+		String name = "name";
+
+		private String privateName = "privateName";
+
+		Integer boxed = 1;
+
+		int count = 1;
+
+		private int privateCount = 1;
+
+	}
+
+	static class CollidingNames {
+
+		String Aa;
+
+		String BB;
+
+		String AaAa;
+
+		private String BBBB;
+
+		int AaBB;
+
+	}
+
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.domain;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a JSON document one token at a time, so that the descriptors in large configuration files
+ * (agent produced reflect-config.json files can be tens of megabytes) can be built without first
+ * reading the whole file into a string and then into a tree of JSON objects. Only a fixed size
+ * buffer and the current name or value are held in memory.
+ */
+public class JsonReader implements Closeable {
+
+	public enum Token {
+		BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	// What has been read so far in each open array or object
+	private static final int EMPTY_DOCUMENT = 0;
+
+	private static final int NONEMPTY_DOCUMENT = 1;
+
+	private static final int EMPTY_ARRAY = 2;
+
+	private static final int NONEMPTY_ARRAY = 3;
+
+	private static final int EMPTY_OBJECT = 4;
+
+	private static final int DANGLING_NAME = 5;
+
+	private static final int NONEMPTY_OBJECT = 6;
+
+	private final Reader in;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int pos;
+
+	private int limit;
+
+	private int line = 1;
+
+	private int[] stack = new int[16];
+
+	private int stackSize = 1;
+
+	// The next token, if it has been peeked, with its text for names, strings, numbers and booleans
+	private Token peeked;
+
+	private String peekedText;
+
+	private final StringBuilder text = new StringBuilder();
+
+	public JsonReader(InputStream inputStream) {
+		this(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+	}
+
+	public JsonReader(Reader reader) {
+		this.in = reader;
+		this.stack[0] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * @return the type of the next token, without consuming it
+	 */
+	public Token peek() throws IOException {
+		if (peeked != null) {
+			return peeked;
+		}
+		int scope = stack[stackSize - 1];
+		int c;
+		switch (scope) {
+			case EMPTY_DOCUMENT:
+				stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+				break;
+			case NONEMPTY_DOCUMENT:
+				if (nextNonWhitespace() != -1) {
+					throw syntaxError("Expected end of document");
+				}
+				return peeked = Token.END_DOCUMENT;
+			case EMPTY_ARRAY:
+			case NONEMPTY_ARRAY:
+				stack[stackSize - 1] = NONEMPTY_ARRAY;
+				c = nextNonWhitespace();
+				if (c == ']') {
+					return peeked = Token.END_ARRAY;
+				}
+				if (c == -1) {
+					throw syntaxError("Unterminated array");
+				} else if (scope == EMPTY_ARRAY) {
+					pos--;
+				} else if (c != ',') {
+					throw syntaxError("Expected ',' or ']'");
+				}
+				break;
+			case EMPTY_OBJECT:
+			case NONEMPTY_OBJECT:
+				c = nextNonWhitespace();
+				if (c == '}') {
+					return peeked = Token.END_OBJECT;
+				}
+				if (scope == NONEMPTY_OBJECT) {
+					if (c != ',') {
+						throw syntaxError("Expected ',' or '}'");
+					}
+					c = nextNonWhitespace();
+				}
+				if (c != '"') {
+					throw syntaxError("Expected a name");
+				}
+				stack[stackSize - 1] = DANGLING_NAME;
+				peekedText = readString();
+				return peeked = Token.NAME;
+			case DANGLING_NAME:
+				stack[stackSize - 1] = NONEMPTY_OBJECT;
+				if (nextNonWhitespace() != ':') {
+					throw syntaxError("Expected ':'");
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unexpected scope " + scope);
+		}
+		c = nextNonWhitespace();
+		switch (c) {
+			case '[':
+				return peeked = Token.BEGIN_ARRAY;
+			case '{':
+				return peeked = Token.BEGIN_OBJECT;
+			case '"':
+				peekedText = readString();
+				return peeked = Token.STRING;
+			case -1:
+				throw syntaxError("Unexpected end of document");
+			default:
+				pos--;
+				peekedText = readLiteral();
+				if (peekedText.equals("true") || peekedText.equals("false")) {
+					return peeked = Token.BOOLEAN;
+				} else if (peekedText.equals("null")) {
+					return peeked = Token.NULL;
+				} else if (peekedText.isEmpty()) {
+					throw syntaxError("Unexpected character '" + (char) c + "'");
+				}
+				return peeked = Token.NUMBER;
+		}
+	}
+
+	/**
+	 * @return true if the current array or object has more elements
+	 */
+	public boolean hasNext() throws IOException {
+		Token token = peek();
+		return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+	}
+
+	public void beginArray() throws IOException {
+		expect(Token.BEGIN_ARRAY);
+		push(EMPTY_ARRAY);
+	}
+
+	public void endArray() throws IOException {
+		expect(Token.END_ARRAY);
+		stackSize--;
+	}
+
+	public void beginObject() throws IOException {
+		expect(Token.BEGIN_OBJECT);
+		push(EMPTY_OBJECT);
+	}
+
+	public void endObject() throws IOException {
+		expect(Token.END_OBJECT);
+		stackSize--;
+	}
+
+	public String nextName() throws IOException {
+		expect(Token.NAME);
+		return peekedText;
+	}
+
+	/**
+	 * @return the next string, numbers are returned as they appear in the document
+	 */
+	public String nextString() throws IOException {
+		Token token = peek();
+		if (token != Token.STRING && token != Token.NUMBER) {
+			throw syntaxError("Expected a string but was " + token);
+		}
+		peeked = null;
+		return peekedText;
+	}
+
+	/**
+	 * @return the next boolean, the strings "true" and "false" are also accepted
+	 */
+	public boolean nextBoolean() throws IOException {
+		Token token = peek();
+		if (token == Token.BOOLEAN || (token == Token.STRING
+				&& (peekedText.equalsIgnoreCase("true") || peekedText.equalsIgnoreCase("false")))) {
+			peeked = null;
+			return peekedText.equalsIgnoreCase("true");
+		}
+		throw syntaxError("Expected a boolean but was " + token);
+	}
+
+	/**
+	 * As with {@code JSONObject.optBoolean()}, values that are not booleans are skipped and read as false.
+	 */
+	public boolean optBoolean() throws IOException {
+		Token token = peek();
+		if (token == Token.BOOLEAN || (token == Token.STRING
+				&& (peekedText.equalsIgnoreCase("true") || peekedText.equalsIgnoreCase("false")))) {
+			return nextBoolean();
+		}
+		skipValue();
+		return false;
+	}
+
+	public void nextNull() throws IOException {
+		expect(Token.NULL);
+	}
+
+	/**
+	 * Skip the next value, including everything in it if it is an array or object.
+	 */
+	public void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			switch (peek()) {
+				case BEGIN_ARRAY:
+					beginArray();
+					depth++;
+					break;
+				case BEGIN_OBJECT:
+					beginObject();
+					depth++;
+					break;
+				case END_ARRAY:
+					endArray();
+					depth--;
+					break;
+				case END_OBJECT:
+					endObject();
+					depth--;
+					break;
+				case END_DOCUMENT:
+					throw syntaxError("Unexpected end of document");
+				default:
+					peeked = null;
+			}
+		} while (depth > 0);
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private void expect(Token token) throws IOException {
+		if (peek() != token) {
+			throw syntaxError("Expected " + token + " but was " + peeked);
+		}
+		peeked = null;
+	}
+
+	private void push(int scope) {
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		}
+		stack[stackSize++] = scope;
+	}
+
+	private int read() throws IOException {
+		if (pos == limit) {
+			limit = in.read(buffer, 0, buffer.length);
+			if (limit <= 0) {
+				limit = 0;
+				pos = 0;
+				return -1;
+			}
+			pos = 0;
+		}
+		return buffer[pos++];
+	}
+
+	/**
+	 * Skip whitespace and, as the previous JSON parser did, {@code //}, {@code #} and {@code /*} comments.
+	 */
+	private int nextNonWhitespace() throws IOException {
+		int c;
+		while ((c = read()) != -1) {
+			if (c == '\n') {
+				line++;
+			} else if (c == '#') {
+				skipToEndOfLine();
+			} else if (c == '/') {
+				c = read();
+				if (c == '/') {
+					skipToEndOfLine();
+				} else if (c == '*') {
+					int previous = 0;
+					while ((c = read()) != '/' || previous != '*') {
+						if (c == -1) {
+							throw syntaxError("Unterminated comment");
+						} else if (c == '\n') {
+							line++;
+						}
+						previous = c;
+					}
+				} else {
+					throw syntaxError("Unexpected character '/'");
+				}
+			} else if (c != ' ' && c != '\t' && c != '\r') {
+				return c;
+			}
+		}
+		return -1;
+	}
+
+	private void skipToEndOfLine() throws IOException {
+		int c;
+		while ((c = read()) != -1 && c != '\n') {
+		}
+		line++;
+	}
+
+	/**
+	 * Read the rest of a string whose opening quote has been read.
+	 */
+	private String readString() throws IOException {
+		text.setLength(0);
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				return text.toString();
+			} else if (c == '\\') {
+				c = read();
+				switch (c) {
+					case 'b':
+						text.append('\b');
+						break;
+					case 'f':
+						text.append('\f');
+						break;
+					case 'n':
+						text.append('\n');
+						break;
+					case 'r':
+						text.append('\r');
+						break;
+					case 't':
+						text.append('\t');
+						break;
+					case 'u':
+						int value = 0;
+						for (int i = 0; i < 4; i++) {
+							int digit = Character.digit(read(), 16);
+							if (digit == -1) {
+								throw syntaxError("Invalid unicode escape");
+							}
+							value = (value << 4) | digit;
+						}
+						text.append((char) value);
+						break;
+					case -1:
+						throw syntaxError("Unterminated string");
+					default:
+						// \" \\ \/
+						text.append((char) c);
+				}
+			} else if (c == -1) {
+				throw syntaxError("Unterminated string");
+			} else {
+				if (c == '\n') {
+					line++;
+				}
+				text.append((char) c);
+			}
+		}
+	}
+
+	/**
+	 * Read a number, true, false or null.
+	 */
+	private String readLiteral() throws IOException {
+		text.setLength(0);
+		int c;
+		while ((c = read()) != -1) {
+			if (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.') {
+				text.append((char) c);
+			} else {
+				pos--;
+				break;
+			}
+		}
+		return text.toString();
+	}
+
+	private IllegalStateException syntaxError(String message) {
+		return new IllegalStateException(message + " at line " + line);
+	}
+
+}
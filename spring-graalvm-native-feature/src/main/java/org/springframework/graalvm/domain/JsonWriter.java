@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.domain;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a JSON document as it is produced rather than first building it in memory. The output is
+ * laid out exactly as {@code JSONObject.toString(2)} and {@code JSONArray.toString(2)} lay it out, so
+ * files written by either are the same.
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+	private static final String INDENT = "  ";
+
+	private static final int EMPTY_ARRAY = 0;
+
+	private static final int NONEMPTY_ARRAY = 1;
+
+	private static final int EMPTY_OBJECT = 2;
+
+	private static final int DANGLING_NAME = 3;
+
+	private static final int NONEMPTY_OBJECT = 4;
+
+	private final Writer out;
+
+	private int[] stack = new int[16];
+
+	private int stackSize = 0;
+
+	public JsonWriter(OutputStream outputStream) {
+		this(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+	}
+
+	public JsonWriter(Writer writer) {
+		this.out = writer;
+	}
+
+	public JsonWriter beginArray() throws IOException {
+		return open(EMPTY_ARRAY, '[');
+	}
+
+	public JsonWriter endArray() throws IOException {
+		return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+	}
+
+	public JsonWriter beginObject() throws IOException {
+		return open(EMPTY_OBJECT, '{');
+	}
+
+	public JsonWriter endObject() throws IOException {
+		return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+	}
+
+	public JsonWriter name(String name) throws IOException {
+		int scope = peek();
+		if (scope == NONEMPTY_OBJECT) {
+			out.write(',');
+		} else if (scope != EMPTY_OBJECT) {
+			throw new IllegalStateException("Nesting problem");
+		}
+		newline();
+		stack[stackSize - 1] = DANGLING_NAME;
+		string(name);
+		return this;
+	}
+
+	public JsonWriter value(String value) throws IOException {
+		beforeValue();
+		string(value);
+		return this;
+	}
+
+	public JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		out.write(value ? "true" : "false");
+		return this;
+	}
+
+	public JsonWriter value(long value) throws IOException {
+		beforeValue();
+		out.write(Long.toString(value));
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private JsonWriter open(int empty, char openBracket) throws IOException {
+		beforeValue();
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		}
+		stack[stackSize++] = empty;
+		out.write(openBracket);
+		return this;
+	}
+
+	private JsonWriter close(int empty, int nonempty, char closeBracket) throws IOException {
+		int scope = peek();
+		if (scope != empty && scope != nonempty) {
+			throw new IllegalStateException("Nesting problem");
+		}
+		stackSize--;
+		if (scope == nonempty) {
+			newline();
+		}
+		out.write(closeBracket);
+		return this;
+	}
+
+	private int peek() {
+		if (stackSize == 0) {
+			throw new IllegalStateException("Nesting problem");
+		}
+		return stack[stackSize - 1];
+	}
+
+	private void beforeValue() throws IOException {
+		if (stackSize == 0) {
+			return;
+		}
+		switch (stack[stackSize - 1]) {
+			case EMPTY_ARRAY:
+				stack[stackSize - 1] = NONEMPTY_ARRAY;
+				newline();
+				break;
+			case NONEMPTY_ARRAY:
+				out.write(',');
+				newline();
+				break;
+			case DANGLING_NAME:
+				out.write(": ");
+				stack[stackSize - 1] = NONEMPTY_OBJECT;
+				break;
+			default:
+				throw new IllegalStateException("Nesting problem");
+		}
+	}
+
+	private void newline() throws IOException {
+		out.write('\n');
+		for (int i = 0; i < stackSize; i++) {
+			out.write(INDENT);
+		}
+	}
+
+	private void string(String value) throws IOException {
+		out.write('"');
+		// Characters that need no escaping are written in runs
+		int start = 0;
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			String escaped;
+			switch (c) {
+				case '"':
+					escaped = "\\\"";
+					break;
+				case '\\':
+					escaped = "\\\\";
+					break;
+				case '/':
+					escaped = "\\/";
+					break;
+				case '\t':
+					escaped = "\\t";
+					break;
+				case '\b':
+					escaped = "\\b";
+					break;
+				case '\n':
+					escaped = "\\n";
+					break;
+				case '\r':
+					escaped = "\\r";
+					break;
+				case '\f':
+					escaped = "\\f";
+					break;
+				default:
+					escaped = c <= 0x1F ? String.format("\\u%04x", (int) c) : null;
+			}
+			if (escaped != null) {
+				out.write(value, start, i - start);
+				out.write(escaped);
+				start = i + 1;
+			}
+		}
+		out.write(value, start, length - start);
+		out.write('"');
+	}
+
+}
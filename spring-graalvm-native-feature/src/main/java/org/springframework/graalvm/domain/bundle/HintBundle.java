@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.domain.bundle;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.graalvm.domain.init.InitializationDescriptor;
+import org.springframework.graalvm.domain.proxies.ProxiesDescriptor;
+import org.springframework.graalvm.domain.reflect.ReflectionDescriptor;
+import org.springframework.graalvm.domain.resources.ResourcesDescriptor;
+import org.springframework.graalvm.extension.NativeImageConfiguration;
+import org.springframework.graalvm.type.HintDeclaration;
+
+/**
+ * The static hints of a configuration module, built when the module is built (see
+ * {@link HintBundleGenerator}): the @NativeImageHint declarations of each NativeImageConfiguration
+ * provider and the content of its reflect.json, proxies.json, initialization.json and resources.json files.
+ * Reading the bundle replaces resolving every provider class to unpack its annotations and parsing
+ * each JSON file on every image build. Providers that compute hints are still instantiated and called.
+ */
+public class HintBundle {
+
+	public static final String LOCATION = "META-INF/spring-graalvm-native/hints.bin";
+
+	public static final String SERVICES = "META-INF/services/" + NativeImageConfiguration.class.getName();
+
+	private final Map<String, Provider> providers = new LinkedHashMap<>();
+
+	private ReflectionDescriptor reflectionDescriptor;
+
+	private ProxiesDescriptor proxiesDescriptor;
+
+	private InitializationDescriptor initializationDescriptor;
+
+	private ResourcesDescriptor resourcesDescriptor;
+
+	/**
+	 * A NativeImageConfiguration provider and the hints declared on it.
+	 */
+	public static class Provider {
+
+		private final String name;
+
+		private final boolean computesHints;
+
+		private final List<HintDeclaration> hints;
+
+		public Provider(String name, boolean computesHints, List<HintDeclaration> hints) {
+			this.name = name;
+			this.computesHints = computesHints;
+			this.hints = hints;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return true if the provider implements computeHints() and so must be instantiated
+		 */
+		public boolean computesHints() {
+			return computesHints;
+		}
+
+		public List<HintDeclaration> getHints() {
+			return hints;
+		}
+
+	}
+
+	/**
+	 * Find the bundle on the classpath. A bundle in a directory is memory mapped, one in a jar is read
+	 * into a buffer in one go.
+	 * @param classLoader the loader to search
+	 * @return the bundle or null if there is none
+	 */
+	public static HintBundle load(ClassLoader classLoader) {
+		URL url = classLoader.getResource(LOCATION);
+		if (url == null) {
+			return null;
+		}
+		try {
+			ByteBuffer buffer;
+			if (url.getProtocol().equals("file")) {
+				try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+					buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				}
+			} else {
+				buffer = ByteBuffer.wrap(readAll(url));
+			}
+			return HintBundleMarshaller.read(buffer);
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to read hint bundle " + url, e);
+		}
+	}
+
+	/**
+	 * The NativeImageConfiguration providers on the classpath, in the order ServiceLoader would find them.
+	 * @param classLoader the loader to search
+	 * @return the provider class names
+	 */
+	public static List<String> findProviderNames(ClassLoader classLoader) throws IOException {
+		Set<String> names = new LinkedHashSet<>();
+		Enumeration<URL> services = classLoader.getResources(SERVICES);
+		while (services.hasMoreElements()) {
+			try (InputStream is = services.nextElement().openStream()) {
+				readProviderNames(is, names);
+			}
+		}
+		return new ArrayList<>(names);
+	}
+
+	/**
+	 * Read a service file as ServiceLoader does: one name per line, # starts a comment, duplicates ignored.
+	 */
+	static void readProviderNames(InputStream inputStream, Set<String> names) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			int comment = line.indexOf('#');
+			if (comment != -1) {
+				line = line.substring(0, comment);
+			}
+			line = line.trim();
+			if (!line.isEmpty()) {
+				names.add(line);
+			}
+		}
+	}
+
+	private static byte[] readAll(URL url) throws IOException {
+		try (InputStream is = url.openStream()) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = is.read(buffer)) != -1) {
+				baos.write(buffer, 0, read);
+			}
+			return baos.toByteArray();
+		}
+	}
+
+	public void addProvider(Provider provider) {
+		providers.put(provider.getName(), provider);
+	}
+
+	public Collection<Provider> getProviders() {
+		return providers.values();
+	}
+
+	/**
+	 * @return the provider of that name or null if it was not in the module the bundle was built for
+	 */
+	public Provider getProvider(String name) {
+		return providers.get(name);
+	}
+
+	/**
+	 * @return the content of reflect.json or null if the module has none
+	 */
+	public ReflectionDescriptor getReflectionDescriptor() {
+		return reflectionDescriptor;
+	}
+
+	public void setReflectionDescriptor(ReflectionDescriptor reflectionDescriptor) {
+		this.reflectionDescriptor = reflectionDescriptor;
+	}
+
+	/**
+	 * @return the content of proxies.json or null if the module has none
+	 */
+	public ProxiesDescriptor getProxiesDescriptor() {
+		return proxiesDescriptor;
+	}
+
+	public void setProxiesDescriptor(ProxiesDescriptor proxiesDescriptor) {
+		this.proxiesDescriptor = proxiesDescriptor;
+	}
+
+	/**
+	 * @return the content of initialization.json or null if the module has none
+	 */
+	public InitializationDescriptor getInitializationDescriptor() {
+		return initializationDescriptor;
+	}
+
+	public void setInitializationDescriptor(InitializationDescriptor initializationDescriptor) {
+		this.initializationDescriptor = initializationDescriptor;
+	}
+
+	/**
+	 * @return the content of resources.json or null if the module has none
+	 */
+	public ResourcesDescriptor getResourcesDescriptor() {
+		return resourcesDescriptor;
+	}
+
+	public void setResourcesDescriptor(ResourcesDescriptor resourcesDescriptor) {
+		this.resourcesDescriptor = resourcesDescriptor;
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.domain.bundle;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.springframework.graalvm.domain.init.InitializationJsonMarshaller;
+import org.springframework.graalvm.domain.proxies.ProxiesDescriptorJsonMarshaller;
+import org.springframework.graalvm.domain.reflect.JsonMarshaller;
+import org.springframework.graalvm.domain.resources.ResourcesJsonMarshaller;
+import org.springframework.graalvm.type.HintDeclaration;
+
+/**
+ * Builds the {@link HintBundle} for a configuration module from its compiled classes directory, run when
+ * the module is built. The providers are those listed in the module's NativeImageConfiguration service
+ * file, their classes are read (not loaded) so the libraries they give hints for need not be present.
+ */
+public class HintBundleGenerator {
+
+	private static final String COMPUTE_HINTS_DESCRIPTOR = "(Lorg/springframework/graalvm/type/TypeSystem;)Ljava/util/List;";
+
+	public static void main(String[] args) throws Exception {
+		if (args == null || args.length != 1) {
+			System.out.println("Usage: HintBundleGenerator <classes-directory>");
+			System.exit(1);
+		}
+		File classesDirectory = new File(args[0]);
+		HintBundle bundle = generate(classesDirectory);
+		File bundleFile = new File(classesDirectory, HintBundle.LOCATION);
+		bundleFile.getParentFile().mkdirs();
+		try (OutputStream os = new FileOutputStream(bundleFile)) {
+			HintBundleMarshaller.write(bundle, os);
+		}
+		int hints = 0;
+		for (HintBundle.Provider provider : bundle.getProviders()) {
+			hints += provider.getHints().size();
+		}
+		System.out.println("Hint bundle " + bundleFile + ": " + bundle.getProviders().size() + " providers, " + hints
+				+ " hints, " + bundleFile.length() + " bytes");
+	}
+
+	public static HintBundle generate(File classesDirectory) throws Exception {
+		HintBundle bundle = new HintBundle();
+		Set<String> providerNames = new LinkedHashSet<>();
+		File services = new File(classesDirectory, HintBundle.SERVICES);
+		if (services.exists()) {
+			try (InputStream is = new FileInputStream(services)) {
+				HintBundle.readProviderNames(is, providerNames);
+			}
+		}
+		for (String providerName : providerNames) {
+			ClassNode node = readClass(classesDirectory, providerName.replace('.', '/'));
+			if (node == null) {
+				throw new IllegalStateException("Unable to find provider " + providerName + " in " + classesDirectory);
+			}
+			List<HintDeclaration> hints = HintDeclaration.fromAnnotations(node.visibleAnnotations);
+			bundle.addProvider(new HintBundle.Provider(providerName, computesHints(classesDirectory, node), hints));
+		}
+		File file = new File(classesDirectory, "reflect.json");
+		if (file.exists()) {
+			try (InputStream is = new FileInputStream(file)) {
+				bundle.setReflectionDescriptor(JsonMarshaller.read(is));
+			}
+		}
+		file = new File(classesDirectory, "proxies.json");
+		if (file.exists()) {
+			try (InputStream is = new FileInputStream(file)) {
+				bundle.setProxiesDescriptor(ProxiesDescriptorJsonMarshaller.read(is));
+			}
+		}
+		file = new File(classesDirectory, "initialization.json");
+		if (file.exists()) {
+			try (InputStream is = new FileInputStream(file)) {
+				bundle.setInitializationDescriptor(InitializationJsonMarshaller.read(is));
+			}
+		}
+		file = new File(classesDirectory, "resources.json");
+		if (file.exists()) {
+			try (InputStream is = new FileInputStream(file)) {
+				bundle.setResourcesDescriptor(ResourcesJsonMarshaller.read(is));
+			}
+		}
+		return bundle;
+	}
+
+	private static ClassNode readClass(File classesDirectory, String slashedName) throws IOException {
+		File classFile = new File(classesDirectory, slashedName + ".class");
+		if (!classFile.exists()) {
+			return null;
+		}
+		ClassNode node = new ClassNode();
+		new ClassReader(Files.readAllBytes(classFile.toPath())).accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return node;
+	}
+
+	/**
+	 * @return true unless it is certain that neither the provider nor a superclass in the module override computeHints()
+	 */
+	private static boolean computesHints(File classesDirectory, ClassNode node) throws IOException {
+		while (node != null) {
+			for (MethodNode method : node.methods) {
+				if (method.name.equals("computeHints") && method.desc.equals(COMPUTE_HINTS_DESCRIPTOR)) {
+					return true;
+				}
+			}
+			if (node.superName == null || node.superName.equals("java/lang/Object")) {
+				return false;
+			}
+			ClassNode superNode = readClass(classesDirectory, node.superName);
+			if (superNode == null) {
+				// A superclass outside the module may implement it
+				return true;
+			}
+			node = superNode;
+		}
+		return true;
+	}
+
+}
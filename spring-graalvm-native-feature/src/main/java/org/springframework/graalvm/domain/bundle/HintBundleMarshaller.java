@@ -0,0 +1,422 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.domain.bundle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.graalvm.domain.init.InitializationDescriptor;
+import org.springframework.graalvm.domain.proxies.ProxiesDescriptor;
+import org.springframework.graalvm.domain.proxies.ProxyDescriptor;
+import org.springframework.graalvm.domain.reflect.ClassDescriptor;
+import org.springframework.graalvm.domain.reflect.FieldDescriptor;
+import org.springframework.graalvm.domain.reflect.Flag;
+import org.springframework.graalvm.domain.reflect.MethodDescriptor;
+import org.springframework.graalvm.domain.reflect.ReflectionDescriptor;
+import org.springframework.graalvm.domain.resources.ResourcesDescriptor;
+import org.springframework.graalvm.support.Mode;
+import org.springframework.graalvm.type.HintDeclaration;
+import org.springframework.graalvm.type.HintDeclaration.TypeReferences;
+
+/**
+ * Binary form of a {@link HintBundle}. After a magic number and the format version comes a table of every
+ * distinct string, then the providers and descriptors which refer to those strings by index. Counts and
+ * indexes are written as variable length ints, so most take a single byte. A bundle written with a
+ * different version of the format is rejected so that the feature falls back to reading the annotations
+ * and JSON files.
+ */
+public class HintBundleMarshaller {
+
+	private static final int MAGIC = 0x53424748; // SBGH
+
+	public static final int VERSION = 1;
+
+	private static final Flag[] FLAGS = Flag.values();
+
+	private static final Mode[] MODES = Mode.values();
+
+	public static void write(HintBundle bundle, OutputStream outputStream) throws IOException {
+		// Written first so that the string table is complete before it is output
+		Writer body = new Writer();
+		body.writeProviders(bundle);
+		body.writeReflectionDescriptor(bundle.getReflectionDescriptor());
+		body.writeProxiesDescriptor(bundle.getProxiesDescriptor());
+		body.writeInitializationDescriptor(bundle.getInitializationDescriptor());
+		body.writeResourcesDescriptor(bundle.getResourcesDescriptor());
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		Writer strings = new Writer();
+		strings.writeInt(body.strings.size());
+		for (String string : body.strings) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			strings.writeInt(bytes.length);
+			strings.bytes.write(bytes);
+		}
+		strings.bytes.writeTo(out);
+		body.bytes.writeTo(out);
+		out.flush();
+	}
+
+	public static HintBundle read(ByteBuffer buffer) {
+		if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+			throw new IllegalStateException("Not a hint bundle");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IllegalStateException("Hint bundle is version " + version + ", version " + VERSION + " is supported");
+		}
+		Reader reader = new Reader(buffer);
+		HintBundle bundle = new HintBundle();
+		reader.readProviders(bundle);
+		bundle.setReflectionDescriptor(reader.readReflectionDescriptor());
+		bundle.setProxiesDescriptor(reader.readProxiesDescriptor());
+		bundle.setInitializationDescriptor(reader.readInitializationDescriptor());
+		bundle.setResourcesDescriptor(reader.readResourcesDescriptor());
+		return bundle;
+	}
+
+	private static class Writer {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		private final List<String> strings = new ArrayList<>();
+
+		private final Map<String, Integer> stringIndexes = new HashMap<>();
+
+		void writeInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				bytes.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes.write(value);
+		}
+
+		void writeBoolean(boolean value) {
+			bytes.write(value ? 1 : 0);
+		}
+
+		void writeString(String string) {
+			Integer index = stringIndexes.get(string);
+			if (index == null) {
+				index = strings.size();
+				strings.add(string);
+				stringIndexes.put(string, index);
+			}
+			writeInt(index);
+		}
+
+		/**
+		 * Null and empty lists are told apart, the count is written plus one with zero meaning null.
+		 */
+		void writeStrings(List<String> list) {
+			if (list == null) {
+				writeInt(0);
+				return;
+			}
+			writeInt(list.size() + 1);
+			for (String string : list) {
+				writeString(string);
+			}
+		}
+
+		void writeProviders(HintBundle bundle) {
+			writeInt(bundle.getProviders().size());
+			for (HintBundle.Provider provider : bundle.getProviders()) {
+				writeString(provider.getName());
+				writeBoolean(provider.computesHints());
+				writeInt(provider.getHints().size());
+				for (HintDeclaration hint : provider.getHints()) {
+					writeHint(hint);
+				}
+			}
+		}
+
+		void writeHint(HintDeclaration hint) {
+			writeString(hint.getTargetType());
+			writeInt(hint.getModes().size());
+			for (Mode mode : hint.getModes()) {
+				writeInt(mode.ordinal());
+			}
+			writeBoolean(hint.isFollow());
+			writeBoolean(hint.isAbortIfTypesMissing());
+			writeTypeReferences(hint.getTypeInfos());
+			writeTypeReferences(hint.getProxyInfos());
+			writeInt(hint.getResourcesInfos().size());
+			for (org.springframework.graalvm.type.ResourcesDescriptor resourcesInfo : hint.getResourcesInfos()) {
+				writeStrings(Arrays.asList(resourcesInfo.getPatterns()));
+				writeBoolean(resourcesInfo.isBundle());
+			}
+		}
+
+		void writeTypeReferences(List<TypeReferences> typeReferences) {
+			writeInt(typeReferences.size());
+			for (TypeReferences references : typeReferences) {
+				writeStrings(references.getTypeDescriptors());
+				writeStrings(references.getTypeNames());
+				// -1 (infer) is written as 0
+				writeInt(references.getAccess() + 1);
+			}
+		}
+
+		void writeReflectionDescriptor(ReflectionDescriptor rd) {
+			writeBoolean(rd != null);
+			if (rd == null) {
+				return;
+			}
+			writeInt(rd.getClassDescriptors().size());
+			for (ClassDescriptor cd : rd.getClassDescriptors()) {
+				writeString(cd.getName());
+				int flags = 0;
+				if (cd.getFlags() != null) {
+					for (Flag flag : cd.getFlags()) {
+						flags |= 1 << flag.ordinal();
+					}
+				}
+				writeInt(flags);
+				List<FieldDescriptor> fields = cd.getFields() == null ? Collections.emptyList() : cd.getFields();
+				writeInt(fields.size());
+				for (FieldDescriptor fd : fields) {
+					writeString(fd.getName());
+					writeInt((fd.isAllowWrite() ? 1 : 0) | (fd.isAllowUnsafeAccess() ? 2 : 0));
+				}
+				List<MethodDescriptor> methods = cd.getMethods() == null ? Collections.emptyList() : cd.getMethods();
+				writeInt(methods.size());
+				for (MethodDescriptor md : methods) {
+					writeString(md.getName());
+					writeStrings(md.getParameterTypes());
+				}
+			}
+		}
+
+		void writeProxiesDescriptor(ProxiesDescriptor pd) {
+			writeBoolean(pd != null);
+			if (pd == null) {
+				return;
+			}
+			writeInt(pd.getProxyDescriptors().size());
+			for (ProxyDescriptor proxyDescriptor : pd.getProxyDescriptors()) {
+				writeStrings(proxyDescriptor.getInterfaces());
+			}
+		}
+
+		void writeInitializationDescriptor(InitializationDescriptor id) {
+			writeBoolean(id != null);
+			if (id == null) {
+				return;
+			}
+			writeStrings(id.getBuildtimeClasses());
+			writeStrings(id.getBuildtimePackages());
+			writeStrings(id.getRuntimeClasses());
+			writeStrings(id.getRuntimePackages());
+		}
+
+		void writeResourcesDescriptor(ResourcesDescriptor rd) {
+			writeBoolean(rd != null);
+			if (rd == null) {
+				return;
+			}
+			writeStrings(rd.getPatterns());
+			writeStrings(rd.getBundles());
+		}
+
+	}
+
+	private static class Reader {
+
+		private final ByteBuffer buffer;
+
+		private final String[] strings;
+
+		Reader(ByteBuffer buffer) {
+			this.buffer = buffer;
+			this.strings = new String[readInt()];
+			byte[] bytes = new byte[256];
+			for (int i = 0; i < strings.length; i++) {
+				int length = readInt();
+				if (length > bytes.length) {
+					bytes = new byte[Math.max(length, bytes.length * 2)];
+				}
+				buffer.get(bytes, 0, length);
+				strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+			}
+		}
+
+		int readInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = buffer.get();
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		boolean readBoolean() {
+			return buffer.get() != 0;
+		}
+
+		String readString() {
+			return strings[readInt()];
+		}
+
+		List<String> readStrings() {
+			int count = readInt() - 1;
+			if (count == -1) {
+				return null;
+			}
+			List<String> list = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				list.add(readString());
+			}
+			return list;
+		}
+
+		void readProviders(HintBundle bundle) {
+			int count = readInt();
+			for (int i = 0; i < count; i++) {
+				String name = readString();
+				boolean computesHints = readBoolean();
+				int hintCount = readInt();
+				List<HintDeclaration> hints = new ArrayList<>(hintCount);
+				for (int h = 0; h < hintCount; h++) {
+					hints.add(readHint());
+				}
+				bundle.addProvider(new HintBundle.Provider(name, computesHints, hints));
+			}
+		}
+
+		HintDeclaration readHint() {
+			HintDeclaration hint = new HintDeclaration();
+			hint.setTargetType(readString());
+			int modeCount = readInt();
+			for (int i = 0; i < modeCount; i++) {
+				hint.addMode(MODES[readInt()]);
+			}
+			hint.setFollow(readBoolean());
+			hint.setAbortIfTypesMissing(readBoolean());
+			for (TypeReferences typeInfo : readTypeReferences()) {
+				hint.addTypeInfo(typeInfo);
+			}
+			for (TypeReferences proxyInfo : readTypeReferences()) {
+				hint.addProxyInfo(proxyInfo);
+			}
+			int resourcesCount = readInt();
+			for (int i = 0; i < resourcesCount; i++) {
+				String[] patterns = readStrings().toArray(new String[0]);
+				hint.addResourcesInfo(new org.springframework.graalvm.type.ResourcesDescriptor(patterns, readBoolean()));
+			}
+			return hint;
+		}
+
+		List<TypeReferences> readTypeReferences() {
+			int count = readInt();
+			List<TypeReferences> result = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				List<String> typeDescriptors = readStrings();
+				List<String> typeNames = readStrings();
+				result.add(new TypeReferences(typeDescriptors, typeNames, readInt() - 1));
+			}
+			return result;
+		}
+
+		ReflectionDescriptor readReflectionDescriptor() {
+			if (!readBoolean()) {
+				return null;
+			}
+			ReflectionDescriptor rd = new ReflectionDescriptor();
+			int count = readInt();
+			for (int i = 0; i < count; i++) {
+				ClassDescriptor cd = ClassDescriptor.of(readString());
+				int flags = readInt();
+				for (Flag flag : FLAGS) {
+					if ((flags & (1 << flag.ordinal())) != 0) {
+						cd.setFlag(flag);
+					}
+				}
+				int fieldCount = readInt();
+				for (int f = 0; f < fieldCount; f++) {
+					String name = readString();
+					int access = readInt();
+					cd.addFieldDescriptor(FieldDescriptor.of(name, (access & 1) != 0, (access & 2) != 0));
+				}
+				int methodCount = readInt();
+				for (int m = 0; m < methodCount; m++) {
+					MethodDescriptor md = MethodDescriptor.of(readString());
+					md.setParameterTypes(readStrings());
+					cd.addMethodDescriptor(md);
+				}
+				rd.add(cd);
+			}
+			return rd;
+		}
+
+		ProxiesDescriptor readProxiesDescriptor() {
+			if (!readBoolean()) {
+				return null;
+			}
+			ProxiesDescriptor pd = new ProxiesDescriptor();
+			int count = readInt();
+			for (int i = 0; i < count; i++) {
+				pd.add(ProxyDescriptor.of(readStrings()));
+			}
+			return pd;
+		}
+
+		InitializationDescriptor readInitializationDescriptor() {
+			if (!readBoolean()) {
+				return null;
+			}
+			InitializationDescriptor id = new InitializationDescriptor();
+			addAll(readStrings(), id::addBuildtimeClass);
+			addAll(readStrings(), id::addBuildtimePackage);
+			addAll(readStrings(), id::addRuntimeClass);
+			addAll(readStrings(), id::addRuntimePackage);
+			return id;
+		}
+
+		ResourcesDescriptor readResourcesDescriptor() {
+			if (!readBoolean()) {
+				return null;
+			}
+			ResourcesDescriptor rd = new ResourcesDescriptor();
+			addAll(readStrings(), rd::add);
+			addAll(readStrings(), rd::addBundle);
+			return rd;
+		}
+
+		private static void addAll(List<String> strings, Consumer<String> consumer) {
+			if (strings != null) {
+				strings.forEach(consumer);
+			}
+		}
+
+	}
+
+}
@@ -19,12 +19,13 @@ package org.springframework.graalvm.domain.init;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
 
-import org.springframework.graalvm.json.JSONArray;
-import org.springframework.graalvm.json.JSONObject;
+import org.springframework.graalvm.domain.JsonReader;
+import org.springframework.graalvm.domain.JsonWriter;
 
 /**
  * Marshaller to write {@link InitializationDescriptor} as JSON.
@@ -33,24 +34,27 @@ import org.springframework.graalvm.json.JSONObject;
  */
 public class InitializationJsonMarshaller {
 
-	private static final int BUFFER_SIZE = 4098;
-
 	public void write(InitializationDescriptor metadata, OutputStream outputStream)
 			throws IOException {
-		try {
-			InitializationJsonConverter converter = new InitializationJsonConverter();
-			JSONObject jsonObject = converter.toJsonArray(metadata);
-			outputStream.write(jsonObject.toString(2).getBytes(StandardCharsets.UTF_8));
+		JsonWriter writer = new JsonWriter(outputStream);
+		writer.beginObject();
+		writer.name("buildTimeInitialization");
+		writeEntries(writer, metadata.getBuildtimeClasses(), metadata.getBuildtimePackages());
+		writer.name("runtimeInitialization");
+		writeEntries(writer, metadata.getRuntimeClasses(), metadata.getRuntimePackages());
+		writer.endObject();
+		writer.flush();
+	}
+
+	private static void writeEntries(JsonWriter writer, List<String> classes, List<String> packages) throws IOException {
+		writer.beginArray();
+		for (String clazz : classes) {
+			writer.beginObject().name("class").value(clazz).endObject();
 		}
-		catch (Exception ex) {
-			if (ex instanceof IOException) {
-				throw (IOException) ex;
-			}
-			if (ex instanceof RuntimeException) {
-				throw (RuntimeException) ex;
-			}
-			throw new IllegalStateException(ex);
+		for (String pkg : packages) {
+			writer.beginObject().name("package").value(pkg).endObject();
 		}
+		writer.endArray();
 	}
 	
 	public static InitializationDescriptor read(String input) throws Exception {
@@ -66,66 +70,57 @@ public class InitializationJsonMarshaller {
 	}
 
 	public static InitializationDescriptor read(InputStream inputStream) throws Exception {
-		InitializationDescriptor metadata = toDelayInitDescriptor(new JSONObject(toString(inputStream)));
-		return metadata;
-	}
-	
-	private static InitializationDescriptor toDelayInitDescriptor(JSONObject object) throws Exception {
 		InitializationDescriptor rd = new InitializationDescriptor();
-		JSONArray array = object.getJSONArray("buildTimeInitialization");
-		for (int i=0;i<array.length();i++) {
-			JSONObject jsonObject = array.getJSONObject(i);
-			if (jsonObject.has("class")) {
-				rd.addBuildtimeClass(jsonObject.getString("class"));
-			} else if (jsonObject.has("package")) {
-				rd.addBuildtimePackage(jsonObject.getString("package"));
+		boolean buildTimeInitialization = false;
+		boolean runtimeInitialization = false;
+		JsonReader reader = new JsonReader(inputStream);
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (name.equals("buildTimeInitialization")) {
+				readEntries(reader, rd::addBuildtimeClass, rd::addBuildtimePackage);
+				buildTimeInitialization = true;
+			} else if (name.equals("runtimeInitialization")) {
+				readEntries(reader, rd::addRuntimeClass, rd::addRuntimePackage);
+				runtimeInitialization = true;
 			} else {
-				throw new IllegalStateException("Unrecognized entry in JSON: "+jsonObject.toString());
+				reader.skipValue();
 			}
 		}
-		array = object.getJSONArray("runtimeInitialization");
-		for (int i=0;i<array.length();i++) {
-			JSONObject jsonObject = array.getJSONObject(i);
-			if (jsonObject.has("class")) {
-				rd.addRuntimeClass(jsonObject.getString("class"));
-			} else if (jsonObject.has("package")) {
-				rd.addRuntimePackage(jsonObject.getString("package"));
-			} else {
-				throw new IllegalStateException("Unrecognized entry in JSON: "+jsonObject.toString());
-			}
+		reader.endObject();
+		if (!buildTimeInitialization || !runtimeInitialization) {
+			throw new IllegalStateException("Expected both buildTimeInitialization and runtimeInitialization entries");
 		}
 		return rd;
 	}
-	
-//	private static FieldDescriptor toFieldDescriptor(JSONObject object) throws Exception {
-//		String name = object.getString("name");
-//		boolean allowWrite = object.optBoolean("allowWrite");
-//		return new FieldDescriptor(name,allowWrite);
-//	}
-//
-//	private static MethodDescriptor toMethodDescriptor(JSONObject object) throws Exception {
-//		String name = object.getString("name");
-//		JSONArray parameterTypes = object.optJSONArray("parameterTypes");
-//		List<String> listOfParameterTypes = null;
-//		if (parameterTypes != null) {
-//			listOfParameterTypes = new ArrayList<>();
-//			for (int i=0;i<parameterTypes.length();i++) {
-//				listOfParameterTypes.add(parameterTypes.getString(i));
-//			}
-//		}
-//		return new MethodDescriptor(name, listOfParameterTypes);
-//	}
 
-	private static String toString(InputStream inputStream) throws IOException {
-		StringBuilder out = new StringBuilder();
-		InputStreamReader reader = new InputStreamReader(inputStream,
-				StandardCharsets.UTF_8);
-		char[] buffer = new char[BUFFER_SIZE];
-		int bytesRead;
-		while ((bytesRead = reader.read(buffer)) != -1) {
-			out.append(buffer, 0, bytesRead);
+	private static void readEntries(JsonReader reader, Consumer<String> classes, Consumer<String> packages)
+			throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			String clazz = null;
+			String pkg = null;
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if (name.equals("class")) {
+					clazz = reader.nextString();
+				} else if (name.equals("package")) {
+					pkg = reader.nextString();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+			if (clazz != null) {
+				classes.accept(clazz);
+			} else if (pkg != null) {
+				packages.accept(pkg);
+			} else {
+				throw new IllegalStateException("Unrecognized entry in JSON, expected a class or package");
+			}
 		}
-		return out.toString();
+		reader.endArray();
 	}
 
 }
@@ -19,13 +19,13 @@ package org.springframework.graalvm.domain.proxies;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.springframework.graalvm.json.JSONArray;
+import org.springframework.graalvm.domain.JsonReader;
+import org.springframework.graalvm.domain.JsonWriter;
 
 /**
  * Marshaller to write {@link ProxiesDescriptor} as JSON.
@@ -34,24 +34,19 @@ import org.springframework.graalvm.json.JSONArray;
  */
 public class ProxiesDescriptorJsonMarshaller {
 
-	private static final int BUFFER_SIZE = 4098;
-
 	public void write(ProxiesDescriptor metadata, OutputStream outputStream)
 			throws IOException {
-		try {
-			ProxiesDescriptorJsonConverter converter = new ProxiesDescriptorJsonConverter();
-			JSONArray jsonArray = converter.toJsonArray(metadata);
-			outputStream.write(jsonArray.toString(2).getBytes(StandardCharsets.UTF_8));
-		}
-		catch (Exception ex) {
-			if (ex instanceof IOException) {
-				throw (IOException) ex;
-			}
-			if (ex instanceof RuntimeException) {
-				throw (RuntimeException) ex;
+		JsonWriter writer = new JsonWriter(outputStream);
+		writer.beginArray();
+		for (ProxyDescriptor pd : metadata.getProxyDescriptors()) {
+			writer.beginArray();
+			for (String intface : pd.getInterfaces()) {
+				writer.value(intface);
 			}
-			throw new IllegalStateException(ex);
+			writer.endArray();
 		}
+		writer.endArray();
+		writer.flush();
 	}
 	
 	public static ProxiesDescriptor read(String input) throws Exception {
@@ -67,75 +62,26 @@ public class ProxiesDescriptorJsonMarshaller {
 	}
 
 	public static ProxiesDescriptor read(InputStream inputStream) throws Exception {
-		ProxiesDescriptor metadata = toProxiesDescriptor(new JSONArray(toString(inputStream)));
-		return metadata;
-	}
-	
-	private static ProxiesDescriptor toProxiesDescriptor(JSONArray array) throws Exception {
 		ProxiesDescriptor pds = new ProxiesDescriptor();
-		for (int i=0;i<array.length();i++) {
-			pds.add(toProxyDescriptor((JSONArray)array.get(i)));
+		JsonReader reader = new JsonReader(inputStream);
+		reader.beginArray();
+		while (reader.hasNext()) {
+			pds.add(toProxyDescriptor(reader));
 		}
+		reader.endArray();
 		return pds;
 	}
 	
-	private static ProxyDescriptor toProxyDescriptor(JSONArray array) throws Exception {
+	private static ProxyDescriptor toProxyDescriptor(JsonReader reader) throws IOException {
 		ProxyDescriptor pd = new ProxyDescriptor();
 		List<String> interfaces = new ArrayList<>();
-		for (int i=0;i<array.length();i++) {
-			interfaces.add(array.getString(i));
+		reader.beginArray();
+		while (reader.hasNext()) {
+			interfaces.add(reader.nextString());
 		}
+		reader.endArray();
 		pd.setInterfaces(interfaces);
-//		cd.setName(object.getString("name"));
-//		for (Flag f: Flag.values()) {
-//			if (object.optBoolean(f.name())) {
-//				cd.setFlag(f);
-//			}
-//		}
-//		JSONArray fields = object.optJSONArray("fields");
-//		if (fields != null) {
-//			for (int i=0;i<fields.length();i++) {
-//				cd.addFieldDescriptor(toFieldDescriptor(fields.getJSONObject(i)));
-//			}
-//		}
-//		JSONArray methods = object.optJSONArray("methods");
-//		if (methods != null) {
-//			for (int i=0;i<methods.length();i++) {
-//				cd.addMethodDescriptor(toMethodDescriptor(methods.getJSONObject(i)));
-//			}
-//		}
 		return pd;
 	}
-	
-//	private static FieldDescriptor toFieldDescriptor(JSONObject object) throws Exception {
-//		String name = object.getString("name");
-//		boolean allowWrite = object.optBoolean("allowWrite");
-//		return new FieldDescriptor(name,allowWrite);
-//	}
-//
-//	private static MethodDescriptor toMethodDescriptor(JSONObject object) throws Exception {
-//		String name = object.getString("name");
-//		JSONArray parameterTypes = object.optJSONArray("parameterTypes");
-//		List<String> listOfParameterTypes = null;
-//		if (parameterTypes != null) {
-//			listOfParameterTypes = new ArrayList<>();
-//			for (int i=0;i<parameterTypes.length();i++) {
-//				listOfParameterTypes.add(parameterTypes.getString(i));
-//			}
-//		}
-//		return new MethodDescriptor(name, listOfParameterTypes);
-//	}
-
-	private static String toString(InputStream inputStream) throws IOException {
-		StringBuilder out = new StringBuilder();
-		InputStreamReader reader = new InputStreamReader(inputStream,
-				StandardCharsets.UTF_8);
-		char[] buffer = new char[BUFFER_SIZE];
-		int bytesRead;
-		while ((bytesRead = reader.read(buffer)) != -1) {
-			out.append(buffer, 0, bytesRead);
-		}
-		return out.toString();
-	}
 
 }
@@ -17,6 +17,7 @@
 package org.springframework.graalvm.domain.reflect;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -35,6 +36,8 @@ public final class ClassDescriptor implements Comparable<ClassDescriptor> {
 
 	private List<MethodDescriptor> methods; // includes constructors "<init>"
 
+	private Set<MethodDescriptor> methodSet; // the same methods, for quick containment checks
+
 	private Set<Flag> flags; // Inclusion in list indicates they are set
 
 	ClassDescriptor() {
@@ -44,6 +47,9 @@ public final class ClassDescriptor implements Comparable<ClassDescriptor> {
 		this.name = name;
 		this.fields = fields;
 		this.methods = methods;
+		if (methods != null) {
+			this.methodSet = new HashSet<>(methods);
+		}
 		this.flags = flags;
 	}
 
@@ -168,8 +174,10 @@ public final class ClassDescriptor implements Comparable<ClassDescriptor> {
 	public void addMethodDescriptor(MethodDescriptor methodDescriptor) {
 		if (methods == null) {
 			methods = new ArrayList<>();
+			methodSet = new HashSet<>();
 		}
 		methods.add(methodDescriptor);
+		methodSet.add(methodDescriptor);
 	}
 
 	public void addFieldDescriptor(FieldDescriptor fieldDescriptor) {
@@ -219,7 +227,7 @@ public final class ClassDescriptor implements Comparable<ClassDescriptor> {
 	}
 
 	private boolean containsMethodDescriptor(MethodDescriptor methodDescriptor) {
-		return methods == null?false:methods.contains(methodDescriptor);
+		return methods == null?false:methodSet.contains(methodDescriptor);
 	}
 
 	public MethodDescriptor getMethodDescriptor(String name, String... parameterTypes) {
@@ -235,14 +243,7 @@ public final class ClassDescriptor implements Comparable<ClassDescriptor> {
 	}
 
 	public boolean contains(MethodDescriptor toFind) {
-		if (methods != null) {
-			for (MethodDescriptor md : methods) {
-				if (md.equals(toFind)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return containsMethodDescriptor(toFind);
 	}
 	
 	private boolean hasConstructors() {
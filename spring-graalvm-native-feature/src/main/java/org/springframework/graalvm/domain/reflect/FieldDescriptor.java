@@ -86,5 +86,9 @@ public final class FieldDescriptor extends MemberDescriptor implements Comparabl
 	public void setAllowUnsafeAccess(boolean b) {
 		this.allowUnsafeAccess = b;
 	}
-	
+
+	public static FieldDescriptor of(String name, boolean allowWrite, boolean allowUnsafeAccess) {
+		return new FieldDescriptor(name, allowWrite, allowUnsafeAccess);
+	}
+
 }
@@ -18,43 +18,100 @@ package org.springframework.graalvm.domain.reflect;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
-import org.springframework.graalvm.domain.resources.ResourcesDescriptor;
-import org.springframework.graalvm.json.JSONArray;
-import org.springframework.graalvm.json.JSONObject;
+import org.springframework.graalvm.domain.JsonReader;
+import org.springframework.graalvm.domain.JsonWriter;
 
 /**
- * Marshaller to write {@link ReflectionDescriptor} as JSON.
+ * Marshaller to write {@link ReflectionDescriptor} as JSON. Reading and writing stream the
+ * descriptors through a {@link JsonReader} and {@link JsonWriter}, no JSON document is built in memory.
  *
  * @author Andy Clement
  */
 public class JsonMarshaller {
 
-	private static final int BUFFER_SIZE = 4098;
+	private static final Map<String, Flag> FLAGS = new HashMap<>();
+
+	static {
+		for (Flag flag : Flag.values()) {
+			FLAGS.put(flag.name(), flag);
+		}
+	}
 
 	public static void write(ReflectionDescriptor metadata, OutputStream outputStream)
 			throws IOException {
-		try {
-			JsonConverter converter = new JsonConverter();
-			JSONArray jsonArray = converter.toJsonArray(metadata);
-			outputStream.write(jsonArray.toString(2).getBytes(StandardCharsets.UTF_8));
+		write(metadata.getClassDescriptors(), outputStream);
+	}
+	
+	/**
+	 * Write the class descriptors as a JSON array one descriptor at a time. The output is the same as that of
+	 * {@link #write(ReflectionDescriptor, OutputStream)} for a descriptor containing the same class descriptors
+	 * in the same order.
+	 */
+	public static void write(Iterable<ClassDescriptor> classDescriptors, OutputStream outputStream)
+			throws IOException {
+		JsonWriter writer = new JsonWriter(outputStream);
+		writer.beginArray();
+		for (ClassDescriptor cd : classDescriptors) {
+			writeClassDescriptor(cd, writer);
+		}
+		writer.endArray();
+		writer.flush();
+	}
+
+	private static void writeClassDescriptor(ClassDescriptor cd, JsonWriter writer) throws IOException {
+		writer.beginObject();
+		writer.name("name").value(cd.getName());
+		Set<Flag> flags = cd.getFlags();
+		if (flags != null) {
+			for (Flag flag : Flag.values()) {
+				if (flags.contains(flag)) {
+					writer.name(flag.name()).value(true);
+				}
+			}
 		}
-		catch (Exception ex) {
-			if (ex instanceof IOException) {
-				throw (IOException) ex;
+		List<FieldDescriptor> fds = cd.getFields();
+		if (fds != null) {
+			writer.name("fields").beginArray();
+			for (FieldDescriptor fd : fds) {
+				writer.beginObject();
+				writer.name("name").value(fd.getName());
+				if (fd.isAllowWrite()) {
+					writer.name("allowWrite").value("true");
+				}
+				writer.endObject();
 			}
-			if (ex instanceof RuntimeException) {
-				throw (RuntimeException) ex;
+			writer.endArray();
+		}
+		List<MethodDescriptor> mds = cd.getMethods();
+		if (mds != null) {
+			writer.name("methods").beginArray();
+			for (MethodDescriptor md : mds) {
+				writer.beginObject();
+				writer.name("name").value(md.getName());
+				writer.name("parameterTypes").beginArray();
+				List<String> parameterTypes = md.getParameterTypes();
+				if (parameterTypes != null) {
+					for (String pt : parameterTypes) {
+						writer.value(pt);
+					}
+				}
+				writer.endArray();
+				writer.endObject();
 			}
-			throw new IllegalStateException(ex);
+			writer.endArray();
 		}
+		writer.endObject();
 	}
-	
+
 	public static ReflectionDescriptor read(String input) throws Exception {
 		try (ByteArrayInputStream bais = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))) {
 			return read(bais);
@@ -68,81 +125,121 @@ public class JsonMarshaller {
 	}
 
 	public static ReflectionDescriptor read(InputStream inputStream) {
-		try {
-			ReflectionDescriptor metadata = toReflectionDescriptor(new JSONArray(toString(inputStream)));
-			return metadata;
-		} catch (Exception e) {
-			throw new IllegalStateException("Unable to read ReflectionDescriptor from inputstream", e);
-		}
-	}
-
-	private static ReflectionDescriptor toReflectionDescriptor(JSONArray array) throws Exception {
 		ReflectionDescriptor rd = new ReflectionDescriptor();
-		for (int i=0;i<array.length();i++) {
-			ClassDescriptor cd = toClassDescriptor((JSONObject)array.get(i));
+		read(inputStream, cd -> {
 			if (rd.hasClassDescriptor(cd.getName())) {
 				System.out.println("DUPLICATE: "+cd.getName());
 				rd.getClassDescriptor(cd.getName()).merge(cd);
 			} else {
 				rd.add(cd);
 			}
-		}
+		});
 		return rd;
 	}
-	
-	private static ClassDescriptor toClassDescriptor(JSONObject object) throws Exception {
-		ClassDescriptor cd = new ClassDescriptor();
-		cd.setName(object.getString("name"));
-		for (Flag f: Flag.values()) {
-			if (object.optBoolean(f.name())) {
-				cd.setFlag(f);
+
+	/**
+	 * Read the class descriptors one at a time, passing each to the consumer as soon as it is complete. Only
+	 * the descriptor being read is held in memory, so this is the way to process very large files.
+	 */
+	public static void read(InputStream inputStream, Consumer<ClassDescriptor> consumer) {
+		try {
+			JsonReader reader = new JsonReader(inputStream);
+			reader.beginArray();
+			while (reader.hasNext()) {
+				consumer.accept(readClassDescriptor(reader));
 			}
+			reader.endArray();
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to read ReflectionDescriptor from inputstream", e);
 		}
-		JSONArray fields = object.optJSONArray("fields");
-		if (fields != null) {
-			for (int i=0;i<fields.length();i++) {
-				cd.addFieldDescriptor(toFieldDescriptor(fields.getJSONObject(i)));
+	}
+
+	private static ClassDescriptor readClassDescriptor(JsonReader reader) throws IOException {
+		ClassDescriptor cd = new ClassDescriptor();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			Flag flag = FLAGS.get(name);
+			if (flag != null) {
+				if (reader.optBoolean()) {
+					cd.setFlag(flag);
+				}
+			} else if (name.equals("name")) {
+				cd.setName(reader.nextString());
+			} else if (name.equals("fields") && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					cd.addFieldDescriptor(readFieldDescriptor(reader));
+				}
+				reader.endArray();
+			} else if (name.equals("methods") && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					cd.addMethodDescriptor(readMethodDescriptor(reader));
+				}
+				reader.endArray();
+			} else {
+				reader.skipValue();
 			}
 		}
-		JSONArray methods = object.optJSONArray("methods");
-		if (methods != null) {
-			for (int i=0;i<methods.length();i++) {
-				cd.addMethodDescriptor(toMethodDescriptor(methods.getJSONObject(i)));
-			}
+		reader.endObject();
+		if (cd.getName() == null) {
+			throw new IllegalStateException("Class descriptor has no name");
 		}
 		return cd;
 	}
 	
-	private static FieldDescriptor toFieldDescriptor(JSONObject object) throws Exception {
-		String name = object.getString("name");
-		boolean allowWrite = object.optBoolean("allowWrite");
-		boolean allowUnsafeAccess = object.optBoolean("allowUnsafeAccess"); // Need to confirm this is right
+	private static FieldDescriptor readFieldDescriptor(JsonReader reader) throws IOException {
+		String name = null;
+		boolean allowWrite = false;
+		boolean allowUnsafeAccess = false; // Need to confirm this is right
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "name":
+					name = reader.nextString();
+					break;
+				case "allowWrite":
+					allowWrite = reader.optBoolean();
+					break;
+				case "allowUnsafeAccess":
+					allowUnsafeAccess = reader.optBoolean();
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+		reader.endObject();
+		if (name == null) {
+			throw new IllegalStateException("Field descriptor has no name");
+		}
 		return new FieldDescriptor(name,allowWrite,allowUnsafeAccess);
 	}
 
-	private static MethodDescriptor toMethodDescriptor(JSONObject object) throws Exception {
-		String name = object.getString("name");
-		JSONArray parameterTypes = object.optJSONArray("parameterTypes");
+	private static MethodDescriptor readMethodDescriptor(JsonReader reader) throws IOException {
+		String name = null;
 		List<String> listOfParameterTypes = null;
-		if (parameterTypes != null) {
-			listOfParameterTypes = new ArrayList<>();
-			for (int i=0;i<parameterTypes.length();i++) {
-				listOfParameterTypes.add(parameterTypes.getString(i));
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String key = reader.nextName();
+			if (key.equals("name")) {
+				name = reader.nextString();
+			} else if (key.equals("parameterTypes") && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+				listOfParameterTypes = new ArrayList<>();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					listOfParameterTypes.add(reader.nextString());
+				}
+				reader.endArray();
+			} else {
+				reader.skipValue();
 			}
 		}
-		return new MethodDescriptor(name, listOfParameterTypes);
-	}
-
-	private static String toString(InputStream inputStream) throws IOException {
-		StringBuilder out = new StringBuilder();
-		InputStreamReader reader = new InputStreamReader(inputStream,
-				StandardCharsets.UTF_8);
-		char[] buffer = new char[BUFFER_SIZE];
-		int bytesRead;
-		while ((bytesRead = reader.read(buffer)) != -1) {
-			out.append(buffer, 0, bytesRead);
+		reader.endObject();
+		if (name == null) {
+			throw new IllegalStateException("Method descriptor has no name");
 		}
-		return out.toString();
+		return new MethodDescriptor(name, listOfParameterTypes);
 	}
 
 }
@@ -17,7 +17,9 @@
 package org.springframework.graalvm.domain.reflect;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * https://github.com/oracle/graal/blob/master/substratevm/REFLECTION.md
@@ -28,12 +30,17 @@ public class ReflectionDescriptor {
 
 	private final List<ClassDescriptor> classDescriptors;
 
+	// The first descriptor added for each name
+	private final Map<String, ClassDescriptor> classDescriptorsByName;
+
 	public ReflectionDescriptor() {
 		this.classDescriptors = new ArrayList<>();
+		this.classDescriptorsByName = new HashMap<>();
 	}
 
 	public ReflectionDescriptor(ReflectionDescriptor metadata) {
 		this.classDescriptors = new ArrayList<>(metadata.classDescriptors);
+		this.classDescriptorsByName = new HashMap<>(metadata.classDescriptorsByName);
 	}
 	
 	public void sort() {
@@ -46,6 +53,7 @@ public class ReflectionDescriptor {
 
 	public void add(ClassDescriptor classDescriptor) {
 		this.classDescriptors.add(classDescriptor);
+		this.classDescriptorsByName.putIfAbsent(classDescriptor.getName(), classDescriptor);
 	}
 
 	@Override
@@ -71,21 +79,11 @@ public class ReflectionDescriptor {
 	}
 
 	public boolean hasClassDescriptor(String string) {
-		for (ClassDescriptor cd: classDescriptors) {
-			if (cd.getName().equals(string)) {
-				return true;
-			}
-		}
-		return false;
+		return classDescriptorsByName.containsKey(string);
 	}
 
 	public ClassDescriptor getClassDescriptor(String type) {
-		for (ClassDescriptor cd: classDescriptors) {
-			if (cd.getName().equals(type)) {
-				return cd;
-			}
-		}
-		return null;
+		return classDescriptorsByName.get(type);
 	}
 
 }
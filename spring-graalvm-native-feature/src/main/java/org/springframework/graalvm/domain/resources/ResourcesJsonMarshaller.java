@@ -19,12 +19,12 @@ package org.springframework.graalvm.domain.resources;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
 
-import org.springframework.graalvm.json.JSONArray;
-import org.springframework.graalvm.json.JSONObject;
+import org.springframework.graalvm.domain.JsonReader;
+import org.springframework.graalvm.domain.JsonWriter;
 
 /**
  * Marshaller to write {@link ResourcesDescriptor} as JSON.
@@ -33,24 +33,17 @@ import org.springframework.graalvm.json.JSONObject;
  */
 public class ResourcesJsonMarshaller {
 
-	private static final int BUFFER_SIZE = 4098;
-
 	public void write(ResourcesDescriptor metadata, OutputStream outputStream)
 			throws IOException {
-		try {
-			ResourcesJsonConverter converter = new ResourcesJsonConverter();
-			JSONObject jsonObject = converter.toJsonArray(metadata);
-			outputStream.write(jsonObject.toString(2).getBytes(StandardCharsets.UTF_8));
-		}
-		catch (Exception ex) {
-			if (ex instanceof IOException) {
-				throw (IOException) ex;
-			}
-			if (ex instanceof RuntimeException) {
-				throw (RuntimeException) ex;
-			}
-			throw new IllegalStateException(ex);
+		JsonWriter writer = new JsonWriter(outputStream);
+		writer.beginObject();
+		writer.name("resources").beginArray();
+		for (String pattern : metadata.getPatterns()) {
+			writer.beginObject().name("pattern").value(pattern).endObject();
 		}
+		writer.endArray();
+		writer.endObject();
+		writer.flush();
 	}
 	
 	public static ResourcesDescriptor read(String input) throws Exception {
@@ -67,60 +60,48 @@ public class ResourcesJsonMarshaller {
 
 	public static ResourcesDescriptor read(InputStream inputStream) {
 		try {
-			ResourcesDescriptor metadata = toResourcesDescriptor(new JSONObject(toString(inputStream)));
-			return metadata;
+			ResourcesDescriptor rd = new ResourcesDescriptor();
+			JsonReader reader = new JsonReader(inputStream);
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if (name.equals("bundles")) {
+					readEntries(reader, "name", rd::addBundle);
+				} else if (name.equals("resources")) {
+					readEntries(reader, "pattern", rd::add);
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+			return rd;
 		} catch (Exception e) {
 			throw new IllegalStateException("Unable to read ResourcesDescriptor from inputstream", e);
 		}
 	}
-	
-	private static ResourcesDescriptor toResourcesDescriptor(JSONObject object) throws Exception {
-		ResourcesDescriptor rd = new ResourcesDescriptor();
-		JSONArray array = null;
-		if (object.has("bundles")) {
-			array = object.getJSONArray("bundles");
-			for (int i=0;i<array.length();i++) {
-				rd.addBundle(array.getJSONObject(i).getString("name"));
+
+	/**
+	 * Read an array of objects, passing on the value of the specified key in each one.
+	 */
+	private static void readEntries(JsonReader reader, String key, Consumer<String> consumer) throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			String value = null;
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (reader.nextName().equals(key)) {
+					value = reader.nextString();
+				} else {
+					reader.skipValue();
+				}
 			}
-		}
-		if (object.has("resources")) {
-			array = object.getJSONArray("resources");
-			for (int i=0;i<array.length();i++) {
-			rd.add(array.getJSONObject(i).getString("pattern"));
+			reader.endObject();
+			if (value == null) {
+				throw new IllegalStateException("Entry has no " + key);
 			}
+			consumer.accept(value);
 		}
-		return rd;
-	}
-	
-//	private static FieldDescriptor toFieldDescriptor(JSONObject object) throws Exception {
-//		String name = object.getString("name");
-//		boolean allowWrite = object.optBoolean("allowWrite");
-//		return new FieldDescriptor(name,allowWrite);
-//	}
-//
-//	private static MethodDescriptor toMethodDescriptor(JSONObject object) throws Exception {
-//		String name = object.getString("name");
-//		JSONArray parameterTypes = object.optJSONArray("parameterTypes");
-//		List<String> listOfParameterTypes = null;
-//		if (parameterTypes != null) {
-//			listOfParameterTypes = new ArrayList<>();
-//			for (int i=0;i<parameterTypes.length();i++) {
-//				listOfParameterTypes.add(parameterTypes.getString(i));
-//			}
-//		}
-//		return new MethodDescriptor(name, listOfParameterTypes);
-//	}
-
-	private static String toString(InputStream inputStream) throws IOException {
-		StringBuilder out = new StringBuilder();
-		InputStreamReader reader = new InputStreamReader(inputStream,
-				StandardCharsets.UTF_8);
-		char[] buffer = new char[BUFFER_SIZE];
-		int bytesRead;
-		while ((bytesRead = reader.read(buffer)) != -1) {
-			out.append(buffer, 0, bytesRead);
-		}
-		return out.toString();
+		reader.endArray();
 	}
 
 }
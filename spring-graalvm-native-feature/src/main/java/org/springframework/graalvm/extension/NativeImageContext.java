@@ -45,8 +45,24 @@ public interface NativeImageContext {
 
 	boolean hasReflectionConfigFor(String key);
 
+	/**
+	 * Register a single field, for example one accessed with Unsafe by code generated during the build.
+	 */
+	void addFieldAccess(String key, String fieldName, boolean allowWrite, boolean allowUnsafeAccess);
+
 	void initializeAtBuildTime(Type type);
 
+	/**
+	 * For classes that are not on the classpath the type system sees, such as those defined during the build.
+	 */
+	void initializeAtBuildTime(Class<?> type);
+
+	/**
+	 * Run the static initializer of a class initialized while building the image (for example a class
+	 * generated and defined during the build) again at image runtime.
+	 */
+	void rerunInitialization(Class<?> type);
+
 	default boolean hasReflectionConfigFor(Type type) {
 		return hasReflectionConfigFor(type.getDottedName());
 	}
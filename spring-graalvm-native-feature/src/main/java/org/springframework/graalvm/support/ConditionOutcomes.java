@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The outcome of the classpath conditions ({@code @ConditionalOnClass} and {@code @ConditionalOnMissingClass}) of
+ * the auto-configurations kept in the image, their nested configurations and their {@code @Bean} methods,
+ * evaluated against the classpath while building the image. Keyed by class name, or declaring class name and
+ * method name separated by '#' (as Spring Boot names the element a condition is on). The class is initialized at
+ * build time so the outcomes are part of the image heap, the substituted {@code SpringBootCondition} returns them
+ * rather than evaluating {@code OnClassCondition}.
+ */
+public class ConditionOutcomes {
+
+	private static final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+
+	// Elements whose outcome could not be decided, or that share their name (overloaded @Bean methods) with
+	// an element with another outcome
+	private static final Set<String> undecided = ConcurrentHashMap.newKeySet();
+
+	public static class Outcome {
+
+		private final boolean match;
+
+		private final String message;
+
+		Outcome(boolean match, String message) {
+			this.match = match;
+			this.message = message;
+		}
+
+		public boolean isMatch() {
+			return match;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		boolean isSameAs(Outcome other) {
+			return match == other.match && message.equals(other.message);
+		}
+
+	}
+
+	/**
+	 * Record the outcome for an element, null if it cannot be decided while building the image.
+	 */
+	static void record(String classOrMethodName, Outcome outcome) {
+		if (undecided.contains(classOrMethodName)) {
+			return;
+		}
+		if (outcome != null) {
+			Outcome previous = outcomes.putIfAbsent(classOrMethodName, outcome);
+			if (previous == null || previous.isSameAs(outcome)) {
+				return;
+			}
+		}
+		outcomes.remove(classOrMethodName);
+		undecided.add(classOrMethodName);
+	}
+
+	static int size() {
+		return outcomes.size();
+	}
+
+	/**
+	 * @return the outcome recorded while building the image, or null if it must be evaluated
+	 */
+	public static Outcome get(String classOrMethodName) {
+		return outcomes.get(classOrMethodName);
+	}
+
+}
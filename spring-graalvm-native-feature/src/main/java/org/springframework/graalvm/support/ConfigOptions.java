@@ -42,6 +42,28 @@ public abstract class ConfigOptions {
 	private final static boolean VERIFIER_ON;
 	
 	private final static Mode MODE; // Default is 'feature'
+
+	private final static int PARALLELISM;
+
+	private final static String TYPE_SYSTEM_CACHE_DIR;
+
+	private final static int TYPE_CACHE_SIZE;
+
+	private final static boolean PRUNE_UNREACHABLE;
+
+	private final static boolean USE_HINT_BUNDLE;
+
+	private final static boolean FEATURE_REPORT;
+
+	private final static boolean GENERATE_ENTITY_INSTANTIATORS;
+
+	private final static boolean GENERATE_PROPERTY_ACCESSORS;
+
+	private final static boolean PARSE_QUERY_METHODS;
+
+	private final static boolean BUILD_TIME_CONDITIONS;
+
+	private final static boolean STATIC_SPRING_FACTORIES;
 	
 	// Temporary, for exploration
 	private final static boolean SKIP_AT_BEAN_HINT_PROCESSING;
@@ -98,6 +120,50 @@ public abstract class ConfigOptions {
 		if (REMOVE_JMX_SUPPORT) {
 			System.out.println("Removing JMX support");
 		}
+		PARALLELISM = Integer.getInteger("spring.native.parallelism", 1);
+		if (PARALLELISM > 1) {
+			System.out.println("Processing classpath with parallelism of "+PARALLELISM);
+		}
+		TYPE_SYSTEM_CACHE_DIR = System.getProperty("spring.native.type-system-cache");
+		if (TYPE_SYSTEM_CACHE_DIR != null) {
+			System.out.println("Caching type system information for classpath archives in "+TYPE_SYSTEM_CACHE_DIR);
+		}
+		TYPE_CACHE_SIZE = Integer.getInteger("spring.native.type-cache-size", 0);
+		if (TYPE_CACHE_SIZE > 0) {
+			System.out.println("Limiting type cache to "+TYPE_CACHE_SIZE+" types");
+		}
+		PRUNE_UNREACHABLE = Boolean.valueOf(System.getProperty("spring.native.prune-unreachable", "false"));
+		if (PRUNE_UNREACHABLE) {
+			System.out.println("Pruning spring.factories entries and hinted types unreachable from the application");
+		}
+		USE_HINT_BUNDLE = Boolean.valueOf(System.getProperty("spring.native.use-hint-bundle", "true"));
+		if (!USE_HINT_BUNDLE) {
+			System.out.println("Ignoring the hint bundle, reading hints from the configuration classes and files");
+		}
+		FEATURE_REPORT = Boolean.valueOf(System.getProperty("spring.native.feature-report", "true"));
+		if (!FEATURE_REPORT) {
+			System.out.println("Not writing the feature report next to the image");
+		}
+		GENERATE_ENTITY_INSTANTIATORS = Boolean.valueOf(System.getProperty("spring.native.generate-entity-instantiators", "true"));
+		if (!GENERATE_ENTITY_INSTANTIATORS) {
+			System.out.println("Not generating Spring Data entity instantiators, entities will be created reflectively");
+		}
+		GENERATE_PROPERTY_ACCESSORS = Boolean.valueOf(System.getProperty("spring.native.generate-property-accessors", "true"));
+		if (!GENERATE_PROPERTY_ACCESSORS) {
+			System.out.println("Not generating Spring Data property accessors, entity properties will be accessed reflectively");
+		}
+		PARSE_QUERY_METHODS = Boolean.valueOf(System.getProperty("spring.native.parse-query-methods", "true"));
+		if (!PARSE_QUERY_METHODS) {
+			System.out.println("Not parsing Spring Data query methods while building the image, they will be parsed at startup");
+		}
+		BUILD_TIME_CONDITIONS = Boolean.valueOf(System.getProperty("spring.native.build-time-conditions", "false"));
+		if (BUILD_TIME_CONDITIONS) {
+			System.out.println("Evaluating the classpath conditions of auto-configurations while building the image");
+		}
+		STATIC_SPRING_FACTORIES = Boolean.valueOf(System.getProperty("spring.native.static-spring-factories", "true"));
+		if (!STATIC_SPRING_FACTORIES) {
+			System.out.println("Not recording spring.factories in the image, the files will be read at runtime");
+		}
 		DUMP_CONFIG = System.getProperty("spring.native.dump-config");
 		if (DUMP_CONFIG!=null) {
 			System.out.println("Dumping computed config to "+DUMP_CONFIG);
@@ -172,4 +238,48 @@ public abstract class ConfigOptions {
 		return MODE;
 	}
 
-}
\ No newline at end of file
+	public static int getParallelism() {
+		return PARALLELISM;
+	}
+
+	public static String getTypeSystemCacheDir() {
+		return TYPE_SYSTEM_CACHE_DIR;
+	}
+
+	public static int getTypeCacheSize() {
+		return TYPE_CACHE_SIZE;
+	}
+
+	public static boolean shouldPruneUnreachable() {
+		return PRUNE_UNREACHABLE;
+	}
+
+	public static boolean shouldUseHintBundle() {
+		return USE_HINT_BUNDLE;
+	}
+
+	public static boolean shouldWriteFeatureReport() {
+		return FEATURE_REPORT;
+	}
+
+	public static boolean shouldGenerateEntityInstantiators() {
+		return GENERATE_ENTITY_INSTANTIATORS;
+	}
+
+	public static boolean shouldGeneratePropertyAccessors() {
+		return GENERATE_PROPERTY_ACCESSORS;
+	}
+
+	public static boolean shouldParseQueryMethods() {
+		return PARSE_QUERY_METHODS;
+	}
+
+	public static boolean shouldEvaluateConditionsAtBuildTime() {
+		return BUILD_TIME_CONDITIONS;
+	}
+
+	public static boolean shouldUseStaticSpringFactories() {
+		return STATIC_SPRING_FACTORIES;
+	}
+
+}
@@ -20,9 +20,11 @@ import java.util.List;
 
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.hosted.Feature.DuringSetupAccess;
+import org.springframework.graalvm.domain.bundle.HintBundle;
 import org.springframework.graalvm.domain.proxies.ProxiesDescriptor;
 import org.springframework.graalvm.domain.proxies.ProxiesDescriptorJsonMarshaller;
 import org.springframework.graalvm.domain.proxies.ProxyDescriptor;
+import org.springframework.graalvm.type.SpringConfiguration;
 
 import com.oracle.svm.core.jdk.proxy.DynamicProxyRegistry;
 import com.oracle.svm.hosted.FeatureImpl.DuringSetupAccessImpl;
@@ -33,6 +35,10 @@ public class DynamicProxiesHandler {
 	private ImageClassLoader imageClassLoader;
 
 	public ProxiesDescriptor compute() {
+		HintBundle hintBundle = SpringConfiguration.getHintBundle();
+		if (hintBundle != null && hintBundle.getProxiesDescriptor() != null) {
+			return hintBundle.getProxiesDescriptor();
+		}
 		try {
 			InputStream s = this.getClass().getResourceAsStream("/proxies.json");
 			ProxiesDescriptor pd = ProxiesDescriptorJsonMarshaller.read(s);
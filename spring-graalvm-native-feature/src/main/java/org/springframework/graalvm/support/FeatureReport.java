@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.springframework.graalvm.domain.JsonWriter;
+
+/**
+ * Wall time and counters (types resolved, type cache hits and misses, classes read...) for each phase of the
+ * feature, written as JSON next to the image so the cost of the feature can be compared across builds.
+ * Phases may nest: the counters of a phase include those of the phases it contains, which name it as parent.
+ * Until {@link #start()} is called phases are not recorded and counters are not registered.
+ */
+public class FeatureReport {
+
+	public static final String TYPE_CACHE_HITS = "typeCacheHits";
+
+	public static final String TYPE_CACHE_MISSES = "typeCacheMisses";
+
+	public static final String TYPES_RESOLVED = "typesResolved";
+
+	public static final String CLASSES_READ = "classesRead";
+
+	private static final Phase NONE = new Phase(null, null, null, null);
+
+	private static volatile FeatureReport report;
+
+	private final long start = System.nanoTime();
+
+	// Counter name to the sources summed to give its value, there is a source per type system
+	private final Map<String, List<LongSupplier>> counters = new LinkedHashMap<>();
+
+	private final List<Phase> phases = new ArrayList<>();
+
+	private final ThreadLocal<Deque<Phase>> active = ThreadLocal.withInitial(ArrayDeque::new);
+
+	/**
+	 * A phase of the feature, closing it records its time and the change in each counter since it began.
+	 */
+	public static class Phase implements AutoCloseable {
+
+		private final FeatureReport report;
+
+		private final String name;
+
+		private final String parent;
+
+		private final long start;
+
+		private final long[] countersAtStart;
+
+		private long time;
+
+		private Map<String, Long> counters;
+
+		Phase(FeatureReport report, String name, String parent, long[] countersAtStart) {
+			this.report = report;
+			this.name = name;
+			this.parent = parent;
+			this.start = System.nanoTime();
+			this.countersAtStart = countersAtStart;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getParent() {
+			return parent;
+		}
+
+		/**
+		 * @return the wall time of the phase in milliseconds
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		public Map<String, Long> getCounters() {
+			return counters;
+		}
+
+		@Override
+		public void close() {
+			if (report != null) {
+				report.end(this);
+			}
+		}
+
+	}
+
+	/**
+	 * Start recording, called when the feature is created.
+	 */
+	public static synchronized void start() {
+		if (report == null) {
+			report = new FeatureReport();
+		}
+	}
+
+	/**
+	 * @return the report being recorded or null if {@link #start()} has not been called
+	 */
+	public static FeatureReport get() {
+		return report;
+	}
+
+	/**
+	 * Begin a phase, to be closed (typically with try-with-resources) when it completes.
+	 */
+	public static Phase begin(String name) {
+		FeatureReport r = report;
+		return r == null ? NONE : r.beginPhase(name);
+	}
+
+	/**
+	 * Add a source to a counter, the counter is the sum of all its sources.
+	 */
+	public static void addCounter(String name, LongSupplier source) {
+		FeatureReport r = report;
+		if (r != null) {
+			synchronized (r) {
+				r.counters.computeIfAbsent(name, k -> new ArrayList<>()).add(source);
+			}
+		}
+	}
+
+	private Phase beginPhase(String name) {
+		Deque<Phase> stack = active.get();
+		Phase phase = new Phase(this, name, stack.isEmpty() ? null : stack.peek().name, readCounters());
+		stack.push(phase);
+		return phase;
+	}
+
+	private void end(Phase phase) {
+		phase.time = (System.nanoTime() - phase.start) / 1_000_000;
+		long[] values = readCounters();
+		Map<String, Long> deltas = new LinkedHashMap<>();
+		synchronized (this) {
+			int i = 0;
+			for (String name : counters.keySet()) {
+				// A counter registered during the phase started from zero
+				long atStart = i < phase.countersAtStart.length ? phase.countersAtStart[i] : 0;
+				deltas.put(name, values[i] - atStart);
+				i++;
+			}
+			phase.counters = deltas;
+			phases.add(phase);
+		}
+		active.get().remove(phase);
+	}
+
+	private synchronized long[] readCounters() {
+		long[] values = new long[counters.size()];
+		int i = 0;
+		for (List<LongSupplier> sources : counters.values()) {
+			for (LongSupplier source : sources) {
+				values[i] += source.getAsLong();
+			}
+			i++;
+		}
+		return values;
+	}
+
+	/**
+	 * @return the completed phases, in the order they completed
+	 */
+	public synchronized List<Phase> getPhases() {
+		return new ArrayList<>(phases);
+	}
+
+	/**
+	 * Write the report: the mode, the total time since recording started, the final counter values and the
+	 * completed phases.
+	 */
+	public void write(OutputStream outputStream) throws IOException {
+		long total = (System.nanoTime() - start) / 1_000_000;
+		List<Phase> completed;
+		Map<String, Long> totals = new LinkedHashMap<>();
+		synchronized (this) {
+			completed = new ArrayList<>(phases);
+			long[] values = readCounters();
+			int i = 0;
+			for (String name : counters.keySet()) {
+				totals.put(name, values[i++]);
+			}
+		}
+		JsonWriter writer = new JsonWriter(outputStream);
+		writer.beginObject();
+		writer.name("mode").value(ConfigOptions.getMode().name().toLowerCase());
+		writer.name("parallelism").value(ConfigOptions.getParallelism());
+		writer.name("time").value(total);
+		writer.name("counters");
+		writeCounters(writer, totals);
+		writer.name("phases").beginArray();
+		for (Phase phase : completed) {
+			writer.beginObject();
+			writer.name("name").value(phase.name);
+			if (phase.parent != null) {
+				writer.name("parent").value(phase.parent);
+			}
+			writer.name("time").value(phase.time);
+			writer.name("counters");
+			writeCounters(writer, phase.counters);
+			writer.endObject();
+		}
+		writer.endArray();
+		writer.endObject();
+		writer.flush();
+	}
+
+	private static void writeCounters(JsonWriter writer, Map<String, Long> counters) throws IOException {
+		writer.beginObject();
+		for (Map.Entry<String, Long> counter : counters.entrySet()) {
+			writer.name(counter.getKey()).value(counter.getValue());
+		}
+		writer.endObject();
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * The content of the spring.factories files registered in the image, merged as SpringFactoriesLoader merges
+ * them, along with an instantiator for each listed implementation that has a public no-arg constructor. The
+ * class is initialized at build time so the table and the instantiators are part of the image heap, the
+ * substituted SpringFactoriesLoader returns them rather than parsing the files and instantiating the
+ * implementations reflectively.
+ */
+public class GeneratedSpringFactories {
+
+	// Factory type name to the names of its implementations, in the order the files list them
+	private static final Map<String, List<String>> factoryNames = new HashMap<>();
+
+	// Keyed by implementation name
+	private static final Map<String, Supplier<Object>> instantiators = new HashMap<>();
+
+	/**
+	 * Add the content of a spring.factories file, in classpath order. Duplicate implementation names are
+	 * dropped.
+	 */
+	static void add(Properties springFactories) {
+		for (String key : springFactories.stringPropertyNames()) {
+			String factoryTypeName = key.trim();
+			List<String> names = new ArrayList<>(factoryNames.getOrDefault(factoryTypeName, Collections.emptyList()));
+			String value = springFactories.getProperty(key);
+			if (!value.isEmpty()) {
+				for (String name : value.split(",")) {
+					name = name.trim();
+					if (!names.contains(name)) {
+						names.add(name);
+					}
+				}
+			}
+			if (!names.isEmpty()) {
+				factoryNames.put(factoryTypeName, Collections.unmodifiableList(names));
+			}
+		}
+	}
+
+	/**
+	 * Create the instantiator for an implementation: a lambda directly invoking its no-arg constructor.
+	 * @return false if the type or its no-arg constructor are not public
+	 */
+	@SuppressWarnings("unchecked")
+	static boolean addInstantiator(Class<?> type) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+					MethodType.methodType(Object.class), constructor, MethodType.methodType(type));
+			instantiators.put(type.getName(), (Supplier<Object>) site.getTarget().invoke());
+			return true;
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return false;
+		} catch (Throwable t) {
+			throw new IllegalStateException("Unable to create the instantiator for " + type.getName(), t);
+		}
+	}
+
+	static int size() {
+		return factoryNames.size();
+	}
+
+	static int instantiatorCount() {
+		return instantiators.size();
+	}
+
+	/**
+	 * @return the implementation names for each factory type name
+	 */
+	public static Map<String, List<String>> getFactoryNames() {
+		return factoryNames;
+	}
+
+	/**
+	 * @return a new instance of the implementation, or null if it has no instantiator and must be
+	 * instantiated reflectively
+	 */
+	public static Object instantiate(String implementationName) {
+		Supplier<Object> instantiator = instantiators.get(implementationName);
+		return instantiator == null ? null : instantiator.get();
+	}
+
+}
@@ -23,8 +23,10 @@ import java.util.stream.Collectors;
 
 import org.graalvm.nativeimage.hosted.Feature.BeforeAnalysisAccess;
 import org.graalvm.nativeimage.hosted.RuntimeClassInitialization;
+import org.springframework.graalvm.domain.bundle.HintBundle;
 import org.springframework.graalvm.domain.init.InitializationDescriptor;
 import org.springframework.graalvm.domain.init.InitializationJsonMarshaller;
+import org.springframework.graalvm.type.SpringConfiguration;
 import org.springframework.graalvm.type.TypeSystem;
 
 import com.oracle.svm.hosted.FeatureImpl.BeforeAnalysisAccessImpl;
@@ -41,6 +43,10 @@ public class InitializationHandler {
 	private TypeSystem ts;
 
 	public InitializationDescriptor compute() {
+		HintBundle hintBundle = SpringConfiguration.getHintBundle();
+		if (hintBundle != null && hintBundle.getInitializationDescriptor() != null) {
+			return hintBundle.getInitializationDescriptor();
+		}
 		try {
 			InputStream s = this.getClass().getResourceAsStream("/initialization.json");
 			return InitializationJsonMarshaller.read(s);
@@ -70,7 +76,11 @@ public class InitializationHandler {
 		RuntimeClassInitialization.initializeAtRunTime(id.getRuntimePackages().toArray(new String[] {}));
 
 		if (ConfigOptions.isVerifierOn()) {
-			for (Map.Entry<String, List<String>> e : ts.getSpringClassesMakingIsPresentChecks().entrySet()) {
+			Map<String, List<String>> springClassesMakingIsPresentChecks;
+			try (FeatureReport.Phase phase = FeatureReport.begin("typesystem.isPresentScan")) {
+				springClassesMakingIsPresentChecks = ts.getSpringClassesMakingIsPresentChecks();
+			}
+			for (Map.Entry<String, List<String>> e : springClassesMakingIsPresentChecks.entrySet()) {
 				String k = e.getKey();
 				if (!id.getBuildtimeClasses().contains(k)) {
 					System.out.println("[verification] The type " + k
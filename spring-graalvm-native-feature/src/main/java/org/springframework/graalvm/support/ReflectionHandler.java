@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Array;
 import java.lang.reflect.Executable;
@@ -28,19 +29,23 @@ import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.hosted.Feature.DuringSetupAccess;
 import org.graalvm.nativeimage.impl.RuntimeReflectionSupport;
 import org.graalvm.util.GuardedAnnotationAccess;
+import org.springframework.graalvm.domain.bundle.HintBundle;
 import org.springframework.graalvm.domain.reflect.ClassDescriptor;
 import org.springframework.graalvm.domain.reflect.FieldDescriptor;
 import org.springframework.graalvm.domain.reflect.Flag;
 import org.springframework.graalvm.domain.reflect.JsonMarshaller;
 import org.springframework.graalvm.domain.reflect.MethodDescriptor;
 import org.springframework.graalvm.domain.reflect.ReflectionDescriptor;
+import org.springframework.graalvm.type.SpringConfiguration;
 
 import com.oracle.svm.core.hub.ClassForNameSupport;
 import com.oracle.svm.hosted.FeatureImpl.DuringSetupAccessImpl;
@@ -68,8 +73,26 @@ public class ReflectionHandler {
 
 	private int typesRegisteredForReflectiveAccessCount = 0;
 
+	private final boolean dumpConfig;
+
+	public ReflectionHandler() {
+		this(ConfigOptions.shouldDumpConfig());
+	}
+
+	/**
+	 * @param dumpConfig whether the registered types should be recorded for the {@link #dump()}
+	 */
+	ReflectionHandler(boolean dumpConfig) {
+		this.dumpConfig = dumpConfig;
+	}
+
 	public ReflectionDescriptor getConstantData() {
 		if (constantReflectionDescriptor == null) {
+			HintBundle hintBundle = SpringConfiguration.getHintBundle();
+			if (hintBundle != null && hintBundle.getReflectionDescriptor() != null) {
+				constantReflectionDescriptor = hintBundle.getReflectionDescriptor();
+				return constantReflectionDescriptor;
+			}
 			try {
 				InputStream s = this.getClass().getResourceAsStream(RESOURCE_FILE);
 				constantReflectionDescriptor = JsonMarshaller.read(s);
@@ -80,22 +103,17 @@ public class ReflectionHandler {
 		return constantReflectionDescriptor;
 	}
 	
-	private List<ClassDescriptor> activeClassDescriptors = new ArrayList<>();
+	// Descriptors for the types registered, kept sorted by name for the dump
+	private Map<String, ClassDescriptor> activeClassDescriptors = new TreeMap<>();
 
 	public void includeInDump(String typename, String[][] methodsAndConstructors, Flag[] flags) {
-		if (!ConfigOptions.shouldDumpConfig()) {
+		if (!dumpConfig) {
 			return;
 		}
-		ClassDescriptor currentCD = null;
-		for (ClassDescriptor cd: activeClassDescriptors) {
-			if (cd.getName().equals(typename)) {
-				currentCD = cd;
-				break;
-			}
-		}
+		ClassDescriptor currentCD = activeClassDescriptors.get(typename);
 		if (currentCD == null) {
 			currentCD  = ClassDescriptor.of(typename);
-			activeClassDescriptors.add(currentCD);
+			activeClassDescriptors.put(typename, currentCD);
 		}
 		// Update flags...
 		for (Flag f : flags) {
@@ -121,20 +139,22 @@ public class ReflectionHandler {
 		
 		
 	public void dump() {
-		if (!ConfigOptions.shouldDumpConfig()) {
+		if (!dumpConfig) {
 			return;
 		}
-		activeClassDescriptors.sort((c1,c2) -> c1.getName().compareTo(c2.getName()));
-		ReflectionDescriptor rd = new ReflectionDescriptor();
-		for (ClassDescriptor cd: activeClassDescriptors) {
-			rd.add(cd);
-		}
 		try (FileOutputStream fos = new FileOutputStream(new File(ConfigOptions.getDumpConfigLocation()))) {
-			JsonMarshaller.write(rd,fos);
+			dump(fos);
 		} catch (IOException ioe) {
 			ioe.printStackTrace();
 		}
 	}
+
+	/**
+	 * Write the types registered so far, in the format of a reflect-config.json file.
+	 */
+	void dump(OutputStream outputStream) throws IOException {
+		JsonMarshaller.write(activeClassDescriptors.values(), outputStream);
+	}
 	
 	public void registerHybrid(DuringSetupAccess a) {
 		DuringSetupAccessImpl access = (DuringSetupAccessImpl) a;
@@ -204,7 +224,10 @@ public class ReflectionHandler {
 				continue;
 			}
 			if (checkType(type)) {
-				activeClassDescriptors.add(classDescriptor);
+				ClassDescriptor existing = activeClassDescriptors.putIfAbsent(classDescriptor.getName(), classDescriptor);
+				if (existing != null) {
+					existing.merge(classDescriptor);
+				}
 				rra.registerType(type);
 				Set<Flag> flags = classDescriptor.getFlags();
 				if (flags != null) {
@@ -443,6 +466,21 @@ public class ReflectionHandler {
 		return type;
 	}
 
+	public void addFieldAccess(String typename, String fieldName, boolean allowWrite, boolean allowUnsafeAccess) {
+		SpringFeature.log("Registering reflective access to field " + typename + "." + fieldName
+				+ (allowUnsafeAccess ? " (allowing unsafe access)" : ""));
+		Class<?> type = rra.resolveType(typename);
+		if (type == null) {
+			SpringFeature.log("WARNING: Possible problem, cannot resolve " + typename);
+			return;
+		}
+		try {
+			rra.registerField(type, fieldName, allowWrite, allowUnsafeAccess);
+		} catch (NoSuchFieldException nsfe) {
+			throw new IllegalStateException("Couldn't find field: " + typename + "." + fieldName, nsfe);
+		}
+	}
+
 	public int getTypesRegisteredForReflectiveAccessCount() {
 		return typesRegisteredForReflectiveAccessCount;
 	}
@@ -21,14 +21,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,6 +33,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -47,12 +43,20 @@ import java.util.Properties;
 import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.hosted.Feature.BeforeAnalysisAccess;
 import org.graalvm.nativeimage.hosted.RuntimeClassInitialization;
+import org.graalvm.nativeimage.impl.RuntimeClassInitializationSupport;
+import org.springframework.graalvm.domain.bundle.HintBundle;
 import org.springframework.graalvm.domain.reflect.Flag;
 import org.springframework.graalvm.domain.reflect.ReflectionDescriptor;
 import org.springframework.graalvm.domain.resources.ResourcesDescriptor;
@@ -65,6 +69,8 @@ import org.springframework.graalvm.type.Hint;
 import org.springframework.graalvm.type.Method;
 import org.springframework.graalvm.type.MissingTypeException;
 import org.springframework.graalvm.type.ProxyDescriptor;
+import org.springframework.graalvm.type.ReferenceGraph;
+import org.springframework.graalvm.type.SpringConfiguration;
 import org.springframework.graalvm.type.Type;
 import org.springframework.graalvm.type.TypeSystem;
 
@@ -91,9 +97,46 @@ public class ResourcesHandler {
 
 	private DynamicProxiesHandler dynamicProxiesHandler;
 
+	// Only used when pruning unreachable types (see ConfigOptions.shouldPruneUnreachable()). Hinted types are
+	// checked against what is reachable from the application, the service providers, the values of the
+	// surviving spring.factories keys and all the listed auto-configurations. A spring.factories key survives
+	// when it is reachable from the same roots with only the surviving auto-configurations.
+	private ReferenceGraph hintedTypeReferences;
+
+	private Set<String> unreachableSpringFactoriesKeys;
+
+	// Validation results for the auto-configurations of each spring.factories, when computed up front
+	private Map<String, List<Boolean>> validatedAutoConfigurations = new HashMap<>();
+
+	private AtomicInteger prunedHintedTypes = new AtomicInteger();
+
+	// Auto-configurations left in spring.factories, the outcome of their classpath conditions may be recorded
+	private List<String> keptAutoConfigurations = new ArrayList<>();
+
+	// The content of the spring.factories files as registered in the image, and the implementations listed in
+	// them that SpringFactoriesLoader may instantiate (they only have a no-arg constructor)
+	private List<Properties> registeredSpringFactories = new ArrayList<>();
+
+	private Set<String> instantiableFactories = new LinkedHashSet<>();
+
+	// Number of threads checking classes for components and validating auto-configurations
+	private final int parallelism;
+
 	public ResourcesHandler(ReflectionHandler reflectionHandler, DynamicProxiesHandler dynamicProxiesHandler) {
+		this(reflectionHandler, dynamicProxiesHandler, null, null, ConfigOptions.getParallelism());
+	}
+
+	/**
+	 * Create a handler for an existing type system and resources registry, these are otherwise set up when
+	 * {@link #register(BeforeAnalysisAccess) registering}.
+	 */
+	ResourcesHandler(ReflectionHandler reflectionHandler, DynamicProxiesHandler dynamicProxiesHandler, TypeSystem ts,
+			ResourcesRegistry resourcesRegistry, int parallelism) {
 		this.reflectionHandler = reflectionHandler;
 		this.dynamicProxiesHandler = dynamicProxiesHandler;
+		this.ts = ts;
+		this.resourcesRegistry = resourcesRegistry;
+		this.parallelism = parallelism;
 	}
 
 	/**
@@ -101,6 +144,10 @@ public class ResourcesHandler {
 	 * @return a ResourcesDescriptor describing the resources from the file
 	 */
 	public ResourcesDescriptor readStaticResourcesConfiguration() {
+		HintBundle hintBundle = SpringConfiguration.getHintBundle();
+		if (hintBundle != null && hintBundle.getResourcesDescriptor() != null) {
+			return hintBundle.getResourcesDescriptor();
+		}
 		try {
 			InputStream s = this.getClass().getResourceAsStream("/resources.json");
 			ResourcesDescriptor resourcesDescriptor = ResourcesJsonMarshaller.read(s);
@@ -117,7 +164,13 @@ public class ResourcesHandler {
 	 */
 	public void register(BeforeAnalysisAccess access) {
 		cl = ((BeforeAnalysisAccessImpl) access).getImageClassLoader();
-		ts = TypeSystem.get(cl.getClasspath());
+		try (FeatureReport.Phase phase = FeatureReport.begin("typesystem.index")) {
+			ts = TypeSystem.get(cl.getClasspath());
+		}
+		FeatureReport.addCounter(FeatureReport.TYPE_CACHE_HITS, () -> ts.getTypeCache().getHits());
+		FeatureReport.addCounter(FeatureReport.TYPE_CACHE_MISSES, () -> ts.getTypeCache().getMisses());
+		FeatureReport.addCounter(FeatureReport.TYPES_RESOLVED, ts::getTypesResolved);
+		FeatureReport.addCounter(FeatureReport.CLASSES_READ, ts::getClassesRead);
 		resourcesRegistry = ImageSingletons.lookup(ResourcesRegistry.class);
 		ResourcesDescriptor rd = readStaticResourcesConfiguration();
 		System.out.println("Registering resources - #" + rd.getPatterns().size() + " patterns");
@@ -128,17 +181,41 @@ public class ResourcesHandler {
 		if (ConfigOptions.isFunctionalMode() ||
 			ConfigOptions.isDefaultMode() ||
 			ConfigOptions.isHybridMode()) {
-			registerPatterns(rd);
-			registerResourceBundles(rd);
+			try (FeatureReport.Phase phase = FeatureReport.begin("resources.patterns")) {
+				registerPatterns(rd);
+				registerResourceBundles(rd);
+			}
 		}
 		if (ConfigOptions.isDefaultMode() ||
 			ConfigOptions.isHybridMode()) {
-			processSpringFactories();
-			handleSpringConstantHints();
+			try (FeatureReport.Phase phase = FeatureReport.begin("resources.springFactories")) {
+				processSpringFactories();
+			}
+			if (ConfigOptions.shouldEvaluateConditionsAtBuildTime()) {
+				try (FeatureReport.Phase phase = FeatureReport.begin("resources.conditions")) {
+					recordConditionOutcomes();
+				}
+			}
+			if (ConfigOptions.isDefaultMode() && ConfigOptions.shouldUseStaticSpringFactories()) {
+				try (FeatureReport.Phase phase = FeatureReport.begin("resources.staticSpringFactories")) {
+					recordSpringFactories();
+				}
+			}
+			try (FeatureReport.Phase phase = FeatureReport.begin("resources.constantHints")) {
+				handleSpringConstantHints();
+			}
 		}
 		if (ConfigOptions.isDefaultMode() ||
 			ConfigOptions.isHybridMode()) {
-			handleSpringComponents();
+			try (FeatureReport.Phase phase = FeatureReport.begin("resources.components")) {
+				handleSpringComponents();
+			}
+		}
+		SpringFeature.log("SBG: " + ts.getTypeCache());
+		SpringFeature.log("SBG: " + ts.getHintCacheStatistics());
+		SpringFeature.log("SBG: type hierarchy completeness checks reused: #" + ts.getCompletenessWalksSaved());
+		if (hintedTypeReferences != null) {
+			SpringFeature.log("SBG: unreachable hinted types not registered: #" + prunedHintedTypes.get());
 		}
 	}
 
@@ -254,7 +331,7 @@ public class ResourcesHandler {
 			baos.close();
 			byte[] bs = baos.toByteArray();
 			ByteArrayInputStream bais = new ByteArrayInputStream(bs);
-			Resources.registerResource("META-INF/spring.components", bais);
+			registerResource("META-INF/spring.components", bais);
 		} catch (IOException e) {
 			throw new IllegalStateException(e);
 		}
@@ -480,6 +557,11 @@ public class ResourcesHandler {
 			return reflectiveFlags.containsKey(key);
 		}
 
+		@Override
+		public void addFieldAccess(String key, String fieldName, boolean allowWrite, boolean allowUnsafeAccess) {
+			reflectionHandler.addFieldAccess(key, fieldName, allowWrite, allowUnsafeAccess);
+		}
+
 		@Override
 		public void initializeAtBuildTime(Type type) {
 
@@ -490,6 +572,17 @@ public class ResourcesHandler {
 			}
 		}
 
+		@Override
+		public void initializeAtBuildTime(Class<?> type) {
+			RuntimeClassInitialization.initializeAtBuildTime(type);
+		}
+
+		@Override
+		public void rerunInitialization(Class<?> type) {
+			ImageSingletons.lookup(RuntimeClassInitializationSupport.class).rerunInitialization(type,
+					"computed by code generated while building the image");
+		}
+
 		@Override
 		public void addReflectiveAccessHierarchy(Type type, Flag... flags) {
 			registerHierarchy(type, new HashSet<>(), flags);
@@ -616,115 +709,231 @@ public class ResourcesHandler {
 	 */
 	public void processSpringFactories() {
 		log("Processing META-INF/spring.factories files...");
-		Enumeration<URL> springFactories = fetchResources("META-INF/spring.factories");
-		while (springFactories.hasMoreElements()) {
-			URL springFactory = springFactories.nextElement();
+		List<URL> springFactories = Collections.list(fetchResources("META-INF/spring.factories"));
+		if (ConfigOptions.shouldPruneUnreachable()) {
+			computeReachableTypes(springFactories);
+		}
+		for (URL springFactory : springFactories) {
 			processSpringFactory(ts, springFactory);
 		}
 	}
 
-	private List<Entry<Type, List<Type>>> filterOutNestedTypes(List<Entry<Type, List<Type>>> springComponents) {
-		List<Entry<Type, List<Type>>> filtered = new ArrayList<>();
-		List<Entry<Type, List<Type>>> subtypesToRemove = new ArrayList<>();
-		for (Entry<Type, List<Type>> a : springComponents) {
-			String type = a.getKey().getDottedName();
-			subtypesToRemove.addAll(springComponents.stream()
-					.filter(e -> e.getKey().getDottedName().startsWith(type + "$")).collect(Collectors.toList()));
-		}
-		filtered.addAll(springComponents);
-		filtered.removeAll(subtypesToRemove);
-		return filtered;
-	}
-
-	private List<Entry<Type, List<Type>>> scanForSpringComponents() {
-		return findDirectoriesOrTargetDirJar(ts.getClasspath()).flatMap(this::findClasses).map(this::typenameOfClass)
-				.map(this::getStereoTypesOnType).filter(Objects::nonNull).collect(Collectors.toList());
-	}
-
 	/**
-	 * Search for any relevant stereotypes on the specified type. Return entries of
-	 * the form:
-	 * "com.foo.MyType=org.springframework.stereotype.Component,javax.transaction.Transactional"
+	 * Follow the constant pool references from the application classes, the service providers and the
+	 * auto-configurations. The auto-configurations of every spring.factories are validated here, up front, so
+	 * that the surviving ones are known before any other spring.factories key is checked for reachability.
 	 */
-	private Entry<Type, List<Type>> getStereoTypesOnType(String slashedClassname) {
-		return ts.resolveSlashed(slashedClassname).getRelevantStereotypes();
+	private void computeReachableTypes(List<URL> springFactories) {
+		long t = System.currentTimeMillis();
+		List<String> applicationTypes = findDirectoriesOrTargetDirJar(ts.getClasspath()).flatMap(ResourcesHandler::findClassnames)
+				.collect(Collectors.toList());
+		List<String> serviceProviders = ts.getServiceProvidersOnClasspath();
+		List<Properties> springFactoriesProperties = new ArrayList<>();
+		Map<String, List<String>> configurationsBySpringFactory = new LinkedHashMap<>();
+		List<String> candidates = new ArrayList<>();
+		for (URL springFactory : springFactories) {
+			Properties p = new Properties();
+			loadSpringFactoryFile(springFactory, p);
+			springFactoriesProperties.add(p);
+			String enableAutoConfigurationValues = (String) p.get(enableAutoconfigurationKey);
+			if (enableAutoConfigurationValues != null) {
+				List<String> configurations = Arrays.asList(enableAutoConfigurationValues.split(","));
+				configurationsBySpringFactory.put(springFactory.toString(), configurations);
+				for (String configuration : configurations) {
+					candidates.add(configuration.replace('.', '/'));
+				}
+			}
+		}
+		ReferenceGraph springFactoriesReferences = new ReferenceGraph(ts);
+		springFactoriesReferences.addRoots(applicationTypes);
+		springFactoriesReferences.addRoots(serviceProviders);
+		for (Map.Entry<String, List<String>> entry : configurationsBySpringFactory.entrySet()) {
+			List<String> configurations = entry.getValue();
+			List<Boolean> validated = checkAndRegisterConfigurationTypesConcurrently(configurations);
+			if (validated == null) {
+				validated = new ArrayList<>();
+				for (String configuration : configurations) {
+					validated.add(checkAndRegisterConfigurationType(configuration));
+				}
+			}
+			validatedAutoConfigurations.put(entry.getKey(), validated);
+			List<String> surviving = new ArrayList<>();
+			for (int c = 0; c < configurations.size(); c++) {
+				if (validated.get(c) || !ConfigOptions.shouldRemoveUnusedAutoconfig()) {
+					surviving.add(configurations.get(c).replace('.', '/'));
+				}
+			}
+			springFactoriesReferences.addRoots(surviving);
+		}
+		unreachableSpringFactoriesKeys = addSpringFactoriesRoots(springFactoriesReferences, springFactoriesProperties);
+		hintedTypeReferences = springFactoriesReferences.newGraph();
+		hintedTypeReferences.addRoots(applicationTypes);
+		hintedTypeReferences.addRoots(serviceProviders);
+		hintedTypeReferences.addRoots(candidates);
+		hintedTypeReferences.addRoots(getSpringFactoriesValues(springFactoriesProperties,
+				key -> !unreachableSpringFactoriesKeys.contains(key)));
+		SpringFeature.log("SBG: reference graph time: " + (System.currentTimeMillis() - t) + "ms (#"
+				+ applicationTypes.size() + " application types, #" + serviceProviders.size() + " service providers, #"
+				+ springFactoriesReferences.size() + " types reachable with the surviving auto-configurations, #"
+				+ hintedTypeReferences.size() + " with all of them, #" + unreachableSpringFactoriesKeys.size()
+				+ " unreachable spring.factories keys)");
 	}
 
-	private String typenameOfClass(Path p) {
-		return Utils.scanClass(p).getClassname();
+	/**
+	 * SpringFactoriesLoader instantiates the values of a key by name, so once a key is reachable its values are
+	 * roots too and may in turn make other keys reachable. Roots are added until no more keys become reachable.
+	 * The ApplicationListener and PropertySourceLoader keys are always kept, the surviving EnableAutoConfiguration
+	 * values are expected to be roots already.
+	 * @param graph the graph to extend, already holding the other roots
+	 * @param springFactories the content of the spring.factories files
+	 * @return the keys that are still unreachable, they can be removed
+	 */
+	static Set<String> addSpringFactoriesRoots(ReferenceGraph graph, List<Properties> springFactories) {
+		Set<String> unreachableKeys = new LinkedHashSet<>();
+		for (Properties p : springFactories) {
+			unreachableKeys.addAll(p.stringPropertyNames());
+		}
+		unreachableKeys.remove(enableAutoconfigurationKey);
+		boolean reachedMore = true;
+		while (reachedMore) {
+			reachedMore = false;
+			for (Iterator<String> keys = unreachableKeys.iterator(); keys.hasNext();) {
+				String key = keys.next();
+				if (key.equals(applicationListenerKey) || key.equals(propertySourceLoaderKey)
+						|| graph.isReachable(key.replace('.', '/'))) {
+					keys.remove();
+					graph.addRoots(getSpringFactoriesValues(springFactories, key::equals));
+					reachedMore = true;
+				}
+			}
+		}
+		return unreachableKeys;
 	}
 
-	private Stream<Path> findClasses(Path path) {
-		ArrayList<Path> classfiles = new ArrayList<>();
-		if (Files.isDirectory(path)) {
-//			System.out.println("Walking dir");
-			walk(path, classfiles);
-		} else {
-//			System.out.println("Walking jar");
-			walkJar(path, classfiles);
+	/**
+	 * @return the slashed names of the values of the matching keys
+	 */
+	private static List<String> getSpringFactoriesValues(List<Properties> springFactories, Predicate<String> keyFilter) {
+		List<String> values = new ArrayList<>();
+		for (Properties p : springFactories) {
+			for (String key : p.stringPropertyNames()) {
+				if (keyFilter.test(key)) {
+					for (String value : p.getProperty(key).split(",")) {
+						if (!value.trim().isEmpty()) {
+							values.add(value.trim().replace('.', '/'));
+						}
+					}
+				}
+			}
 		}
-		return classfiles.stream();
+		return values;
 	}
 
-	static class ClassCollectorFileVisitor implements FileVisitor<Path> {
-		
-		private List<Path> collector = new ArrayList<>();
-
-		List<Path> getClassFiles() {
-			return collector;
+	/**
+	 * @return true if types are being pruned and nothing reachable refers to the specified hinted type
+	 */
+	private boolean isUnreachableHintedType(String dottedTypename) {
+		if (hintedTypeReferences == null || hintedTypeReferences.isReachable(dottedTypename.replace('.', '/'))) {
+			return false;
 		}
+		prunedHintedTypes.incrementAndGet();
+		return true;
+	}
 
-		@Override
-		public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-			return FileVisitResult.CONTINUE;
+	/**
+	 * Remove components that are nested types of other components, e.g. com.foo.Outer$Inner when com.foo.Outer
+	 * is a component.
+	 */
+	static List<Entry<Type, List<Type>>> filterOutNestedTypes(List<Entry<Type, List<Type>>> springComponents) {
+		Set<String> componentNames = new HashSet<>();
+		for (Entry<Type, List<Type>> springComponent : springComponents) {
+			componentNames.add(springComponent.getKey().getDottedName());
 		}
-
-		@Override
-		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-			if (file.getFileName().toString().endsWith(".class")) {
-				collector.add(file);
+		List<Entry<Type, List<Type>>> filtered = new ArrayList<>();
+		for (Entry<Type, List<Type>> springComponent : springComponents) {
+			if (!SpringComponents.isNestedInOneOf(springComponent.getKey().getDottedName(), componentNames)) {
+				filtered.add(springComponent);
 			}
-			return FileVisitResult.CONTINUE;
-		}
-
-		@Override
-		public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-			return FileVisitResult.CONTINUE;
 		}
+		return filtered;
+	}
 
-		@Override
-		public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-			return FileVisitResult.CONTINUE;
+	/**
+	 * Check the application classes for stereotypes. Each class is only read once, when it is resolved, and the
+	 * classes are checked concurrently (see {@link ConfigOptions#getParallelism()}).
+	 */
+	List<Entry<Type, List<Type>>> scanForSpringComponents() {
+		long t = System.currentTimeMillis();
+		List<String> classnames = findDirectoriesOrTargetDirJar(ts.getClasspath()).flatMap(ResourcesHandler::findClassnames)
+				.collect(Collectors.toList());
+		List<Entry<Type, List<Type>>> components;
+		if (parallelism <= 1 || classnames.size() < 2) {
+			components = classnames.stream().map(this::getStereoTypesOnType).filter(Objects::nonNull)
+					.collect(Collectors.toList());
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				components = pool.submit(() -> classnames.parallelStream().map(this::getStereoTypesOnType)
+						.filter(Objects::nonNull).collect(Collectors.toList())).get();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted whilst scanning for components", ie);
+			} catch (ExecutionException ee) {
+				if (ee.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) ee.getCause();
+				}
+				throw new IllegalStateException("Problem scanning for components", ee.getCause());
+			} finally {
+				pool.shutdown();
+			}
 		}
+		log("Scanned #" + classnames.size() + " classes for components in " + (System.currentTimeMillis() - t)
+				+ "ms, found #" + components.size());
+		return components;
+	}
 
-		
+	/**
+	 * Search for any relevant stereotypes on the specified type. Return entries of
+	 * the form:
+	 * "com.foo.MyType=org.springframework.stereotype.Component,javax.transaction.Transactional"
+	 */
+	private Entry<Type, List<Type>> getStereoTypesOnType(String slashedClassname) {
+		return ts.resolveSlashed(slashedClassname).getRelevantStereotypes();
 	}
 
-	private void walkJar(Path jarfile, ArrayList<Path> classfiles) {
-		try {
-			FileSystem jarfs = FileSystems.newFileSystem(jarfile,null);
-			Iterable<Path> rootDirectories = jarfs.getRootDirectories();
-			ClassCollectorFileVisitor x = new ClassCollectorFileVisitor();
-			for (Path path: rootDirectories) {
-				Files.walkFileTree(path, x);
+	/**
+	 * Determine the slashed names of the classes in a directory or jar from the paths of their class files, the
+	 * class files themselves are not read here.
+	 */
+	static Stream<String> findClassnames(Path path) {
+		List<String> classnames = new ArrayList<>();
+		if (Files.isDirectory(path)) {
+			try (Stream<Path> classfiles = Files.walk(path)) {
+				classfiles.filter(Files::isRegularFile).forEach(
+						classfile -> addClassname(path.relativize(classfile).toString().replace(File.separatorChar, '/'), classnames));
+			} catch (IOException e) {
+				throw new IllegalStateException("Problem walking directory " + path, e);
+			}
+		} else {
+			try (ZipFile jar = new ZipFile(path.toFile())) {
+				Enumeration<? extends ZipEntry> entries = jar.entries();
+				while (entries.hasMoreElements()) {
+					addClassname(entries.nextElement().getName(), classnames);
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("Problem opening " + path, e);
 			}
-			classfiles.addAll(x.getClassFiles());
-		} catch (IOException e) {
-			throw new IllegalStateException("Problem opening "+jarfile,e);
 		}
+		return classnames.stream();
 	}
 
-	private void walk(Path dir, ArrayList<Path> classfiles) {
-		try {
-			ClassCollectorFileVisitor x = new ClassCollectorFileVisitor();
-			Files.walkFileTree(dir, x);
-			classfiles.addAll(x.getClassFiles());
-		} catch (IOException e) {
-			throw new IllegalStateException("Problem walking directory "+dir, e);
-			
+	private static void addClassname(String classfile, List<String> classnames) {
+		// Multi-release variants share the name of the base class, module-info is not a class
+		if (classfile.endsWith(".class") && !classfile.startsWith("META-INF/") && !classfile.endsWith("module-info.class")) {
+			classnames.add(classfile.substring(0, classfile.length() - ".class".length()));
 		}
 	}
-	
+
 	private Stream<Path> findDirectoriesOrTargetDirJar(List<String> classpath) {
 		List<Path> result = new ArrayList<>();
 		for (String classpathEntry : classpath) {
@@ -749,6 +958,7 @@ public class ResourcesHandler {
 			if (t != null) {
 				if (t.hasOnlySimpleConstructor()) {
 					reflectionHandler.addAccess(s, new String[][] { { "<init>" } }, false);
+					instantiableFactories.add(s);
 				} else {
 					reflectionHandler.addAccess(s, Flag.allDeclaredConstructors);
 				}
@@ -759,7 +969,7 @@ public class ResourcesHandler {
 		}
 	}
 
-	private void processSpringFactory(TypeSystem ts, URL springFactory) {
+	void processSpringFactory(TypeSystem ts, URL springFactory) {
 		List<String> forRemoval = new ArrayList<>();
 		Properties p = new Properties();
 		loadSpringFactoryFile(springFactory, p);
@@ -767,12 +977,17 @@ public class ResourcesHandler {
 		Enumeration<Object> factoryKeys = p.keys();
 
 		// Handle all keys other than EnableAutoConfiguration and PropertySourceLoader
+		List<String> unreachableKeys = new ArrayList<>();
 		if (!ConfigOptions.isHybridMode()) {
 		while (factoryKeys.hasMoreElements()) {
 			String k = (String) factoryKeys.nextElement();
 			SpringFeature.log("Adding all the classes for this key: " + k);
 			if (!k.equals(enableAutoconfigurationKey) && !k.equals(propertySourceLoaderKey) && !k.equals(applicationListenerKey)) {
-				if (ts.shouldBeProcessed(k)) {
+				if (unreachableSpringFactoriesKeys != null && unreachableSpringFactoriesKeys.contains(k)) {
+					// Nothing will ask the SpringFactoriesLoader for these
+					SpringFeature.log("Removing spring.factories key " + k + " as it is not reachable from the application");
+					unreachableKeys.add(k);
+				} else if (ts.shouldBeProcessed(k)) {
 					for (String v : p.getProperty(k).split(",")) {
 						registerTypeReferencedBySpringFactoriesKey(v);
 					}
@@ -781,6 +996,9 @@ public class ResourcesHandler {
 				}
 			}
 		}
+		for (String unreachableKey : unreachableKeys) {
+			p.remove(unreachableKey);
+		}
 		}
 
 		if (!ConfigOptions.isHybridMode()) {
@@ -847,8 +1065,18 @@ public class ResourcesHandler {
 			}
 			System.out.println("Processing spring.factories - EnableAutoConfiguration lists #" + configurations.size()
 					+ " configurations");
-			for (String config : configurations) {
-				if (!checkAndRegisterConfigurationType(config)) {
+			List<Boolean> validated = validatedAutoConfigurations.remove(springFactory.toString());
+			if (validated == null) {
+				validated = checkAndRegisterConfigurationTypesConcurrently(configurations);
+			}
+			for (int c = 0; c < configurations.size(); c++) {
+				String config = configurations.get(c);
+				boolean passed = validated == null ? checkAndRegisterConfigurationType(config)
+						: validated.get(c);
+				if (passed || !ConfigOptions.shouldRemoveUnusedAutoconfig()) {
+					keptAutoConfigurations.add(config);
+				}
+				if (!passed) {
 					if (ConfigOptions.shouldRemoveUnusedAutoconfig()) {
 						excludedAutoConfigCount++;
 						SpringFeature.log("Excluding auto-configuration " + config);
@@ -868,21 +1096,25 @@ public class ResourcesHandler {
 			}
 		}
 
-		if (forRemoval.size() > 0) {
+		if (forRemoval.size() > 0 || unreachableKeys.size() > 0) {
 			String existingRC = ts.findAnyResourceConfigIncludingSpringFactoriesPattern();
 			if (existingRC != null) {
 				System.out.println("WARNING: unable to trim META-INF/spring.factories (for example to disable unused auto configurations)"+
 					" because an existing resource-config is directly including it: "+existingRC);
+				Properties original = new Properties();
+				loadSpringFactoryFile(springFactory, original);
+				registeredSpringFactories.add(original);
 				return;
 			}
 		}	
 
 		// Filter spring.factories if necessary
+		registeredSpringFactories.add(p);
 		try {
-			if (forRemoval.size() == 0) {
-				Resources.registerResource("META-INF/spring.factories", springFactory.openStream());
+			if (forRemoval.size() == 0 && unreachableKeys.size() == 0) {
+				registerResource("META-INF/spring.factories", springFactory.openStream());
 			} else {
-				SpringFeature.log("  removed " + forRemoval.size() + " classes");
+				SpringFeature.log("  removed " + forRemoval.size() + " classes and " + unreachableKeys.size() + " keys");
 				ByteArrayOutputStream baos = new ByteArrayOutputStream();
 				p.store(baos, "");
 				baos.close();
@@ -891,13 +1123,135 @@ public class ResourcesHandler {
 				SpringFeature.log(new String(bs));
 				SpringFeature.log("^^^^^^^^");
 				ByteArrayInputStream bais = new ByteArrayInputStream(bs);
-				Resources.registerResource("META-INF/spring.factories", bais);
+				registerResource("META-INF/spring.factories", bais);
 			}
 		} catch (IOException e) {
 			throw new IllegalStateException(e);
 		}
 	}
 
+	/**
+	 * Register a resource, with the given content, in the image.
+	 */
+	void registerResource(String resourceName, InputStream is) {
+		Resources.registerResource(resourceName, is);
+	}
+
+	/**
+	 * Record the spring.factories files as registered in the image in {@link GeneratedSpringFactories}, with an
+	 * instantiator for each implementation SpringFactoriesLoader may instantiate, for the substituted
+	 * SpringFactoriesLoader. Implementations without a public no-arg constructor are left to reflection.
+	 */
+	private void recordSpringFactories() {
+		for (Properties springFactories : registeredSpringFactories) {
+			GeneratedSpringFactories.add(springFactories);
+		}
+		for (String name : instantiableFactories) {
+			try {
+				Class<?> type = Class.forName(name, false, GeneratedSpringFactories.class.getClassLoader());
+				if (!GeneratedSpringFactories.addInstantiator(type)) {
+					SpringFeature.log("No instantiator for " + name + ", it will be instantiated reflectively");
+				}
+			} catch (ClassNotFoundException | LinkageError e) {
+				SpringFeature.log("No instantiator for " + name + ": " + e.getMessage());
+			}
+		}
+		RuntimeClassInitialization.initializeAtBuildTime(GeneratedSpringFactories.class);
+		System.out.println("Recorded #" + GeneratedSpringFactories.size() + " spring.factories keys and #"
+				+ GeneratedSpringFactories.instantiatorCount() + " factory instantiators in the image");
+	}
+
+	/**
+	 * Evaluate the classpath conditions (@ConditionalOnClass, @ConditionalOnMissingClass) of the auto-configurations
+	 * left in spring.factories, of their nested types and of their @Bean methods. The classpath of the image is
+	 * closed so the outcomes are those the conditions would have at runtime, they are recorded in
+	 * {@link ConditionOutcomes} for the substituted SpringBootCondition.
+	 */
+	private void recordConditionOutcomes() {
+		recordConditionOutcomes(ts, keptAutoConfigurations);
+		RuntimeClassInitialization.initializeAtBuildTime(ConditionOutcomes.class);
+		System.out.println("Recorded the outcome of #" + ConditionOutcomes.size()
+				+ " classpath conditions on auto-configurations and their @Bean methods");
+	}
+
+	static void recordConditionOutcomes(TypeSystem ts, List<String> configurations) {
+		Set<String> visited = new HashSet<>();
+		for (String configuration : configurations) {
+			Type type = ts.resolveDotted(configuration, true);
+			if (type != null) {
+				try {
+					recordConditionOutcomes(ts, type, visited);
+				} catch (MissingTypeException mte) {
+					SpringFeature.log("Not recording all condition outcomes for " + configuration + ": " + mte.getMessage());
+				}
+			}
+		}
+	}
+
+	private static void recordConditionOutcomes(TypeSystem ts, Type type, Set<String> visited) {
+		if (!visited.add(type.getName())) {
+			return;
+		}
+		recordConditionOutcome(ts, type.getDottedName(), type.findConditionalClassNames(Type.AtConditionalOnClass),
+				type.findConditionalClassNames(Type.AtConditionalOnMissingClass));
+		for (Method method : type.getMethodsWithAtBean()) {
+			recordConditionOutcome(ts, type.getDottedName() + "#" + method.getName(),
+					method.findConditionalClassNames(Type.AtConditionalOnClass),
+					method.findConditionalClassNames(Type.AtConditionalOnMissingClass));
+		}
+		for (Type nestedType : type.getNestedTypes()) {
+			recordConditionOutcomes(ts, nestedType, visited);
+		}
+	}
+
+	/**
+	 * Record the outcome OnClassCondition would compute, with a message like the one it would give.
+	 */
+	private static void recordConditionOutcome(TypeSystem ts, String classOrMethodName, List<String> onClasses,
+			List<String> onMissingClasses) {
+		if (onClasses == null || onMissingClasses == null) {
+			// Conditions used through a composed annotation, evaluate at runtime
+			ConditionOutcomes.record(classOrMethodName, null);
+			return;
+		}
+		if (onClasses.isEmpty() && onMissingClasses.isEmpty()) {
+			return;
+		}
+		List<String> messages = new ArrayList<>();
+		if (!onClasses.isEmpty()) {
+			List<String> missing = onClasses.stream().filter(n -> !isLoadable(ts, n)).collect(Collectors.toList());
+			if (!missing.isEmpty()) {
+				ConditionOutcomes.record(classOrMethodName, new ConditionOutcomes.Outcome(false,
+						"@ConditionalOnClass did not find required " + describe(missing)));
+				return;
+			}
+			messages.add("@ConditionalOnClass found required " + describe(onClasses));
+		}
+		if (!onMissingClasses.isEmpty()) {
+			List<String> present = onMissingClasses.stream().filter(n -> isLoadable(ts, n)).collect(Collectors.toList());
+			if (!present.isEmpty()) {
+				ConditionOutcomes.record(classOrMethodName, new ConditionOutcomes.Outcome(false,
+						"@ConditionalOnMissingClass found unwanted " + describe(present)));
+				return;
+			}
+			messages.add("@ConditionalOnMissingClass did not find unwanted " + describe(onMissingClasses));
+		}
+		ConditionOutcomes.record(classOrMethodName, new ConditionOutcomes.Outcome(true, String.join("; ", messages)));
+	}
+
+	/**
+	 * @return true if the class can be loaded: it is on the classpath and so is its hierarchy
+	 */
+	private static boolean isLoadable(TypeSystem ts, String classname) {
+		Type type = ts.resolveDotted(classname, true);
+		return type != null && ts.findMissingTypesInHierarchyOfThisType(type).isEmpty();
+	}
+
+	private static String describe(List<String> classnames) {
+		return (classnames.size() == 1 ? "class " : "classes ") + classnames.stream().map(n -> "'" + n + "'")
+				.collect(Collectors.joining(", "));
+	}
+
 	private void loadSpringFactoryFile(URL springFactory, Properties p) {
 		try (InputStream is = springFactory.openStream()) {
 			p.load(is);
@@ -914,17 +1268,83 @@ public class ResourcesHandler {
 	 * indicating it can't be used at runtime.
 	 */
 	private boolean checkAndRegisterConfigurationType(String name) {
-		return processType(name, new HashSet<>());
+		return processType(name, new HashSet<>(), null);
+	}
+
+	/**
+	 * Validate the configurations concurrently, if a parallelism greater than one is configured. Each
+	 * validation records the registrations it makes, these are replayed in configuration order once all
+	 * validations are complete so the outcome is the same as processing them sequentially.
+	 * @return whether each configuration passed validation, or null if they should be processed sequentially
+	 */
+	private List<Boolean> checkAndRegisterConfigurationTypesConcurrently(List<String> configurations) {
+		if (parallelism <= 1 || configurations.size() < 2) {
+			return null;
+		}
+		long t = System.currentTimeMillis();
+		List<ValidatedConfiguration> validatedConfigurations;
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			validatedConfigurations = pool.submit(() -> configurations.parallelStream().map(config -> {
+				List<Runnable> registrations = new ArrayList<>();
+				boolean passed = processType(config, new HashSet<>(), registrations);
+				return new ValidatedConfiguration(passed, registrations);
+			}).collect(Collectors.toList())).get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted whilst validating configurations", ie);
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ee.getCause();
+			}
+			throw new IllegalStateException("Problem validating configurations", ee.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		List<Boolean> results = new ArrayList<>();
+		for (ValidatedConfiguration validatedConfiguration : validatedConfigurations) {
+			for (Runnable registration : validatedConfiguration.registrations) {
+				registration.run();
+			}
+			results.add(validatedConfiguration.passed);
+		}
+		SpringFeature.log("SBG: configuration validation time: " + (System.currentTimeMillis() - t) + "ms (#"
+				+ configurations.size() + " configurations, parallelism " + parallelism + ")");
+		return results;
+	}
+
+	private static class ValidatedConfiguration {
+
+		final boolean passed;
+
+		final List<Runnable> registrations;
+
+		ValidatedConfiguration(boolean passed, List<Runnable> registrations) {
+			this.passed = passed;
+			this.registrations = registrations;
+		}
+	}
+
+	/**
+	 * Perform a registration now or, if registrations are being recorded for a concurrent validation,
+	 * record it to be replayed later.
+	 */
+	private void register(List<Runnable> registrations, Runnable registration) {
+		if (registrations == null) {
+			registration.run();
+		} else {
+			registrations.add(registration);
+		}
 	}
 
-	private boolean processType(String config, Set<String> visited) {
+	private boolean processType(String config, Set<String> visited, List<Runnable> registrations) {
 		SpringFeature.log("\n\nProcessing configuration type " + config);
 		Type resolvedConfigType = ts.resolveDotted(config,true);
 		if (resolvedConfigType==null) {
 			SpringFeature.log("Configuration type " + config + " is missing - presuming stripped out - considered failed validation");
 			return false;
 		} else {
-			boolean b = processType(resolvedConfigType, visited, 0);
+			boolean b = processType(resolvedConfigType, visited, 0, registrations);
 			SpringFeature.log("Configuration type " + config + " has " + (b ? "passed" : "failed") + " validation");
 			return b;
 		}
@@ -976,7 +1396,7 @@ public class ResourcesHandler {
 		}
 	}
 
-	private boolean processType(Type type, Set<String> visited, int depth) {
+	private boolean processType(Type type, Set<String> visited, int depth, List<Runnable> registrations) {
 		SpringFeature.log(spaces(depth) + "Analyzing " + type.getDottedName());
 
 		if (ConfigOptions.shouldRemoveJmxSupport()) {
@@ -1032,6 +1452,10 @@ public class ResourcesHandler {
 								+ " specific types");
 						for (Map.Entry<String, Integer> specificNameEntry : specificNames.entrySet()) {
 							String specificTypeName = specificNameEntry.getKey();
+							if (isUnreachableHintedType(specificTypeName)) {
+								SpringFeature.log(spaces(depth) + "not registering unreachable specific type " + specificTypeName);
+								continue;
+							}
 							if (!registerSpecific(specificTypeName, specificNameEntry.getValue(), accessRequestor)) {
 								if (hint.isSkipIfTypesMissing()) {
 									passesTests = false;
@@ -1062,6 +1486,9 @@ public class ResourcesHandler {
 						boolean exists = (t != null);
 						if (!exists) {
 							SpringFeature.log(spaces(depth) + "inferred type " + s + " not found");
+						} else if (isUnreachableHintedType(s)) {
+							SpringFeature.log(spaces(depth) + "not registering unreachable inferred type " + s);
+							continue;
 						}
 						if (exists) {
 							// TODO
@@ -1115,16 +1542,18 @@ public class ResourcesHandler {
 		String configNameDotted = type.getDottedName();
 		visited.add(type.getName());
 		if (passesTests || !ConfigOptions.shouldRemoveUnusedAutoconfig()) {
-			if (type.isCondition()) {
-				if (type.hasOnlySimpleConstructor()) {
-					reflectionHandler.addAccess(configNameDotted, new String[][] { { "<init>" } }, true);
+			register(registrations, () -> {
+				if (type.isCondition()) {
+					if (type.hasOnlySimpleConstructor()) {
+						reflectionHandler.addAccess(configNameDotted, new String[][] { { "<init>" } }, true);
+					} else {
+						reflectionHandler.addAccess(configNameDotted, null, true, Flag.allDeclaredConstructors);
+					}
 				} else {
-					reflectionHandler.addAccess(configNameDotted, null, true, Flag.allDeclaredConstructors);
+					reflectionHandler.addAccess(configNameDotted, Flag.allDeclaredConstructors, Flag.allDeclaredMethods);
 				}
-			} else {
-				reflectionHandler.addAccess(configNameDotted, Flag.allDeclaredConstructors, Flag.allDeclaredMethods);
-			}
-			resourcesRegistry.addResources(type.getName().replace("$", ".") + ".class");
+				resourcesRegistry.addResources(type.getName().replace("$", ".") + ".class");
+			});
 			// In some cases the superclass of the config needs to be accessible
 			// TODO need this guard? if (isConfiguration(configType)) {
 			// }
@@ -1138,7 +1567,7 @@ public class ResourcesHandler {
 					break;
 				}
 				if (visited.add(s.getName())) {
-					boolean b = processType(s, visited, depth + 1);
+					boolean b = processType(s, visited, depth + 1, registrations);
 					if (!b) {
 						SpringFeature.log(spaces(depth) + "WARNING: whilst processing type " + type.getName()
 								+ " superclass " + s.getName() + " verification failed");
@@ -1244,7 +1673,9 @@ public class ResourcesHandler {
 						SpringFeature.log(spaces(depth) + "attempting registration of " + specificNames.size()
 								+ " specific types");
 						for (Map.Entry<String, Integer> specificNameEntry : specificNames.entrySet()) {
-							registerSpecific(specificNameEntry.getKey(), specificNameEntry.getValue(), accessRequestor);
+							if (!isUnreachableHintedType(specificNameEntry.getKey())) {
+								registerSpecific(specificNameEntry.getKey(), specificNameEntry.getValue(), accessRequestor);
+							}
 						}
 
 						Map<String, Integer> inferredTypes = hint.getInferredTypes();
@@ -1257,6 +1688,10 @@ public class ResourcesHandler {
 							if (!exists) {
 								SpringFeature.log(spaces(depth) + "inferred type " + s
 										+ " not found (whilst processing @Bean method " + atBeanMethod + ")");
+							} else if (isUnreachableHintedType(s)) {
+								SpringFeature.log(spaces(depth) + "not registering unreachable inferred type " + s
+										+ " (whilst processing @Bean method " + atBeanMethod + ")");
+								continue;
 							} else {
 								SpringFeature.log(spaces(depth) + "inferred type " + s
 										+ " found, will get accessibility " + inferredType.getValue()
@@ -1299,7 +1734,7 @@ public class ResourcesHandler {
 					continue;
 				}
 				try {
-					boolean b = processType(t, visited, depth + 1);
+					boolean b = processType(t, visited, depth + 1, registrations);
 					if (!b) {
 						SpringFeature.log(spaces(depth) + "followed " + t.getName() + " and it failed validation");
 					}
@@ -1310,39 +1745,40 @@ public class ResourcesHandler {
 				}
 			}
 			for (ProxyDescriptor proxyDescriptor : accessRequestor.getRequestedProxies()) {
-				dynamicProxiesHandler.addProxy(proxyDescriptor);
+				register(registrations, () -> dynamicProxiesHandler.addProxy(proxyDescriptor));
 			}
 			for (org.springframework.graalvm.type.ResourcesDescriptor rd : accessRequestor.getRequestedResources()) {
-				registerResourcesDescriptor(rd);
+				register(registrations, () -> registerResourcesDescriptor(rd));
 			}
 			for (Map.Entry<String, Integer> accessRequest : accessRequestor.entrySet()) {
 				String dname = accessRequest.getKey();
+				register(registrations, () -> {
+					// Let's produce a message if this computed value is also in reflect.json
+					// This is a sign we can probably remove that entry from reflect.json (maybe
+					// depend if inferred access required matches declared)
+					if (reflectionHandler.getConstantData().hasClassDescriptor(dname)) {
+						System.out.println("This is in the constant data, does it need to stay in there? " + dname
+								+ "  (dynamically requested access is " + accessRequest.getValue() + ")");
+					}
 
-				// Let's produce a message if this computed value is also in reflect.json
-				// This is a sign we can probably remove that entry from reflect.json (maybe
-				// depend if inferred access required matches declared)
-				if (reflectionHandler.getConstantData().hasClassDescriptor(dname)) {
-					System.out.println("This is in the constant data, does it need to stay in there? " + dname
-							+ "  (dynamically requested access is " + accessRequest.getValue() + ")");
-				}
-
-				SpringFeature.log(spaces(depth) + "making this accessible: " + dname + "   " + AccessBits.toString(accessRequest.getValue()));
-				Flag[] flags = AccessBits.getFlags(accessRequest.getValue());
-				if (flags != null && flags.length == 1 && flags[0] == Flag.allDeclaredConstructors) {
-					Type resolvedType = ts.resolveDotted(dname, true);
-					if (resolvedType != null && resolvedType.hasOnlySimpleConstructor()) {
-						reflectionHandler.addAccess(dname, new String[][] { { "<init>" } }, true);
+					SpringFeature.log(spaces(depth) + "making this accessible: " + dname + "   " + AccessBits.toString(accessRequest.getValue()));
+					Flag[] flags = AccessBits.getFlags(accessRequest.getValue());
+					if (flags != null && flags.length == 1 && flags[0] == Flag.allDeclaredConstructors) {
+						Type resolvedType = ts.resolveDotted(dname, true);
+						if (resolvedType != null && resolvedType.hasOnlySimpleConstructor()) {
+							reflectionHandler.addAccess(dname, new String[][] { { "<init>" } }, true);
+						} else {
+							reflectionHandler.addAccess(dname, null, true, flags);
+						}
 					} else {
 						reflectionHandler.addAccess(dname, null, true, flags);
 					}
-				} else {
-					reflectionHandler.addAccess(dname, null, true, flags);
-				}
-				if (AccessBits.isResourceAccessRequired(accessRequest.getValue())) {
-					resourcesRegistry.addResources(
-							dname.replace(".", "/").replace("$", ".").replace("[", "\\[").replace("]", "\\]")
-									+ ".class");
-				}
+					if (AccessBits.isResourceAccessRequired(accessRequest.getValue())) {
+						resourcesRegistry.addResources(
+								dname.replace(".", "/").replace("$", ".").replace("[", "\\[").replace("]", "\\]")
+										+ ".class");
+					}
+				});
 			}
 		}
 
@@ -1357,7 +1793,7 @@ public class ResourcesHandler {
 						continue;
 					}
 					try {
-						boolean b = processType(t, visited, depth + 1);
+						boolean b = processType(t, visited, depth + 1, registrations);
 						if (!b) {
 							SpringFeature.log(spaces(depth) + "verification of nested type " + t.getName() + " failed");
 						}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.graalvm.type.Type;
+
+/**
+ * Computes the entries of a {@code META-INF/spring.components} file, the same way the
+ * spring-context-indexer would. Used when synthesizing the file during the native image build
+ * and by the build plugin that generates it ahead of time.
+ */
+public abstract class SpringComponents {
+
+	public static final String RESOURCE_NAME = "META-INF/spring.components";
+
+	/**
+	 * Compute the value of the spring.components entry for a type.
+	 * @param type the candidate component
+	 * @return the comma separated dotted names of the stereotypes of the type, or null if it has none
+	 */
+	public static String getStereotypes(Type type) {
+		Entry<Type, List<Type>> stereotypes = type.getRelevantStereotypes();
+		if (stereotypes == null) {
+			return null;
+		}
+		return stereotypes.getValue().stream().map(Type::getDottedName).collect(Collectors.joining(","));
+	}
+
+	/**
+	 * Nested types of components are not listed, they are found through their enclosing type.
+	 * @param dottedTypename the candidate component
+	 * @param componentTypenames the dotted names of all the components
+	 * @return true if the type is nested in one of the components
+	 */
+	public static boolean isNestedInOneOf(String dottedTypename, Set<String> componentTypenames) {
+		// Look up the possible enclosing type names rather than comparing against every component
+		for (int dollar = dottedTypename.indexOf('$'); dollar != -1; dollar = dottedTypename.indexOf('$', dollar + 1)) {
+			if (componentTypenames.contains(dottedTypename.substring(0, dollar))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
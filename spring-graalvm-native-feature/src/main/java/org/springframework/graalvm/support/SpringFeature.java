@@ -15,14 +15,20 @@
  */
 package org.springframework.graalvm.support;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.hosted.FeatureImpl.BeforeAnalysisAccessImpl;
 import com.oracle.svm.hosted.ResourcesFeature;
 import com.oracle.svm.reflect.hosted.ReflectionFeature;
 import com.oracle.svm.reflect.proxy.hosted.DynamicProxyFeature;
 import org.graalvm.nativeimage.hosted.Feature;
+import org.springframework.graalvm.type.TypeSystem;
 
 @AutomaticFeature
 public class SpringFeature implements Feature {
@@ -46,10 +52,14 @@ public class SpringFeature implements Feature {
 		if (!ConfigOptions.isVerbose()) {
 			System.out.println("Use -Dspring.native.verbose=true on native-image call to see more detailed information from the feature");
 		}
+		if (ConfigOptions.shouldWriteFeatureReport()) {
+			FeatureReport.start();
+		}
 		reflectionHandler = new ReflectionHandler();
 		dynamicProxiesHandler = new DynamicProxiesHandler();
 		resourcesHandler = new ResourcesHandler(reflectionHandler, dynamicProxiesHandler);
 		buildTimeInitializationHandler = new InitializationHandler();
+		FeatureReport.addCounter("typesRegisteredForReflection", reflectionHandler::getTypesRegisteredForReflectiveAccessCount);
 	}
 
 	public boolean isInConfiguration(IsInConfigurationAccess access) {
@@ -66,25 +76,56 @@ public class SpringFeature implements Feature {
 
 	public void duringSetup(DuringSetupAccess access) {
 		if (ConfigOptions.isDefaultMode() || ConfigOptions.isHybridMode()) {
-			reflectionHandler.register(access);
-			dynamicProxiesHandler.register(access);
+			try (FeatureReport.Phase phase = FeatureReport.begin("reflection.register")) {
+				reflectionHandler.register(access);
+			}
+			try (FeatureReport.Phase phase = FeatureReport.begin("proxies.register")) {
+				dynamicProxiesHandler.register(access);
+			}
 		}
 		if (ConfigOptions.isFunctionalMode()) {
-			reflectionHandler.registerFunctional(access);
+			try (FeatureReport.Phase phase = FeatureReport.begin("reflection.registerFunctional")) {
+				reflectionHandler.registerFunctional(access);
+			}
 		}
 		if (ConfigOptions.isHybridMode()) {
-			reflectionHandler.registerHybrid(access);
-			dynamicProxiesHandler.registerHybrid(access);
+			try (FeatureReport.Phase phase = FeatureReport.begin("reflection.registerHybrid")) {
+				reflectionHandler.registerHybrid(access);
+			}
+			try (FeatureReport.Phase phase = FeatureReport.begin("proxies.registerHybrid")) {
+				dynamicProxiesHandler.registerHybrid(access);
+			}
 		}
 	}
 
 	public void beforeAnalysis(BeforeAnalysisAccess access) {
-		resourcesHandler.register(access);
-		buildTimeInitializationHandler.register(access);
+		try (FeatureReport.Phase phase = FeatureReport.begin("resources.register")) {
+			resourcesHandler.register(access);
+		}
+		try (FeatureReport.Phase phase = FeatureReport.begin("initialization.register")) {
+			buildTimeInitializationHandler.register(access);
+		}
 		if (ConfigOptions.isDefaultMode()) {
 			System.out.println("Number of types dynamically registered for reflective access: #"+reflectionHandler.getTypesRegisteredForReflectiveAccessCount());
 			reflectionHandler.dump();
 		}
+		// Nothing resolves types past this point, release the classpath archives the type system holds open
+		TypeSystem.get(((BeforeAnalysisAccessImpl) access).getImageClassLoader().getClasspath()).close();
+	}
+
+	public void afterImageWrite(AfterImageWriteAccess access) {
+		FeatureReport report = FeatureReport.get();
+		Path imagePath = access.getImagePath();
+		if (report == null || imagePath == null) {
+			return;
+		}
+		Path reportPath = imagePath.resolveSibling(imagePath.getFileName() + "-spring-feature.json");
+		try (OutputStream os = Files.newOutputStream(reportPath)) {
+			report.write(os);
+			System.out.println("Feature report written to " + reportPath);
+		} catch (IOException ioe) {
+			System.out.println("WARNING: Unable to write feature report to " + reportPath + ": " + ioe.getMessage());
+		}
 	}
 
 	public static void log(String msg) {
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.graalvm.support.SpringFeature;
+import org.springframework.graalvm.type.TypeHierarchy.TypeHeader;
+
+/**
+ * On-disk cache of the information the {@link TypeSystem} computes by walking classpath archives: the
+ * packages an archive contains, the class headers of its types, the annotations on its types and the
+ * isPresent() checks made in static initializers. There is one compact binary file per archive, named by a hash of the archive
+ * path. An entry is only used if the size and last modified time of the archive still match, so on
+ * repeated builds unchanged jars are not re-read.
+ */
+class ArchiveCache {
+
+	private static final int MAGIC = 0x53424743; // SBGC
+
+	private static final int VERSION = 2;
+
+	private final File cacheDir;
+
+	private final Map<File, ArchiveSummary> summaries = new ConcurrentHashMap<>();
+
+	private int hits = 0;
+
+	ArchiveCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+		if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+			throw new IllegalStateException("Unable to create type system cache directory " + cacheDir);
+		}
+	}
+
+	/**
+	 * Retrieve the summary for an archive, loading it from disk if a valid entry exists. If there is no valid
+	 * entry an empty summary is returned that callers fill in and pass to {@link #store(File, ArchiveSummary)}.
+	 */
+	ArchiveSummary getSummary(File archive) {
+		return summaries.computeIfAbsent(archive, this::load);
+	}
+
+	synchronized int getHits() {
+		return hits;
+	}
+
+	private ArchiveSummary load(File archive) {
+		ArchiveSummary summary = new ArchiveSummary(archive.length(), archive.lastModified());
+		File cacheFile = getCacheFile(archive);
+		if (!cacheFile.isFile()) {
+			return summary;
+		}
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+			if (dis.readInt() != MAGIC || dis.readInt() != VERSION || !dis.readUTF().equals(archive.getPath())
+					|| dis.readLong() != summary.size || dis.readLong() != summary.lastModified) {
+				return summary;
+			}
+			if (dis.readBoolean()) {
+				int count = dis.readInt();
+				Set<String> packages = new LinkedHashSet<>();
+				for (int i = 0; i < count; i++) {
+					packages.add(dis.readUTF());
+				}
+				summary.packages = packages;
+			}
+			if (dis.readBoolean()) {
+				summary.headers = readHeaders(dis);
+			}
+			if (dis.readBoolean()) {
+				summary.annotations = readMultimap(dis);
+			}
+			if (dis.readBoolean()) {
+				summary.isPresentChecks = readMultimap(dis);
+			}
+			synchronized (this) {
+				hits++;
+			}
+			return summary;
+		} catch (IOException ioe) {
+			SpringFeature.log("WARNING: Ignoring unreadable type system cache entry " + cacheFile + ": " + ioe.getMessage());
+			return new ArchiveSummary(summary.size, summary.lastModified);
+		}
+	}
+
+	/**
+	 * Write the current state of the summary for the archive to disk.
+	 */
+	void store(File archive, ArchiveSummary summary) {
+		File cacheFile = getCacheFile(archive);
+		try {
+			File tmp = File.createTempFile(cacheFile.getName(), ".tmp", cacheDir);
+			try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				synchronized (summary) {
+					dos.writeInt(MAGIC);
+					dos.writeInt(VERSION);
+					dos.writeUTF(archive.getPath());
+					dos.writeLong(summary.size);
+					dos.writeLong(summary.lastModified);
+					dos.writeBoolean(summary.packages != null);
+					if (summary.packages != null) {
+						dos.writeInt(summary.packages.size());
+						for (String p : summary.packages) {
+							dos.writeUTF(p);
+						}
+					}
+					dos.writeBoolean(summary.headers != null);
+					if (summary.headers != null) {
+						writeHeaders(dos, summary.headers);
+					}
+					dos.writeBoolean(summary.annotations != null);
+					if (summary.annotations != null) {
+						writeMultimap(dos, summary.annotations);
+					}
+					dos.writeBoolean(summary.isPresentChecks != null);
+					if (summary.isPresentChecks != null) {
+						writeMultimap(dos, summary.isPresentChecks);
+					}
+				}
+			}
+			Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ioe) {
+			SpringFeature.log("WARNING: Unable to write type system cache entry " + cacheFile + ": " + ioe.getMessage());
+		}
+	}
+
+	private File getCacheFile(File archive) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] hash = digest.digest(archive.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+			StringBuilder s = new StringBuilder();
+			for (byte b : hash) {
+				s.append(String.format("%02x", b));
+			}
+			s.append(".idx");
+			return new File(cacheDir, s.toString());
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException(nsae);
+		}
+	}
+
+	private static Map<String, List<String>> readMultimap(DataInputStream dis) throws IOException {
+		int count = dis.readInt();
+		Map<String, List<String>> result = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			String key = dis.readUTF();
+			int valueCount = dis.readInt();
+			List<String> values = new ArrayList<>(valueCount);
+			for (int v = 0; v < valueCount; v++) {
+				values.add(dis.readUTF());
+			}
+			result.put(key, values);
+		}
+		return result;
+	}
+
+	private static void writeMultimap(DataOutputStream dos, Map<String, List<String>> map) throws IOException {
+		dos.writeInt(map.size());
+		for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+			dos.writeUTF(entry.getKey());
+			dos.writeInt(entry.getValue().size());
+			for (String value : entry.getValue()) {
+				dos.writeUTF(value);
+			}
+		}
+	}
+
+	private static Map<String, TypeHeader> readHeaders(DataInputStream dis) throws IOException {
+		int count = dis.readInt();
+		Map<String, TypeHeader> result = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			String name = dis.readUTF();
+			int access = dis.readInt();
+			String superName = dis.readBoolean() ? dis.readUTF() : null;
+			String[] interfaces = new String[dis.readInt()];
+			for (int j = 0; j < interfaces.length; j++) {
+				interfaces[j] = dis.readUTF();
+			}
+			result.put(name, new TypeHeader(access, superName, interfaces));
+		}
+		return result;
+	}
+
+	private static void writeHeaders(DataOutputStream dos, Map<String, TypeHeader> headers) throws IOException {
+		dos.writeInt(headers.size());
+		for (Map.Entry<String, TypeHeader> entry : headers.entrySet()) {
+			TypeHeader header = entry.getValue();
+			dos.writeUTF(entry.getKey());
+			dos.writeInt(header.access);
+			dos.writeBoolean(header.superName != null);
+			if (header.superName != null) {
+				dos.writeUTF(header.superName);
+			}
+			dos.writeInt(header.interfaces.length);
+			for (String interfaceName : header.interfaces) {
+				dos.writeUTF(interfaceName);
+			}
+		}
+	}
+
+	/**
+	 * What is known about an archive. A null section means it has not been computed yet.
+	 */
+	static class ArchiveSummary {
+
+		final long size;
+
+		final long lastModified;
+
+		// Slashed package names
+		Set<String> packages;
+
+		// Slashed type name to the class header of that type
+		Map<String, TypeHeader> headers;
+
+		// Slashed type name to the descriptors of the annotations on that type
+		Map<String, List<String>> annotations;
+
+		// Dotted type name to the types checked by isPresent() calls in its static initializer
+		Map<String, List<String>> isPresentChecks;
+
+		ArchiveSummary(long size, long lastModified) {
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+	}
+
+}
@@ -15,6 +15,7 @@
  */
 package org.springframework.graalvm.type;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -161,4 +162,15 @@ public class Hint {
 		return modes;
 	}
 
+	/**
+	 * @return a copy of this hint with the specified types prepended to its annotation chain
+	 */
+	Hint withAnnotationChainPrefix(List<Type> prefix) {
+		List<Type> chain = new ArrayList<>(prefix.size() + annotationChain.size());
+		chain.addAll(prefix);
+		chain.addAll(annotationChain);
+		return new Hint(chain, skipIfTypesMissing, follow, specificTypes, inferredTypes, proxyDescriptors,
+				resourcesDescriptors, modes);
+	}
+
 }
\ No newline at end of file
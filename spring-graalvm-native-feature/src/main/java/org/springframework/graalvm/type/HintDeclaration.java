@@ -0,0 +1,328 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.tree.AnnotationNode;
+import org.springframework.graalvm.extension.NativeImageHint;
+import org.springframework.graalvm.extension.NativeImageHints;
+import org.springframework.graalvm.support.Mode;
+
+/**
+ * The content of a @NativeImageHint exactly as declared, before anything in it is checked against the
+ * classpath. Unpacking the annotation does not need the classpath, so it can be done once when the hints
+ * are built into a bundle, {@link #toCompilationHint(TypeSystem)} does the classpath dependent part
+ * (dropping missing types and proxies, inferring access) when the image is built.
+ */
+public class HintDeclaration {
+
+	private static final String NATIVE_IMAGE_HINT = "L" + NativeImageHint.class.getName().replace('.', '/') + ";";
+
+	private static final String NATIVE_IMAGE_HINTS = "L" + NativeImageHints.class.getName().replace('.', '/') + ";";
+
+	private String targetType;
+
+	private final List<Mode> modes = new ArrayList<>();
+
+	private boolean follow = false;
+
+	private boolean abortIfTypesMissing = false;
+
+	private final List<TypeReferences> typeInfos = new ArrayList<>();
+
+	private final List<TypeReferences> proxyInfos = new ArrayList<>();
+
+	private final List<ResourcesDescriptor> resourcesInfos = new ArrayList<>();
+
+	/**
+	 * Types referenced from a @TypeInfo or @ProxyInfo, class literals (kept as descriptors) separately
+	 * from names as they are treated differently when missing.
+	 */
+	public static class TypeReferences {
+
+		private final List<String> typeDescriptors;
+
+		private final List<String> typeNames;
+
+		private final int access;
+
+		public TypeReferences(List<String> typeDescriptors, List<String> typeNames, int access) {
+			this.typeDescriptors = typeDescriptors;
+			this.typeNames = typeNames;
+			this.access = access;
+		}
+
+		public List<String> getTypeDescriptors() {
+			return typeDescriptors;
+		}
+
+		public List<String> getTypeNames() {
+			return typeNames;
+		}
+
+		/**
+		 * @return the access bits requested or -1 if they should be inferred from the type
+		 */
+		public int getAccess() {
+			return access;
+		}
+
+	}
+
+	/**
+	 * Unpack the @NativeImageHint and @NativeImageHints annotations in a list of annotations.
+	 * @param annotations the annotations on a type, may be null
+	 * @return the declarations in the order they appear
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<HintDeclaration> fromAnnotations(List<AnnotationNode> annotations) {
+		List<HintDeclaration> declarations = null;
+		if (annotations != null) {
+			for (AnnotationNode an : annotations) {
+				if (an.desc.equals(NATIVE_IMAGE_HINT)) {
+					if (declarations == null) {
+						declarations = new ArrayList<>();
+					}
+					declarations.add(fromAnnotation(an));
+				} else if (an.desc.equals(NATIVE_IMAGE_HINTS) && an.values != null) {
+					for (int i = 0; i < an.values.size(); i += 2) {
+						if (an.values.get(i).equals("value")) {
+							if (declarations == null) {
+								declarations = new ArrayList<>();
+							}
+							for (AnnotationNode hint : (List<AnnotationNode>) an.values.get(i + 1)) {
+								declarations.add(fromAnnotation(hint));
+							}
+						}
+					}
+				}
+			}
+		}
+		// TODO support repeatable version
+		return declarations == null ? Collections.emptyList() : declarations;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static HintDeclaration fromAnnotation(AnnotationNode an) {
+		HintDeclaration hd = new HintDeclaration();
+		List<Object> values = an.values;
+		if (values != null) {
+			for (int i = 0; i < values.size(); i += 2) {
+				String key = (String) values.get(i);
+				Object value = values.get(i + 1);
+				if (key.equals("trigger")) {
+					// value(String)=Ljava/lang/String;(org.objectweb.asm.Type)
+					hd.setTargetType(((org.objectweb.asm.Type) value).getClassName());
+				} else if (key.equals("modes")) {
+					List<String[]> modes = (List<String[]>) value;
+					for (String[] mode: modes) {
+						// [Lorg/springframework/graalvm/support/Mode;, AGENT]
+						hd.addMode(Mode.valueOf(mode[1]));
+					}
+				} else if (key.equals("typeInfos")) {
+					for (AnnotationNode typeInfo : (List<AnnotationNode>) value) {
+						hd.addTypeInfo(unpackTypeReferences(typeInfo));
+					}
+				} else if (key.equals("proxyInfos")) {
+					for (AnnotationNode proxyInfo : (List<AnnotationNode>) value) {
+						hd.addProxyInfo(unpackTypeReferences(proxyInfo));
+					}
+				} else if (key.equals("resourcesInfos")) {
+					for (AnnotationNode resourcesInfo : (List<AnnotationNode>) value) {
+						hd.addResourcesInfo(unpackResourcesInfo(resourcesInfo));
+					}
+				} else if (key.equals("abortIfTypesMissing")) {
+					hd.setAbortIfTypesMissing((Boolean) value);
+				} else if (key.equals("follow")) {
+					hd.setFollow((Boolean) value);
+				} else if (key.equals("extractTypesFromAttributes")) {
+					// TODO handle this key
+//					annotation extractTypesFromAttributes=[value, type](class java.util.ArrayList)
+//					annotation extractTypesFromAttributes=[value, name](class java.util.ArrayList)
+//					annotation extractTypesFromAttributes=[value](class java.util.ArrayList)
+				} else {
+					System.out.println("annotation " + key + "=" + value + "(" + value.getClass() + ")");
+				}
+			}
+		}
+		if (hd.getTargetType() == null) {
+			hd.setTargetType("java.lang.Object");// TODO should be set from annotation default value, not duplicated
+			// here
+		}
+		return hd;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static TypeReferences unpackTypeReferences(AnnotationNode typeInfo) {
+		List<String> typeDescriptors = new ArrayList<>();
+		List<String> typeNames = new ArrayList<>();
+		int access = -1;
+		List<Object> values = typeInfo.values;
+		for (int i = 0; i < values.size(); i += 2) {
+			String key = (String) values.get(i);
+			Object value = values.get(i + 1);
+			if (key.equals("types")) {
+				for (org.objectweb.asm.Type type : (List<org.objectweb.asm.Type>) value) {
+					typeDescriptors.add(type.getDescriptor());
+				}
+			} else if (key.equals("access")) {
+				access = (Integer) value;
+			} else if (key.equals("typeNames")) {
+				typeNames = (List<String>) value;
+			}
+		}
+		return new TypeReferences(typeDescriptors, typeNames, access);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ResourcesDescriptor unpackResourcesInfo(AnnotationNode resourcesInfo) {
+		List<String> patterns = null;
+		Boolean isBundle = null;
+		List<Object> values = resourcesInfo.values;
+		for (int i = 0; i < values.size(); i += 2) {
+			String key = (String) values.get(i);
+			Object value = values.get(i + 1);
+			if (key.equals("patterns")) {
+				patterns = (List<String>) value;
+			} else if (key.equals("isBundle")) {
+				isBundle = (Boolean) value;
+			}
+		}
+		return new ResourcesDescriptor(patterns.toArray(new String[0]), isBundle == null ? false : isBundle);
+	}
+
+	/**
+	 * Build the hint for the current classpath. Types named in a @TypeInfo only by string are dropped if
+	 * missing, as are proxies for which any interface is missing, and access not stated is inferred from
+	 * the kind of type.
+	 * @param typeSystem the type system for the classpath
+	 * @return the compilation hint
+	 */
+	public CompilationHint toCompilationHint(TypeSystem typeSystem) {
+		CompilationHint ch = new CompilationHint();
+		ch.setTargetType(targetType);
+		for (Mode mode : modes) {
+			ch.addMode(mode);
+		}
+		for (TypeReferences typeInfo : typeInfos) {
+			int access = typeInfo.getAccess();
+			for (String typeDescriptor : typeInfo.getTypeDescriptors()) {
+				org.objectweb.asm.Type type = org.objectweb.asm.Type.getType(typeDescriptor);
+				ch.addDependantType(type.getClassName(),
+						access == -1 ? Type.inferTypeKind(typeSystem.resolve(type, true)) : access);
+			}
+			for (String typeName : typeInfo.getTypeNames()) {
+				Type resolvedType = typeSystem.resolveName(typeName, true);
+				if (resolvedType != null) {
+					ch.addDependantType(typeName, access == -1 ? Type.inferTypeKind(resolvedType) : access);
+				}
+			}
+		}
+		for (TypeReferences proxyInfo : proxyInfos) {
+			// Note: Proxies hints will get discarded immediately if types are not around
+			List<String> proxyTypes = new ArrayList<>();
+			boolean typeMissing = false;
+			for (String typeDescriptor : proxyInfo.getTypeDescriptors()) {
+				String typeName = org.objectweb.asm.Type.getType(typeDescriptor).getClassName();
+				if (typeSystem.resolveName(typeName, true) != null) {
+					proxyTypes.add(typeName);
+				} else {
+					typeMissing = true;
+				}
+			}
+			for (String typeName : proxyInfo.getTypeNames()) {
+				if (typeSystem.resolveName(typeName, true) != null) {
+					proxyTypes.add(typeName);
+				} else {
+					typeMissing = true;
+				}
+			}
+			if (!typeMissing) {
+				ch.addProxyDescriptor(new ProxyDescriptor(proxyTypes.toArray(new String[0])));
+			}
+		}
+		for (ResourcesDescriptor resourcesInfo : resourcesInfos) {
+			ch.addResourcesDescriptor(resourcesInfo);
+		}
+		ch.setAbortIfTypesMissing(abortIfTypesMissing);
+		ch.setFollow(follow);
+		return ch;
+	}
+
+	public String getTargetType() {
+		return targetType;
+	}
+
+	public void setTargetType(String targetType) {
+		this.targetType = targetType;
+	}
+
+	public List<Mode> getModes() {
+		return modes;
+	}
+
+	public void addMode(Mode mode) {
+		modes.add(mode);
+	}
+
+	public boolean isFollow() {
+		return follow;
+	}
+
+	public void setFollow(boolean follow) {
+		this.follow = follow;
+	}
+
+	public boolean isAbortIfTypesMissing() {
+		return abortIfTypesMissing;
+	}
+
+	public void setAbortIfTypesMissing(boolean abortIfTypesMissing) {
+		this.abortIfTypesMissing = abortIfTypesMissing;
+	}
+
+	public List<TypeReferences> getTypeInfos() {
+		return typeInfos;
+	}
+
+	public void addTypeInfo(TypeReferences typeInfo) {
+		typeInfos.add(typeInfo);
+	}
+
+	public List<TypeReferences> getProxyInfos() {
+		return proxyInfos;
+	}
+
+	public void addProxyInfo(TypeReferences proxyInfo) {
+		proxyInfos.add(proxyInfo);
+	}
+
+	public List<ResourcesDescriptor> getResourcesInfos() {
+		return resourcesInfos;
+	}
+
+	public void addResourcesInfo(ResourcesDescriptor resourcesInfo) {
+		resourcesInfos.add(resourcesInfo);
+	}
+
+	public String toString() {
+		return "HintDeclaration for " + targetType;
+	}
+
+}
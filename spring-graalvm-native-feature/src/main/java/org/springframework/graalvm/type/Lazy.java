@@ -30,7 +30,7 @@ class Lazy<T> implements Supplier<T> {
 
 	private final Supplier<? extends T> supplier;
 	private T value = null;
-	private boolean resolved = false;
+	private volatile boolean resolved = false;
 
 	private Lazy(Supplier<? extends T> supplier) {
 		this(supplier, null, false);
@@ -93,6 +93,13 @@ public class Method {
 		return results == null? Collections.emptyList():results;
 	}
 	
+	/**
+	 * @see Type#findConditionalClassNames(String)
+	 */
+	public List<String> findConditionalClassNames(String lAnnotationDescriptor) {
+		return Type.findConditionalClassNames(mn.visibleAnnotations, lAnnotationDescriptor, typeSystem);
+	}
+
 	public List<Type> getAnnotationTypes() {
 		List<Type> results = null;
 		if (mn.visibleAnnotations!= null) {
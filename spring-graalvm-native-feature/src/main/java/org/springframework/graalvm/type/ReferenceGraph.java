@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The types on the classpath reachable from a set of roots by following the references in their
+ * constant pools (see {@link ReusableConstantPoolScanner#forEachTypeName}). Types not on the classpath
+ * (for example those of the JDK) are not followed. The graph grows as roots are added, each type is only
+ * read once however many graphs are created with {@link #newGraph()}.
+ */
+public class ReferenceGraph {
+
+	private static final List<String> NOT_ON_CLASSPATH = Collections.emptyList();
+
+	private final TypeSystem typeSystem;
+
+	// Slashed type name to the classpath types it refers to, shared with graphs created by newGraph()
+	private final Map<String, List<String>> references;
+
+	private final Set<String> reachable = new HashSet<>();
+
+	private final ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+
+	public ReferenceGraph(TypeSystem typeSystem) {
+		this(typeSystem, new ConcurrentHashMap<>());
+	}
+
+	private ReferenceGraph(TypeSystem typeSystem, Map<String, List<String>> references) {
+		this.typeSystem = typeSystem;
+		this.references = references;
+	}
+
+	/**
+	 * @return a graph with no roots that reuses the references already read by this one
+	 */
+	public ReferenceGraph newGraph() {
+		return new ReferenceGraph(typeSystem, references);
+	}
+
+	/**
+	 * Add roots to the graph, extending it with everything they reach.
+	 * @param slashedTypeNames the roots
+	 */
+	public synchronized void addRoots(Collection<String> slashedTypeNames) {
+		Deque<String> toVisit = new ArrayDeque<>();
+		for (String root : slashedTypeNames) {
+			if (reachable.add(root)) {
+				toVisit.add(root);
+			}
+		}
+		while (!toVisit.isEmpty()) {
+			for (String referenced : getReferences(toVisit.removeFirst())) {
+				if (reachable.add(referenced)) {
+					toVisit.add(referenced);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Types that are not on the classpath are always considered reachable, the graph cannot tell.
+	 */
+	public synchronized boolean isReachable(String slashedTypeName) {
+		return reachable.contains(slashedTypeName) || typeSystem.find(slashedTypeName) == null;
+	}
+
+	/**
+	 * @return the number of types reached, including referenced names that are not on the classpath
+	 */
+	public synchronized int size() {
+		return reachable.size();
+	}
+
+	private List<String> getReferences(String slashedTypeName) {
+		List<String> result = references.get(slashedTypeName);
+		if (result != null) {
+			return result;
+		}
+		byte[] bytes = typeSystem.find(slashedTypeName);
+		if (bytes == null) {
+			result = NOT_ON_CLASSPATH;
+		} else {
+			Set<String> typeNames = new HashSet<>();
+			scanner.scan(ByteBuffer.wrap(bytes)).forEachTypeName(typeNames::add);
+			typeNames.remove(slashedTypeName);
+			// Strings that merely look like type names are included, they are not found when visited
+			result = new ArrayList<>(typeNames);
+		}
+		references.put(slashedTypeName, result);
+		return result;
+	}
+
+}
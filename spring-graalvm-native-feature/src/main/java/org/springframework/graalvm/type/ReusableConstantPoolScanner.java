@@ -0,0 +1,371 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Variant of the {@link ConstantPoolScanner} for scanning many classes. It works directly over a
+ * {@link ByteBuffer} (which may be a slice of a mapped file), only records where each constant pool
+ * entry is on the first pass and decodes entries when they are asked for. Its internal arrays are
+ * reused from one class to the next, so a single instance scanning a whole classpath produces almost
+ * no garbage. Instances are not thread safe, use one per thread.
+ * <p>
+ * Useful reference: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ */
+public class ReusableConstantPoolScanner {
+
+	private final static byte CONSTANT_Utf8 = 1;
+
+	private final static byte CONSTANT_Integer = 3;
+
+	private final static byte CONSTANT_Float = 4;
+
+	private final static byte CONSTANT_Long = 5;
+
+	private final static byte CONSTANT_Double = 6;
+
+	private final static byte CONSTANT_Class = 7;
+
+	private final static byte CONSTANT_String = 8;
+
+	private final static byte CONSTANT_Fieldref = 9;
+
+	private final static byte CONSTANT_Methodref = 10;
+
+	private final static byte CONSTANT_InterfaceMethodref = 11;
+
+	private final static byte CONSTANT_NameAndType = 12;
+
+	private final static byte CONSTANT_MethodHandle = 15;
+
+	private final static byte CONSTANT_MethodType = 16;
+
+	private final static byte CONSTANT_Dynamic = 17;
+
+	private final static byte CONSTANT_InvokeDynamic = 18;
+
+	private final static byte CONSTANT_Module = 19;
+
+	private final static byte CONSTANT_Package = 20;
+
+	private ByteBuffer buffer;
+
+	private int constantPoolCount;
+
+	// Tag of each constant pool entry
+	private byte[] tags = new byte[256];
+
+	// Position in the buffer of each constant pool entry, just after its tag
+	private int[] offsets = new int[256];
+
+	// Position in the buffer of the access flags that follow the constant pool
+	private int headerPosition;
+
+	// Scratch space for decoding strings
+	private char[] chars = new char[128];
+
+	// Holds the class when it is read from a stream or file rather than supplied as a buffer
+	private byte[] bytes = new byte[8192];
+
+	private ByteBuffer bytesBuffer = ByteBuffer.wrap(bytes);
+
+	/**
+	 * Scan the class at the current position of the buffer. The buffer is not modified and must not be changed until
+	 * the caller has finished asking about the class.
+	 * @param classBytes the class file
+	 * @return this scanner
+	 */
+	public ReusableConstantPoolScanner scan(ByteBuffer classBytes) {
+		buffer = classBytes;
+		int p = classBytes.position();
+		int magic = (u2(p) << 16) | u2(p + 2);
+		if (magic != 0xCAFEBABE) {
+			throw new IllegalStateException("not bytecode, magic was 0x" + Integer.toString(magic, 16));
+		}
+		constantPoolCount = u2(p + 8);
+		if (tags.length < constantPoolCount) {
+			int size = Math.max(constantPoolCount, tags.length * 2);
+			tags = new byte[size];
+			offsets = new int[size];
+		}
+		p += 10;
+		for (int i = 1; i < constantPoolCount; i++) {
+			byte tag = buffer.get(p++);
+			tags[i] = tag;
+			offsets[i] = p;
+			switch (tag) {
+				case CONSTANT_Utf8:
+					p += 2 + u2(p);
+					break;
+				case CONSTANT_Integer:
+				case CONSTANT_Float:
+				case CONSTANT_Fieldref:
+				case CONSTANT_Methodref:
+				case CONSTANT_InterfaceMethodref:
+				case CONSTANT_NameAndType:
+				case CONSTANT_Dynamic:
+				case CONSTANT_InvokeDynamic:
+					p += 4;
+					break;
+				case CONSTANT_Long:
+				case CONSTANT_Double:
+					p += 8;
+					// Takes two slots
+					tags[++i] = 0;
+					break;
+				case CONSTANT_Class:
+				case CONSTANT_String:
+				case CONSTANT_MethodType:
+				case CONSTANT_Module:
+				case CONSTANT_Package:
+					p += 2;
+					break;
+				case CONSTANT_MethodHandle:
+					p += 3;
+					break;
+				default:
+					throw new IllegalStateException("Entry: " + i + " " + Byte.toString(tag));
+			}
+		}
+		headerPosition = p;
+		return this;
+	}
+
+	/**
+	 * Read the class from the stream (which is not closed) into the internal buffer and scan it.
+	 * @return this scanner
+	 */
+	public ReusableConstantPoolScanner scan(InputStream classStream) throws IOException {
+		int length = 0;
+		int read;
+		while ((read = classStream.read(bytes, length, bytes.length - length)) != -1) {
+			length += read;
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+				bytesBuffer = ByteBuffer.wrap(bytes);
+			}
+		}
+		bytesBuffer.clear();
+		bytesBuffer.limit(length);
+		return scan(bytesBuffer);
+	}
+
+	/**
+	 * Read the class file into the internal buffer and scan it.
+	 * @return this scanner
+	 */
+	public ReusableConstantPoolScanner scan(Path classFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(classFile, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > bytes.length) {
+				bytes = new byte[(int) Math.max(size, bytes.length * 2L)];
+				bytesBuffer = ByteBuffer.wrap(bytes);
+			}
+			bytesBuffer.clear();
+			bytesBuffer.limit((int) size);
+			while (bytesBuffer.hasRemaining() && channel.read(bytesBuffer) != -1) {
+			}
+			bytesBuffer.flip();
+			return scan(bytesBuffer);
+		}
+	}
+
+	public int getAccess() {
+		return u2(headerPosition);
+	}
+
+	/**
+	 * @return the slashed name of the class
+	 */
+	public String getClassname() {
+		return getClassnameAt(u2(headerPosition + 2));
+	}
+
+	/**
+	 * @return the slashed name of the superclass, null for java/lang/Object and module-info
+	 */
+	public String getSuperclassName() {
+		int index = u2(headerPosition + 4);
+		return index == 0 ? null : getClassnameAt(index);
+	}
+
+	/**
+	 * @return the slashed names of the directly implemented interfaces
+	 */
+	public String[] getInterfaceNames() {
+		int count = u2(headerPosition + 6);
+		String[] interfaceNames = new String[count];
+		for (int i = 0; i < count; i++) {
+			interfaceNames[i] = getClassnameAt(u2(headerPosition + 8 + i * 2));
+		}
+		return interfaceNames;
+	}
+
+	/**
+	 * Determine if the class references another class, without decoding any strings.
+	 * @param slashedClassname the class that might be referenced
+	 */
+	public boolean referencesClass(String slashedClassname) {
+		for (int i = 1; i < constantPoolCount; i++) {
+			if (tags[i] == CONSTANT_Class && utf8Equals(u2(offsets[i]), slashedClassname)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine if the constant pool contains a string (e.g. a member name), without decoding any strings.
+	 */
+	public boolean containsUtf8(String value) {
+		for (int i = 1; i < constantPoolCount; i++) {
+			if (tags[i] == CONSTANT_Utf8 && utf8Equals(i, value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Report the slashed names of the types the class may refer to: class entries, types within
+	 * descriptors and signatures (including those of annotation values) and strings that look like
+	 * type names (e.g. {@code @ConditionalOnClass(name=...)} values or names passed to
+	 * {@code Class.forName}). Names may be reported more than once and may not exist, it is up to the
+	 * caller to check them.
+	 */
+	public void forEachTypeName(Consumer<String> consumer) {
+		for (int i = 1; i < constantPoolCount; i++) {
+			if (tags[i] != CONSTANT_Utf8) {
+				continue;
+			}
+			// Class entries refer to Utf8 entries too so they are covered here
+			String value = getUtf8(i);
+			if (value.indexOf(';') != -1) {
+				forEachTypeNameInDescriptor(value, consumer);
+			} else if (isTypeName(value)) {
+				consumer.accept(value.replace('.', '/'));
+			}
+		}
+	}
+
+	private static void forEachTypeNameInDescriptor(String descriptor, Consumer<String> consumer) {
+		int length = descriptor.length();
+		int start = -1;
+		boolean typeVariable = false;
+		for (int i = 0; i < length; i++) {
+			char ch = descriptor.charAt(i);
+			if (typeVariable) {
+				// Type variable (TT;) or the name of a formal type parameter (T:Ljava/lang/Object;)
+				typeVariable = ch != ';' && ch != ':';
+			} else if (start == -1) {
+				if (ch == 'L') {
+					start = i + 1;
+				} else if (ch == 'T') {
+					typeVariable = true;
+				}
+			} else if (ch == ';' || ch == '<') {
+				if (i > start) {
+					consumer.accept(descriptor.substring(start, i));
+				}
+				start = -1;
+			} else if (ch == ':') {
+				// It was the name of a formal type parameter, not a type
+				start = -1;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the value is a qualified (dotted or slashed) name made of Java identifier characters
+	 */
+	private static boolean isTypeName(String value) {
+		int length = value.length();
+		if (length < 3 || !Character.isJavaIdentifierStart(value.charAt(0))
+				|| !Character.isJavaIdentifierPart(value.charAt(length - 1))) {
+			return false;
+		}
+		boolean qualified = false;
+		for (int i = 1; i < length; i++) {
+			char ch = value.charAt(i);
+			if (ch == '.' || ch == '/') {
+				qualified = true;
+			} else if (!Character.isJavaIdentifierPart(ch)) {
+				return false;
+			}
+		}
+		return qualified;
+	}
+
+	private String getClassnameAt(int classIndex) {
+		return getUtf8(u2(offsets[classIndex]));
+	}
+
+	/**
+	 * Decode the (modified) UTF8 entry at the specified constant pool index.
+	 */
+	private String getUtf8(int utf8Index) {
+		int p = offsets[utf8Index];
+		int length = u2(p);
+		p += 2;
+		if (chars.length < length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+		int end = p + length;
+		int count = 0;
+		while (p < end) {
+			int b = buffer.get(p++) & 0xff;
+			if (b < 0x80) {
+				chars[count++] = (char) b;
+			} else if ((b & 0xe0) == 0xc0) {
+				chars[count++] = (char) (((b & 0x1f) << 6) | (buffer.get(p++) & 0x3f));
+			} else {
+				chars[count++] = (char) (((b & 0x0f) << 12) | ((buffer.get(p++) & 0x3f) << 6) | (buffer.get(p++) & 0x3f));
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	/**
+	 * Compare a UTF8 entry with a string, assumed to only contain ASCII as class and member names usually do.
+	 */
+	private boolean utf8Equals(int utf8Index, String value) {
+		int p = offsets[utf8Index];
+		int length = u2(p);
+		if (length != value.length()) {
+			return false;
+		}
+		p += 2;
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(p + i) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int u2(int position) {
+		return ((buffer.get(position) & 0xff) << 8) | (buffer.get(position + 1) & 0xff);
+	}
+
+}
@@ -15,15 +15,19 @@
  */
 package org.springframework.graalvm.type;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.graalvm.domain.bundle.HintBundle;
 import org.springframework.graalvm.extension.ComponentProcessor;
 import org.springframework.graalvm.extension.NativeImageConfiguration;
+import org.springframework.graalvm.support.ConfigOptions;
 import org.springframework.graalvm.support.SpringFeature;
 
 /**
@@ -33,39 +37,63 @@ public class SpringConfiguration {
 
 	private TypeSystem typeSystem;
 
-	private final static Map<String, List<CompilationHint>> proposedHints = new HashMap<>();
+	// Hints from the NativeImageConfiguration providers, keyed by interned descriptor of the target type
+	private final Map<String, List<CompilationHint>> proposedHints;
+
+	// Proposed hints merged with those declared on the target type itself, keyed by descriptor
+	private final Map<String, List<CompilationHint>> mergedHints = new ConcurrentHashMap<>();
+
+	// The merged hints keyed by the name as requested (dotted, slashed or descriptor), so repeated
+	// lookups need no name conversion
+	private final Map<String, List<CompilationHint>> hintIndex = new ConcurrentHashMap<>();
 	
 	private final static Map<String, String[]> proposedFactoryGuards = new HashMap<>();
 	
 	private final static List<ComponentProcessor> processors = new ArrayList<>();
+
+	private static HintBundle hintBundle;
+
+	private static boolean hintBundleLoaded = false;
 	
 	public SpringConfiguration(TypeSystem typeSystem) {
 		this.typeSystem = typeSystem;
 		SpringFeature.log("SpringConfiguration: Discovering hints");
-		ServiceLoader<NativeImageConfiguration> hintProviders = ServiceLoader.load(NativeImageConfiguration.class);
-		for (NativeImageConfiguration hintProvider: hintProviders) {
-			SpringFeature.log("SpringConfiguration: processing provider: "+hintProvider.getClass().getName());
-			Type t = typeSystem.resolveName(hintProvider.getClass().getName());
-			if (t != null) {
-				List<CompilationHint> hints = t.getCompilationHints();
-				try {
-					hints.addAll(hintProvider.computeHints(typeSystem));
-				} catch (NoClassDefFoundError ncdfe) {
-					System.out.println("WARNING: Hint provider computeHints() method in "+
-						hintProvider.getClass().getName()+" threw a NoClassDefFoundError for "+ncdfe.getMessage()+
-						": it is better if they handle that internally in case they are computing a variety of hints");
+		Map<String, List<CompilationHint>> proposedHints = new HashMap<>();
+		HintBundle bundle = getHintBundle();
+		if (bundle == null) {
+			ServiceLoader<NativeImageConfiguration> hintProviders = ServiceLoader.load(NativeImageConfiguration.class);
+			for (NativeImageConfiguration hintProvider: hintProviders) {
+				SpringFeature.log("SpringConfiguration: processing provider: "+hintProvider.getClass().getName());
+				Type t = typeSystem.resolveName(hintProvider.getClass().getName());
+				if (t != null) {
+					addHints(proposedHints, t.getCompilationHints(), hintProvider);
 				}
-				SpringFeature.log("Found "+hints.size()+" hints: "+hints);
-				for (CompilationHint hint: hints) {
-				  List<CompilationHint> existingHints = proposedHints.get(hint.getTargetType());
-				  if (existingHints == null) {
-					  existingHints = new ArrayList<>();
-					  proposedHints.put(hint.getTargetType(), existingHints);
-				  }
-				  existingHints.add(hint);
+			}
+		} else {
+			// Providers in the bundle are only loaded if they compute hints, others (for example
+			// those of the application) are handled as above
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			for (String providerName: findProviderNames(classLoader)) {
+				SpringFeature.log("SpringConfiguration: processing provider: "+providerName);
+				HintBundle.Provider bundledProvider = bundle.getProvider(providerName);
+				if (bundledProvider == null) {
+					Type t = typeSystem.resolveName(providerName);
+					if (t != null) {
+						addHints(proposedHints, t.getCompilationHints(), instantiate(providerName, classLoader));
+					}
+				} else {
+					List<CompilationHint> hints = new ArrayList<>();
+					for (HintDeclaration hintDeclaration: bundledProvider.getHints()) {
+						hints.add(hintDeclaration.toCompilationHint(typeSystem));
+					}
+					addHints(proposedHints, hints, bundledProvider.computesHints() ? instantiate(providerName, classLoader) : null);
 				}
 			}
 		}
+		for (Map.Entry<String, List<CompilationHint>> entry: proposedHints.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		this.proposedHints = Collections.unmodifiableMap(proposedHints);
 		SpringFeature.log("Discovering component processors...");
 		ServiceLoader<ComponentProcessor> componentProcessors = ServiceLoader.load(ComponentProcessor.class);
 		for (ComponentProcessor componentProcessor: componentProcessors) {
@@ -74,6 +102,66 @@ public class SpringConfiguration {
 		}
 	}
 
+	private void addHints(Map<String, List<CompilationHint>> proposedHints, List<CompilationHint> declaredHints,
+			NativeImageConfiguration hintProvider) {
+		List<CompilationHint> hints = new ArrayList<>(declaredHints);
+		if (hintProvider != null) {
+			try {
+				hints.addAll(hintProvider.computeHints(typeSystem));
+			} catch (NoClassDefFoundError ncdfe) {
+				System.out.println("WARNING: Hint provider computeHints() method in "+
+					hintProvider.getClass().getName()+" threw a NoClassDefFoundError for "+ncdfe.getMessage()+
+					": it is better if they handle that internally in case they are computing a variety of hints");
+			}
+		}
+		SpringFeature.log("Found "+hints.size()+" hints: "+hints);
+		for (CompilationHint hint: hints) {
+		  String descriptor = toDescriptor(hint.getTargetType()).intern();
+		  List<CompilationHint> existingHints = proposedHints.get(descriptor);
+		  if (existingHints == null) {
+			  existingHints = new ArrayList<>();
+			  proposedHints.put(descriptor, existingHints);
+		  }
+		  existingHints.add(hint);
+		}
+	}
+
+	private static List<String> findProviderNames(ClassLoader classLoader) {
+		try {
+			return HintBundle.findProviderNames(classLoader);
+		} catch (IOException ioe) {
+			throw new IllegalStateException("Unable to read the "+HintBundle.SERVICES+" files", ioe);
+		}
+	}
+
+	private static NativeImageConfiguration instantiate(String providerName, ClassLoader classLoader) {
+		try {
+			return (NativeImageConfiguration) Class.forName(providerName, true, classLoader).getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to instantiate hint provider "+providerName, e);
+		}
+	}
+
+	/**
+	 * @return the hint bundle built with the configuration module or null if there is none or it is not to be used
+	 */
+	public static synchronized HintBundle getHintBundle() {
+		if (!hintBundleLoaded) {
+			hintBundleLoaded = true;
+			if (ConfigOptions.shouldUseHintBundle()) {
+				try {
+					hintBundle = HintBundle.load(SpringConfiguration.class.getClassLoader());
+				} catch (IllegalStateException ise) {
+					System.out.println("WARNING: Ignoring the hint bundle, reading hints from the configuration classes and files: "+ise.getCause());
+				}
+				if (hintBundle != null) {
+					SpringFeature.log("SpringConfiguration: using hint bundle with "+hintBundle.getProviders().size()+" providers");
+				}
+			}
+		}
+		return hintBundle;
+	}
+
 	static {
 		// This specifies that the TemplateAvailabilityProvider key will only be processed if one of the
 		// specified types is around. This ensures we don't provide reflective access to the value of this
@@ -85,11 +173,48 @@ public class SpringConfiguration {
 			});
 	}
 	
-	// TODO sort out callers so they use a proper dotted name
 	public List<CompilationHint> findProposedHints(String typename) {
-		List<CompilationHint> results = proposedHints.get(typename);
+		List<CompilationHint> results = proposedHints.get(toDescriptor(typename));
 		return (results==null?Collections.emptyList():results);
 	}
+
+	/**
+	 * Find the hints for a type, those proposed by the configuration providers followed by those declared
+	 * on the type itself. The result for each name is computed once, after that this is a map lookup.
+	 * @param typename the type name in dotted, slashed or descriptor form
+	 * @return an unmodifiable list of hints
+	 */
+	public List<CompilationHint> findHints(String typename) {
+		List<CompilationHint> results = hintIndex.get(typename);
+		if (results == null) {
+			String descriptor = toDescriptor(typename);
+			results = mergedHints.get(descriptor);
+			if (results == null) {
+				results = mergeHints(descriptor);
+				mergedHints.put(descriptor, results);
+			}
+			hintIndex.put(typename, results);
+		}
+		return results;
+	}
+
+	private List<CompilationHint> mergeHints(String descriptor) {
+		List<CompilationHint> declaredHints = typeSystem.Lresolve(descriptor).getCompilationHints();
+		List<CompilationHint> proposed = proposedHints.getOrDefault(descriptor, Collections.emptyList());
+		if (declaredHints.isEmpty()) {
+			return proposed;
+		}
+		List<CompilationHint> results = new ArrayList<>(proposed);
+		results.addAll(declaredHints);
+		return Collections.unmodifiableList(results);
+	}
+
+	private static String toDescriptor(String typename) {
+		if (typename.endsWith(";")) {
+			return typename;
+		}
+		return "L" + typename.replace('.', '/') + ";";
+	}
 	
 	public static List<ComponentProcessor> getComponentProcessors() {
 		return processors;
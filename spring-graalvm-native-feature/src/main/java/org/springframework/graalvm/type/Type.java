@@ -29,8 +29,6 @@ import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InnerClassNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.springframework.graalvm.extension.NativeImageContext;
-import org.springframework.graalvm.extension.NativeImageHint;
-import org.springframework.graalvm.extension.NativeImageHints;
 import org.springframework.graalvm.support.ConfigOptions;
 import org.springframework.graalvm.support.Mode;
 import org.springframework.graalvm.support.SpringFeature;
@@ -48,6 +46,7 @@ public class Type {
 	public final static String AtBean = "Lorg/springframework/context/annotation/Bean;";
 	public final static String AtConditionalOnClass = "Lorg/springframework/boot/autoconfigure/condition/ConditionalOnClass;";
 	public final static String AtConditionalOnMissingBean = "Lorg/springframework/boot/autoconfigure/condition/ConditionalOnMissingBean;";
+	public final static String AtConditionalOnMissingClass = "Lorg/springframework/boot/autoconfigure/condition/ConditionalOnMissingClass;";
 	public final static String AtConfiguration = "Lorg/springframework/context/annotation/Configuration;";
 	public final static String AtSpringBootApplication = "Lorg/springframework/boot/autoconfigure/SpringBootApplication;";
 	public final static String AtController = "Lorg/springframework/stereotype/Controller;";
@@ -69,7 +68,7 @@ public class Type {
 
 	private ClassNode node;
 
-	private Type[] interfaces;
+	private volatile Type[] interfaces;
 
 	private String name;
 	private String dottedName;
@@ -80,6 +79,13 @@ public class Type {
 	private final Lazy<List<Method>> methods;
 	private final Lazy<List<Type>> annotations;
 
+	// Hints for this type, computed on first request
+	private volatile List<Hint> hints;
+
+	// If this is an annotation type, the hints reachable through its meta-annotations. These do not depend on
+	// where the annotation is used so are computed once per annotation type.
+	private volatile List<MetaAnnotationHints> metaAnnotationHints;
+
 	private Type(TypeSystem typeSystem, ClassNode node, int dimensions) {
 
 		this.typeSystem = typeSystem;
@@ -166,6 +172,16 @@ public class Type {
 		return dottedName.substring(0, dottedName.indexOf('.'));
 	}
 
+	/**
+	 * @return the descriptors of the visible annotations on this type
+	 */
+	List<String> getAnnotationDescriptors() {
+		if (dimensions > 0 || node.visibleAnnotations == null) {
+			return Collections.emptyList();
+		}
+		return node.visibleAnnotations.stream().map(an -> an.desc).collect(Collectors.toList());
+	}
+
 	/**
 	 * @return List of slashed interface types
 	 */
@@ -240,6 +256,13 @@ public class Type {
 	}
 
 	public boolean extendsClass(String clazzname) {
+		TypeHierarchy hierarchy = typeSystem.getHierarchy();
+		if (hierarchy != null && dimensions == 0 && clazzname.startsWith("L") && clazzname.endsWith(";")) {
+			Boolean b = hierarchy.extendsClass(node.name, clazzname.substring(1, clazzname.length() - 1));
+			if (b != null) {
+				return b;
+			}
+		}
 		Type superclass = getSuperclass();
 		while (superclass != null) {
 			if (superclass.getDescriptor().equals(clazzname)) {
@@ -251,6 +274,13 @@ public class Type {
 	}
 
 	public boolean implementsInterface(String interfaceName) {
+		TypeHierarchy hierarchy = typeSystem.getHierarchy();
+		if (hierarchy != null && dimensions == 0) {
+			Boolean b = hierarchy.implementsInterface(node.name, interfaceName);
+			if (b != null) {
+				return b;
+			}
+		}
 		Type[] interfacesToCheck = getInterfaces();
 		for (Type interfaceToCheck : interfacesToCheck) {
 			if (interfaceToCheck != null) {
@@ -346,7 +376,7 @@ public class Type {
 				if (an.desc.equals(lAnnotationDescriptor)) {
 					return true;
 				}
-				if (checkMetaUsage && seen.add(lAnnotationDescriptor)) {
+				if (checkMetaUsage && seen.add(an.desc)) {
 					Type t = typeSystem.Lresolve(an.desc);
 					if (t != null) {
 						boolean b = t.hasAnnotationHelper(lAnnotationDescriptor, checkMetaUsage, seen);
@@ -443,6 +473,14 @@ public class Type {
 			return true;
 		}
 
+		TypeHierarchy hierarchy = typeSystem.getHierarchy();
+		if (hierarchy != null && dimensions == 0 && other.dimensions == 0 && other.typeSystem == typeSystem) {
+			Boolean b = hierarchy.isSubtype(other.node.name, node.name);
+			if (b != null) {
+				return b;
+			}
+		}
+
 //		if (!isTypeVariableReference()
 //				&& other.getSignature().equals("Ljava/lang/Object;")) {
 //			return false;
@@ -1139,6 +1177,18 @@ public class Type {
 		if (dimensions > 0) {
 			return Collections.emptyList();
 		}
+		List<Hint> result = hints;
+		if (result == null) {
+			result = computeHints();
+			hints = result;
+			typeSystem.getHintCacheStatistics().hintsComputed();
+		} else {
+			typeSystem.getHintCacheStatistics().hintsReused();
+		}
+		return result;
+	}
+
+	private List<Hint> computeHints() {
 		List<Hint> hints = new ArrayList<>();
 		List<CompilationHint> hintx = typeSystem.findHints(getName());
 		if (hintx.size() != 0) {
@@ -1187,31 +1237,12 @@ public class Type {
 		try {
 			annotationChain.push(this);
 			// Am I a compilation hint?
-			List<CompilationHint> hints2 = typeSystem.findHints(an.desc);// ;SpringConfiguration.findProposedHints(an.desc);
-			if (hints2.size() != 0) {
-				List<String> typesCollectedFromAnnotation = collectTypes(an);
-				if (an.desc.equals(Type.AtEnableConfigurationProperties)) {
-					// TODO special handling here for @EnableConfigurationProperties - should we promote this to a hint annotation value or truly a special case?
-					addInners(typesCollectedFromAnnotation);
-				}
-				for (CompilationHint hints2a : hints2) {
-					hints.add(new Hint(new ArrayList<>(annotationChain), hints2a.skipIfTypesMissing, hints2a.follow,
-							hints2a.getDependantTypes(),
-							asMap(typesCollectedFromAnnotation, hints2a.skipIfTypesMissing),
-							hints2a.getProxyDescriptors(),
-							hints2a.getResourcesDescriptors(),
-							hints2a.getModes()));
-				}
-			}
+			hints.addAll(createHints(an, annotationChain));
 			// check for meta annotation
-			if (node.visibleAnnotations != null) {
-				for (AnnotationNode an2 : node.visibleAnnotations) {
-					Type annotationType = typeSystem.Lresolve(an2.desc, true);
-					if (annotationType == null) {
-						SpringFeature.log("Couldn't resolve " + an2.desc
-								+ " annotation type whilst searching for hints on " + getName());
-					} else {
-						annotationType.collectHints(an2, hints, visited, annotationChain);
+			for (MetaAnnotationHints metaHints : getMetaAnnotationHints()) {
+				if (visited.add(metaHints.annotation)) {
+					for (Hint hint : metaHints.hints) {
+						hints.add(hint.withAnnotationChainPrefix(annotationChain));
 					}
 				}
 			}
@@ -1220,6 +1251,84 @@ public class Type {
 		}
 	}
 
+	private List<Hint> createHints(AnnotationNode an, List<Type> annotationChain) {
+		List<CompilationHint> hints2 = typeSystem.findHints(an.desc);// ;SpringConfiguration.findProposedHints(an.desc);
+		if (hints2.size() == 0) {
+			return Collections.emptyList();
+		}
+		List<Hint> hints = new ArrayList<>();
+		List<String> typesCollectedFromAnnotation = collectTypes(an);
+		if (an.desc.equals(Type.AtEnableConfigurationProperties)) {
+			// TODO special handling here for @EnableConfigurationProperties - should we promote this to a hint annotation value or truly a special case?
+			addInners(typesCollectedFromAnnotation);
+		}
+		for (CompilationHint hints2a : hints2) {
+			hints.add(new Hint(new ArrayList<>(annotationChain), hints2a.skipIfTypesMissing, hints2a.follow,
+					hints2a.getDependantTypes(),
+					asMap(typesCollectedFromAnnotation, hints2a.skipIfTypesMissing),
+					hints2a.getProxyDescriptors(),
+					hints2a.getResourcesDescriptors(),
+					hints2a.getModes()));
+		}
+		return hints;
+	}
+
+	private List<MetaAnnotationHints> getMetaAnnotationHints() {
+		List<MetaAnnotationHints> result = metaAnnotationHints;
+		if (result == null) {
+			result = new ArrayList<>();
+			collectMetaAnnotationHints(new HashSet<>(), new ArrayList<>(), result);
+			if (result.isEmpty()) {
+				result = Collections.emptyList();
+			}
+			metaAnnotationHints = result;
+			typeSystem.getHintCacheStatistics().metaAnnotationHintsComputed();
+		} else {
+			typeSystem.getHintCacheStatistics().metaAnnotationHintsReused();
+		}
+		return result;
+	}
+
+	/**
+	 * Walk the meta-annotations of this annotation type, collecting hints with annotation chains relative to it.
+	 */
+	private void collectMetaAnnotationHints(Set<AnnotationNode> visited, List<Type> annotationChain,
+			List<MetaAnnotationHints> collector) {
+		if (node.visibleAnnotations == null) {
+			return;
+		}
+		for (AnnotationNode an2 : node.visibleAnnotations) {
+			Type annotationType = typeSystem.Lresolve(an2.desc, true);
+			if (annotationType == null) {
+				SpringFeature.log("Couldn't resolve " + an2.desc
+						+ " annotation type whilst searching for hints on " + getName());
+			} else if (visited.add(an2)) {
+				annotationChain.add(annotationType);
+				List<Hint> hints = annotationType.createHints(an2, annotationChain);
+				if (!hints.isEmpty()) {
+					collector.add(new MetaAnnotationHints(an2, hints));
+				}
+				annotationType.collectMetaAnnotationHints(visited, annotationChain, collector);
+				annotationChain.remove(annotationChain.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * The hints created for an annotation found somewhere in the meta-annotations of an annotation type.
+	 */
+	private static class MetaAnnotationHints {
+
+		final AnnotationNode annotation;
+
+		final List<Hint> hints;
+
+		MetaAnnotationHints(AnnotationNode annotation, List<Hint> hints) {
+			this.annotation = annotation;
+			this.hints = hints;
+		}
+	}
+
 	private void addInners(List<String> propertiesTypes) {
 		List<String> extras = new ArrayList<>();
 		for (String propertiesType : propertiesTypes) {
@@ -1361,24 +1470,6 @@ public class Type {
 		}
 	}
 
-	public void collectMissingAnnotationTypesHelper(Set<String> missingAnnotationTypes, HashSet<Type> visited) {
-		if (dimensions > 0)
-			return;
-		if (!visited.add(this)) {
-			return;
-		}
-		if (node.visibleAnnotations != null) {
-			for (AnnotationNode an : node.visibleAnnotations) {
-				Type annotationType = typeSystem.Lresolve(an.desc, true);
-				if (annotationType == null) {
-					missingAnnotationTypes.add(an.desc.substring(0, an.desc.length() - 1).replace("/", "."));
-				} else {
-					annotationType.collectMissingAnnotationTypesHelper(missingAnnotationTypes, visited);
-				}
-			}
-		}
-	}
-
 	public int getMethodCount() {
 		return node.methods.size();
 	}
@@ -1445,183 +1536,18 @@ public class Type {
 	public List<CompilationHint> unpackConfigurationHints() {
 		if (dimensions > 0)
 			return Collections.emptyList();
-		List<CompilationHint> hints = null;
-		if (node.visibleAnnotations != null) {
-			for (AnnotationNode an : node.visibleAnnotations) {
-				if (fromLdescriptorToDotted(an.desc).equals(NativeImageHint.class.getName())) {
-					CompilationHint hint = fromConfigurationHintToCompilationHint(an);
-					if (hints == null) {
-						hints = new ArrayList<>();
-					}
-					hints.add(hint);
-				} else if (fromLdescriptorToDotted(an.desc).equals(NativeImageHints.class.getName())) {
-					List<CompilationHint> chints = fromConfigurationHintsToCompilationHints(an);
-					if (hints == null) {
-						hints = new ArrayList<>();
-					}
-					hints.addAll(chints);
-				}
-			}
-		}
-		// TODO support repeatable version
-		return hints == null ? Collections.emptyList() : hints;
-	}
-
-	@SuppressWarnings("unchecked")
-	private CompilationHint fromConfigurationHintToCompilationHint(AnnotationNode an) {
-		CompilationHint ch = new CompilationHint();
-		List<Object> values = an.values;
-		if (values != null) {
-			for (int i = 0; i < values.size(); i += 2) {
-				String key = (String) values.get(i);
-				Object value = values.get(i + 1);
-				if (key.equals("trigger")) {
-					// value(String)=Ljava/lang/String;(org.objectweb.asm.Type)
-					ch.setTargetType(((org.objectweb.asm.Type) value).getClassName());
-					/*
-					 * } else if (key.equals("types")) { // types=[Ljava/lang/String;,
-					 * Ljava/lang/Float;](class java.util.ArrayList)
-					 * ArrayList<org.objectweb.asm.Type> types =
-					 * (ArrayList<org.objectweb.asm.Type>)value; for (org.objectweb.asm.Type type:
-					 * types) { ch.addDependantType(type.getClassName(), inferTypeKind(type)); }
-					 */
-				} else if (key.equals("modes")) {
-					List<String[]> modes = (List<String[]>) value;
-					for (String[] mode: modes) {
-						// [Lorg/springframework/graalvm/support/Mode;, AGENT]
-						ch.addMode(Mode.valueOf(mode[1]));
-					}
-				} else if (key.equals("typeInfos")) {
-					List<AnnotationNode> typeInfos = (List<AnnotationNode>) value;
-					for (AnnotationNode typeInfo : typeInfos) {
-						unpackTypeInfo(typeInfo, ch);
-					}
-				} else if (key.equals("proxyInfos")) {
-					List<AnnotationNode> proxyInfos = (List<AnnotationNode>) value;
-					for (AnnotationNode proxyInfo : proxyInfos) {
-						unpackProxyInfo(proxyInfo, ch);
-					}
-				} else if (key.equals("resourcesInfos")) {
-					List<AnnotationNode> resourcesInfos = (List<AnnotationNode>) value;
-					for (AnnotationNode resourcesInfo : resourcesInfos) {
-						unpackResourcesInfo(resourcesInfo, ch);
-					}
-				} else if (key.equals("abortIfTypesMissing")) {
-					Boolean b = (Boolean) value;
-					ch.setAbortIfTypesMissing(b);
-				} else if (key.equals("follow")) {
-					Boolean b = (Boolean) value;
-					ch.setFollow(b);
-				} else if (key.equals("extractTypesFromAttributes")) {
-					// TODO handle this key
-//					annotation extractTypesFromAttributes=[value, type](class java.util.ArrayList)
-//					annotation extractTypesFromAttributes=[value, name](class java.util.ArrayList)
-//					annotation extractTypesFromAttributes=[value, name](class java.util.ArrayList)
-//					annotation extractTypesFromAttributes=[value](class java.util.ArrayList)
-				} else {
-					System.out.println("annotation " + key + "=" + value + "(" + value.getClass() + ")");
-				}
-			}
-		}
-		if (ch.getTargetType() == null) {
-			ch.setTargetType("java.lang.Object");// TODO should be set from annotation default value, not duplicated
-			// here
-		}
-		return ch;
-	}
-
-	@SuppressWarnings("unchecked")
-	private void unpackTypeInfo(AnnotationNode typeInfo, CompilationHint ch) {
-		List<Object> values = typeInfo.values;
-		List<org.objectweb.asm.Type> types = new ArrayList<>();
-		List<String> typeNames = new ArrayList<>();
-		int accessRequired = -1;
-		for (int i = 0; i < values.size(); i += 2) {
-			String key = (String) values.get(i);
-			Object value = values.get(i + 1);
-			if (key.equals("types")) {
-				types = (ArrayList<org.objectweb.asm.Type>) value;
-			} else if (key.equals("access")) {
-				accessRequired = (Integer) value;
-			} else if (key.equals("typeNames")) {
-				typeNames = (ArrayList<String>) value;
-			}
-		}
-		for (org.objectweb.asm.Type type : types) {
-			ch.addDependantType(type.getClassName(), accessRequired == -1 ? inferTypeKind(type) : accessRequired);
-		}
-		for (String typeName : typeNames) {
-			Type resolvedType = typeSystem.resolveName(typeName, true);
-			if (resolvedType != null) {
-				ch.addDependantType(typeName, accessRequired == -1 ? inferTypeKind(resolvedType) : accessRequired);
-			}
-		}
-	}
-	
-
-	@SuppressWarnings("unchecked")
-	private void unpackProxyInfo(AnnotationNode typeInfo, CompilationHint ch) {
-		List<Object> values = typeInfo.values;
-		List<org.objectweb.asm.Type> types = new ArrayList<>();
-		List<String> typeNames = new ArrayList<>();
-		for (int i = 0; i < values.size(); i += 2) {
-			String key = (String) values.get(i);
-			Object value = values.get(i + 1);
-			if (key.equals("types")) {
-				types = (ArrayList<org.objectweb.asm.Type>) value;
-			} else if (key.equals("typeNames")) {
-				typeNames = (ArrayList<String>) value;
-			}
-		}
-		// Note: Proxies hints will get discarded immediately if types are not around
-		List<String> proxyTypes = new ArrayList<>();
-		boolean typeMissing = false;
-		for (org.objectweb.asm.Type type : types) {
-			String typeName = type.getClassName();
-			Type resolvedType = typeSystem.resolveName(typeName, true);
-			if (resolvedType != null) {
-				proxyTypes.add(typeName);
-			} else {
-				typeMissing = true;
-			}
-		}
-		for (String typeName : typeNames) {
-			Type resolvedType = typeSystem.resolveName(typeName, true);
-			if (resolvedType != null) {
-				proxyTypes.add(typeName);
-			} else {
-				typeMissing = true;
-			}
+		List<HintDeclaration> declarations = HintDeclaration.fromAnnotations(node.visibleAnnotations);
+		if (declarations.isEmpty()) {
+			return Collections.emptyList();
 		}
-		if (!typeMissing) {
-			ch.addProxyDescriptor(new ProxyDescriptor(proxyTypes.toArray(new String[0])));
+		List<CompilationHint> hints = new ArrayList<>();
+		for (HintDeclaration declaration : declarations) {
+			hints.add(declaration.toCompilationHint(typeSystem));
 		}
+		return hints;
 	}
 
-	@SuppressWarnings("unchecked")
-	private void unpackResourcesInfo(AnnotationNode typeInfo, CompilationHint ch) {
-		List<Object> values = typeInfo.values;
-		List<String> patterns = null;
-		Boolean isBundle = null;
-		for (int i = 0; i < values.size(); i += 2) {
-			String key = (String) values.get(i);
-			Object value = values.get(i + 1);
-			if (key.equals("patterns")) {
-				patterns = (ArrayList<String>) value;
-			} else if (key.equals("isBundle")) {
-				isBundle = (Boolean) value;
-			}
-		}
-		ch.addResourcesDescriptor(new ResourcesDescriptor(patterns.toArray(new String[0]),isBundle==null?false:isBundle));
-	}
-
-
-	private int inferTypeKind(org.objectweb.asm.Type type) {
-		Type t = typeSystem.resolve(type, true);
-		return inferTypeKind(t);
-	}
-
-	private int inferTypeKind(Type t) {
+	static int inferTypeKind(Type t) {
 		if (t == null) {
 			return AccessBits.ALL;
 		}
@@ -1636,25 +1562,6 @@ public class Type {
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	private List<CompilationHint> fromConfigurationHintsToCompilationHints(AnnotationNode an) {
-		List<CompilationHint> chs = new ArrayList<>();
-		List<Object> values = an.values;
-		for (int i = 0; i < values.size(); i += 2) {
-			String key = (String) values.get(i);
-			Object value = values.get(i + 1);
-			if (key.equals("value")) {
-				// value=[org.objectweb.asm.tree.AnnotationNode@63e31ee,
-				// org.objectweb.asm.tree.AnnotationNode@68fb2c38]
-				List<AnnotationNode> annotationNodes = (List<AnnotationNode>) value;
-				for (int j = 0; j < annotationNodes.size(); j++) {
-					chs.add(fromConfigurationHintToCompilationHint(annotationNodes.get(j)));
-				}
-			}
-		}
-		return chs;
-	}
-
 	public List<CompilationHint> getCompilationHints() {
 		if (dimensions > 0)
 			return Collections.emptyList();
@@ -1933,15 +1840,16 @@ public class Type {
 				.collect(Collectors.toList());
 	}
 
+	// Types may be evicted from the type cache and resolved again, so compare by name rather than node identity
 	public boolean equals(Object that) {
 		return (that instanceof Type) &&
-				(((Type) that).name.equals(this.name)) &&
-				(((Type) that).dimensions == this.dimensions) &&
-				(((Type) that).node.equals(this.node));
+				(((Type) that).typeSystem == this.typeSystem) &&
+				Objects.equals(((Type) that).name, this.name) &&
+				(((Type) that).dimensions == this.dimensions);
 	}
 
 	public int hashCode() {
-		return node.hashCode() * 37;
+		return Objects.hashCode(name) * 37 + dimensions;
 	}
 
 	/**
@@ -1996,6 +1904,49 @@ public class Type {
 		return true;
 	}
 
+	/**
+	 * Find the class names listed by a classpath condition annotation (@ConditionalOnClass, @ConditionalOnMissingClass)
+	 * on this type, from its value and name attributes.
+	 * @return the dotted class names, an empty list if the annotation is not on the type, or null if another
+	 * annotation on the type is meta-annotated with it (so the names it contributes are not known)
+	 */
+	public List<String> findConditionalClassNames(String lAnnotationDescriptor) {
+		if (dimensions > 0) {
+			return Collections.emptyList();
+		}
+		return findConditionalClassNames(node.visibleAnnotations, lAnnotationDescriptor, typeSystem);
+	}
+
+	static List<String> findConditionalClassNames(List<AnnotationNode> annotations, String lAnnotationDescriptor,
+			TypeSystem typeSystem) {
+		if (annotations == null) {
+			return Collections.emptyList();
+		}
+		List<String> classNames = new ArrayList<>();
+		for (AnnotationNode an : annotations) {
+			if (an.desc.equals(lAnnotationDescriptor)) {
+				if (an.values != null) {
+					for (int i = 0; i < an.values.size(); i += 2) {
+						if (an.values.get(i).equals("value") || an.values.get(i).equals("name")) {
+							// Class values for value, String values for name (and for @ConditionalOnMissingClass value)
+							for (Object value : (List<?>) an.values.get(i + 1)) {
+								classNames.add(value instanceof org.objectweb.asm.Type
+										? ((org.objectweb.asm.Type) value).getClassName()
+										: (String) value);
+							}
+						}
+					}
+				}
+			} else {
+				Type annotationType = typeSystem.Lresolve(an.desc, true);
+				if (annotationType == null || annotationType.hasAnnotation(lAnnotationDescriptor, true)) {
+					return null;
+				}
+			}
+		}
+		return classNames;
+	}
+
 	/**
 	 * For annotation types this will return true if any of the members of the annotation
 	 * are using @AliasFor (implying they need a proxy at runtime)
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe cache of resolved types, keyed by slashed type name. Unless a maximum size is set this is a
+ * {@link ConcurrentHashMap} so concurrent lookups do not contend. With a maximum size the least recently used
+ * entries are evicted once it is exceeded, the cache is then guarded by a single lock. An evicted type is
+ * simply resolved again by the {@link TypeSystem} the next time it is asked for.
+ */
+public class TypeCache {
+
+	private final int maxSize;
+
+	private final Map<String, Type> types;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxSize the maximum number of types to retain, or 0 for no limit
+	 */
+	TypeCache(int maxSize) {
+		this.maxSize = maxSize;
+		if (maxSize > 0) {
+			this.types = Collections.synchronizedMap(new LinkedHashMap<String, Type>(256, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Type> eldest) {
+					if (size() > TypeCache.this.maxSize) {
+						evictions.increment();
+						return true;
+					}
+					return false;
+				}
+			});
+		} else {
+			this.types = new ConcurrentHashMap<>(256);
+		}
+	}
+
+	Type get(String slashedTypeName) {
+		Type type = types.get(slashedTypeName);
+		if (type == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return type;
+	}
+
+	void put(String slashedTypeName, Type type) {
+		types.put(slashedTypeName, type);
+	}
+
+	/**
+	 * Remove the entries recording that a type could not be found, so it is looked for again.
+	 */
+	void removeMissing() {
+		synchronized (types) {
+			types.values().removeIf(type -> type == Type.MISSING);
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int size() {
+		return types.size();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "TypeCache(size=#" + types.size() + (maxSize > 0 ? "/" + maxSize : "") + " hits=#" + getHits()
+				+ " misses=#" + getMisses() + " evictions=#" + getEvictions() + ")";
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable supertype/subtype graph of every type on the classpath, built from the class headers
+ * when the {@link TypeSystem} indexes the classpath. Types are numbered and the edges held in int
+ * arrays, so it is cheap to share across threads and queries do not need to resolve any types.
+ * <p>
+ * The queries return null when part of the hierarchy involved is not on the classpath, callers then fall
+ * back to walking the resolved types. That walk fails with a {@link MissingTypeException} when it reaches
+ * the missing type, which callers such as {@link Type#isCondition()} rely on, so a type with an incomplete
+ * supertype closure is never answered from the hierarchy, even when the answer would be positive.
+ */
+final class TypeHierarchy {
+
+	private static final int NONE = -1;
+
+	private static final int[] NO_IDS = new int[0];
+
+	// Slashed type name to id
+	private final Map<String, Integer> ids;
+
+	private final String[] names;
+
+	// Whether the header for the type was found, types only referenced as supertypes are not defined
+	private final boolean[] defined;
+
+	private final boolean[] interfaces;
+
+	private final int[] superclasses;
+
+	// Direct subclasses and implementors
+	private final int[][] subtypes;
+
+	// Sorted ids of all supertypes, direct and indirect
+	private final int[][] ancestors;
+
+	// Whether every type in the supertype closure is defined, if not a negative answer is not definitive
+	private final boolean[] complete;
+
+	private TypeHierarchy(Map<String, TypeHeader> headers) {
+		ids = new HashMap<>(headers.size() * 2);
+		names = new String[headers.size()];
+		int id = 0;
+		for (String name : headers.keySet()) {
+			ids.put(name, id);
+			names[id++] = name;
+		}
+		int count = names.length;
+		defined = new boolean[count];
+		interfaces = new boolean[count];
+		superclasses = new int[count];
+		int[][] supertypes = new int[count][];
+		int[] subtypeCounts = new int[count];
+		for (int i = 0; i < count; i++) {
+			TypeHeader header = headers.get(names[i]);
+			if (header == TypeHeader.UNDEFINED) {
+				superclasses[i] = NONE;
+				supertypes[i] = NO_IDS;
+				continue;
+			}
+			defined[i] = true;
+			interfaces[i] |= Modifier.isInterface(header.access);
+			superclasses[i] = header.superName == null ? NONE : ids.get(header.superName);
+			int[] direct = new int[header.interfaces.length + (superclasses[i] == NONE ? 0 : 1)];
+			int d = 0;
+			if (superclasses[i] != NONE) {
+				direct[d++] = superclasses[i];
+			}
+			for (String interfaceName : header.interfaces) {
+				int interfaceId = ids.get(interfaceName);
+				// Something only referenced as an interface is assumed to be one
+				interfaces[interfaceId] |= !headers.get(interfaceName).isDefined();
+				direct[d++] = interfaceId;
+			}
+			supertypes[i] = direct;
+			for (int supertype : direct) {
+				subtypeCounts[supertype]++;
+			}
+		}
+		subtypes = new int[count][];
+		for (int i = 0; i < count; i++) {
+			subtypes[i] = subtypeCounts[i] == 0 ? NO_IDS : new int[subtypeCounts[i]];
+			subtypeCounts[i] = 0;
+		}
+		for (int i = 0; i < count; i++) {
+			for (int supertype : supertypes[i]) {
+				subtypes[supertype][subtypeCounts[supertype]++] = i;
+			}
+		}
+		ancestors = new int[count][];
+		complete = new boolean[count];
+		boolean[] inProgress = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			computeAncestors(i, supertypes, inProgress);
+		}
+	}
+
+	private void computeAncestors(int id, int[][] supertypes, boolean[] inProgress) {
+		if (ancestors[id] != null) {
+			return;
+		}
+		if (inProgress[id]) {
+			// Circular hierarchy, only possible with a broken classpath
+			ancestors[id] = NO_IDS;
+			return;
+		}
+		inProgress[id] = true;
+		boolean isComplete = defined[id];
+		int[] result = supertypes[id].clone();
+		int size = result.length;
+		for (int supertype : supertypes[id]) {
+			computeAncestors(supertype, supertypes, inProgress);
+			isComplete &= complete[supertype];
+			int[] inherited = ancestors[supertype];
+			if (size + inherited.length > result.length) {
+				result = Arrays.copyOf(result, size + inherited.length);
+			}
+			System.arraycopy(inherited, 0, result, size, inherited.length);
+			size += inherited.length;
+		}
+		inProgress[id] = false;
+		Arrays.sort(result, 0, size);
+		int unique = 0;
+		for (int i = 0; i < size; i++) {
+			if (unique == 0 || result[unique - 1] != result[i]) {
+				result[unique++] = result[i];
+			}
+		}
+		ancestors[id] = unique == 0 ? NO_IDS : Arrays.copyOf(result, unique);
+		complete[id] = isComplete;
+	}
+
+	/**
+	 * @return the number of types in the hierarchy, including those only referenced as supertypes
+	 */
+	int size() {
+		return names.length;
+	}
+
+	/**
+	 * Determine if one type is the same as, or extends or implements, another.
+	 * @param slashedTypeName the candidate subtype
+	 * @param slashedSupertypeName the candidate supertype
+	 * @return the answer, or null if it cannot be determined from the hierarchy
+	 */
+	Boolean isSubtype(String slashedTypeName, String slashedSupertypeName) {
+		Integer id = ids.get(slashedTypeName);
+		if (id == null || !complete[id]) {
+			return null;
+		}
+		Integer supertypeId = ids.get(slashedSupertypeName);
+		return supertypeId != null && (supertypeId.intValue() == id.intValue()
+				|| Arrays.binarySearch(ancestors[id], supertypeId) >= 0);
+	}
+
+	/**
+	 * Determine if a type implements an interface, directly or through its supertypes.
+	 * @return the answer, or null if it cannot be determined from the hierarchy
+	 */
+	Boolean implementsInterface(String slashedTypeName, String slashedInterfaceName) {
+		Integer interfaceId = ids.get(slashedInterfaceName);
+		if (interfaceId != null && !interfaces[interfaceId]) {
+			Integer id = ids.get(slashedTypeName);
+			return id != null && complete[id] ? Boolean.FALSE : null;
+		}
+		if (slashedTypeName.equals(slashedInterfaceName)) {
+			return ids.containsKey(slashedTypeName) && complete[ids.get(slashedTypeName)] ? Boolean.FALSE : null;
+		}
+		return isSubtype(slashedTypeName, slashedInterfaceName);
+	}
+
+	/**
+	 * Determine if a class has the specified class in its superclass chain.
+	 * @return the answer, or null if it cannot be determined from the hierarchy
+	 */
+	Boolean extendsClass(String slashedTypeName, String slashedClassName) {
+		Integer id = ids.get(slashedTypeName);
+		if (id == null || !defined[id]) {
+			return null;
+		}
+		for (int superclass = superclasses[id]; superclass != NONE; superclass = superclasses[superclass]) {
+			if (names[superclass].equals(slashedClassName)) {
+				return Boolean.TRUE;
+			}
+			if (!defined[superclass]) {
+				return null;
+			}
+		}
+		return Boolean.FALSE;
+	}
+
+	/**
+	 * Find all the types that extend or implement the specified type, directly or indirectly.
+	 * @return the slashed names of the subtypes, empty if there are none
+	 */
+	List<String> getSubtypes(String slashedTypeName) {
+		Integer id = ids.get(slashedTypeName);
+		if (id == null || subtypes[id].length == 0) {
+			return Collections.emptyList();
+		}
+		boolean[] seen = new boolean[names.length];
+		int[] queue = new int[16];
+		int head = 0;
+		int tail = 0;
+		List<String> result = new ArrayList<>();
+		queue[tail++] = id;
+		while (head < tail) {
+			for (int subtype : subtypes[queue[head++]]) {
+				if (!seen[subtype]) {
+					seen[subtype] = true;
+					result.add(names[subtype]);
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, tail * 2);
+					}
+					queue[tail++] = subtype;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Build the hierarchy from the headers of the types on the classpath. Any referenced supertype without
+	 * a header is looked up with the supplied function (for example to find system types), if that returns null
+	 * the type is considered missing.
+	 * @param headers headers keyed by slashed type name
+	 * @param lookup locates the header for a type that is not in the supplied headers
+	 */
+	static TypeHierarchy build(Map<String, TypeHeader> headers, Function<String, TypeHeader> lookup) {
+		Map<String, TypeHeader> all = new LinkedHashMap<>(headers);
+		List<String> toCheck = new ArrayList<>(headers.keySet());
+		while (!toCheck.isEmpty()) {
+			List<String> added = new ArrayList<>();
+			for (String name : toCheck) {
+				TypeHeader header = all.get(name);
+				if (header.superName != null) {
+					addIfMissing(header.superName, all, lookup, added);
+				}
+				for (String interfaceName : header.interfaces) {
+					addIfMissing(interfaceName, all, lookup, added);
+				}
+			}
+			toCheck = added;
+		}
+		return new TypeHierarchy(all);
+	}
+
+	/**
+	 * Build a hierarchy that also covers the types of a newly indexed classpath entry. The headers of the types
+	 * already in this hierarchy are recovered from its edges, no class file is read again.
+	 * @param headers headers of the types in the new entry, keyed by slashed type name
+	 * @param replace whether the new headers take precedence over those of types already defined, otherwise they
+	 * only define types so far missing
+	 * @param lookup locates the header for a type that is in neither
+	 */
+	TypeHierarchy extend(Map<String, TypeHeader> headers, boolean replace, Function<String, TypeHeader> lookup) {
+		Map<String, TypeHeader> all = getHeaders();
+		headers.forEach((name, header) -> {
+			TypeHeader existing = all.get(name);
+			if (replace || existing == null || !existing.isDefined()) {
+				all.put(name, header);
+			}
+		});
+		return build(all, lookup);
+	}
+
+	/**
+	 * @return the headers this hierarchy was built from, as far as the hierarchy needs them (only whether a type
+	 * is an interface is kept of its access flags), in id order
+	 */
+	private Map<String, TypeHeader> getHeaders() {
+		List<List<String>> interfaceNames = new ArrayList<>(names.length);
+		for (int i = 0; i < names.length; i++) {
+			interfaceNames.add(new ArrayList<>(0));
+		}
+		for (int supertype = 0; supertype < names.length; supertype++) {
+			for (int subtype : subtypes[supertype]) {
+				if (superclasses[subtype] != supertype) {
+					interfaceNames.get(subtype).add(names[supertype]);
+				}
+			}
+		}
+		Map<String, TypeHeader> headers = new LinkedHashMap<>(names.length * 2);
+		for (int i = 0; i < names.length; i++) {
+			headers.put(names[i], !defined[i] ? TypeHeader.UNDEFINED
+					: new TypeHeader(interfaces[i] ? Modifier.INTERFACE : 0,
+							superclasses[i] == NONE ? null : names[superclasses[i]],
+							interfaceNames.get(i).toArray(new String[0])));
+		}
+		return headers;
+	}
+
+	private static void addIfMissing(String name, Map<String, TypeHeader> all, Function<String, TypeHeader> lookup,
+			List<String> added) {
+		if (!all.containsKey(name)) {
+			TypeHeader header = lookup.apply(name);
+			all.put(name, header == null ? TypeHeader.UNDEFINED : header);
+			added.add(name);
+		}
+	}
+
+	/**
+	 * The parts of a class file header the hierarchy is built from.
+	 */
+	static class TypeHeader {
+
+		static final TypeHeader UNDEFINED = new TypeHeader(0, null, new String[0]);
+
+		final int access;
+
+		// Null for java/lang/Object and module-info
+		final String superName;
+
+		final String[] interfaces;
+
+		TypeHeader(int access, String superName, String[] interfaces) {
+			this.access = access;
+			this.superName = superName;
+			this.interfaces = interfaces;
+		}
+
+		boolean isDefined() {
+			return this != UNDEFINED;
+		}
+	}
+
+}
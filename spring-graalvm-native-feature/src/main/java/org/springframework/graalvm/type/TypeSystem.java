@@ -16,28 +16,38 @@
 package org.springframework.graalvm.type;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -49,27 +59,45 @@ import org.springframework.graalvm.domain.reflect.ReflectionDescriptor;
 import org.springframework.graalvm.domain.resources.ResourcesDescriptor;
 import org.springframework.graalvm.domain.resources.ResourcesJsonMarshaller;
 import org.springframework.graalvm.extension.ComponentProcessor;
+import org.springframework.graalvm.support.ConfigOptions;
+import org.springframework.graalvm.support.FeatureReport;
+import org.springframework.graalvm.support.SpringFeature;
+import org.springframework.graalvm.type.TypeHierarchy.TypeHeader;
 
 /**
  * Simple type system with some rudimentary caching.
  */
-public class TypeSystem {
+public class TypeSystem implements AutoCloseable {
 
 	public static String SPRING_AT_CONFIGURATION = "Lorg/springframework/context/annotation/Configuration;";
 
 	// Map of all types on the classpath that have some kind of annotations on them
 	Map<String, AnnotationInfo> annotatedTypes;
 
+	// Annotation descriptor to the slashed names of the types annotated with it, built after the scan
+	private volatile Map<String, List<String>> typesByAnnotation;
+
+	// Annotation descriptor to the slashed names of the types annotated or meta-annotated with it, published
+	// after typesByAnnotation so seeing it set means both indexes are complete
+	private volatile Map<String, List<String>> typesByMetaAnnotation;
+
 	private SpringConfiguration hintLocator = null;
 
 	// Classpath from which this type system will resolve types
 	private List<String> classpath;
 
-	// Cache of resolved types TODO time out entries?
-	private Map<String, Type> typeCache = new HashMap<>();
+	// Cache of resolved types, bounded if spring.native.type-cache-size is set
+	private TypeCache typeCache = new TypeCache(ConfigOptions.getTypeCacheSize());
+
+	// Map of which zip files contain which packages, in classpath order (a split package maps to several)
+	private Map<String, List<File>> packageCache = new HashMap<>();
 
-	// Map of which zip files contain which packages TODO split package support
-	private Map<String, File> packageCache = new HashMap<>();
+	// For types in split packages, remembers which archive the type was first found in
+	private Map<String, File> splitPackageTypeLocations = new ConcurrentHashMap<>();
+
+	// Archives on the classpath, opened once during indexing and kept open until the type system is closed
+	// so lookups use the already parsed central directory rather than reopening the jar each time
+	private Map<File, ZipFile> archives = new HashMap<>();
 
 	// Map of which application files contain particular packages
 	private Map<String, List<File>> appPackages = new HashMap<>();
@@ -77,6 +105,8 @@ public class TypeSystem {
 	private Map<String, ResourcesDescriptor> resourceConfigurations;
 	
 	private Map<String, ReflectionDescriptor> reflectionConfigurations;
+
+	private List<String> serviceProviders;
 	
 	// Map from classpaths to TypeSystems managing those classpaths
 	private static Map<String, TypeSystem> typeSystems = new HashMap<>();
@@ -85,6 +115,30 @@ public class TypeSystem {
 	// of (the parameters to the isPresent calls)
 	private Map<String,List<String>> typesMakingIsPresentChecksInStaticInitializers;
 
+	// Optional on-disk cache of what has been computed for each archive, null if not enabled
+	private ArchiveCache archiveCache;
+
+	private HintCacheStatistics hintCacheStatistics = new HintCacheStatistics();
+
+	// Slashed type name to the missing types in its hierarchy
+	private final Map<String, Set<String>> missingTypesInHierarchy = new ConcurrentHashMap<>();
+
+	// Slashed type name to the dotted names of missing annotation types reachable through its annotations
+	private final Map<String, Set<String>> missingAnnotationTypes = new ConcurrentHashMap<>();
+
+	private final AtomicLong completenessWalksSaved = new AtomicLong();
+
+	private final AtomicLong typesResolved = new AtomicLong();
+
+	// Class files read or parsed, whether resolving a type or scanning the classpath
+	private final AtomicLong classesRead = new AtomicLong();
+
+	// Supertype/subtype graph of the types on the classpath, shared by all threads
+	private volatile TypeHierarchy hierarchy;
+
+	// Number of threads processing the classpath entries
+	private final int parallelism;
+
 	public static synchronized TypeSystem get(List<String> classpath) {
 		String classpathString = classpath.toString();
 		TypeSystem ts = typeSystems.get(classpathString);
@@ -96,7 +150,20 @@ public class TypeSystem {
 	}
 
 	public TypeSystem(List<String> classpath) {
+		this(classpath, ConfigOptions.getParallelism());
+	}
+
+	/**
+	 * @param parallelism the number of threads indexing and scanning the classpath entries, 1 to process them
+	 * sequentially
+	 */
+	public TypeSystem(List<String> classpath, int parallelism) {
 		this.classpath = classpath;
+		this.parallelism = parallelism;
+		String cacheDir = ConfigOptions.getTypeSystemCacheDir();
+		if (cacheDir != null) {
+			archiveCache = new ArchiveCache(new File(cacheDir));
+		}
 		index();
 	}
 
@@ -104,6 +171,14 @@ public class TypeSystem {
 		return classpath;
 	}
 
+	public TypeCache getTypeCache() {
+		return typeCache;
+	}
+
+	public HintCacheStatistics getHintCacheStatistics() {
+		return hintCacheStatistics;
+	}
+
 	public Type resolveName(String dottedTypeName) {
 		return resolveDotted(dottedTypeName);
 	}
@@ -165,19 +240,35 @@ public class TypeSystem {
 			}
 			typeToLocate = n;
 		}
-		byte[] bytes = find(typeToLocate);
+		// Method bodies are not needed by the type queries, skip them to keep the cached types small
+		ClassNode node = readClassNode(typeToLocate, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		if (node == null) {
+			// cache a missingtype so we don't go looking again!
+			typeCache.put(slashedTypeName, Type.MISSING);
+			if (allowNotFound) {
+				return null;
+			} else {
+				throw new MissingTypeException(slashedTypeName);
+			}
+		}
+		type = Type.forClassNode(this, node,dimensions);
+		typesResolved.incrementAndGet();
+		typeCache.put(slashedTypeName, type);
+		return type;
+	}
+
+	/**
+	 * Read the class from the classpath (or the system classes) with the specified {@link ClassReader} parsing options.
+	 * @return the node for the class or null if it cannot be found
+	 */
+	ClassNode readClassNode(String slashedTypeName, int parsingOptions) {
+		byte[] bytes = find(slashedTypeName);
 		if (bytes == null) {
 			// System class?
 			InputStream resourceAsStream = Thread.currentThread().getContextClassLoader()
-					.getResourceAsStream(typeToLocate + ".class");
+					.getResourceAsStream(slashedTypeName + ".class");
 			if (resourceAsStream == null) {
-				// cache a missingtype so we don't go looking again!
-				typeCache.put(slashedTypeName, Type.MISSING);
-				if (allowNotFound) {
-					return null;
-				} else {
-					throw new MissingTypeException(slashedTypeName);
-				}
+				return null;
 			}
 			try {
 				bytes = loadFromStream(resourceAsStream);
@@ -185,12 +276,11 @@ public class TypeSystem {
 				throw new RuntimeException("Problems loading class from resource stream: " + slashedTypeName, e);
 			}
 		}
+		classesRead.incrementAndGet();
 		ClassNode node = new ClassNode();
 		ClassReader reader = new ClassReader(bytes);
-		reader.accept(node, ClassReader.SKIP_DEBUG);
-		type = Type.forClassNode(this, node,dimensions);
-		typeCache.put(slashedTypeName, type);
-		return type;
+		reader.accept(node, parsingOptions);
+		return node;
 	}
 
 	private String toSlashedName(String dottedTypeName) {
@@ -260,97 +350,372 @@ public class TypeSystem {
 	}
 
 	public Set<String> resolveCompleteFindMissingAnnotationTypes(Type type) {
-		Set<String> missingAnnotationTypes = new LinkedHashSet<>();
-		type.collectMissingAnnotationTypesHelper(missingAnnotationTypes, new HashSet<>());
-		return missingAnnotationTypes;
+		if (type.isArray()) {
+			return new LinkedHashSet<>();
+		}
+		return new LinkedHashSet<>(new MissingTypesWalk(missingAnnotationTypes) {
+			@Override
+			void visit(String slashedTypeName, Set<String> missing, Consumer<String> successors) {
+				Type t = slashedTypeName.equals(type.getName()) ? type : resolve(slashedTypeName, true);
+				if (t == null) {
+					return;
+				}
+				for (String annotationDescriptor : t.getAnnotationDescriptors()) {
+					Type annotationType = Lresolve(annotationDescriptor, true);
+					if (annotationType == null) {
+						missing.add(annotationDescriptor.substring(0, annotationDescriptor.length() - 1).replace("/", "."));
+					} else {
+						successors.accept(annotationType.getName());
+					}
+				}
+			}
+		}.walk(type.getName()));
 	}
 
 	/**
-	 * Verifies the type plus all its super types, interfaces and any type
-	 * references in generic specifications exist.
+	 * Verifies the type plus all its super types and interfaces exist. The result for each type is
+	 * computed once and reused by the checks on all its subtypes.
 	 * 
 	 * @return List of missing types, empty if all good!
 	 */
 	public Set<String> resolveComplete(String desc) {
-		Set<String> missingTypes = new LinkedHashSet<>();
-		resolveComplete(desc.substring(1, desc.length() - 1), missingTypes, new HashSet<>());
-		return missingTypes;
+		return new LinkedHashSet<>(new MissingTypesWalk(missingTypesInHierarchy) {
+			@Override
+			void visit(String slashedTypeName, Set<String> missing, Consumer<String> successors) {
+				Type baseType = resolve(slashedTypeName, true);
+				if (baseType == null) {
+					missing.add(slashedTypeName);
+				} else {
+					String superclassString = baseType.getSuperclassString();
+					if (superclassString != null) {
+						successors.accept(superclassString);
+					}
+					List<String> interfaces = baseType.getInterfacesStrings();
+					if (interfaces != null) {
+						interfaces.forEach(successors);
+					}
+				}
+			}
+		}.walk(desc.substring(1, desc.length() - 1)));
 	}
 
-	private void resolveComplete(String slashedDescriptor, Set<String> missingTypes, Set<String> visited) {
-		if (visited.add(slashedDescriptor)) {
-			Type baseType = resolve(slashedDescriptor, true);
-			if (baseType == null) {
-				missingTypes.add(slashedDescriptor);
+	/**
+	 * @return how many times a memoized completeness result was used instead of walking a type again
+	 */
+	public long getCompletenessWalksSaved() {
+		return completenessWalksSaved.get();
+	}
+
+	/**
+	 * @return how many types have been resolved, a type evicted from the cache is counted again when reloaded
+	 */
+	public long getTypesResolved() {
+		return typesResolved.get();
+	}
+
+	/**
+	 * @return how many class files have been read or parsed, resolving types or scanning the classpath
+	 */
+	public long getClassesRead() {
+		return classesRead.get();
+	}
+
+	/**
+	 * Depth first walk computing the missing types reachable from a type as the union of those found
+	 * for the type itself and for its successors. Results are memoized per type, those for types on a
+	 * cycle (as happens with annotations like @Documented) are only memoized for the first type of the
+	 * cycle to be entered, once the whole cycle has been seen.
+	 */
+	private abstract class MissingTypesWalk {
+
+		private final Map<String, Set<String>> memo;
+
+		// Types being walked, with their depth in the walk
+		private final Map<String, Integer> inProgress = new HashMap<>();
+
+		MissingTypesWalk(Map<String, Set<String>> memo) {
+			this.memo = memo;
+		}
+
+		Set<String> walk(String slashedTypeName) {
+			return walk(slashedTypeName, new int[] { Integer.MAX_VALUE });
+		}
+
+		/**
+		 * @param lowest updated with the lowest depth of an in progress type reached from this one
+		 */
+		private Set<String> walk(String slashedTypeName, int[] lowest) {
+			Set<String> result = memo.get(slashedTypeName);
+			if (result != null) {
+				completenessWalksSaved.incrementAndGet();
+				return result;
+			}
+			Integer inProgressDepth = inProgress.get(slashedTypeName);
+			if (inProgressDepth != null) {
+				lowest[0] = Math.min(lowest[0], inProgressDepth);
+				return Collections.emptySet();
+			}
+			int depth = inProgress.size();
+			inProgress.put(slashedTypeName, depth);
+			Set<String> missing = new LinkedHashSet<>();
+			int[] successorsLowest = new int[] { Integer.MAX_VALUE };
+			visit(slashedTypeName, missing, successor -> missing.addAll(walk(successor, successorsLowest)));
+			inProgress.remove(slashedTypeName);
+			if (successorsLowest[0] < depth) {
+				// Part of a cycle entered higher up, this result may be incomplete
+				lowest[0] = Math.min(lowest[0], successorsLowest[0]);
+				return missing;
+			}
+			result = missing.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(missing);
+			memo.putIfAbsent(slashedTypeName, result);
+			return result;
+		}
+
+		/**
+		 * Record the missing types found directly for the type and pass each of its successors to the consumer.
+		 */
+		abstract void visit(String slashedTypeName, Set<String> missing, Consumer<String> successors);
+	}
+
+	public void index() {
+		long t = System.currentTimeMillis();
+		// Archives and directories are walked concurrently, the results are merged in classpath
+		// order so that lookups in split packages behave the same as a sequential index
+		List<Tuple<File, Set<String>>> indexed = processClasspath(classpathEntry -> {
+			File f = new File(classpathEntry);
+			return new Tuple<>(f, f.isDirectory() ? collectPackagesInDir(f) : collectPackagesInJar(f));
+		});
+		for (Tuple<File, Set<String>> entry : indexed) {
+			if (entry.getKey().isDirectory()) {
+				recordAppPackages(entry.getKey(), entry.getValue());
 			} else {
-				// Check generics
-				List<String> typesInSignature = baseType.getTypesInSignature();
-//				for (String t: typesInSignature) {
-//					System.out.println("Found this "+t+" in signature of "+baseType.getName());
-//				}
-				String superclassString = baseType.getSuperclassString();
-				if (superclassString != null) {
-					resolveComplete(superclassString, missingTypes, visited);
+				recordJarPackages(entry.getKey(), entry.getValue());
+			}
+		}
+		hierarchy = buildHierarchy();
+		System.out.println("SBG: index time: " + (System.currentTimeMillis() - t) + "ms (#" + classpath.size()
+				+ " classpath entries, #" + hierarchy.size() + " types in hierarchy, parallelism " + parallelism + ")");
+		if (archiveCache != null) {
+			SpringFeature.log("SBG: type system cache entries reused: #" + archiveCache.getHits());
+		}
+	}
+
+	public void indexDir(File dir) {
+		recordAppPackages(dir, collectPackagesInDir(dir));
+		// Extend the hierarchy to cover what can now be resolved, as with find(String) the directory takes
+		// precedence over the archives and over directories indexed after those already holding the type
+		Map<String, TypeHeader> headers = collectTypeHeaders(dir.toString());
+		headers.keySet().removeIf(slashedTypeName -> !dir.equals(findAppDirectory(slashedTypeName)));
+		extendHierarchy(headers, true);
+		forgetMissingTypes();
+	}
+
+	public void indexJar(File jar) {
+		recordJarPackages(jar, collectPackagesInJar(jar));
+		// Indexed last, so it only supplies types found nowhere else
+		extendHierarchy(collectTypeHeaders(jar.toString()), false);
+		forgetMissingTypes();
+	}
+
+	/**
+	 * Discard what was remembered about missing types, a newly indexed entry may supply them.
+	 */
+	private void forgetMissingTypes() {
+		typeCache.removeMissing();
+		missingTypesInHierarchy.clear();
+		missingAnnotationTypes.clear();
+		completenessWalksSaved.set(0);
+	}
+
+	/**
+	 * Build the hierarchy from the class headers of every type on the classpath. As with {@link #find(String)}
+	 * a type in a directory takes precedence over one in an archive, otherwise the first on the classpath wins.
+	 * The headers are only held while the hierarchy is built.
+	 */
+	private TypeHierarchy buildHierarchy() {
+		List<Map<String, TypeHeader>> collected = processClasspath(this::collectTypeHeaders);
+		Map<String, TypeHeader> headers = new HashMap<>();
+		for (int i = 0; i < classpath.size(); i++) {
+			if (new File(classpath.get(i)).isDirectory()) {
+				collected.get(i).forEach(headers::putIfAbsent);
+			}
+		}
+		for (int i = 0; i < classpath.size(); i++) {
+			if (!new File(classpath.get(i)).isDirectory()) {
+				collected.get(i).forEach(headers::putIfAbsent);
+			}
+		}
+		return TypeHierarchy.build(headers, this::readSystemTypeHeader);
+	}
+
+	/**
+	 * Extend the hierarchy with the types of a classpath entry indexed after the type system was created. Only
+	 * the new headers are read, the rest is recovered from the current hierarchy.
+	 */
+	private synchronized void extendHierarchy(Map<String, TypeHeader> headers, boolean replace) {
+		hierarchy = hierarchy.extend(headers, replace, this::readSystemTypeHeader);
+	}
+
+	/**
+	 * @return the first application directory holding the class file of the type, as searched by
+	 * {@link #find(String)}, or null if none does
+	 */
+	private File findAppDirectory(String slashedTypeName) {
+		int index = slashedTypeName.lastIndexOf("/");
+		List<File> dirs = appPackages.get(index == -1 ? "" : slashedTypeName.substring(0, index));
+		if (dirs != null) {
+			for (File dir : dirs) {
+				if (new File(dir, slashedTypeName + ".class").exists()) {
+					return dir;
+				}
+			}
+		}
+		return null;
+	}
+
+	private Map<String, TypeHeader> collectTypeHeaders(String classpathEntry) {
+		File f = new File(classpathEntry);
+		Map<String, TypeHeader> headers = new HashMap<>();
+		if (f.isDirectory()) {
+			Path root = Paths.get(f.toURI());
+			ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+			try (Stream<Path> paths = Files.walk(root)) {
+				for (Path path : (Iterable<Path>) paths.filter(p -> p.toString().endsWith(".class"))::iterator) {
+					classesRead.incrementAndGet();
+					addTypeHeader(scanner.scan(path), headers);
 				}
-				List<String> interfaces = baseType.getInterfacesStrings();
-				if (interfaces != null) {
-					for (String interfce : interfaces) {
-						resolveComplete(interfce, missingTypes, visited);
+			} catch (IOException ioe) {
+				throw new IllegalStateException("Unable to walk " + f, ioe);
+			}
+			return headers;
+		}
+		ArchiveCache.ArchiveSummary summary = getArchiveSummary(f);
+		if (summary != null && summary.headers != null) {
+			return summary.headers;
+		}
+		try {
+			ZipFile zf = getArchive(f);
+			ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+			Enumeration<? extends ZipEntry> entries = zf.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				// Skip multi-release variants, the base entry describes the same type
+				if (entry.getName().endsWith(".class") && !entry.getName().startsWith("META-INF/")) {
+					classesRead.incrementAndGet();
+					try (InputStream is = zf.getInputStream(entry)) {
+						addTypeHeader(scanner.scan(is), headers);
 					}
 				}
 			}
+		} catch (FileNotFoundException | NoSuchFileException fileIsntThere) {
+			return headers;
+		} catch (IOException ioe) {
+			throw new RuntimeException("Problem reading class headers from " + f, ioe);
+		}
+		if (summary != null) {
+			synchronized (summary) {
+				summary.headers = headers;
+			}
+			archiveCache.store(f, summary);
 		}
+		return headers;
 	}
 
-	public void index() {
-		for (String s : classpath) {
-			File f = new File(s);
-			if (f.isDirectory()) {
-				indexDir(f);
-			} else {
-				indexJar(f);
+	private static void addTypeHeader(ReusableConstantPoolScanner scanner, Map<String, TypeHeader> headers) {
+		headers.putIfAbsent(scanner.getClassname(),
+				new TypeHeader(scanner.getAccess(), scanner.getSuperclassName(), scanner.getInterfaceNames()));
+	}
+
+	/**
+	 * Locate the header of a supertype that is not on the classpath, typically a system type.
+	 */
+	private TypeHeader readSystemTypeHeader(String slashedTypeName) {
+		InputStream resourceAsStream = Thread.currentThread().getContextClassLoader()
+				.getResourceAsStream(slashedTypeName + ".class");
+		if (resourceAsStream == null) {
+			return null;
+		}
+		classesRead.incrementAndGet();
+		ClassReader reader = new ClassReader(loadFromStream(resourceAsStream));
+		return new TypeHeader(reader.getAccess(), reader.getSuperName(), reader.getInterfaces());
+	}
+
+	/**
+	 * @return the hierarchy of the types on the classpath, or null while the classpath is being indexed
+	 */
+	TypeHierarchy getHierarchy() {
+		return hierarchy;
+	}
+
+	/**
+	 * Find the types on the classpath that extend or implement the specified type, directly or indirectly, for
+	 * example all the implementations of {@code org/springframework/context/annotation/ImportSelector}.
+	 * @param slashedTypeName the class or interface
+	 * @return the slashed names of the subtypes
+	 */
+	public List<String> findSubtypes(String slashedTypeName) {
+		return hierarchy.getSubtypes(slashedTypeName);
+	}
+
+	private void recordAppPackages(File dir, Set<String> packageNames) {
+		for (String packageName : packageNames) {
+			List<File> dirs = appPackages.get(packageName);
+			if (dirs == null) {
+				dirs = new ArrayList<>();
+				appPackages.put(packageName, dirs);
+			}
+			if (!dirs.contains(dir)) {
+				dirs.add(dir);
 			}
 		}
 	}
 
-	public void indexDir(File dir) {
+	private void recordJarPackages(File jar, Set<String> packageNames) {
+		for (String packageName : packageNames) {
+			List<File> jars = packageCache.get(packageName);
+			if (jars == null) {
+				jars = new ArrayList<>(1);
+				packageCache.put(packageName, jars);
+			}
+			if (!jars.contains(jar)) {
+				jars.add(jar);
+			}
+		}
+	}
+
+	private Set<String> collectPackagesInDir(File dir) {
 		Path root = Paths.get(dir.toURI());
-		try {
-			Files.walk(root).filter(f -> f.toString().endsWith(".class")).map(f -> {
+		try (Stream<Path> paths = Files.walk(root)) {
+			return paths.filter(f -> f.toString().endsWith(".class")).map(f -> {
 				String name = f.toString().substring(root.toString().length() + 1);
 				int lastSlash = name.lastIndexOf("/");
 				if (lastSlash != -1 && name.endsWith(".class")) {
 					return name.substring(0, lastSlash);
 				}
 				return null;
-			}).forEach(n -> {
-				if (n != null) {
-					List<File> dirs = appPackages.get(n);
-					if (dirs == null) {
-						dirs = new ArrayList<>();
-						appPackages.put(n, dirs);
-					}
-					dirs.add(dir);
-				}
-			});
+			}).filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
 		} catch (IOException ioe) {
 			throw new IllegalStateException("Unable to walk " + dir, ioe);
 		}
 	}
 
-	public void indexJar(File jar) {
-		// Walk the jar, index entries and cache package > this jar
+	private Set<String> collectPackagesInJar(File jar) {
+		ArchiveCache.ArchiveSummary summary = getArchiveSummary(jar);
+		if (summary != null && summary.packages != null) {
+			return summary.packages;
+		}
+		// Walk the jar, collecting the packages it contains
+		Set<String> packageNames = new LinkedHashSet<>();
 		try {
-			try (ZipFile zf = new ZipFile(jar)) {
-				Enumeration<? extends ZipEntry> entries = zf.entries();
-				while (entries.hasMoreElements()) {
-					ZipEntry entry = entries.nextElement();
-					String name = entry.getName();
-					if (name.endsWith(".class")) {
-						int lastSlash = name.lastIndexOf("/");
-						if (lastSlash != -1 && name.endsWith(".class")) {
-							packageCache.put(name.substring(0, lastSlash), jar);
-						}
+			ZipFile zf = getArchive(jar);
+			Enumeration<? extends ZipEntry> entries = zf.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (name.endsWith(".class")) {
+					int lastSlash = name.lastIndexOf("/");
+					if (lastSlash != -1 && name.endsWith(".class")) {
+						packageNames.add(name.substring(0, lastSlash));
 					}
 				}
 			}
@@ -359,6 +724,46 @@ public class TypeSystem {
 		} catch (IOException ioe) {
 			throw new RuntimeException("Problem during scan of " + jar, ioe);
 		}
+		if (summary != null) {
+			synchronized (summary) {
+				summary.packages = packageNames;
+			}
+			archiveCache.store(jar, summary);
+		}
+		return packageNames;
+	}
+
+	private ArchiveCache.ArchiveSummary getArchiveSummary(File archive) {
+		if (archiveCache == null || !archive.isFile()) {
+			return null;
+		}
+		return archiveCache.getSummary(archive);
+	}
+
+	/**
+	 * Apply the processor to each entry on the classpath, using up to the configured number of
+	 * threads (by default {@link ConfigOptions#getParallelism()}).
+	 * 
+	 * @return the results of processing each entry, in classpath order
+	 */
+	private <T> List<T> processClasspath(Function<String, T> processor) {
+		if (parallelism <= 1 || classpath.size() < 2) {
+			return classpath.stream().map(processor).collect(Collectors.toList());
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return pool.submit(() -> classpath.parallelStream().map(processor).collect(Collectors.toList())).get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted whilst processing classpath", ie);
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ee.getCause();
+			}
+			throw new IllegalStateException("Problem processing classpath", ee.getCause());
+		} finally {
+			pool.shutdown();
+		}
 	}
 
 	public byte[] find(String slashedTypeName) {
@@ -367,36 +772,79 @@ public class TypeSystem {
 			int index = slashedTypeName.lastIndexOf("/");
 			String packageName = index == -1 ? "" : slashedTypeName.substring(0, index);
 
-			if (appPackages.containsKey(packageName)) {
-				List<File> list = appPackages.get(packageName);
-				for (File f : list) {
+			List<File> dirs = appPackages.get(packageName);
+			if (dirs != null) {
+				for (File f : dirs) {
 					File toTry = new File(f, search);
 					if (toTry.exists()) {
 						return loadFromStream(new FileInputStream(toTry));
 					}
 				}
-			} else {
-				File jarfile = packageCache.get(packageName);
-				if (jarfile != null) {
-					try (ZipFile zf = new ZipFile(jarfile)) {
-						Enumeration<? extends ZipEntry> entries = zf.entries();
-						while (entries.hasMoreElements()) {
-							ZipEntry entry = entries.nextElement();
-							String name = entry.getName();
-							if (name.equals(search)) {
-								return loadFromStream(zf.getInputStream(entry));
-							}
-						}
+			}
+			List<File> jars = packageCache.get(packageName);
+			if (jars != null) {
+				if (jars.size() == 1) {
+					return loadFromArchive(jars.get(0), search);
+				}
+				// Split package, try the archive this type was previously found in before walking them in classpath order
+				File knownLocation = splitPackageTypeLocations.get(slashedTypeName);
+				if (knownLocation != null) {
+					return loadFromArchive(knownLocation, search);
+				}
+				for (File jarfile : jars) {
+					byte[] bytes = loadFromArchive(jarfile, search);
+					if (bytes != null) {
+						splitPackageTypeLocations.put(slashedTypeName, jarfile);
+						return bytes;
 					}
 				}
 			}
-
 			return null;
 		} catch (IOException ioe) {
 			throw new RuntimeException("Problem finding " + slashedTypeName, ioe);
 		}
 	}
 
+	private byte[] loadFromArchive(File jarfile, String entryName) throws IOException {
+		ZipFile zf = getArchive(jarfile);
+		ZipEntry entry = zf.getEntry(entryName);
+		return entry == null ? null : loadFromStream(zf.getInputStream(entry));
+	}
+
+	/**
+	 * Retrieve the shared handle for an archive on the classpath, opening it on first use. The
+	 * handle stays open until {@link #close()} is called, entry lookups against it are hash
+	 * lookups into the central directory read when it was opened.
+	 */
+	private ZipFile getArchive(File jar) throws IOException {
+		synchronized (archives) {
+			ZipFile zf = archives.get(jar);
+			if (zf == null) {
+				zf = new ZipFile(jar);
+				archives.put(jar, zf);
+			}
+			return zf;
+		}
+	}
+
+	/**
+	 * Close the archives opened while indexing and resolving types. The type system remains usable, an
+	 * archive is opened again if it is needed.
+	 */
+	@Override
+	public void close() {
+		synchronized (archives) {
+			for (Map.Entry<File, ZipFile> archive : archives.entrySet()) {
+				try {
+					archive.getValue().close();
+				} catch (IOException ioe) {
+					SpringFeature.log("SBG: problem closing " + archive.getKey() + ": " + ioe.getMessage());
+				}
+			}
+			archives.clear();
+		}
+	}
+
 	public static byte[] loadFromStream(InputStream stream) {
 		try {
 			BufferedInputStream bis = new BufferedInputStream(stream);
@@ -438,29 +886,42 @@ public class TypeSystem {
 
 	public void scan() {
 		// Scan the classpath for things of interest, do this only once!
-		for (String classpathEntry : classpath) {
+		List<Map<String, AnnotationInfo>> scanned = processClasspath(classpathEntry -> {
 			File f = new File(classpathEntry);
+			Map<String, AnnotationInfo> collector = new HashMap<>();
 			if (f.isDirectory()) {
-				scanFiles(f, f);
+				scanFiles(f, f, collector);
 			} else {
-				scanArchive(f);
+				scanArchive(f, collector);
 			}
+			return collector;
+		});
+		for (Map<String, AnnotationInfo> entryResults : scanned) {
+			annotatedTypes.putAll(entryResults);
 		}
 	}
 
-	private void scanArchive(File f) {
-		try (ZipFile zf = new ZipFile(f)) {
+	private void scanArchive(File f, Map<String, AnnotationInfo> collector) {
+		ArchiveCache.ArchiveSummary summary = getArchiveSummary(f);
+		if (summary != null && summary.annotations != null) {
+			for (Map.Entry<String, List<String>> entry : summary.annotations.entrySet()) {
+				collector.put(entry.getKey(), new AnnotationInfo(this, entry.getKey(), entry.getValue()));
+			}
+			return;
+		}
+		try {
+			ZipFile zf = getArchive(f);
 			Enumeration<? extends ZipEntry> entries = zf.entries();
 			while (entries.hasMoreElements()) {
 				ZipEntry entry = entries.nextElement();
 				if (entry.getName().endsWith(".class")) {
+					classesRead.incrementAndGet();
 					ClassReader reader = new ClassReader(zf.getInputStream(entry));
 					ClassNode node = new ClassNode();
 					reader.accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
 					AnnotationInfo ai = new AnnotationInfo(this, node);
 					if (ai.hasData()) {
-						System.out.println("From " + entry.toString() + " got " + ai.toAnnotationString());
-						annotatedTypes.put(node.name, ai);
+						collector.put(node.name, ai);
 					}
 				}
 				// TODO resources?
@@ -468,24 +929,34 @@ public class TypeSystem {
 		} catch (IOException ioe) {
 			throw new IllegalStateException(ioe);
 		}
+		if (summary != null) {
+			Map<String, List<String>> annotations = new LinkedHashMap<>();
+			for (AnnotationInfo ai : collector.values()) {
+				annotations.put(ai.name, ai.getAnnotationDescriptors());
+			}
+			synchronized (summary) {
+				summary.annotations = annotations;
+			}
+			archiveCache.store(f, summary);
+		}
 	}
 
-	private void scanFiles(File file, File base) {
+	private void scanFiles(File file, File base, Map<String, AnnotationInfo> collector) {
 		if (file.isDirectory()) {
 			File[] files = file.listFiles();
 			for (File f : files) {
-				scanFiles(f, base);
+				scanFiles(f, base, collector);
 			}
 		} else if (file.getName().endsWith(".class")) {
 			try {
 				byte[] bytes = Files.readAllBytes(Paths.get(file.toURI()));
+				classesRead.incrementAndGet();
 				ClassReader reader = new ClassReader(bytes);
 				ClassNode node = new ClassNode();
 				reader.accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
 				AnnotationInfo ai = new AnnotationInfo(this, node);
 				if (ai.hasData()) {
-					System.out.println("From " + file.getName() + " got " + ai.toAnnotationString());
-					annotatedTypes.put(node.name, ai);
+					collector.put(node.name, ai);
 				}
 			} catch (IOException ioe) {
 				throw new IllegalStateException(ioe);
@@ -494,16 +965,65 @@ public class TypeSystem {
 //		else // resource?
 	}
 
+	/**
+	 * Tracks how often the hints memoized on types, and on annotation types for their meta-annotations, are reused.
+	 */
+	public static class HintCacheStatistics {
+
+		private final AtomicLong hintsComputed = new AtomicLong();
+
+		private final AtomicLong hintsReused = new AtomicLong();
+
+		private final AtomicLong metaAnnotationHintsComputed = new AtomicLong();
+
+		private final AtomicLong metaAnnotationHintsReused = new AtomicLong();
+
+		void hintsComputed() {
+			hintsComputed.incrementAndGet();
+		}
+
+		void hintsReused() {
+			hintsReused.incrementAndGet();
+		}
+
+		void metaAnnotationHintsComputed() {
+			metaAnnotationHintsComputed.incrementAndGet();
+		}
+
+		void metaAnnotationHintsReused() {
+			metaAnnotationHintsReused.incrementAndGet();
+		}
+
+		public long getHintsComputed() {
+			return hintsComputed.get();
+		}
+
+		public long getHintsReused() {
+			return hintsReused.get();
+		}
+
+		public long getMetaAnnotationHintsComputed() {
+			return metaAnnotationHintsComputed.get();
+		}
+
+		public long getMetaAnnotationHintsReused() {
+			return metaAnnotationHintsReused.get();
+		}
+
+		@Override
+		public String toString() {
+			return "HintCache(types computed=#" + hintsComputed + " reused=#" + hintsReused
+					+ ", annotation types computed=#" + metaAnnotationHintsComputed + " reused=#"
+					+ metaAnnotationHintsReused + ")";
+		}
+	}
+
 	public static class AnnotationInfo {
 
 		private String name;
 		private TypeSystem typeSystem;
 		private List<AnnotationNode> annotations;
 
-		// if this is the annotationinfo for an annotation, this will cache meta
-		// annotations
-		private List<AnnotationNode> metaAnnotationsList = null;
-
 		// need file?
 
 		public AnnotationInfo(TypeSystem typeSystem, ClassNode node) {
@@ -512,6 +1032,23 @@ public class TypeSystem {
 			annotations = node.visibleAnnotations;
 		}
 
+		/**
+		 * Recreate the info from the annotation descriptors held in the {@link ArchiveCache}. Annotation values
+		 * are not cached so are not available on the resulting annotation nodes.
+		 */
+		AnnotationInfo(TypeSystem typeSystem, String name, List<String> annotationDescriptors) {
+			this.typeSystem = typeSystem;
+			this.name = name;
+			annotations = new ArrayList<>(annotationDescriptors.size());
+			for (String annotationDescriptor : annotationDescriptors) {
+				annotations.add(new AnnotationNode(annotationDescriptor));
+			}
+		}
+
+		List<String> getAnnotationDescriptors() {
+			return annotations.stream().map(an -> an.desc).collect(Collectors.toList());
+		}
+
 		public boolean hasData() {
 			return annotations != null && annotations.size() != 0;
 		}
@@ -544,100 +1081,115 @@ public class TypeSystem {
 			}
 			return false;
 		}
+	}
 
-		// TODO filter out java/lang/annotation annotations? Surely we don't need all of
-		// them
+	private void ensureScanned() {
+		if (typesByMetaAnnotation == null) {
+			scanOnce();
+		}
+	}
 
-		List<AnnotationNode> getMetaAnnotations() {
-			if (metaAnnotationsList == null) {
-				metaAnnotationsList = new ArrayList<>();
-				collectMetaAnnotations();
-				if (metaAnnotationsList.size() == 0) {
-					metaAnnotationsList = Collections.emptyList();
-				}
+	private synchronized void scanOnce() {
+		if (typesByMetaAnnotation == null) {
+			try (FeatureReport.Phase phase = FeatureReport.begin("typesystem.scan")) {
+				annotatedTypes = new HashMap<>();
+				long t = System.currentTimeMillis();
+				scan();
+				buildAnnotationIndexes();
+				System.out.println("SBG: scan time: " + (System.currentTimeMillis() - t) + "ms (#" + annotatedTypes.size()
+						+ " annotated types, parallelism " + parallelism + ")");
 			}
-			return metaAnnotationsList;
 		}
+	}
 
-		public boolean hasDescriptorMeta(String annotationDescriptor) {
-			for (AnnotationNode an : annotations) {
-				if (an.desc.equals(annotationDescriptor)) {
-					return true;
+	/**
+	 * Invert the scan results so that annotation queries are answered by a lookup rather than a walk over
+	 * every annotated type. The meta-annotations of each annotation type are computed once and shared by
+	 * all the types using that annotation.
+	 */
+	private void buildAnnotationIndexes() {
+		Map<String, List<String>> direct = new HashMap<>();
+		Map<String, List<String>> meta = new HashMap<>();
+		Map<String, Set<String>> metaAnnotationsByType = new HashMap<>();
+		for (AnnotationInfo ai : annotatedTypes.values()) {
+			Set<String> descriptors = new LinkedHashSet<>();
+			for (AnnotationNode an : ai.annotations) {
+				if (descriptors.add(an.desc)) {
+					direct.computeIfAbsent(an.desc, k -> new ArrayList<>()).add(ai.name);
 				}
 			}
-			for (AnnotationNode an : getMetaAnnotations()) {
-				if (an.desc.equals(annotationDescriptor)) {
-					return true;
-				}
+			for (AnnotationNode an : ai.annotations) {
+				descriptors.addAll(collectMetaAnnotationDescriptors(an.desc, metaAnnotationsByType, new HashSet<>()));
 			}
-			return false;
-		}
-
-		private void collectMetaAnnotations() {
-			for (AnnotationNode an : annotations) {
-				// Go through our annotations and grab their meta annotations
-				AnnotationInfo ai = typeSystem.annotatedTypes.get(an.desc.substring(1, an.desc.length() - 1));
-				if (ai != null && ai.hasData()) {
-					metaAnnotationsList.addAll(ai.getAnnotations());
-					metaAnnotationsList.addAll(ai.getMetaAnnotations());
-					if (name.endsWith("DemoApplication")) {
-						System.out.println("111");
-						for (AnnotationNode ann : metaAnnotationsList) {
-							System.out.println(ann.desc);
-						}
-						System.out.println("222");
-					}
-				}
+			for (String descriptor : descriptors) {
+				meta.computeIfAbsent(descriptor, k -> new ArrayList<>()).add(ai.name);
 			}
 		}
-
-		private Collection<? extends AnnotationNode> getAnnotations() {
-			return annotations;
-		}
+		typesByAnnotation = direct;
+		typesByMetaAnnotation = meta;
 	}
 
-	private void ensureScanned() {
-		if (annotatedTypes == null) {
-			annotatedTypes = new HashMap<>();
-			long t = System.currentTimeMillis();
-			scan();
-			System.out.println("SBG: scan time: " + (System.currentTimeMillis() - t) + "ms");
+	/**
+	 * Compute the descriptors of all annotations on the specified annotation type, transitively. Results are
+	 * memoized per annotation type, the visiting set guards against annotations that (meta-)annotate themselves.
+	 */
+	private Set<String> collectMetaAnnotationDescriptors(String annotationDescriptor,
+			Map<String, Set<String>> metaAnnotationsByType, Set<String> visiting) {
+		String annotationType = annotationDescriptor.substring(1, annotationDescriptor.length() - 1);
+		Set<String> result = metaAnnotationsByType.get(annotationType);
+		if (result != null) {
+			return result;
+		}
+		AnnotationInfo ai = annotatedTypes.get(annotationType);
+		if (ai == null || !ai.hasData()) {
+			return Collections.emptySet();
+		}
+		if (!visiting.add(annotationType)) {
+			return Collections.emptySet();
 		}
+		result = new LinkedHashSet<>();
+		for (AnnotationNode an : ai.annotations) {
+			result.add(an.desc);
+			result.addAll(collectMetaAnnotationDescriptors(an.desc, metaAnnotationsByType, visiting));
+		}
+		visiting.remove(annotationType);
+		if (visiting.isEmpty()) {
+			// Only memoize complete results, those computed inside a cycle may be missing entries
+			metaAnnotationsByType.put(annotationType, result);
+		}
+		return result;
 	}
 
+	/**
+	 * Find the types on the classpath annotated with the specified annotation.
+	 * @param annotationDescriptor the annotation descriptor, e.g. Lorg/springframework/context/annotation/Configuration;
+	 * @param metaAnnotated whether types where the annotation is present as a meta-annotation should be included
+	 * @return the slashed names of the annotated types
+	 */
 	public List<String> findTypesAnnotated(String annotationDescriptor, boolean metaAnnotated) {
 		ensureScanned();
-		if (metaAnnotated) {
-			return annotatedTypes.values().stream().filter(ai -> ai.hasDescriptorMeta(annotationDescriptor))
-					.map(ai -> ai.name).collect(Collectors.toList());
-		} else {
-			return annotatedTypes.values().stream().filter(ai -> ai.hasDescriptor(annotationDescriptor))
-					.map(ai -> ai.name).collect(Collectors.toList());
-		}
+		List<String> result = (metaAnnotated ? typesByMetaAnnotation : typesByAnnotation).get(annotationDescriptor);
+		return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
 	}
 
 	public List<String> findTypesAnnotationAtConfiguration(boolean metaAnnotated) {
 		return findTypesAnnotated(SPRING_AT_CONFIGURATION, metaAnnotated);
 	}
 
+	/**
+	 * The result includes discovered hints from separate configuration as well as hints directly on the type.
+	 * @param typename the type name in dotted, slashed or descriptor form
+	 * @return an unmodifiable list of hints
+	 */
 	public List<CompilationHint> findHints(String typename) {
-		if (typename.contains("/")) {
-			if (typename.endsWith(";")) {
-				typename= typename.substring(1,typename.length()-1).replace("/", ".");
-			} else {
-				typename= typename.replace("/", ".");
-			}
-		}
+		return getHintLocator().findHints(typename);
+	}
+
+	private synchronized SpringConfiguration getHintLocator() {
 		if (hintLocator == null) {
 			hintLocator = new SpringConfiguration(this);
 		}
-		// The result should include hints directly on the type as well
-		// as discovered hints from separate configuration
-		List<CompilationHint> results = new ArrayList<>();
-		results.addAll(hintLocator.findProposedHints(typename));
-		List<CompilationHint> declaredHints = resolveName(typename).getCompilationHints();
-		results.addAll(declaredHints);
-		return results;
+		return hintLocator;
 	}
 	
 	static class Tuple<K,V> {
@@ -664,7 +1216,7 @@ public class TypeSystem {
 	 * 
 	 * @return map from files to @link {@link ResourcesDescriptor}
 	 */
-	public Map<String, ResourcesDescriptor> getResourceConfigurationsOnClasspath() {
+	public synchronized Map<String, ResourcesDescriptor> getResourceConfigurationsOnClasspath() {
 		if (this.resourceConfigurations == null) {
 			Map<String,ResourcesDescriptor> configs = new HashMap<>();
 			for (String s: classpath) {
@@ -693,7 +1245,7 @@ public class TypeSystem {
 	}
 	
 
-	public Map<String, ReflectionDescriptor> getReflectionConfigurationsOnClasspath() {
+	public synchronized Map<String, ReflectionDescriptor> getReflectionConfigurationsOnClasspath() {
 		if (this.reflectionConfigurations == null) {
 			Map<String,ReflectionDescriptor> configs = new HashMap<>();
 			for (String s: classpath) {
@@ -722,6 +1274,55 @@ public class TypeSystem {
 	}
 	
 
+	/**
+	 * Find the providers listed in the <tt>META-INF/services</tt> files on the classpath, the ServiceLoader
+	 * instantiates them by name.
+	 *
+	 * @return the slashed names of the providers
+	 */
+	public synchronized List<String> getServiceProvidersOnClasspath() {
+		if (this.serviceProviders == null) {
+			Map<String, List<String>> providersByFile = new HashMap<>();
+			Predicate<String> isServicesFile = filepath -> {
+				int index = filepath.indexOf("META-INF/services/");
+				return index != -1 && filepath.indexOf('/', index + "META-INF/services/".length()) == -1;
+			};
+			for (String s: classpath) {
+				File f = new File(s);
+				if (f.isDirectory()) {
+					searchDir(f, isServicesFile, TypeSystem::readServiceProviders, providersByFile);
+				} else if (f.isFile() && f.toString().endsWith(".jar")) {
+					searchJar(f, isServicesFile, TypeSystem::readServiceProviders, providersByFile);
+				}
+			}
+			Set<String> providers = new LinkedHashSet<>();
+			for (List<String> providersInFile : providersByFile.values()) {
+				if (providersInFile != null) {
+					providers.addAll(providersInFile);
+				}
+			}
+			this.serviceProviders = new ArrayList<>(providers);
+		}
+		return this.serviceProviders;
+	}
+
+	private static List<String> readServiceProviders(InputStream is) {
+		List<String> providers = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int comment = line.indexOf('#');
+				String provider = (comment == -1 ? line : line.substring(0, comment)).trim();
+				if (!provider.isEmpty()) {
+					providers.add(provider.replace('.', '/'));
+				}
+			}
+		} catch (IOException ioe) {
+			throw new IllegalStateException("Problem reading services file", ioe);
+		}
+		return providers;
+	}
+
 	/**
 	 * Recursively search a specified directory. Any files that match the specified predicate will have
 	 * their contents converted by the supplied function and the resultant information stored in the collector map.
@@ -767,14 +1368,13 @@ public class TypeSystem {
 	 */
 	private <T> void searchJar(File jar, Predicate<String> matchPredicate, Function<InputStream, T> converter, Map<String, T> collector) {
 		try {
-			try (ZipFile zf = new ZipFile(jar)) {
-				Enumeration<? extends ZipEntry> entries = zf.entries();
-				while (entries.hasMoreElements()) {
-					ZipEntry entry = entries.nextElement();
-					String name = entry.getName();
-					if (matchPredicate.test(name)) {
-						collector.put(jar.toURI().getPath().toString()+"!"+name, converter.apply(zf.getInputStream(entry)));
-					}
+			ZipFile zf = getArchive(jar);
+			Enumeration<? extends ZipEntry> entries = zf.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (matchPredicate.test(name)) {
+					collector.put(jar.toURI().getPath().toString()+"!"+name, converter.apply(zf.getInputStream(entry)));
 				}
 			}
 		} catch (FileNotFoundException fnfe) {
@@ -834,38 +1434,71 @@ public class TypeSystem {
 
 	public synchronized Map<String,List<String>> getSpringClassesMakingIsPresentChecks() {
 		if (typesMakingIsPresentChecksInStaticInitializers == null) {
-			for (String classpathentry : classpath) {
-				if (classpathentry.endsWith(".jar") && classpathentry.contains("spring") && !classpathentry.contains("test")) {
-					try {
-						try (ZipFile zf = new ZipFile(classpathentry)) {
-							Enumeration<? extends ZipEntry> entries = zf.entries();
-							while (entries.hasMoreElements()) {
-								ZipEntry entry = entries.nextElement();
-								String name = entry.getName();
-								if (name.endsWith(".class")) {
-									List<String> presenceCheckedTypes = IsPresentDetectionVisitor.run(zf.getInputStream(entry));
-									if (presenceCheckedTypes != null) {
-										if (typesMakingIsPresentChecksInStaticInitializers == null) {
-											typesMakingIsPresentChecksInStaticInitializers = new HashMap<>();
-										}
-										typesMakingIsPresentChecksInStaticInitializers.put(name.substring(0,name.length()-6).replace('/', '.'),presenceCheckedTypes);
-									}
-								}
-							}
-						}
-					} catch (FileNotFoundException fnfe) {
-						System.err.println("WARNING: Unable to find jar '" + classpathentry + "' whilst scanning filesystem for isPresent() checking Spring classes");
-					} catch (IOException ioe) {
-						throw new RuntimeException("Problem during isPresent() checking scan of " + classpathentry, ioe);
-					}
-				}
+			long t = System.currentTimeMillis();
+			List<Map<String, List<String>>> scanned = processClasspath(this::findClassesMakingIsPresentChecks);
+			Map<String, List<String>> collector = new HashMap<>();
+			for (Map<String, List<String>> entryResults : scanned) {
+				collector.putAll(entryResults);
 			}
-			if (typesMakingIsPresentChecksInStaticInitializers == null) {
+			System.out.println("SBG: isPresent() check scan time: " + (System.currentTimeMillis() - t) + "ms (#"
+					+ collector.size() + " classes making checks, parallelism " + parallelism + ")");
+			if (collector.isEmpty()) {
 				typesMakingIsPresentChecksInStaticInitializers = Collections.emptyMap();
+			} else {
+				typesMakingIsPresentChecksInStaticInitializers = collector;
 			}
 		}
 		return typesMakingIsPresentChecksInStaticInitializers;
 	}
 
+	/**
+	 * Only classes whose constant pool refers to ClassUtils.isPresent() need to be fully visited.
+	 */
+	private boolean mayMakeIsPresentChecks(ReusableConstantPoolScanner scanner, ZipFile zf, ZipEntry entry)
+			throws IOException {
+		classesRead.incrementAndGet();
+		try (InputStream is = zf.getInputStream(entry)) {
+			scanner.scan(is);
+		}
+		return scanner.containsUtf8("isPresent") && scanner.referencesClass("org/springframework/util/ClassUtils");
+	}
+
+	private Map<String, List<String>> findClassesMakingIsPresentChecks(String classpathentry) {
+		if (!(classpathentry.endsWith(".jar") && classpathentry.contains("spring") && !classpathentry.contains("test"))) {
+			return Collections.emptyMap();
+		}
+		File archive = new File(classpathentry);
+		ArchiveCache.ArchiveSummary summary = getArchiveSummary(archive);
+		if (summary != null && summary.isPresentChecks != null) {
+			return summary.isPresentChecks;
+		}
+		Map<String, List<String>> collector = new HashMap<>();
+		try {
+			ZipFile zf = getArchive(archive);
+			ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+			Enumeration<? extends ZipEntry> entries = zf.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (name.endsWith(".class") && mayMakeIsPresentChecks(scanner, zf, entry)) {
+					List<String> presenceCheckedTypes = IsPresentDetectionVisitor.run(zf.getInputStream(entry));
+					if (presenceCheckedTypes != null) {
+						collector.put(name.substring(0,name.length()-6).replace('/', '.'),presenceCheckedTypes);
+					}
+				}
+			}
+		} catch (FileNotFoundException fnfe) {
+			System.err.println("WARNING: Unable to find jar '" + classpathentry + "' whilst scanning filesystem for isPresent() checking Spring classes");
+		} catch (IOException ioe) {
+			throw new RuntimeException("Problem during isPresent() checking scan of " + classpathentry, ioe);
+		}
+		if (summary != null) {
+			synchronized (summary) {
+				summary.isPresentChecks = collector;
+			}
+			archiveCache.store(archive, summary);
+		}
+		return collector;
+	}
 
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.domain.bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+import org.springframework.graalvm.domain.reflect.ClassDescriptor;
+import org.springframework.graalvm.domain.reflect.JsonMarshaller;
+import org.springframework.graalvm.domain.reflect.ReflectionDescriptor;
+import org.springframework.graalvm.extension.NativeImageConfiguration;
+import org.springframework.graalvm.extension.NativeImageHint;
+import org.springframework.graalvm.extension.ProxyInfo;
+import org.springframework.graalvm.extension.ResourcesInfo;
+import org.springframework.graalvm.extension.TypeInfo;
+import org.springframework.graalvm.support.Mode;
+import org.springframework.graalvm.type.AccessBits;
+import org.springframework.graalvm.type.CompilationHint;
+import org.springframework.graalvm.type.TypeSystem;
+
+public class HintBundleTests {
+
+	@Test
+	public void roundTrip() throws Exception {
+		File classes = Files.createTempDirectory("hintbundle").toFile();
+		write(classes, HintBundle.SERVICES, "# providers\n" + HintedProvider.class.getName() + "\n"
+				+ ComputingProvider.class.getName() + "\n" + HintedProvider.class.getName() + "\n");
+		copyClass(classes, HintedProvider.class);
+		copyClass(classes, ComputingProvider.class);
+		write(classes, "reflect.json", "[{\"name\":\"a.One\",\"allDeclaredConstructors\":true,"
+				+ "\"fields\":[{\"name\":\"f\",\"allowWrite\":true}],"
+				+ "\"methods\":[{\"name\":\"m\",\"parameterTypes\":[\"java.lang.String\"]},{\"name\":\"n\"}]}]");
+		write(classes, "initialization.json", "{\"buildTimeInitialization\":[{\"class\":\"a.One\"},{\"package\":\"b\"}],"
+				+ "\"runtimeInitialization\":[{\"class\":\"c.Two\"}]}");
+
+		HintBundle bundle = HintBundleGenerator.generate(classes);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		HintBundleMarshaller.write(bundle, baos);
+		HintBundle read = HintBundleMarshaller.read(ByteBuffer.wrap(baos.toByteArray()));
+
+		// Duplicates dropped, order kept
+		assertEquals(2, read.getProviders().size());
+		HintBundle.Provider hinted = read.getProviders().iterator().next();
+		assertEquals(HintedProvider.class.getName(), hinted.getName());
+		assertFalse(hinted.computesHints());
+		assertTrue(read.getProvider(ComputingProvider.class.getName()).computesHints());
+		assertTrue(read.getProvider(ComputingProvider.class.getName()).getHints().isEmpty());
+
+		// The hint built from the bundle is the one built from the annotation
+		TypeSystem typeSystem = new TypeSystem(Collections.singletonList(new File("./target/test-classes").toString()));
+		List<CompilationHint> expected = typeSystem.resolveName(HintedProvider.class.getName()).getCompilationHints();
+		assertEquals(1, hinted.getHints().size());
+		CompilationHint actual = hinted.getHints().get(0).toCompilationHint(typeSystem);
+		assertEquals(expected.get(0).getTargetType(), actual.getTargetType());
+		assertEquals(expected.get(0).getDependantTypes(), actual.getDependantTypes());
+		assertEquals(expected.get(0).getProxyDescriptors().toString(), actual.getProxyDescriptors().toString());
+		assertEquals(expected.get(0).getResourcesDescriptors().toString(), actual.getResourcesDescriptors().toString());
+		assertEquals(Collections.singletonList(Mode.AGENT), actual.getModes());
+		assertTrue(actual.isAbortIfTypesMissing());
+		// Named but missing types are dropped, as are proxies for missing interfaces
+		assertFalse(actual.getDependantTypes().containsKey("com.example.Missing"));
+		assertEquals(1, actual.getProxyDescriptors().size());
+
+		List<ClassDescriptor> classDescriptors = read.getReflectionDescriptor().getClassDescriptors();
+		assertEquals(bundle.getReflectionDescriptor().getClassDescriptors(), classDescriptors);
+		assertNull(classDescriptors.get(0).getMethods().get(1).getParameterTypes());
+		assertEquals(toJson(bundle.getReflectionDescriptor()), toJson(read.getReflectionDescriptor()));
+		assertEquals(Collections.singletonList("b"), read.getInitializationDescriptor().getBuildtimePackages());
+		assertEquals(Collections.singletonList("c.Two"), read.getInitializationDescriptor().getRuntimeClasses());
+		assertNull(read.getProxiesDescriptor());
+		assertNull(read.getResourcesDescriptor());
+	}
+
+	@Test
+	public void otherVersionsRejected() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		HintBundleMarshaller.write(new HintBundle(), baos);
+		byte[] bytes = baos.toByteArray();
+		assertEquals(0, HintBundleMarshaller.read(ByteBuffer.wrap(bytes)).getProviders().size());
+		bytes[7]++;
+		try {
+			HintBundleMarshaller.read(ByteBuffer.wrap(bytes));
+			fail();
+		} catch (IllegalStateException ise) {
+			assertTrue(ise.getMessage().contains("version " + HintBundleMarshaller.VERSION));
+		}
+	}
+
+	private static String toJson(ReflectionDescriptor rd) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		JsonMarshaller.write(rd, baos);
+		return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void write(File directory, String path, String content) throws Exception {
+		File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void copyClass(File directory, Class<?> clazz) throws Exception {
+		String path = clazz.getName().replace('.', '/') + ".class";
+		File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		try (InputStream is = clazz.getClassLoader().getResourceAsStream(path)) {
+			Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	@NativeImageHint(trigger = Integer.class, modes = Mode.AGENT, abortIfTypesMissing = true, typeInfos = {
+			@TypeInfo(types = { String.class, String[].class }, typeNames = { "java.lang.Float", "com.example.Missing" }),
+			@TypeInfo(types = Long.class, access = AccessBits.CLASS) }, proxyInfos = {
+			@ProxyInfo(types = { Serializable.class, Callable.class }),
+			@ProxyInfo(typeNames = { "java.io.Serializable", "com.example.Missing" }) }, resourcesInfos = {
+			@ResourcesInfo(patterns = "messages", isBundle = true) })
+	public static class HintedProvider implements NativeImageConfiguration {
+	}
+
+	public static class ComputingProvider implements NativeImageConfiguration {
+		@Override
+		public List<CompilationHint> computeHints(TypeSystem typeSystem) {
+			return Collections.emptyList();
+		}
+	}
+
+}
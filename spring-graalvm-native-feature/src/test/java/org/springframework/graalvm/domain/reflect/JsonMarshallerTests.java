@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.domain.reflect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class JsonMarshallerTests {
+
+	@Test
+	public void streamingWriteMatchesDocumentWrite() throws Exception {
+		ReflectionDescriptor rd = new ReflectionDescriptor();
+		ClassDescriptor one = ClassDescriptor.of("a.One");
+		one.setFlag(Flag.allDeclaredConstructors);
+		one.addMethodDescriptor(MethodDescriptor.of("foo", "java.lang.String"));
+		one.addFieldDescriptor(new FieldDescriptor("bar", true, false));
+		rd.add(one);
+		rd.add(ClassDescriptor.of("a.Two"));
+		ByteArrayOutputStream document = new ByteArrayOutputStream();
+		JsonMarshaller.write(rd, document);
+		ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+		JsonMarshaller.write(rd.getClassDescriptors(), streamed);
+		assertEquals(new String(document.toByteArray(), StandardCharsets.UTF_8),
+				new String(streamed.toByteArray(), StandardCharsets.UTF_8));
+		// Laid out as the JSON objects would be
+		assertEquals(new JsonConverter().toJsonArray(rd).toString(2),
+				new String(streamed.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(2, JsonMarshaller.read(streamed.toByteArray()).getClassDescriptors().size());
+
+		document.reset();
+		streamed.reset();
+		JsonMarshaller.write(new ReflectionDescriptor(), document);
+		JsonMarshaller.write(Collections.emptyList(), streamed);
+		assertEquals(new String(document.toByteArray(), StandardCharsets.UTF_8),
+				new String(streamed.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void read() throws Exception {
+		String json = "[\n" +
+				"  {\"name\": \"a.One\", \"allDeclaredMethods\": true, \"allPublicFields\": \"true\",\n" +
+				"   \"queryAllPublicMethods\": true, \"condition\": {\"typeReachable\": [\"a.Two\"]},\n" +
+				"   \"fields\": [{\"name\": \"f\", \"allowWrite\": \"true\"}],\n" +
+				"   \"methods\": [{\"name\": \"<init>\", \"parameterTypes\": [\"java.lang.String\", \"int[]\"]},\n" +
+				"                {\"name\": \"m\"}]},\n" +
+				"  {\"allDeclaredConstructors\": false, \"name\": \"a.Two\\u0024Inner\"},\n" +
+				"  {\"name\": \"a.One\", \"allDeclaredConstructors\": true}\n" +
+				"]";
+		ReflectionDescriptor rd = JsonMarshaller.read(json);
+		assertEquals(2, rd.getClassDescriptors().size());
+		ClassDescriptor one = rd.getClassDescriptor("a.One");
+		assertTrue(one.getFlags().contains(Flag.allDeclaredMethods));
+		assertTrue(one.getFlags().contains(Flag.allPublicFields));
+		// Merged from the duplicate entry
+		assertTrue(one.getFlags().contains(Flag.allDeclaredConstructors));
+		assertTrue(one.getFields().get(0).isAllowWrite());
+		assertTrue(one.contains(MethodDescriptor.of("<init>", "java.lang.String", "int[]")));
+		assertEquals(null, one.getMethods().get(1).getParameterTypes());
+		assertTrue(rd.hasClassDescriptor("a.Two$Inner"));
+		assertNull(rd.getClassDescriptor("a.Two$Inner").getFlags());
+
+		try {
+			JsonMarshaller.read("[{\"name\": \"a.One\"}");
+			fail();
+		} catch (IllegalStateException ise) {
+			assertTrue(ise.getCause().getMessage().contains("line 1"));
+		}
+	}
+
+	@Test
+	public void lookups() {
+		ReflectionDescriptor rd = new ReflectionDescriptor();
+		ClassDescriptor one = ClassDescriptor.of("a.One");
+		rd.add(one);
+		rd.add(ClassDescriptor.of("a.One"));
+		assertTrue(rd.hasClassDescriptor("a.One"));
+		assertFalse(rd.hasClassDescriptor("a.Two"));
+		assertSame(one, rd.getClassDescriptor("a.One"));
+		assertSame(one, new ReflectionDescriptor(rd).getClassDescriptor("a.One"));
+
+		one.addMethodDescriptor(MethodDescriptor.of("foo", "java.lang.String"));
+		assertTrue(one.contains(MethodDescriptor.of("foo", "java.lang.String")));
+		assertFalse(one.contains(MethodDescriptor.of("foo")));
+	}
+
+}
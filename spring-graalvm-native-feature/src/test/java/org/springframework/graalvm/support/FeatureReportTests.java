@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.graalvm.json.JSONArray;
+import org.springframework.graalvm.json.JSONObject;
+
+public class FeatureReportTests {
+
+	@BeforeClass
+	public static void start() {
+		FeatureReport.start();
+	}
+
+	@Test
+	public void nestedPhases() throws Exception {
+		AtomicLong counter = new AtomicLong();
+		FeatureReport.addCounter("nestedPhases.counter", counter::get);
+		try (FeatureReport.Phase outer = FeatureReport.begin("nestedPhases.outer")) {
+			counter.addAndGet(2);
+			try (FeatureReport.Phase inner = FeatureReport.begin("nestedPhases.inner")) {
+				counter.addAndGet(3);
+			}
+			counter.addAndGet(5);
+		}
+		try (FeatureReport.Phase next = FeatureReport.begin("nestedPhases.next")) {
+			counter.addAndGet(7);
+		}
+		FeatureReport.Phase inner = getPhase("nestedPhases.inner");
+		assertEquals("nestedPhases.outer", inner.getParent());
+		assertEquals(3L, (long) inner.getCounters().get("nestedPhases.counter"));
+		FeatureReport.Phase outer = getPhase("nestedPhases.outer");
+		assertNull(outer.getParent());
+		// The counters of a phase include those of the phases it contains
+		assertEquals(10L, (long) outer.getCounters().get("nestedPhases.counter"));
+		assertTrue(outer.getTime() >= inner.getTime());
+		// Once a phase is closed it is no longer the parent of new phases
+		FeatureReport.Phase next = getPhase("nestedPhases.next");
+		assertNull(next.getParent());
+		assertEquals(7L, (long) next.getCounters().get("nestedPhases.counter"));
+		assertTrue(FeatureReport.get().getPhases().indexOf(inner) < FeatureReport.get().getPhases().indexOf(outer));
+	}
+
+	@Test
+	public void counterSources() throws Exception {
+		AtomicLong first = new AtomicLong();
+		AtomicLong second = new AtomicLong();
+		FeatureReport.addCounter("counterSources.counter", first::get);
+		try (FeatureReport.Phase phase = FeatureReport.begin("counterSources.phase")) {
+			first.addAndGet(1);
+			// Registered during the phase, starts from zero
+			FeatureReport.addCounter("counterSources.counter", second::get);
+			FeatureReport.addCounter("counterSources.late", second::get);
+			second.addAndGet(10);
+		}
+		FeatureReport.Phase phase = getPhase("counterSources.phase");
+		assertEquals(11L, (long) phase.getCounters().get("counterSources.counter"));
+		assertEquals(10L, (long) phase.getCounters().get("counterSources.late"));
+	}
+
+	@Test
+	public void phasesOnOtherThreads() throws Exception {
+		AtomicReference<FeatureReport.Phase> started = new AtomicReference<>();
+		try (FeatureReport.Phase outer = FeatureReport.begin("phasesOnOtherThreads.outer")) {
+			Thread thread = new Thread(() -> {
+				try (FeatureReport.Phase phase = FeatureReport.begin("phasesOnOtherThreads.worker")) {
+					started.set(phase);
+				}
+			});
+			thread.start();
+			thread.join();
+		}
+		// Each thread has its own stack of active phases
+		assertNull(started.get().getParent());
+		assertNull(getPhase("phasesOnOtherThreads.worker").getParent());
+	}
+
+	@Test
+	public void json() throws Exception {
+		AtomicLong counter = new AtomicLong();
+		FeatureReport.addCounter("json.counter", counter::get);
+		try (FeatureReport.Phase outer = FeatureReport.begin("json.outer")) {
+			try (FeatureReport.Phase inner = FeatureReport.begin("json.inner")) {
+				counter.addAndGet(4);
+			}
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		FeatureReport.get().write(baos);
+		JSONObject report = new JSONObject(new String(baos.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(ConfigOptions.getMode().name().toLowerCase(), report.getString("mode"));
+		assertEquals(ConfigOptions.getParallelism(), report.getInt("parallelism"));
+		assertTrue(report.getLong("time") >= 0);
+		assertEquals(4L, report.getJSONObject("counters").getLong("json.counter"));
+		JSONArray phases = report.getJSONArray("phases");
+		JSONObject inner = null;
+		JSONObject outer = null;
+		for (int i = 0; i < phases.length(); i++) {
+			JSONObject phase = phases.getJSONObject(i);
+			if (phase.getString("name").equals("json.inner")) {
+				inner = phase;
+			} else if (phase.getString("name").equals("json.outer")) {
+				outer = phase;
+			}
+		}
+		assertNotNull(inner);
+		assertNotNull(outer);
+		assertEquals("json.outer", inner.getString("parent"));
+		assertFalse(outer.has("parent"));
+		assertTrue(inner.getLong("time") >= 0);
+		assertEquals(4L, inner.getJSONObject("counters").getLong("json.counter"));
+		assertEquals(4L, outer.getJSONObject("counters").getLong("json.counter"));
+	}
+
+	private static FeatureReport.Phase getPhase(String name) {
+		for (FeatureReport.Phase phase : FeatureReport.get().getPhases()) {
+			if (phase.getName().equals(name)) {
+				return phase;
+			}
+		}
+		throw new IllegalStateException("No phase " + name);
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class GeneratedSpringFactoriesTests {
+
+	@Test
+	public void mergedInClasspathOrder() {
+		GeneratedSpringFactories.add(properties("merge.First", "merge.A,merge.B", "merge.Second", "merge.C"));
+		GeneratedSpringFactories.add(properties("merge.First", "merge.D,merge.A", "merge.Third", "merge.E"));
+		assertEquals(Arrays.asList("merge.A", "merge.B", "merge.D"), factoryNames("merge.First"));
+		assertEquals(Arrays.asList("merge.C"), factoryNames("merge.Second"));
+		assertEquals(Arrays.asList("merge.E"), factoryNames("merge.Third"));
+	}
+
+	@Test
+	public void duplicatesAreDropped() {
+		GeneratedSpringFactories.add(properties("duplicates.Type", "duplicates.A,duplicates.B,duplicates.A"));
+		GeneratedSpringFactories.add(properties("duplicates.Type", "duplicates.B"));
+		assertEquals(Arrays.asList("duplicates.A", "duplicates.B"), factoryNames("duplicates.Type"));
+	}
+
+	@Test
+	public void namesAreTrimmed() {
+		GeneratedSpringFactories.add(properties(" trimmed.Type ", " trimmed.A ,\ttrimmed.B , trimmed.A"));
+		assertEquals(Arrays.asList("trimmed.A", "trimmed.B"), factoryNames("trimmed.Type"));
+	}
+
+	@Test
+	public void emptyValues() {
+		GeneratedSpringFactories.add(properties("empty.Type", ""));
+		assertFalse(GeneratedSpringFactories.getFactoryNames().containsKey("empty.Type"));
+		GeneratedSpringFactories.add(properties("empty.Other", "empty.A"));
+		// Does not remove the names already added
+		GeneratedSpringFactories.add(properties("empty.Other", ""));
+		assertEquals(Arrays.asList("empty.A"), factoryNames("empty.Other"));
+	}
+
+	@Test
+	public void namesCannotBeModified() {
+		GeneratedSpringFactories.add(properties("unmodifiable.Type", "unmodifiable.A"));
+		try {
+			factoryNames("unmodifiable.Type").add("unmodifiable.B");
+			fail("Expected an UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			assertEquals(Collections.singletonList("unmodifiable.A"), factoryNames("unmodifiable.Type"));
+		}
+	}
+
+	@Test
+	public void instantiator() {
+		assertTrue(GeneratedSpringFactories.addInstantiator(PublicFactory.class));
+		Object factory = GeneratedSpringFactories.instantiate(PublicFactory.class.getName());
+		assertEquals(PublicFactory.class, factory.getClass());
+		// A new instance each time
+		assertNotSame(factory, GeneratedSpringFactories.instantiate(PublicFactory.class.getName()));
+	}
+
+	@Test
+	public void noInstantiator() throws Exception {
+		assertFalse(GeneratedSpringFactories.addInstantiator(PrivateConstructorFactory.class));
+		assertFalse(GeneratedSpringFactories.addInstantiator(NoDefaultConstructorFactory.class));
+		// Not public and in another package
+		assertFalse(GeneratedSpringFactories.addInstantiator(Class.forName("java.util.Collections$EmptyList")));
+		assertNull(GeneratedSpringFactories.instantiate(PrivateConstructorFactory.class.getName()));
+		assertNull(GeneratedSpringFactories.instantiate(NoDefaultConstructorFactory.class.getName()));
+		assertNull(GeneratedSpringFactories.instantiate("java.util.Collections$EmptyList"));
+		assertNull(GeneratedSpringFactories.instantiate("unknown.Factory"));
+	}
+
+	private static Properties properties(String... keysAndValues) {
+		Properties properties = new Properties();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return properties;
+	}
+
+	private static List<String> factoryNames(String factoryTypeName) {
+		return GeneratedSpringFactories.getFactoryNames().get(factoryTypeName);
+	}
+
+	public static class PublicFactory {
+
+	}
+
+	public static class PrivateConstructorFactory {
+
+		private PrivateConstructorFactory() {
+		}
+
+	}
+
+	public static class NoDefaultConstructorFactory {
+
+		public NoDefaultConstructorFactory(String name) {
+		}
+
+	}
+
+}
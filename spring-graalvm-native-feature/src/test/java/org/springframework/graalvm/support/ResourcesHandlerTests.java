@@ -0,0 +1,568 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.springframework.graalvm.domain.reflect.Flag;
+import org.springframework.graalvm.domain.reflect.ReflectionDescriptor;
+import org.springframework.graalvm.type.AccessBits;
+import org.springframework.graalvm.type.ProxyDescriptor;
+import org.springframework.graalvm.type.ReferenceGraph;
+import org.springframework.graalvm.type.Type;
+import org.springframework.graalvm.type.TypeSystem;
+
+import com.oracle.svm.core.configure.ResourcesRegistry;
+
+public class ResourcesHandlerTests {
+
+	private static final String ON_CLASS = "org/springframework/boot/autoconfigure/condition/ConditionalOnClass";
+
+	private static final String ON_MISSING_CLASS = "org/springframework/boot/autoconfigure/condition/ConditionalOnMissingClass";
+
+	private static final String BEAN = "org/springframework/context/annotation/Bean";
+
+	private static final String CONFIGURATION = "org/springframework/context/annotation/Configuration";
+
+	private static final String NATIVE_IMAGE_HINT = "org/springframework/graalvm/extension/NativeImageHint";
+
+	private static final String TYPE_INFO = "org/springframework/graalvm/extension/TypeInfo";
+
+	private static final String PROXY_INFO = "org/springframework/graalvm/extension/ProxyInfo";
+
+	private static final String RESOURCES_INFO = "org/springframework/graalvm/extension/ResourcesInfo";
+
+	private static final String INDEXED = "org/springframework/stereotype/Indexed";
+
+	private static final String COMPONENT = "org/springframework/stereotype/Component";
+
+	// Class files, nested types and other files as found in a directory or jar
+	private static final List<String> CLASSNAMES_FIXTURE = Arrays.asList("app/One.class", "app/One$Inner.class",
+			"app/One$Inner$Deeper.class", "app/Top$Level.class", "app/application.properties", "app/sub/Two.class",
+			"module-info.class", "META-INF/versions/9/app/One.class", "META-INF/spring.factories");
+
+	@Test
+	public void pruneSpringFactoriesKeys() throws Exception {
+		File jar = File.createTempFile("prune", ".jar");
+		jar.deleteOnExit();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			addClass(jos, "app/App", "app/KeyB");
+			addClass(jos, "app/KeyB");
+			addClass(jos, "app/ValueB", "app/KeyA");
+			addClass(jos, "app/KeyA");
+			addClass(jos, "app/ValueA");
+			addClass(jos, "app/KeyC");
+			addClass(jos, "app/ValueC");
+			addClass(jos, "app/Service");
+			addClass(jos, "app/ServiceImpl", "app/KeyD");
+			addClass(jos, "app/KeyD");
+			addClass(jos, "app/ValueD");
+			addClass(jos, "app/Listener", "app/KeyE");
+			addClass(jos, "app/KeyE");
+			addClass(jos, "app/ValueE");
+			jos.putNextEntry(new JarEntry("META-INF/services/app.Service"));
+			jos.write("# The implementation\napp.ServiceImpl\n".getBytes(StandardCharsets.UTF_8));
+			jos.closeEntry();
+		}
+		TypeSystem typeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		assertEquals(Collections.singletonList("app/ServiceImpl"), typeSystem.getServiceProvidersOnClasspath());
+
+		ReferenceGraph graph = new ReferenceGraph(typeSystem);
+		graph.addRoots(Collections.singletonList("app/App"));
+		graph.addRoots(typeSystem.getServiceProvidersOnClasspath());
+		Properties first = new Properties();
+		// Reachable from the application
+		first.setProperty("app.KeyB", "app.ValueB");
+		// Never reachable
+		first.setProperty("app.KeyC", "app.ValueC");
+		Properties second = new Properties();
+		// Only reachable from the value of app.KeyB
+		second.setProperty("app.KeyA", "app.ValueA");
+		// Reachable from the service provider
+		second.setProperty("app.KeyD", "app.ValueD");
+		// Always kept, reaches app.KeyE
+		second.setProperty("org.springframework.context.ApplicationListener", "app.Listener");
+		second.setProperty("app.KeyE", "app.ValueE");
+		// Only values of surviving configurations are roots, added before the keys are checked
+		second.setProperty("org.springframework.boot.autoconfigure.EnableAutoConfiguration", "app.ValueC");
+
+		Set<String> unreachableKeys = ResourcesHandler.addSpringFactoriesRoots(graph, Arrays.asList(first, second));
+		assertEquals(Collections.singleton("app.KeyC"), unreachableKeys);
+		for (String value : Arrays.asList("app/ValueA", "app/ValueB", "app/ValueD", "app/ValueE", "app/Listener")) {
+			assertTrue(value, graph.isReachable(value));
+		}
+		assertFalse(graph.isReachable("app/ValueC"));
+		typeSystem.close();
+	}
+
+	@Test
+	public void recordConditionOutcomes() throws Exception {
+		File jar = File.createTempFile("conditions", ".jar");
+		jar.deleteOnExit();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			addAnnotationType(jos, ON_CLASS, cw -> {});
+			addAnnotationType(jos, ON_MISSING_CLASS, cw -> {});
+			addAnnotationType(jos, BEAN, cw -> {});
+			addAnnotationType(jos, "outcomes/ConditionalOnPresent", cw -> annotate(cw, ON_CLASS, "name",
+					"outcomes.Present"));
+			addClass(jos, "outcomes/Present");
+			// Present, but its superclass is not, so it cannot be loaded
+			addClass(jos, "outcomes/Incomplete", "outcomes/NotOnClasspath", cw -> {});
+			addClass(jos, "outcomes/Matching", "java/lang/Object", cw -> {
+				annotate(cw, ON_CLASS, "name", "outcomes.Present");
+				annotate(cw, ON_MISSING_CLASS, "value", "outcomes.Absent");
+				annotate(addBeanMethod(cw, "present", "()Ljava/lang/Object;"), ON_CLASS, "value",
+						org.objectweb.asm.Type.getObjectType("outcomes/Present"));
+				annotate(addBeanMethod(cw, "absent", "()Ljava/lang/Object;"), ON_CLASS, "name", "outcomes.Absent",
+						"outcomes.Incomplete");
+				annotate(addBeanMethod(cw, "unwanted", "()Ljava/lang/Object;"), ON_MISSING_CLASS, "value",
+						"outcomes.Present");
+				// Overloads with the same outcome share it, those with another outcome are left undecided
+				annotate(addBeanMethod(cw, "same", "()Ljava/lang/Object;"), ON_CLASS, "name", "outcomes.Present");
+				annotate(addBeanMethod(cw, "same", "(I)Ljava/lang/Object;"), ON_CLASS, "name", "outcomes.Present");
+				annotate(addBeanMethod(cw, "different", "()Ljava/lang/Object;"), ON_CLASS, "name",
+						"outcomes.Present");
+				annotate(addBeanMethod(cw, "different", "(I)Ljava/lang/Object;"), ON_CLASS, "name",
+						"outcomes.Absent");
+				annotate(addBeanMethod(cw, "composed", "()Ljava/lang/Object;"), "outcomes/ConditionalOnPresent");
+				addBeanMethod(cw, "unconditional", "()Ljava/lang/Object;");
+				cw.visitInnerClass("outcomes/Matching$Nested", "outcomes/Matching", "Nested",
+						Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+			});
+			addClass(jos, "outcomes/Matching$Nested", "java/lang/Object", cw -> {
+				annotate(cw, ON_CLASS, "name", "outcomes.Incomplete");
+				cw.visitInnerClass("outcomes/Matching$Nested", "outcomes/Matching", "Nested",
+						Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+			});
+			addClass(jos, "outcomes/NotMatching", "java/lang/Object",
+					cw -> annotate(cw, ON_MISSING_CLASS, "value", "outcomes.Present", "outcomes.Absent"));
+			addClass(jos, "outcomes/Composed", "java/lang/Object",
+					cw -> annotate(cw, "outcomes/ConditionalOnPresent"));
+		}
+		TypeSystem typeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		ResourcesHandler.recordConditionOutcomes(typeSystem,
+				Arrays.asList("outcomes.Matching", "outcomes.NotMatching", "outcomes.Composed", "outcomes.NotAConfiguration"));
+
+		assertOutcome(true, "@ConditionalOnClass found required class 'outcomes.Present'; "
+				+ "@ConditionalOnMissingClass did not find unwanted class 'outcomes.Absent'", "outcomes.Matching");
+		assertOutcome(true, "@ConditionalOnClass found required class 'outcomes.Present'", "outcomes.Matching#present");
+		assertOutcome(false, "@ConditionalOnClass did not find required classes 'outcomes.Absent', 'outcomes.Incomplete'",
+				"outcomes.Matching#absent");
+		assertOutcome(false, "@ConditionalOnMissingClass found unwanted class 'outcomes.Present'",
+				"outcomes.Matching#unwanted");
+		assertOutcome(true, "@ConditionalOnClass found required class 'outcomes.Present'", "outcomes.Matching#same");
+		assertNull(ConditionOutcomes.get("outcomes.Matching#different"));
+		assertNull(ConditionOutcomes.get("outcomes.Matching#composed"));
+		assertNull(ConditionOutcomes.get("outcomes.Matching#unconditional"));
+		assertOutcome(false, "@ConditionalOnClass did not find required class 'outcomes.Incomplete'",
+				"outcomes.Matching$Nested");
+		assertOutcome(false, "@ConditionalOnMissingClass found unwanted class 'outcomes.Present'", "outcomes.NotMatching");
+		assertNull(ConditionOutcomes.get("outcomes.Composed"));
+
+		// Recording them again does not change them
+		ResourcesHandler.recordConditionOutcomes(typeSystem, Arrays.asList("outcomes.Matching"));
+		assertOutcome(true, "@ConditionalOnClass found required class 'outcomes.Present'", "outcomes.Matching#same");
+		assertNull(ConditionOutcomes.get("outcomes.Matching#different"));
+		typeSystem.close();
+	}
+
+	@Test
+	public void findClassnamesInDirectory() throws Exception {
+		File dir = Files.createTempDirectory("classnames").toFile();
+		dir.deleteOnExit();
+		for (String path : CLASSNAMES_FIXTURE) {
+			write(dir, path, new byte[0]);
+		}
+		List<String> classnames = ResourcesHandler.findClassnames(dir.toPath()).sorted().collect(Collectors.toList());
+		assertEquals(Arrays.asList("app/One", "app/One$Inner", "app/One$Inner$Deeper", "app/Top$Level", "app/sub/Two"),
+				classnames);
+	}
+
+	@Test
+	public void findClassnamesInJar() throws Exception {
+		File jar = File.createTempFile("classnames", ".jar");
+		jar.deleteOnExit();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			for (String path : CLASSNAMES_FIXTURE) {
+				jos.putNextEntry(new JarEntry(path));
+				jos.closeEntry();
+			}
+		}
+		// In the order of the entries
+		List<String> classnames = ResourcesHandler.findClassnames(jar.toPath()).collect(Collectors.toList());
+		assertEquals(Arrays.asList("app/One", "app/One$Inner", "app/One$Inner$Deeper", "app/Top$Level", "app/sub/Two"),
+				classnames);
+	}
+
+	@Test
+	public void scanForSpringComponents() throws Exception {
+		File library = File.createTempFile("stereotypes", ".jar");
+		library.deleteOnExit();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(library))) {
+			addAnnotationType(jos, INDEXED, cw -> {});
+			addAnnotationType(jos, COMPONENT, cw -> annotate(cw, INDEXED));
+		}
+		File classes = Files.createTempDirectory("components").toFile();
+		classes.deleteOnExit();
+		writeClass(classes, "app/Outer", cw -> annotate(cw, COMPONENT));
+		writeClass(classes, "app/Outer$Inner", cw -> annotate(cw, COMPONENT));
+		writeClass(classes, "app/Outer$Plain", cw -> {});
+		writeClass(classes, "app/Outer$Plain$Deepest", cw -> annotate(cw, COMPONENT));
+		// A top-level class with a dollar in its name
+		writeClass(classes, "app/Top$Level", cw -> annotate(cw, COMPONENT));
+		writeClass(classes, "app/Top$Level$Inner", cw -> annotate(cw, COMPONENT));
+		writeClass(classes, "app/Top", cw -> {});
+		writeClass(classes, "app/Top$Other", cw -> annotate(cw, COMPONENT));
+		for (int i = 0; i < 20; i++) {
+			writeClass(classes, "app/sub/Service" + i, i % 2 == 0 ? cw -> annotate(cw, COMPONENT) : cw -> {});
+		}
+		write(classes, "META-INF/spring.factories", new byte[0]);
+
+		List<String> sequential;
+		List<String> filtered;
+		try (TypeSystem typeSystem = new TypeSystem(Arrays.asList(classes.toString(), library.toString()))) {
+			List<Entry<Type, List<Type>>> components = new ResourcesHandler(null, null, typeSystem, null, 1)
+					.scanForSpringComponents();
+			sequential = describe(components);
+			filtered = describe(ResourcesHandler.filterOutNestedTypes(components));
+		}
+		List<String> expected = new ArrayList<>(Arrays.asList("app.Outer", "app.Outer$Inner", "app.Outer$Plain$Deepest",
+				"app.Top$Level", "app.Top$Level$Inner", "app.Top$Other"));
+		for (int i = 0; i < 20; i += 2) {
+			expected.add("app.sub.Service" + i);
+		}
+		assertEquals(expected.stream().map(name -> name + "=" + COMPONENT.replace('/', '.')).sorted()
+				.collect(Collectors.toList()), sequential.stream().sorted().collect(Collectors.toList()));
+		expected.removeAll(Arrays.asList("app.Outer$Inner", "app.Outer$Plain$Deepest", "app.Top$Level$Inner"));
+		assertEquals(expected.stream().map(name -> name + "=" + COMPONENT.replace('/', '.')).sorted()
+				.collect(Collectors.toList()), filtered.stream().sorted().collect(Collectors.toList()));
+
+		// The components are in the same order when the classes are checked concurrently
+		try (TypeSystem typeSystem = new TypeSystem(Arrays.asList(classes.toString(), library.toString()))) {
+			List<Entry<Type, List<Type>>> components = new ResourcesHandler(null, null, typeSystem, null, 4)
+					.scanForSpringComponents();
+			assertEquals(sequential, describe(components));
+			assertEquals(filtered, describe(ResourcesHandler.filterOutNestedTypes(components)));
+		}
+	}
+
+	@Test
+	public void processSpringFactoryConcurrently() throws Exception {
+		File jar = File.createTempFile("factories", ".jar");
+		jar.deleteOnExit();
+		List<String> configurations = new ArrayList<>();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			addAnnotationType(jos, CONFIGURATION, cw -> {});
+			addAnnotationType(jos, BEAN, cw -> {});
+			add(jos, "factories/ProxyA", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT,
+					"java/lang/Object", null, cw -> {});
+			add(jos, "factories/ProxyB", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT,
+					"java/lang/Object", null, cw -> {});
+			addClass(jos, "factories/Listener");
+			addClass(jos, "factories/Value");
+			for (int i = 0; i < 12; i++) {
+				addClass(jos, "factories/Helper" + i);
+			}
+			for (int i = 0; i < 12; i++) {
+				int index = i;
+				String configuration = "factories/Config" + i;
+				// Fails validation as its superclass is missing
+				String superclass = i == 7 ? "factories/Missing" : "java/lang/Object";
+				addClass(jos, configuration, superclass, cw -> {
+					annotate(cw, CONFIGURATION);
+					AnnotationVisitor hint = cw.visitAnnotation("L" + NATIVE_IMAGE_HINT + ";", true);
+					List<String> types = new ArrayList<>(Arrays.asList("factories/Helper" + index,
+							"factories/Helper" + (index + 1) % 12));
+					if (index % 3 == 2) {
+						// Fails validation as a hinted type is missing
+						types.add("factories/Missing");
+						hint.visit("abortIfTypesMissing", true);
+					}
+					AnnotationVisitor typeInfos = hint.visitArray("typeInfos");
+					AnnotationVisitor typeInfo = typeInfos.visitAnnotation(null, "L" + TYPE_INFO + ";");
+					AnnotationVisitor typesArray = typeInfo.visitArray("types");
+					for (String type : types) {
+						typesArray.visit(null, org.objectweb.asm.Type.getObjectType(type));
+					}
+					typesArray.visitEnd();
+					typeInfo.visit("access", index % 2 == 0 ? AccessBits.RESOURCE | AccessBits.CLASS
+							: AccessBits.LOAD_AND_CONSTRUCT);
+					typeInfo.visitEnd();
+					typeInfos.visitEnd();
+					if (index % 4 == 0) {
+						AnnotationVisitor proxyInfos = hint.visitArray("proxyInfos");
+						AnnotationVisitor proxyInfo = proxyInfos.visitAnnotation(null, "L" + PROXY_INFO + ";");
+						AnnotationVisitor proxyTypes = proxyInfo.visitArray("types");
+						proxyTypes.visit(null, org.objectweb.asm.Type.getObjectType(index == 4 ? "factories/ProxyB"
+								: "factories/ProxyA"));
+						proxyTypes.visit(null, org.objectweb.asm.Type.getObjectType(index == 4 ? "factories/ProxyA"
+								: "factories/ProxyB"));
+						proxyTypes.visitEnd();
+						proxyInfo.visitEnd();
+						proxyInfos.visitEnd();
+					}
+					AnnotationVisitor resourcesInfos = hint.visitArray("resourcesInfos");
+					AnnotationVisitor resourcesInfo = resourcesInfos.visitAnnotation(null, "L" + RESOURCES_INFO + ";");
+					AnnotationVisitor patterns = resourcesInfo.visitArray("patterns");
+					patterns.visit(null, "factories/config" + index + ".properties");
+					patterns.visitEnd();
+					resourcesInfo.visitEnd();
+					resourcesInfos.visitEnd();
+					hint.visitEnd();
+					addBeanMethod(cw, "helper", "()Lfactories/Helper" + (11 - index) + ";");
+				});
+				configurations.add(configuration.replace('/', '.'));
+			}
+		}
+		// Not on the classpath at all
+		configurations.add(5, "factories.Absent");
+		Properties properties = new Properties();
+		properties.setProperty("org.springframework.boot.autoconfigure.EnableAutoConfiguration",
+				String.join(",", configurations));
+		properties.setProperty("org.springframework.context.ApplicationListener", "factories.Listener");
+		properties.setProperty("factories.Key", "factories.Value");
+		File springFactories = File.createTempFile("spring", ".factories");
+		springFactories.deleteOnExit();
+		try (FileOutputStream fos = new FileOutputStream(springFactories)) {
+			properties.store(fos, null);
+		}
+
+		Registrations sequential = processSpringFactory(jar, springFactories, 1);
+		assertEquals("factories.Config0,factories.Config1,factories.Config3,factories.Config4,factories.Config6,"
+				+ "factories.Config9,factories.Config10", sequential.springFactories.get(0)
+				.getProperty("org.springframework.boot.autoconfigure.EnableAutoConfiguration"));
+		assertEquals(Arrays.asList("[factories.ProxyA, factories.ProxyB]", "[factories.ProxyB, factories.ProxyA]"),
+				sequential.proxies);
+		assertTrue(sequential.resources.contains("addResources factories/config0.properties"));
+		assertFalse(sequential.resources.contains("addResources factories/config2.properties"));
+		assertTrue(new String(sequential.reflection, StandardCharsets.UTF_8).contains("factories.Helper11"));
+
+		for (int parallelism : new int[] { 2, 4 }) {
+			Registrations concurrent = processSpringFactory(jar, springFactories, parallelism);
+			assertEquals(sequential.springFactories, concurrent.springFactories);
+			assertEquals(new String(sequential.reflection, StandardCharsets.UTF_8),
+					new String(concurrent.reflection, StandardCharsets.UTF_8));
+			assertEquals(sequential.resources, concurrent.resources);
+			assertEquals(sequential.proxies, concurrent.proxies);
+		}
+	}
+
+	/**
+	 * Process the spring.factories file with the jar as the classpath, recording what is registered.
+	 */
+	private static Registrations processSpringFactory(File jar, File springFactories, int parallelism)
+			throws Exception {
+		Registrations registrations = new Registrations();
+		ReflectionHandler reflectionHandler = new ReflectionHandler(true) {
+			@Override
+			public ReflectionDescriptor getConstantData() {
+				// The reflect.json file is in the configuration module
+				return new ReflectionDescriptor();
+			}
+
+			@Override
+			public Class<?> addAccess(String typename, String[][] methodsAndConstructors, boolean silent,
+					Flag... flags) {
+				includeInDump(typename, methodsAndConstructors, flags);
+				return null;
+			}
+		};
+		DynamicProxiesHandler dynamicProxiesHandler = new DynamicProxiesHandler() {
+			@Override
+			public boolean addProxy(ProxyDescriptor pd) {
+				registrations.proxies.add(Arrays.toString(pd.getTypes()));
+				return true;
+			}
+		};
+		ResourcesRegistry resourcesRegistry = (ResourcesRegistry) Proxy.newProxyInstance(
+				ResourcesRegistry.class.getClassLoader(), new Class<?>[] { ResourcesRegistry.class },
+				(proxy, method, args) -> {
+					registrations.resources.add(method.getName() + " " + args[0]);
+					return null;
+				});
+		try (TypeSystem typeSystem = new TypeSystem(Collections.singletonList(jar.toString()))) {
+			ResourcesHandler resourcesHandler = new ResourcesHandler(reflectionHandler, dynamicProxiesHandler,
+					typeSystem, resourcesRegistry, parallelism) {
+				@Override
+				void registerResource(String resourceName, InputStream is) {
+					assertEquals("META-INF/spring.factories", resourceName);
+					Properties springFactories = new Properties();
+					try {
+						springFactories.load(is);
+					} catch (IOException ioe) {
+						throw new IllegalStateException(ioe);
+					}
+					registrations.springFactories.add(springFactories);
+				}
+			};
+			resourcesHandler.processSpringFactory(typeSystem, springFactories.toURI().toURL());
+		}
+		ByteArrayOutputStream reflection = new ByteArrayOutputStream();
+		reflectionHandler.dump(reflection);
+		registrations.reflection = reflection.toByteArray();
+		return registrations;
+	}
+
+	private static class Registrations {
+
+		final List<Properties> springFactories = new ArrayList<>();
+
+		byte[] reflection;
+
+		final List<String> resources = Collections.synchronizedList(new ArrayList<>());
+
+		final List<String> proxies = Collections.synchronizedList(new ArrayList<>());
+	}
+
+	private static List<String> describe(List<Entry<Type, List<Type>>> components) {
+		return components.stream().map(component -> component.getKey().getDottedName() + "="
+				+ component.getValue().stream().map(Type::getDottedName).collect(Collectors.joining(",")))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Add a class with a field of each of the referenced types.
+	 */
+	private static void addClass(JarOutputStream jos, String slashedClassName, String... referencedTypes)
+			throws Exception {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, slashedClassName, null, "java/lang/Object", null);
+		for (int i = 0; i < referencedTypes.length; i++) {
+			cw.visitField(Opcodes.ACC_PRIVATE, "field" + i, "L" + referencedTypes[i] + ";", null, null).visitEnd();
+		}
+		cw.visitEnd();
+		jos.putNextEntry(new JarEntry(slashedClassName + ".class"));
+		jos.write(cw.toByteArray());
+		jos.closeEntry();
+	}
+
+	private static void assertOutcome(boolean match, String message, String classOrMethodName) {
+		ConditionOutcomes.Outcome outcome = ConditionOutcomes.get(classOrMethodName);
+		assertEquals(classOrMethodName, match, outcome.isMatch());
+		assertEquals(classOrMethodName, message, outcome.getMessage());
+	}
+
+	/**
+	 * Annotate the class or method with a runtime visible annotation, setting an array attribute if one is given.
+	 */
+	private static void annotate(Object classOrMethodVisitor, String slashedAnnotationName, String attribute,
+			Object... values) {
+		String descriptor = "L" + slashedAnnotationName + ";";
+		AnnotationVisitor av = classOrMethodVisitor instanceof ClassVisitor
+				? ((ClassVisitor) classOrMethodVisitor).visitAnnotation(descriptor, true)
+				: ((MethodVisitor) classOrMethodVisitor).visitAnnotation(descriptor, true);
+		if (attribute != null) {
+			AnnotationVisitor array = av.visitArray(attribute);
+			for (Object value : values) {
+				array.visit(null, value);
+			}
+			array.visitEnd();
+		}
+		av.visitEnd();
+	}
+
+	private static void annotate(Object classOrMethodVisitor, String slashedAnnotationName) {
+		annotate(classOrMethodVisitor, slashedAnnotationName, null);
+	}
+
+	private static MethodVisitor addBeanMethod(ClassWriter cw, String name, String descriptor) {
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, name, descriptor, null, null);
+		annotate(mv, BEAN);
+		return mv;
+	}
+
+	private static void addAnnotationType(JarOutputStream jos, String slashedClassName, Consumer<ClassWriter> body)
+			throws Exception {
+		add(jos, slashedClassName, Opcodes.ACC_PUBLIC | Opcodes.ACC_ANNOTATION | Opcodes.ACC_INTERFACE
+				| Opcodes.ACC_ABSTRACT, "java/lang/Object", new String[] { "java/lang/annotation/Annotation" }, cw -> {
+					AnnotationVisitor retention = cw.visitAnnotation("Ljava/lang/annotation/Retention;", true);
+					retention.visitEnum("value", "Ljava/lang/annotation/RetentionPolicy;", "RUNTIME");
+					retention.visitEnd();
+					body.accept(cw);
+				});
+	}
+
+	private static void addClass(JarOutputStream jos, String slashedClassName, String superclassName,
+			Consumer<ClassWriter> body) throws Exception {
+		add(jos, slashedClassName, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, superclassName, null, body);
+	}
+
+	private static void writeClass(File dir, String slashedClassName, Consumer<ClassWriter> body) throws Exception {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, slashedClassName, null, "java/lang/Object", null);
+		body.accept(cw);
+		cw.visitEnd();
+		write(dir, slashedClassName + ".class", cw.toByteArray());
+	}
+
+	private static void write(File dir, String path, byte[] content) throws Exception {
+		File file = new File(dir, path);
+		// Deleted in reverse order, the files before their directories
+		Deque<File> parents = new ArrayDeque<>();
+		for (File parent = file.getParentFile(); !parent.equals(dir); parent = parent.getParentFile()) {
+			parents.push(parent);
+		}
+		for (File parent : parents) {
+			parent.mkdir();
+			parent.deleteOnExit();
+		}
+		Files.write(file.toPath(), content);
+		file.deleteOnExit();
+	}
+
+	private static void add(JarOutputStream jos, String slashedClassName, int access, String superclassName,
+			String[] interfaces, Consumer<ClassWriter> body) throws Exception {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, access, slashedClassName, null, superclassName, interfaces);
+		body.accept(cw);
+		cw.visitEnd();
+		jos.putNextEntry(new JarEntry(slashedClassName + ".class"));
+		jos.write(cw.toByteArray());
+		jos.closeEntry();
+	}
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SpringComponentsTests {
+
+	@Test
+	public void nestedInComponent() {
+		Set<String> components = Collections.singleton("app.A");
+		assertTrue(SpringComponents.isNestedInOneOf("app.A$B", components));
+		// Only the outermost type is a component
+		assertTrue(SpringComponents.isNestedInOneOf("app.A$B$C", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.A", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.AB$C", components));
+		assertFalse(SpringComponents.isNestedInOneOf("other.A$B", components));
+	}
+
+	@Test
+	public void nestedInNestedComponent() {
+		Set<String> components = Collections.singleton("app.A$B");
+		assertTrue(SpringComponents.isNestedInOneOf("app.A$B$C", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.A$B", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.A$BC", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.A$C", components));
+	}
+
+	@Test
+	public void dollarInTopLevelName() {
+		Set<String> components = new HashSet<>(Arrays.asList("app.Top$Level", "app.Other$"));
+		assertFalse(SpringComponents.isNestedInOneOf("app.Top$Level", components));
+		assertTrue(SpringComponents.isNestedInOneOf("app.Top$Level$Inner", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.Top$LevelInner", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.Top$Other", components));
+		assertFalse(SpringComponents.isNestedInOneOf("app.Other$", components));
+		assertTrue(SpringComponents.isNestedInOneOf("app.Other$$Inner", components));
+	}
+
+}
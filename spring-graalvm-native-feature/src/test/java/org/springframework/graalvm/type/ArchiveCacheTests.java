@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ArchiveCacheTests {
+
+	@Test
+	public void roundTrip() throws Exception {
+		File cacheDir = Files.createTempDirectory("archivecache").toFile();
+		File archive = createArchive("one");
+		ArchiveCache cache = new ArchiveCache(cacheDir);
+		ArchiveCache.ArchiveSummary summary = cache.getSummary(archive);
+		assertNull(summary.packages);
+		summary.packages = new LinkedHashSet<>(Arrays.asList("a/b", "a/c"));
+		Map<String, List<String>> annotations = new HashMap<>();
+		annotations.put("a/b/Foo", Arrays.asList("Lorg/springframework/stereotype/Component;"));
+		summary.annotations = annotations;
+		summary.headers = Collections.singletonMap("a/b/Foo",
+				new TypeHierarchy.TypeHeader(1, "java/lang/Object", new String[] { "java/io/Serializable" }));
+		cache.store(archive, summary);
+
+		// A new cache instance, as on the next build, reads the entry back from disk
+		ArchiveCache nextCache = new ArchiveCache(cacheDir);
+		ArchiveCache.ArchiveSummary cached = nextCache.getSummary(archive);
+		assertEquals(1, nextCache.getHits());
+		assertEquals(summary.packages, cached.packages);
+		assertEquals(annotations, cached.annotations);
+		TypeHierarchy.TypeHeader header = cached.headers.get("a/b/Foo");
+		assertEquals("java/lang/Object", header.superName);
+		assertEquals(Arrays.asList("java/io/Serializable"), Arrays.asList(header.interfaces));
+		assertNull(cached.isPresentChecks);
+	}
+
+	@Test
+	public void changedArchive() throws Exception {
+		File cacheDir = Files.createTempDirectory("archivecache").toFile();
+		File archive = createArchive("one");
+		ArchiveCache cache = new ArchiveCache(cacheDir);
+		ArchiveCache.ArchiveSummary summary = cache.getSummary(archive);
+		summary.isPresentChecks = Collections.singletonMap("a.b.Foo", Arrays.asList("a.b.Bar"));
+		cache.store(archive, summary);
+
+		try (FileOutputStream fos = new FileOutputStream(archive, true)) {
+			fos.write("two".getBytes());
+		}
+		ArchiveCache nextCache = new ArchiveCache(cacheDir);
+		assertNull(nextCache.getSummary(archive).isPresentChecks);
+		assertEquals(0, nextCache.getHits());
+	}
+
+	private File createArchive(String content) throws Exception {
+		File archive = File.createTempFile("archive", ".jar");
+		archive.deleteOnExit();
+		try (FileOutputStream fos = new FileOutputStream(archive)) {
+			fos.write(content.getBytes());
+		}
+		return archive;
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class ConditionalClassNamesTests {
+
+	private static final String ON_CLASS = "org/springframework/boot/autoconfigure/condition/ConditionalOnClass";
+
+	private static final String ON_MISSING_CLASS = "org/springframework/boot/autoconfigure/condition/ConditionalOnMissingClass";
+
+	private static final String BEAN = "org/springframework/context/annotation/Bean";
+
+	private static TypeSystem typeSystem;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		File jar = File.createTempFile("conditions", ".jar");
+		jar.deleteOnExit();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			addAnnotationType(jos, ON_CLASS, cw -> {});
+			addAnnotationType(jos, ON_MISSING_CLASS, cw -> {});
+			addAnnotationType(jos, BEAN, cw -> {});
+			addAnnotationType(jos, "app/Marker", cw -> {});
+			addAnnotationType(jos, "app/ConditionalOnFoo", cw -> annotate(cw, ON_CLASS, "name", "app.Foo"));
+			addAnnotationType(jos, "app/ConditionalOnFooComposed", cw -> annotate(cw, "app/ConditionalOnFoo"));
+			addClass(jos, "app/Direct", cw -> {
+				AnnotationVisitor av = cw.visitAnnotation("L" + ON_CLASS + ";", true);
+				AnnotationVisitor value = av.visitArray("value");
+				value.visit(null, type("app/One"));
+				value.visit(null, type("app/Two"));
+				value.visitEnd();
+				AnnotationVisitor name = av.visitArray("name");
+				name.visit(null, "app.Three");
+				name.visitEnd();
+				av.visitEnd();
+			});
+			addClass(jos, "app/DirectMissing", cw -> annotate(cw, ON_MISSING_CLASS, "value", "app.One", "app.Two"));
+			addClass(jos, "app/Both", cw -> {
+				annotate(cw, "app/Marker");
+				annotate(cw, ON_CLASS, "name", "app.One");
+				annotate(cw, ON_MISSING_CLASS, "value", "app.Two");
+			});
+			addClass(jos, "app/Composed", cw -> annotate(cw, "app/ConditionalOnFoo"));
+			addClass(jos, "app/ComposedTwice", cw -> annotate(cw, "app/ConditionalOnFooComposed"));
+			addClass(jos, "app/DirectAndComposed", cw -> {
+				annotate(cw, ON_CLASS, "name", "app.One");
+				annotate(cw, "app/ConditionalOnFoo");
+			});
+			addClass(jos, "app/UnknownAnnotation", cw -> annotate(cw, "app/NotOnClasspath"));
+			addClass(jos, "app/Plain", cw -> annotate(cw, "app/Marker"));
+			addClass(jos, "app/Overloads", cw -> {
+				annotate(addMethod(cw, "bean", "()Ljava/lang/Object;"), ON_CLASS, "name", "app.One");
+				annotate(addMethod(cw, "bean", "(Ljava/lang/String;)Ljava/lang/Object;"), ON_CLASS, "value",
+						type("app/Two"));
+				annotate(addMethod(cw, "bean", "(I)Ljava/lang/Object;"), "app/ConditionalOnFoo");
+				addMethod(cw, "other", "()Ljava/lang/Object;");
+			});
+		}
+		typeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+	}
+
+	@Test
+	public void direct() {
+		assertEquals(Arrays.asList("app.One", "app.Two", "app.Three"), onClass("app.Direct"));
+		assertEquals(Collections.emptyList(), onMissingClass("app.Direct"));
+		assertEquals(Arrays.asList("app.One", "app.Two"), onMissingClass("app.DirectMissing"));
+		assertEquals(Collections.emptyList(), onClass("app.DirectMissing"));
+		// Along with an annotation that is not conditional
+		assertEquals(Arrays.asList("app.One"), onClass("app.Both"));
+		assertEquals(Arrays.asList("app.Two"), onMissingClass("app.Both"));
+	}
+
+	@Test
+	public void notConditional() {
+		assertEquals(Collections.emptyList(), onClass("app.Plain"));
+		assertEquals(Collections.emptyList(), onMissingClass("app.Plain"));
+	}
+
+	@Test
+	public void composed() {
+		assertNull(onClass("app.Composed"));
+		assertEquals(Collections.emptyList(), onMissingClass("app.Composed"));
+		// Composed annotation itself used through a composed annotation
+		assertNull(onClass("app.ComposedTwice"));
+		assertNull(onClass("app.DirectAndComposed"));
+		// Whether it is conditional cannot be known
+		assertNull(onClass("app.UnknownAnnotation"));
+		assertNull(onMissingClass("app.UnknownAnnotation"));
+	}
+
+	@Test
+	public void overloaded() {
+		Map<String, List<String>> onClassByDescriptor = new HashMap<>();
+		for (Method method : typeSystem.resolveDotted("app.Overloads").getMethods(m -> true)) {
+			if (method.getName().equals("bean")) {
+				onClassByDescriptor.put(method.getDesc(), method.findConditionalClassNames(Type.AtConditionalOnClass));
+				assertEquals(Collections.emptyList(), method.findConditionalClassNames(Type.AtConditionalOnMissingClass));
+			} else if (method.getName().equals("other")) {
+				assertEquals(Collections.emptyList(), method.findConditionalClassNames(Type.AtConditionalOnClass));
+			}
+		}
+		assertEquals(3, onClassByDescriptor.size());
+		assertEquals(Arrays.asList("app.One"), onClassByDescriptor.get("()Ljava/lang/Object;"));
+		assertEquals(Arrays.asList("app.Two"), onClassByDescriptor.get("(Ljava/lang/String;)Ljava/lang/Object;"));
+		assertTrue(onClassByDescriptor.containsKey("(I)Ljava/lang/Object;"));
+		assertNull(onClassByDescriptor.get("(I)Ljava/lang/Object;"));
+	}
+
+	private static List<String> onClass(String typeName) {
+		return typeSystem.resolveDotted(typeName).findConditionalClassNames(Type.AtConditionalOnClass);
+	}
+
+	private static List<String> onMissingClass(String typeName) {
+		return typeSystem.resolveDotted(typeName).findConditionalClassNames(Type.AtConditionalOnMissingClass);
+	}
+
+	private static org.objectweb.asm.Type type(String slashedClassName) {
+		return org.objectweb.asm.Type.getObjectType(slashedClassName);
+	}
+
+	private static void annotate(Object classOrMethodVisitor, String slashedAnnotationName) {
+		annotate(classOrMethodVisitor, slashedAnnotationName, null);
+	}
+
+	/**
+	 * Annotate the class or method with a runtime visible annotation, setting an array attribute.
+	 */
+	private static void annotate(Object classOrMethodVisitor, String slashedAnnotationName, String attribute,
+			Object... values) {
+		String descriptor = "L" + slashedAnnotationName + ";";
+		AnnotationVisitor av = classOrMethodVisitor instanceof ClassVisitor
+				? ((ClassVisitor) classOrMethodVisitor).visitAnnotation(descriptor, true)
+				: ((MethodVisitor) classOrMethodVisitor).visitAnnotation(descriptor, true);
+		if (attribute != null) {
+			AnnotationVisitor array = av.visitArray(attribute);
+			for (Object value : values) {
+				array.visit(null, value);
+			}
+			array.visitEnd();
+		}
+		av.visitEnd();
+	}
+
+	private static MethodVisitor addMethod(ClassWriter cw, String name, String descriptor) {
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, name, descriptor, null, null);
+		annotate(mv, BEAN);
+		return mv;
+	}
+
+	private static void addAnnotationType(JarOutputStream jos, String slashedClassName, Consumer<ClassWriter> body)
+			throws Exception {
+		add(jos, slashedClassName, Opcodes.ACC_PUBLIC | Opcodes.ACC_ANNOTATION | Opcodes.ACC_INTERFACE
+				| Opcodes.ACC_ABSTRACT, new String[] { "java/lang/annotation/Annotation" }, cw -> {
+					// First, as annotation types usually declare it, so it is looked into before the annotations
+					// that follow
+					AnnotationVisitor retention = cw.visitAnnotation("Ljava/lang/annotation/Retention;", true);
+					retention.visitEnum("value", "Ljava/lang/annotation/RetentionPolicy;", "RUNTIME");
+					retention.visitEnd();
+					body.accept(cw);
+				});
+	}
+
+	private static void addClass(JarOutputStream jos, String slashedClassName, Consumer<ClassWriter> body)
+			throws Exception {
+		add(jos, slashedClassName, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, null, body);
+	}
+
+	private static void add(JarOutputStream jos, String slashedClassName, int access, String[] interfaces,
+			Consumer<ClassWriter> body) throws Exception {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, access, slashedClassName, null, "java/lang/Object", interfaces);
+		body.accept(cw);
+		cw.visitEnd();
+		jos.putNextEntry(new JarEntry(slashedClassName + ".class"));
+		jos.write(cw.toByteArray());
+		jos.closeEntry();
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class ReferenceGraphTests {
+
+	@Test
+	public void reachability() throws Exception {
+		File jar = new File(ClassReader.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		TypeSystem typeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		ReferenceGraph graph = new ReferenceGraph(typeSystem);
+		graph.addRoots(Collections.singletonList("org/objectweb/asm/Opcodes"));
+		assertTrue(graph.isReachable("org/objectweb/asm/Opcodes"));
+		assertFalse(graph.isReachable("org/objectweb/asm/ClassReader"));
+		// Not on the classpath, the graph cannot tell
+		assertTrue(graph.isReachable("java/lang/String"));
+
+		graph.addRoots(Collections.singletonList("org/objectweb/asm/ClassReader"));
+		assertTrue(graph.isReachable("org/objectweb/asm/ClassReader"));
+		// Referenced from the signature of ClassReader.accept()
+		assertTrue(graph.isReachable("org/objectweb/asm/ClassVisitor"));
+
+		ReferenceGraph other = graph.newGraph();
+		assertFalse(other.isReachable("org/objectweb/asm/ClassReader"));
+		other.addRoots(Collections.singletonList("org/objectweb/asm/ClassReader"));
+		assertTrue(other.isReachable("org/objectweb/asm/ClassVisitor"));
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class ReusableConstantPoolScannerTests {
+
+	private static final String CALLABLE = "java.util.concurrent.Callable";
+
+	@Test
+	public void sameHeadersAsClassReader() throws Exception {
+		File jar = new File(ClassReader.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		// One scanner for the whole jar, its arrays grow and are reused
+		ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+		int count = 0;
+		try (ZipFile zf = new ZipFile(jar)) {
+			Enumeration<? extends ZipEntry> entries = zf.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (!entry.getName().endsWith(".class")) {
+					continue;
+				}
+				ClassReader reader;
+				try (InputStream is = zf.getInputStream(entry)) {
+					reader = new ClassReader(is);
+				}
+				try (InputStream is = zf.getInputStream(entry)) {
+					scanner.scan(is);
+				}
+				assertEquals(reader.getClassName(), scanner.getClassname());
+				assertEquals(reader.getSuperName(), scanner.getSuperclassName());
+				assertArrayEquals(reader.getInterfaces(), scanner.getInterfaceNames());
+				assertEquals(reader.getAccess(), scanner.getAccess());
+				if (reader.getSuperName() != null) {
+					assertTrue(scanner.referencesClass(reader.getSuperName()));
+				}
+				count++;
+			}
+		}
+		assertTrue(count > 10);
+	}
+
+	@Test
+	public void mappedClassFile() throws Exception {
+		Path classFile = Paths.get(ReusableConstantPoolScannerTests.class
+				.getResource("ReusableConstantPoolScannerTests.class").toURI());
+		ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+		try (FileChannel channel = FileChannel.open(classFile, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			scanner.scan(mapped);
+			assertEquals("org/springframework/graalvm/type/ReusableConstantPoolScannerTests", scanner.getClassname());
+			assertTrue(scanner.referencesClass("org/objectweb/asm/ClassReader"));
+			assertTrue(scanner.containsUtf8("mappedClassFile"));
+			// Built at runtime, a literal would itself be in the constant pool
+			assertFalse(scanner.containsUtf8(new StringBuilder("looPtnatsnoC").reverse().toString()));
+			assertFalse(scanner.referencesClass("java/lang/Runnable"));
+		}
+		// Also the same when read into the internal buffer
+		scanner.scan(classFile);
+		assertEquals("org/springframework/graalvm/type/ReusableConstantPoolScannerTests", scanner.getClassname());
+		assertEquals(new ConstantPoolScanner(classFile).getClassname(), scanner.getClassname());
+		assertEquals("java/lang/Object", scanner.getSuperclassName());
+	}
+
+	@Test
+	public void typeNames() throws Exception {
+		Path classFile = Paths.get(ReusableConstantPoolScannerTests.class
+				.getResource("ReusableConstantPoolScannerTests.class").toURI());
+		Set<String> typeNames = new HashSet<>();
+		new ReusableConstantPoolScanner().scan(classFile).forEachTypeName(typeNames::add);
+		// Class entries
+		assertTrue(typeNames.contains("org/objectweb/asm/ClassReader"));
+		// Only in method descriptors
+		assertTrue(typeNames.contains("java/nio/MappedByteBuffer"));
+		// Only in an annotation
+		assertTrue(typeNames.contains("org/junit/Test"));
+		// Only in a string
+		assertTrue(typeNames.contains(CALLABLE.replace('.', '/')));
+		assertFalse(typeNames.contains("typeNames"));
+		assertFalse(typeNames.contains("V"));
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+public class TypeCacheTests {
+
+	@Test
+	public void leastRecentlyUsedEviction() {
+		TypeSystem typeSystem = new TypeSystem(Collections.singletonList(new File("./target/classes").toString()));
+		TypeCache cache = new TypeCache(2);
+		cache.put("java/lang/String", typeSystem.resolveSlashed("java/lang/String"));
+		cache.put("java/lang/Integer", typeSystem.resolveSlashed("java/lang/Integer"));
+		assertNotNull(cache.get("java/lang/String"));
+		cache.put("java/lang/Long", typeSystem.resolveSlashed("java/lang/Long"));
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get("java/lang/Integer"));
+		assertNotNull(cache.get("java/lang/String"));
+		assertNotNull(cache.get("java/lang/Long"));
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void unboundedNeverEvicts() throws Exception {
+		TypeSystem typeSystem = new TypeSystem(Collections.singletonList(new File("./target/classes").toString()));
+		TypeCache cache = new TypeCache(0);
+		String[] names = { "java/lang/String", "java/lang/Integer", "java/lang/Long", "java/lang/Short" };
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (String name : names) {
+					if (cache.get(name) == null) {
+						cache.put(name, typeSystem.resolveSlashed(name));
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(4, cache.size());
+		assertEquals(0, cache.getEvictions());
+		assertEquals(16, cache.getHits() + cache.getMisses());
+	}
+
+	@Test
+	public void reresolvedTypesAreEqual() throws Exception {
+		TypeSystem typeSystem = new TypeSystem(Collections.singletonList(new File("./target/classes").toString()));
+		Type string = typeSystem.resolveSlashed("java/lang/String");
+		// Load it again, as happens when the first one has been evicted from the type cache
+		ClassNode node = new ClassNode();
+		new ClassReader("java.lang.String").accept(node, ClassReader.SKIP_DEBUG);
+		Type reloaded = Type.forClassNode(typeSystem, node, 0);
+		assertEquals(string, reloaded);
+		assertEquals(string.hashCode(), reloaded.hashCode());
+	}
+
+}
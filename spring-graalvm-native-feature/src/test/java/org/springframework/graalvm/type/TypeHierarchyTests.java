@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.type;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.graalvm.type.TypeHierarchy.TypeHeader;
+
+public class TypeHierarchyTests {
+
+	private static final String OBJECT = "java/lang/Object";
+
+	@Test
+	public void queries() {
+		Map<String, TypeHeader> headers = new HashMap<>();
+		headers.put("h/Condition", header(Modifier.INTERFACE, null));
+		headers.put("h/SpringCondition", header(0, OBJECT, "h/Condition"));
+		headers.put("h/OnClass", header(0, "h/SpringCondition"));
+		headers.put("h/Other", header(0, OBJECT));
+		TypeHierarchy hierarchy = TypeHierarchy.build(headers, this::system);
+
+		assertEquals(Boolean.TRUE, hierarchy.implementsInterface("h/OnClass", "h/Condition"));
+		assertEquals(Boolean.FALSE, hierarchy.implementsInterface("h/Other", "h/Condition"));
+		assertEquals(Boolean.FALSE, hierarchy.implementsInterface("h/Condition", "h/Condition"));
+		// A class is never matched as an interface
+		assertEquals(Boolean.FALSE, hierarchy.implementsInterface("h/OnClass", "h/SpringCondition"));
+		assertEquals(Boolean.TRUE, hierarchy.extendsClass("h/OnClass", "h/SpringCondition"));
+		assertEquals(Boolean.TRUE, hierarchy.extendsClass("h/OnClass", OBJECT));
+		assertEquals(Boolean.FALSE, hierarchy.extendsClass("h/Other", "h/SpringCondition"));
+		assertEquals(Boolean.TRUE, hierarchy.isSubtype("h/OnClass", OBJECT));
+		assertEquals(Boolean.TRUE, hierarchy.isSubtype("h/OnClass", "h/OnClass"));
+		assertEquals(Boolean.FALSE, hierarchy.isSubtype("h/SpringCondition", "h/OnClass"));
+		assertEquals(new HashSet<>(Arrays.asList("h/SpringCondition", "h/OnClass")),
+				new HashSet<>(hierarchy.getSubtypes("h/Condition")));
+		assertTrue(hierarchy.getSubtypes("h/OnClass").isEmpty());
+		assertNull(hierarchy.isSubtype("h/Unknown", OBJECT));
+	}
+
+	@Test
+	public void missingSupertype() {
+		Map<String, TypeHeader> headers = new HashMap<>();
+		headers.put("h/Condition", header(Modifier.INTERFACE, null));
+		headers.put("h/Partial", header(0, "h/NotOnClasspath", "h/Condition"));
+		TypeHierarchy hierarchy = TypeHierarchy.build(headers, this::system);
+
+		// Not answered, walking the types reports the missing supertype
+		assertNull(hierarchy.implementsInterface("h/Partial", "h/Condition"));
+		assertNull(hierarchy.implementsInterface("h/Partial", "h/Runnable"));
+		assertNull(hierarchy.isSubtype("h/Partial", "h/Condition"));
+		assertNull(hierarchy.extendsClass("h/Partial", "h/SpringCondition"));
+		assertEquals(Arrays.asList("h/Partial"), hierarchy.getSubtypes("h/NotOnClasspath"));
+	}
+
+	@Test
+	public void extend() {
+		Map<String, TypeHeader> headers = new HashMap<>();
+		headers.put("h/Condition", header(Modifier.INTERFACE, OBJECT));
+		headers.put("h/SpringCondition", header(0, OBJECT, "h/Condition"));
+		headers.put("h/Partial", header(0, "h/NotOnClasspath"));
+		headers.put("h/Replaced", header(0, "h/SpringCondition"));
+		TypeHierarchy hierarchy = TypeHierarchy.build(headers, this::system);
+		assertNull(hierarchy.isSubtype("h/Partial", OBJECT));
+
+		Map<String, TypeHeader> added = new HashMap<>();
+		added.put("h/NotOnClasspath", header(0, OBJECT, "h/Condition"));
+		added.put("h/OnClass", header(0, "h/SpringCondition"));
+		// Already defined, kept unless the new headers take precedence
+		added.put("h/Replaced", header(0, OBJECT));
+		TypeHierarchy extended = hierarchy.extend(added, false, this::system);
+		assertEquals(Boolean.TRUE, extended.implementsInterface("h/Partial", "h/Condition"));
+		assertEquals(Boolean.TRUE, extended.extendsClass("h/OnClass", "h/SpringCondition"));
+		assertEquals(Boolean.TRUE, extended.implementsInterface("h/Replaced", "h/Condition"));
+		assertEquals(Boolean.FALSE, extended.implementsInterface("h/SpringCondition", "h/OnClass"));
+		assertEquals(new HashSet<>(Arrays.asList("h/SpringCondition", "h/OnClass", "h/Replaced", "h/NotOnClasspath",
+				"h/Partial")), new HashSet<>(extended.getSubtypes("h/Condition")));
+		// The hierarchy extended is unchanged
+		assertNull(hierarchy.isSubtype("h/Partial", OBJECT));
+		assertEquals(Collections.singletonList("h/Replaced"), hierarchy.getSubtypes("h/SpringCondition"));
+
+		TypeHierarchy replaced = hierarchy.extend(added, true, this::system);
+		assertEquals(Boolean.FALSE, replaced.implementsInterface("h/Replaced", "h/Condition"));
+		assertEquals(Collections.singletonList("h/OnClass"), replaced.getSubtypes("h/SpringCondition"));
+	}
+
+	private TypeHeader system(String name) {
+		return name.equals(OBJECT) ? header(0, null) : null;
+	}
+
+	private static TypeHeader header(int access, String superName, String... interfaces) {
+		return new TypeHeader(access, superName, interfaces);
+	}
+
+}
@@ -16,10 +16,13 @@
 package org.springframework.support.graal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
 import java.io.File;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.util.Collections;
 import java.util.List;
 
@@ -30,6 +33,7 @@ import org.springframework.graalvm.extension.TypeInfo;
 import org.springframework.graalvm.support.Mode;
 import org.springframework.graalvm.extension.ProxyInfo;
 import org.springframework.graalvm.extension.ResourcesInfo;
+import org.springframework.graalvm.type.CompilationHint;
 import org.springframework.graalvm.type.Hint;
 import org.springframework.graalvm.type.ProxyDescriptor;
 import org.springframework.graalvm.type.ResourcesDescriptor;
@@ -57,6 +61,17 @@ public class HintTests {
 	@NativeImageHint(typeInfos = { @TypeInfo(types = { String[].class }) })
 	static class TestClass1 {
 	}
+
+	@Test
+	public void hintLookupForms() {
+		String dotted = TestClass1.class.getName();
+		String slashed = dotted.replace('.', '/');
+		List<CompilationHint> hints = typeSystem.findHints(dotted);
+		assertEquals(1,hints.size());
+		assertSame(hints,typeSystem.findHints(dotted));
+		assertSame(hints,typeSystem.findHints(slashed));
+		assertSame(hints,typeSystem.findHints("L"+slashed+";"));
+	}
 	
 	@Test
 	public void proxies() {
@@ -119,4 +134,41 @@ public class HintTests {
 	static class TestClass4 {
 	}
 
+	@Test
+	public void metaAnnotationHints() {
+		Type testClass = typeSystem.resolveName(TestClass5.class.getName());
+		List<Hint> hints = testClass.getHints();
+		assertEquals(1,hints.size());
+		List<Type> chain = hints.get(0).getAnnotationChain();
+		assertEquals(3,chain.size());
+		assertEquals(TestClass5.class.getName(),chain.get(0).getDottedName());
+		assertEquals(MetaHinted.class.getName(),chain.get(1).getDottedName());
+		assertEquals(Hinted.class.getName(),chain.get(2).getDottedName());
+		// Memoized on the type, and the meta-annotation walk of MetaHinted is reused for other types
+		assertSame(hints,testClass.getHints());
+		long reused = typeSystem.getHintCacheStatistics().getMetaAnnotationHintsReused();
+		List<Hint> hints6 = typeSystem.resolveName(TestClass6.class.getName()).getHints();
+		assertEquals(1,hints6.size());
+		assertEquals(TestClass6.class.getName(),hints6.get(0).getAnnotationChain().get(0).getDottedName());
+		assertEquals(reused+1,typeSystem.getHintCacheStatistics().getMetaAnnotationHintsReused());
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@NativeImageHint(typeInfos = { @TypeInfo(types = { String[].class }) })
+	@interface Hinted {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Hinted
+	@interface MetaHinted {
+	}
+
+	@MetaHinted
+	static class TestClass5 {
+	}
+
+	@MetaHinted
+	static class TestClass6 {
+	}
+
 }
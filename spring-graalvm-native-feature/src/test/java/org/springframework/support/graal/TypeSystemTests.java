@@ -16,14 +16,34 @@
 package org.springframework.support.graal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.springframework.graalvm.type.MissingTypeException;
 import org.springframework.graalvm.type.Type;
 import org.springframework.graalvm.type.TypeSystem;
 
@@ -57,4 +77,316 @@ public class TypeSystemTests {
 		assertEquals("java.lang.String[]",t.getDottedName());
 	}
 
+	@Test
+	public void testFindInJar() throws Exception {
+		File jar = new File(ClassReader.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		TypeSystem jarTypeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		byte[] bytes = jarTypeSystem.find("org/objectweb/asm/ClassReader");
+		assertNotNull(bytes);
+		// Second lookup is served from the same open archive
+		assertNotNull(jarTypeSystem.find("org/objectweb/asm/ClassVisitor"));
+		assertNull(jarTypeSystem.find("org/objectweb/asm/DoesNotExist"));
+		Type t = jarTypeSystem.resolveSlashed("org/objectweb/asm/ClassReader");
+		assertEquals("org.objectweb.asm.ClassReader", t.getDottedName());
+		// Once closed the archive is opened again if needed
+		jarTypeSystem.close();
+		assertNotNull(jarTypeSystem.find("org/objectweb/asm/ClassWriter"));
+		jarTypeSystem.close();
+	}
+
+	@Test
+	public void testSplitPackage() throws Exception {
+		File jarOne = createJar("split-one", "split/pkg/One");
+		File jarTwo = createJar("split-two", "split/pkg/Two");
+		TypeSystem splitTypeSystem = new TypeSystem(Arrays.asList(jarOne.toString(), jarTwo.toString()));
+		assertNotNull(splitTypeSystem.resolveSlashed("split/pkg/One"));
+		assertNotNull(splitTypeSystem.resolveSlashed("split/pkg/Two"));
+		assertNull(splitTypeSystem.resolveSlashed("split/pkg/Three", true));
+	}
+
+	@Test
+	public void testFindTypesAnnotated() throws Exception {
+		Map<String, String[]> types = new LinkedHashMap<>();
+		types.put("idx/Base", new String[0]);
+		types.put("idx/Cyclic", new String[] { "Lidx/Cyclic;" });
+		types.put("idx/Stereotype", new String[] { "Lidx/Base;", "Lidx/Cyclic;" });
+		types.put("idx/Component", new String[] { "Lidx/Stereotype;" });
+		types.put("idx/Plain", new String[] { "Lidx/Base;" });
+		File jar = createJar("annotated", types);
+		TypeSystem annotatedTypeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		assertEquals(new HashSet<>(Arrays.asList("idx/Stereotype", "idx/Plain")),
+				new HashSet<>(annotatedTypeSystem.findTypesAnnotated("Lidx/Base;", false)));
+		assertEquals(new HashSet<>(Arrays.asList("idx/Stereotype", "idx/Plain", "idx/Component")),
+				new HashSet<>(annotatedTypeSystem.findTypesAnnotated("Lidx/Base;", true)));
+		assertEquals(new HashSet<>(Arrays.asList("idx/Cyclic", "idx/Stereotype", "idx/Component")),
+				new HashSet<>(annotatedTypeSystem.findTypesAnnotated("Lidx/Cyclic;", true)));
+		assertEquals(Collections.singletonList("idx/Component"),
+				annotatedTypeSystem.findTypesAnnotated("Lidx/Stereotype;", true));
+		assertTrue(annotatedTypeSystem.findTypesAnnotated("Lidx/Missing;", true).isEmpty());
+	}
+
+	@Test
+	public void testFindSubtypes() throws Exception {
+		File jar = new File(ClassReader.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		TypeSystem jarTypeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		List<String> subtypes = jarTypeSystem.findSubtypes("org/objectweb/asm/ClassVisitor");
+		assertTrue(subtypes.contains("org/objectweb/asm/ClassWriter"));
+		assertFalse(subtypes.contains("org/objectweb/asm/ClassReader"));
+		Type classWriter = jarTypeSystem.resolveSlashed("org/objectweb/asm/ClassWriter");
+		assertTrue(classWriter.extendsClass("Lorg/objectweb/asm/ClassVisitor;"));
+		assertTrue(jarTypeSystem.resolveSlashed("org/objectweb/asm/ClassVisitor").isAssignableFrom(classWriter));
+		assertFalse(classWriter.isAssignableFrom(jarTypeSystem.resolveSlashed("org/objectweb/asm/ClassVisitor")));
+		// Supertypes outside the classpath are resolved as system types
+		assertTrue(jarTypeSystem.resolveSlashed("org/objectweb/asm/Type").isAssignableFrom(
+				jarTypeSystem.resolveSlashed("org/objectweb/asm/Type")));
+		assertFalse(jarTypeSystem.resolveSlashed("org/objectweb/asm/ClassReader").implementsInterface("java/lang/Runnable"));
+	}
+
+	@Test
+	public void testIncompleteHierarchyIsWalked() throws Exception {
+		File jar = createClassJar("partial", "partial/Partial", "partial/Missing", "java/lang/Runnable");
+		TypeSystem partialTypeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		Type partial = partialTypeSystem.resolveSlashed("partial/Partial");
+		assertTrue(partial.implementsInterface("java/lang/Runnable"));
+		// As without the hierarchy, reaching the missing superclass fails rather than answering false
+		try {
+			partial.implementsInterface("java/lang/Comparable");
+			fail();
+		} catch (MissingTypeException mte) {
+			assertTrue(mte.getMessage().contains("partial/Missing"));
+		}
+		try {
+			partialTypeSystem.resolveSlashed("java/lang/Comparable").isAssignableFrom(partial);
+			fail();
+		} catch (MissingTypeException mte) {
+			assertTrue(mte.getMessage().contains("partial/Missing"));
+		}
+	}
+
+	@Test
+	public void testIndexJarExtendsHierarchy() throws Exception {
+		File base = createClassJar("base", "extend/Base", "java/lang/Object");
+		File sub = createClassJar("sub", "extend/Sub", "extend/Base");
+		TypeSystem extendedTypeSystem = new TypeSystem(Collections.singletonList(base.toString()));
+		assertTrue(extendedTypeSystem.findSubtypes("extend/Base").isEmpty());
+		extendedTypeSystem.indexJar(sub);
+		assertEquals(Collections.singletonList("extend/Sub"), extendedTypeSystem.findSubtypes("extend/Base"));
+		assertTrue(extendedTypeSystem.resolveSlashed("extend/Sub").extendsClass("Lextend/Base;"));
+	}
+
+	@Test
+	public void testIndexDirTakesPrecedence() throws Exception {
+		File jar = createClassJar("shadowed", "shadow/Shadowed", "java/lang/Object");
+		File dir = Files.createTempDirectory("shadowing").toFile();
+		dir.deleteOnExit();
+		writeClass(dir, "shadow/Shadowed", "java/lang/Object", "java/lang/Runnable");
+		writeClass(dir, "shadow/Added", "shadow/Shadowed");
+		TypeSystem shadowedTypeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		assertTrue(shadowedTypeSystem.findSubtypes("java/lang/Runnable").isEmpty());
+		shadowedTypeSystem.indexDir(dir);
+		// The directory is searched first for the class file, so its header is the one in the hierarchy
+		assertEquals(Arrays.asList("shadow/Shadowed", "shadow/Added"),
+				shadowedTypeSystem.findSubtypes("java/lang/Runnable"));
+		assertTrue(shadowedTypeSystem.resolveSlashed("shadow/Added").implementsInterface("java/lang/Runnable"));
+		// A jar indexed later does not replace what is already indexed
+		shadowedTypeSystem.indexJar(createClassJar("shadowed-again", "shadow/Added", "java/lang/Object"));
+		assertEquals(Arrays.asList("shadow/Shadowed", "shadow/Added"),
+				shadowedTypeSystem.findSubtypes("java/lang/Runnable"));
+	}
+
+	@Test
+	public void testMissingTypesAreComputedOncePerType() throws Exception {
+		Map<String, String[]> types = new LinkedHashMap<>();
+		types.put("complete/Base", new String[0]);
+		types.put("complete/One", new String[] { "Lcomplete/Anno;" });
+		types.put("complete/Two", new String[] { "Lcomplete/Anno;" });
+		types.put("complete/Anno", new String[] { "Lcomplete/Anno;", "Lcomplete/MissingAnno;" });
+		Map<String, String> superclasses = new HashMap<>();
+		superclasses.put("complete/Base", "complete/Missing");
+		superclasses.put("complete/One", "complete/Base");
+		superclasses.put("complete/Two", "complete/Base");
+		File jar = createJar("complete", types, superclasses);
+		TypeSystem completeTypeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		Type one = completeTypeSystem.resolveSlashed("complete/One");
+		Type two = completeTypeSystem.resolveSlashed("complete/Two");
+		assertEquals(Collections.singleton("complete/Missing"), completeTypeSystem.findMissingTypesInHierarchyOfThisType(one));
+		assertEquals(0, completeTypeSystem.getCompletenessWalksSaved());
+		// The result for complete/Base is reused
+		assertEquals(Collections.singleton("complete/Missing"), completeTypeSystem.findMissingTypesInHierarchyOfThisType(two));
+		assertEquals(1, completeTypeSystem.getCompletenessWalksSaved());
+		assertEquals(1, completeTypeSystem.resolveCompleteFindMissingAnnotationTypes(one).size());
+		// complete/Anno, on a cycle with itself, is reused
+		assertEquals(1, completeTypeSystem.resolveCompleteFindMissingAnnotationTypes(two).size());
+		assertEquals(2, completeTypeSystem.getCompletenessWalksSaved());
+	}
+
+	@Test
+	public void testIndexJarSuppliesMissingTypes() throws Exception {
+		Map<String, String[]> types = new LinkedHashMap<>();
+		types.put("supplied/Base", new String[0]);
+		types.put("supplied/Sub", new String[] { "Lsupplied/Anno;" });
+		File jar = createJar("incomplete", types, Collections.singletonMap("supplied/Base", "supplied/Missing"));
+		TypeSystem suppliedTypeSystem = new TypeSystem(Collections.singletonList(jar.toString()));
+		Type base = suppliedTypeSystem.resolveSlashed("supplied/Base");
+		Type sub = suppliedTypeSystem.resolveSlashed("supplied/Sub");
+		assertEquals(Collections.singleton("supplied/Missing"), suppliedTypeSystem.findMissingTypesInHierarchyOfThisType(base));
+		assertEquals(Collections.singleton("Lsupplied.Anno"), suppliedTypeSystem.resolveCompleteFindMissingAnnotationTypes(sub));
+		assertEquals(Collections.singleton("supplied/Missing"), suppliedTypeSystem.findMissingTypesInHierarchyOfThisType(base));
+		assertEquals(1, suppliedTypeSystem.getCompletenessWalksSaved());
+
+		suppliedTypeSystem.indexJar(createClassJar("supplied-missing", "supplied/Missing", "java/lang/Object"));
+		assertEquals(0, suppliedTypeSystem.getCompletenessWalksSaved());
+		assertTrue(suppliedTypeSystem.findMissingTypesInHierarchyOfThisType(base).isEmpty());
+		assertTrue(suppliedTypeSystem.findMissingTypesInHierarchyOfThisType(sub).isEmpty());
+		assertNotNull(suppliedTypeSystem.resolveSlashed("supplied/Missing", true));
+		// Still missing until it is indexed too
+		assertEquals(Collections.singleton("Lsupplied.Anno"), suppliedTypeSystem.resolveCompleteFindMissingAnnotationTypes(sub));
+		suppliedTypeSystem.indexJar(createJar("supplied-anno", "supplied/Anno"));
+		assertTrue(suppliedTypeSystem.resolveCompleteFindMissingAnnotationTypes(sub).isEmpty());
+	}
+
+	@Test
+	public void testParallelIndexAndScanMatchSequential() throws Exception {
+		List<String> classpath = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			Map<String, String[]> types = new LinkedHashMap<>();
+			// Split across every jar, the first one on the classpath wins
+			types.put("parallel/split/Shared", new String[] { "Lparallel/Jar" + i + ";" });
+			types.put("parallel/split/Only" + i, new String[] { "Lparallel/Marker;" });
+			types.put("parallel/jar" + i + "/Own", i % 2 == 0 ? new String[] { "Lparallel/Marker;" } : new String[0]);
+			File jar = createJar("spring-parallel" + i, types);
+			if (i % 3 == 0) {
+				addIsPresentCheck(jar, "parallel/jar" + i + "/Checking", "parallel.Checked" + i);
+			}
+			classpath.add(jar.toString());
+		}
+		classpath.add(createJar("spring-parallel-marker", "parallel/Marker").toString());
+		TypeSystem sequential = new TypeSystem(classpath, 1);
+		TypeSystem parallel = new TypeSystem(classpath, 4);
+
+		assertEquals(sequential.toString(), parallel.toString());
+		List<String> types = new ArrayList<>();
+		types.add("parallel/split/Shared");
+		types.add("parallel/Marker");
+		for (int i = 0; i < 6; i++) {
+			types.add("parallel/split/Only" + i);
+			types.add("parallel/jar" + i + "/Own");
+		}
+		for (String type : types) {
+			assertTrue(type, Arrays.equals(sequential.find(type), parallel.find(type)));
+		}
+		assertTrue(parallel.resolveSlashed("parallel/split/Shared").hasAnnotation("Lparallel/Jar0;", false));
+		assertEquals(sequential.findTypesAnnotated("Lparallel/Marker;", false),
+				parallel.findTypesAnnotated("Lparallel/Marker;", false));
+		assertEquals(9, parallel.findTypesAnnotated("Lparallel/Marker;", false).size());
+		for (int i = 0; i < 6; i++) {
+			assertEquals(sequential.findTypesAnnotated("Lparallel/Jar" + i + ";", true),
+					parallel.findTypesAnnotated("Lparallel/Jar" + i + ";", true));
+		}
+		assertEquals(sequential.getSpringClassesMakingIsPresentChecks(), parallel.getSpringClassesMakingIsPresentChecks());
+		assertEquals(new HashSet<>(Arrays.asList("parallel.jar0.Checking", "parallel.jar3.Checking")),
+				parallel.getSpringClassesMakingIsPresentChecks().keySet());
+		assertEquals(Collections.singletonList("parallel.Checked3"),
+				parallel.getSpringClassesMakingIsPresentChecks().get("parallel.jar3.Checking"));
+		assertEquals(sequential.findSubtypes("java/lang/Object"), parallel.findSubtypes("java/lang/Object"));
+	}
+
+	private File createJar(String name, String... slashedClassNames) throws Exception {
+		Map<String, String[]> types = new LinkedHashMap<>();
+		for (String slashedClassName : slashedClassNames) {
+			types.put(slashedClassName, new String[0]);
+		}
+		return createJar(name, types);
+	}
+
+	private File createClassJar(String name, String slashedClassName, String superclass, String... interfaces)
+			throws Exception {
+		File jar = File.createTempFile(name, ".jar");
+		jar.deleteOnExit();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			ClassWriter cw = new ClassWriter(0);
+			cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, slashedClassName, null, superclass, interfaces);
+			cw.visitEnd();
+			jos.putNextEntry(new JarEntry(slashedClassName + ".class"));
+			jos.write(cw.toByteArray());
+			jos.closeEntry();
+		}
+		return jar;
+	}
+
+	/**
+	 * Add a class whose static initializer checks whether the specified class is present.
+	 */
+	private static void addIsPresentCheck(File jar, String slashedClassName, String checkedClassName)
+			throws Exception {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, slashedClassName, null, "java/lang/Object", null);
+		cw.visitField(Opcodes.ACC_STATIC, "present", "Z", null, null).visitEnd();
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn(checkedClassName);
+		mv.visitInsn(Opcodes.ACONST_NULL);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "org/springframework/util/ClassUtils", "isPresent",
+				"(Ljava/lang/String;Ljava/lang/ClassLoader;)Z", false);
+		mv.visitFieldInsn(Opcodes.PUTSTATIC, slashedClassName, "present", "Z");
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(2, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		// Rewrite the jar with the class added
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		try (JarFile jarFile = new JarFile(jar)) {
+			for (JarEntry entry : Collections.list(jarFile.entries())) {
+				entries.put(entry.getName(), TypeSystem.loadFromStream(jarFile.getInputStream(entry)));
+			}
+		}
+		entries.put(slashedClassName + ".class", cw.toByteArray());
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				jos.putNextEntry(new JarEntry(entry.getKey()));
+				jos.write(entry.getValue());
+				jos.closeEntry();
+			}
+		}
+	}
+
+	private static void writeClass(File dir, String slashedClassName, String superclass, String... interfaces)
+			throws Exception {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, slashedClassName, null, superclass, interfaces);
+		cw.visitEnd();
+		File classFile = new File(dir, slashedClassName + ".class");
+		classFile.getParentFile().mkdirs();
+		// Deleted in reverse order, the files before their directory
+		classFile.getParentFile().deleteOnExit();
+		Files.write(classFile.toPath(), cw.toByteArray());
+		classFile.deleteOnExit();
+	}
+
+	private File createJar(String name, Map<String, String[]> annotationDescriptorsByType) throws Exception {
+		return createJar(name, annotationDescriptorsByType, Collections.emptyMap());
+	}
+
+	private File createJar(String name, Map<String, String[]> annotationDescriptorsByType,
+			Map<String, String> superclasses) throws Exception {
+		File jar = File.createTempFile(name, ".jar");
+		jar.deleteOnExit();
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+			for (Map.Entry<String, String[]> type : annotationDescriptorsByType.entrySet()) {
+				String slashedClassName = type.getKey();
+				ClassWriter cw = new ClassWriter(0);
+				cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, slashedClassName, null,
+						superclasses.getOrDefault(slashedClassName, "java/lang/Object"), null);
+				for (String annotationDescriptor : type.getValue()) {
+					cw.visitAnnotation(annotationDescriptor, true).visitEnd();
+				}
+				cw.visitEnd();
+				jos.putNextEntry(new JarEntry(slashedClassName + ".class"));
+				jos.write(cw.toByteArray());
+				jos.closeEntry();
+			}
+		}
+		return jar;
+	}
+
 }
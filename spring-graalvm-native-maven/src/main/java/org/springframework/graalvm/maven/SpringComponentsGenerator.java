@@ -0,0 +1,293 @@
+package org.springframework.graalvm.maven;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.springframework.graalvm.support.SpringComponents;
+import org.springframework.graalvm.type.MissingTypeException;
+import org.springframework.graalvm.type.Type;
+import org.springframework.graalvm.type.TypeSystem;
+
+/**
+ * Goal which generates META-INF/spring.components for the application classes, so that the native image
+ * feature does not have to scan them for components. The entries are the ones the feature would synthesize.
+ * What is computed for each class is kept in a state file along with the application types it depends on
+ * (supertypes and annotations), later builds only revisit changed classes and the classes depending on them.
+ */
+@Mojo(name = "spring-components", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresProject = true, threadSafe = true,
+    requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+    requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME)
+public class SpringComponentsGenerator
+    extends AbstractMojo {
+
+    private static final String STATE_VERSION = "1";
+
+    @Parameter(defaultValue = "true", property = "spring.components.enabled", required = false)
+    private boolean enabled = true;
+
+    /**
+     * Directory containing the compiled application classes, spring.components is written there.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File classesDirectory;
+
+    /**
+     * Where to keep what was computed for each class between builds.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/spring-components.state", required = true)
+    private File stateFile;
+
+    /**
+     * The Maven project.
+     */
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    protected MavenProject project;
+
+    public void execute()
+        throws MojoExecutionException {
+        if (!enabled) {
+            getLog().info("Skipping generation of " + SpringComponents.RESOURCE_NAME);
+            return;
+        }
+        if (!classesDirectory.isDirectory()) {
+            getLog().info("No classes to index in " + classesDirectory);
+            return;
+        }
+        File componentsFile = new File(classesDirectory, SpringComponents.RESOURCE_NAME);
+        if (componentsFile.exists() && !stateFile.exists()) {
+            // Probably produced by spring-context-indexer
+            getLog().info(componentsFile + " already exists, not generating it");
+            return;
+        }
+        try {
+            List<String> classpath = project.getRuntimeClasspathElements();
+            String classpathFingerprint = fingerprint(classpath);
+            Map<String, Long> classes = findClasses();
+            Map<String, ClassState> previous = loadState(classpathFingerprint);
+
+            // Work out what has been added, changed or deleted since the last build
+            Set<String> changed = new HashSet<>();
+            for (Map.Entry<String, Long> entry : classes.entrySet()) {
+                ClassState classState = previous.get(entry.getKey());
+                if (classState == null || classState.lastModified != entry.getValue()) {
+                    changed.add(entry.getKey());
+                }
+            }
+            for (String classname : previous.keySet()) {
+                if (!classes.containsKey(classname)) {
+                    changed.add(classname);
+                }
+            }
+
+            Map<String, ClassState> state = new TreeMap<>();
+            List<String> toAnalyze = new ArrayList<>();
+            for (String classname : classes.keySet()) {
+                ClassState classState = previous.get(classname);
+                if (changed.contains(classname) || classState.dependsOnOneOf(changed)) {
+                    toAnalyze.add(classname);
+                } else {
+                    state.put(classname, classState);
+                }
+            }
+            if (toAnalyze.isEmpty() && changed.isEmpty() && componentsFile.exists()) {
+                getLog().info(SpringComponents.RESOURCE_NAME + " is up to date");
+                return;
+            }
+            if (!toAnalyze.isEmpty()) {
+                // Closed so the jars are not left open in a long-lived Maven process
+                try (TypeSystem typeSystem = new TypeSystem(classpath)) {
+                    for (String classname : toAnalyze) {
+                        state.put(classname, analyze(typeSystem, classname, classes));
+                    }
+                }
+            }
+            int components = writeComponents(componentsFile, state);
+            saveState(classpathFingerprint, state);
+            getLog().info("Generated " + SpringComponents.RESOURCE_NAME + " with " + components + " components, analyzed "
+                + toAnalyze.size() + " of " + classes.size() + " classes");
+        } catch (IOException | DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Unable to generate " + componentsFile, e);
+        }
+    }
+
+    private ClassState analyze(TypeSystem typeSystem, String classname, Map<String, Long> classes) {
+        Type type = typeSystem.resolveSlashed(classname);
+        String stereotypes;
+        try {
+            stereotypes = SpringComponents.getStereotypes(type);
+        } catch (MissingTypeException mte) {
+            getLog().debug("Not indexing " + classname + ": " + mte.getMessage());
+            stereotypes = null;
+        }
+        Set<String> dependencies = new TreeSet<>();
+        collectDependencies(typeSystem, type, classes.keySet(), new HashSet<>(), dependencies);
+        dependencies.remove(classname);
+        return new ClassState(classes.get(classname), stereotypes, dependencies);
+    }
+
+    /**
+     * Collect the application types whose changes could affect the stereotypes of a type: those in its hierarchy
+     * and the annotations (and meta-annotations) on them.
+     */
+    private void collectDependencies(TypeSystem typeSystem, Type type, Set<String> applicationClasses, Set<String> visited,
+        Set<String> dependencies) {
+        if (type == null || !visited.add(type.getName())) {
+            return;
+        }
+        if (applicationClasses.contains(type.getName())) {
+            dependencies.add(type.getName());
+        }
+        List<String> related = new ArrayList<>();
+        if (type.getSuperclassString() != null) {
+            related.add(type.getSuperclassString());
+        }
+        related.addAll(type.getInterfacesStrings());
+        for (String name : related) {
+            collectDependencies(typeSystem, typeSystem.resolveSlashed(name, true), applicationClasses, visited, dependencies);
+        }
+        for (Type annotation : type.getAnnotations()) {
+            collectDependencies(typeSystem, annotation, applicationClasses, visited, dependencies);
+        }
+    }
+
+    /**
+     * @return slashed names of the application classes with the last modified time of their class file
+     */
+    private Map<String, Long> findClasses() throws IOException {
+        Map<String, Long> classes = new TreeMap<>();
+        Path root = classesDirectory.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = root.relativize(path).toString().replace(File.separatorChar, '/');
+                if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) {
+                    classes.put(name.substring(0, name.length() - ".class".length()),
+                        Files.getLastModifiedTime(path).toMillis());
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Nothing previously computed is reused if the dependencies have changed.
+     */
+    private String fingerprint(List<String> classpath) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (String entry : classpath) {
+            File file = new File(entry);
+            if (!file.equals(classesDirectory)) {
+                fingerprint.append(entry).append(':').append(file.lastModified()).append(File.pathSeparatorChar);
+            }
+        }
+        return Integer.toHexString(fingerprint.toString().hashCode());
+    }
+
+    private int writeComponents(File componentsFile, Map<String, ClassState> state) throws IOException {
+        Set<String> components = new HashSet<>();
+        for (Map.Entry<String, ClassState> entry : state.entrySet()) {
+            if (entry.getValue().stereotypes != null) {
+                components.add(entry.getKey().replace('/', '.'));
+            }
+        }
+        componentsFile.getParentFile().mkdirs();
+        int count = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(componentsFile.toPath(), StandardCharsets.ISO_8859_1)) {
+            for (Map.Entry<String, ClassState> entry : state.entrySet()) {
+                String component = entry.getKey().replace('/', '.');
+                if (entry.getValue().stereotypes != null && !SpringComponents.isNestedInOneOf(component, components)) {
+                    writer.write(component + "=" + entry.getValue().stereotypes);
+                    writer.newLine();
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private Map<String, ClassState> loadState(String classpathFingerprint) throws IOException {
+        Map<String, ClassState> state = new TreeMap<>();
+        if (!stateFile.isFile()) {
+            return state;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(stateFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!(STATE_VERSION + " " + classpathFingerprint).equals(reader.readLine())) {
+                getLog().info("Dependencies have changed, analyzing all classes");
+                return state;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // classname lastModified stereotypes dependencies, with - for none
+                String[] parts = line.split(" ");
+                Set<String> dependencies = parts[3].equals("-") ? Collections.emptySet()
+                    : new HashSet<>(Arrays.asList(parts[3].split(",")));
+                state.put(parts[0], new ClassState(Long.parseLong(parts[1]), parts[2].equals("-") ? null : parts[2],
+                    dependencies));
+            }
+        }
+        return state;
+    }
+
+    private void saveState(String classpathFingerprint, Map<String, ClassState> state) throws IOException {
+        stateFile.getParentFile().mkdirs();
+        try (BufferedWriter writer = Files.newBufferedWriter(stateFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(STATE_VERSION + " " + classpathFingerprint);
+            writer.newLine();
+            for (Map.Entry<String, ClassState> entry : state.entrySet()) {
+                ClassState classState = entry.getValue();
+                writer.write(entry.getKey() + " " + classState.lastModified + " "
+                    + (classState.stereotypes == null ? "-" : classState.stereotypes) + " "
+                    + (classState.dependencies.isEmpty() ? "-" : String.join(",", classState.dependencies)));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static class ClassState {
+
+        final long lastModified;
+
+        // Value of the spring.components entry, null if the class is not a component
+        final String stereotypes;
+
+        // Slashed names of the application types the stereotypes were computed from
+        final Set<String> dependencies;
+
+        ClassState(long lastModified, String stereotypes, Set<String> dependencies) {
+            this.lastModified = lastModified;
+            this.stereotypes = stereotypes;
+            this.dependencies = dependencies;
+        }
+
+        boolean dependsOnOneOf(Set<String> classnames) {
+            for (String dependency : dependencies) {
+                if (classnames.contains(dependency)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.springframework.graalvm.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpringComponentsGeneratorTests {
+
+    private static final String COMPONENT = "org.springframework.stereotype.Component";
+
+    private File library;
+
+    private File classes;
+
+    private File stateFile;
+
+    private List<String> messages = new ArrayList<>();
+
+    @Before
+    public void setup() throws Exception {
+        File root = Files.createTempDirectory("spring-components").toFile();
+        library = new File(root, "library");
+        classes = new File(root, "classes");
+        stateFile = new File(root, "spring-components.state");
+        compile(library, "org.springframework.stereotype.Indexed",
+            "package org.springframework.stereotype;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface Indexed {}");
+        compile(library, COMPONENT,
+            "package org.springframework.stereotype;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "@Indexed public @interface Component {}");
+        compile(classes, "app.One", "package app; @org.springframework.stereotype.Component public class One {}");
+        compile(classes, "app.Two", "package app; public class Two {}");
+        compile(classes, "app.Three", "package app; public class Three extends Two {}");
+    }
+
+    @Test
+    public void generatesAndThenReusesState() throws Exception {
+        execute();
+        assertEquals(components("app.One", COMPONENT), readComponents());
+        assertTrue(stateFile.isFile());
+        assertTrue(lastMessage().contains("analyzed 3 of 3 classes"));
+
+        execute();
+        assertTrue(lastMessage().contains("is up to date"));
+        assertEquals(components("app.One", COMPONENT), readComponents());
+    }
+
+    @Test
+    public void changedClassAndItsDependentsAreAnalyzedAgain() throws Exception {
+        execute();
+        File two = new File(classes, "app/Two.class");
+        long lastModified = two.lastModified();
+        compile(classes, "app.Two", "package app; @org.springframework.stereotype.Component public class Two {}");
+        two.setLastModified(lastModified + 2000);
+
+        execute();
+        // Three has Two as superclass, so picks up its stereotype
+        assertTrue(lastMessage().contains("analyzed 2 of 3 classes"));
+        assertEquals(components("app.One", COMPONENT, "app.Two", COMPONENT, "app.Three", COMPONENT), readComponents());
+    }
+
+    @Test
+    public void deletedClassIsRemoved() throws Exception {
+        execute();
+        assertTrue(new File(classes, "app/One.class").delete());
+
+        execute();
+        assertTrue(lastMessage().contains("analyzed 0 of 2 classes"));
+        assertTrue(readComponents().isEmpty());
+        assertFalse(new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8).contains("app/One "));
+    }
+
+    @Test
+    public void missingStateIsRecomputed() throws Exception {
+        execute();
+        assertTrue(stateFile.delete());
+        File componentsFile = new File(classes, "META-INF/spring.components");
+        byte[] generated = Files.readAllBytes(componentsFile.toPath());
+
+        // Without a state file an existing spring.components is assumed to come from spring-context-indexer
+        execute();
+        assertTrue(lastMessage().contains("already exists, not generating it"));
+        assertFalse(stateFile.exists());
+        assertTrue(Arrays.equals(generated, Files.readAllBytes(componentsFile.toPath())));
+
+        // Once it is removed everything is analyzed again
+        assertTrue(componentsFile.delete());
+        execute();
+        assertTrue(lastMessage().contains("analyzed 3 of 3 classes"));
+        assertEquals(components("app.One", COMPONENT), readComponents());
+    }
+
+    @Test
+    public void changedDependenciesInvalidateState() throws Exception {
+        execute();
+        library.setLastModified(library.lastModified() + 2000);
+
+        execute();
+        assertTrue(messages.contains("Dependencies have changed, analyzing all classes"));
+        assertTrue(lastMessage().contains("analyzed 3 of 3 classes"));
+    }
+
+    private void execute() throws Exception {
+        SpringComponentsGenerator generator = new SpringComponentsGenerator();
+        set(generator, "classesDirectory", classes);
+        set(generator, "stateFile", stateFile);
+        generator.project = new MavenProject() {
+            @Override
+            public List<String> getRuntimeClasspathElements() {
+                return Arrays.asList(classes.toString(), library.toString());
+            }
+        };
+        generator.setLog(new SystemStreamLog() {
+            @Override
+            public void info(CharSequence content) {
+                messages.add(content.toString());
+            }
+        });
+        generator.execute();
+    }
+
+    private String lastMessage() {
+        return messages.get(messages.size() - 1);
+    }
+
+    private Properties readComponents() throws Exception {
+        Properties components = new Properties();
+        try (InputStream is = Files.newInputStream(new File(classes, "META-INF/spring.components").toPath())) {
+            components.load(is);
+        }
+        return components;
+    }
+
+    private static Properties components(String... keysAndValues) {
+        Properties components = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            components.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return components;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private void compile(File outputDirectory, String className, String source) throws Exception {
+        File sources = Files.createTempDirectory("sources").toFile();
+        File sourceFile = new File(sources, className.replace('.', '/') + ".java");
+        sourceFile.getParentFile().mkdirs();
+        Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        outputDirectory.mkdirs();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null, "-d", outputDirectory.toString(), "-cp",
+            classes + File.pathSeparator + library, sourceFile.toString());
+        assertEquals(0, result);
+    }
+
+}
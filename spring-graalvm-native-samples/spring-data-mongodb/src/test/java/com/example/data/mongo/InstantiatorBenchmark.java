@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.data.mongo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.mapping.PreferredConstructor.Parameter;
+import org.springframework.data.mapping.model.EntityInstantiator;
+import org.springframework.data.mapping.model.EntityInstantiators;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+/**
+ * Measures creating the sample entities as the Mongo converter does when reading documents, without needing
+ * a database. It is not part of the application: build a native image with it as the main class, once as
+ * usual (instantiators generated at build time) and once with
+ * {@code -Dspring.native.generate-entity-instantiators=false} (entities created reflectively), after
+ * {@code ./compile.sh} has unpacked the application:
+ * <pre>
+ * mvn test-compile
+ * cd target/native-image
+ * LIBPATH=`find BOOT-INF/lib | tr '\n' ':'`
+ * native-image -cp BOOT-INF/classes:../test-classes:$LIBPATH -H:Name=instantiator-benchmark com.example.data.mongo.InstantiatorBenchmark
+ * ./instantiator-benchmark
+ * </pre>
+ */
+public class InstantiatorBenchmark {
+
+	private static final int WARMUP = 200_000;
+
+	private static final int ITERATIONS = 2_000_000;
+
+	public static void main(String[] args) {
+		MongoMappingContext context = new MongoMappingContext();
+		EntityInstantiators instantiators = new EntityInstantiators();
+
+		Map<String, Object> orderValues = new HashMap<>();
+		orderValues.put("id", "o1");
+		orderValues.put("customerId", "c42");
+		orderValues.put("orderDate", new Date());
+		orderValues.put("items", new ArrayList<>());
+		run("Order", context.getRequiredPersistentEntity(Order.class), instantiators, orderValues);
+
+		Map<String, Object> lineItemValues = new HashMap<>();
+		lineItemValues.put("caption", "p1");
+		lineItemValues.put("price", 1.23);
+		lineItemValues.put("quantity", 2);
+		run("LineItem", context.getRequiredPersistentEntity(LineItem.class), instantiators, lineItemValues);
+	}
+
+	private static void run(String name, MongoPersistentEntity<?> entity, EntityInstantiators instantiators,
+			Map<String, Object> values) {
+		EntityInstantiator instantiator = instantiators.getInstantiatorFor(entity);
+		ParameterValueProvider<MongoPersistentProperty> provider = new ParameterValueProvider<MongoPersistentProperty>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> T getParameterValue(Parameter<T, MongoPersistentProperty> parameter) {
+				return (T) values.get(parameter.getName());
+			}
+		};
+		int check = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			check += System.identityHashCode(instantiator.createInstance(entity, provider)) & 1;
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			check += System.identityHashCode(instantiator.createInstance(entity, provider)) & 1;
+		}
+		long time = System.nanoTime() - start;
+		System.out.println(String.format("%s: %.1f ns/op (%d)", name, (double) time / ITERATIONS, check));
+	}
+
+}
@@ -0,0 +1,68 @@
+package org.springframework.boot.autoconfigure.condition;
+
+import com.oracle.svm.core.annotate.Alias;
+import com.oracle.svm.core.annotate.Substitute;
+import com.oracle.svm.core.annotate.TargetClass;
+
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.graalvm.substitutions.BuildTimeConditions;
+import org.springframework.graalvm.substitutions.OnlyIfPresent;
+import org.springframework.graalvm.support.ConditionOutcomes;
+
+@TargetClass(className = "org.springframework.boot.autoconfigure.condition.SpringBootCondition", onlyWith = { OnlyIfPresent.class, BuildTimeConditions.class })
+abstract class Target_SpringBootCondition {
+
+	@Substitute
+	public final boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+		String classOrMethodName = getClassOrMethodName(metadata);
+		try {
+			ConditionOutcome outcome = null;
+			if ((Object) this instanceof OnClassCondition) {
+				// Evaluated against the classpath when the image was built
+				ConditionOutcomes.Outcome recorded = ConditionOutcomes.get(classOrMethodName);
+				if (recorded != null) {
+					outcome = new ConditionOutcome(recorded.isMatch(), recorded.getMessage());
+				}
+			}
+			if (outcome == null) {
+				outcome = getMatchOutcome(context, metadata);
+			}
+			logOutcome(classOrMethodName, outcome);
+			recordEvaluation(context, classOrMethodName, outcome);
+			return outcome.isMatch();
+		}
+		catch (NoClassDefFoundError ex) {
+			throw new IllegalStateException("Could not evaluate condition on " + classOrMethodName + " due to "
+					+ ex.getMessage() + " not found. Make sure your own configuration does not rely on "
+					+ "that class. This can also happen if you are "
+					+ "@ComponentScanning a springframework package (e.g. if you "
+					+ "put a @ComponentScan in the default package by mistake)", ex);
+		}
+		catch (RuntimeException ex) {
+			throw new IllegalStateException("Error processing condition on " + getName(metadata), ex);
+		}
+	}
+
+	@Alias
+	private static String getClassOrMethodName(AnnotatedTypeMetadata metadata) {
+		return null;
+	}
+
+	@Alias
+	private String getName(AnnotatedTypeMetadata metadata) {
+		return null;
+	}
+
+	@Alias
+	public abstract ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata);
+
+	@Alias
+	protected final void logOutcome(String classOrMethodName, ConditionOutcome outcome) {
+	}
+
+	@Alias
+	private void recordEvaluation(ConditionContext context, String classOrMethodName, ConditionOutcome outcome) {
+	}
+
+}
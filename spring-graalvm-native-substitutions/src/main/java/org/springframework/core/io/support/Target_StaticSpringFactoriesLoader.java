@@ -0,0 +1,47 @@
+package org.springframework.core.io.support;
+
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.svm.core.annotate.Substitute;
+import com.oracle.svm.core.annotate.TargetClass;
+
+import org.springframework.graalvm.substitutions.OnlyIfPresent;
+import org.springframework.graalvm.substitutions.StaticSpringFactories;
+import org.springframework.graalvm.support.GeneratedSpringFactories;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+@TargetClass(className="org.springframework.core.io.support.SpringFactoriesLoader", onlyWith = { StaticSpringFactories.class, OnlyIfPresent.class })
+final class Target_StaticSpringFactoriesLoader {
+
+	// Recorded from the spring.factories files registered in the image
+	@Substitute
+	private static Map<String, List<String>> loadSpringFactories(@Nullable ClassLoader classLoader) {
+		return GeneratedSpringFactories.getFactoryNames();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Substitute
+	private static <T> T instantiateFactory(String factoryImplementationName, Class<T> factoryType, ClassLoader classLoader) {
+		try {
+			// Checked first, as SpringFactoriesLoader does, so a mismatched implementation is never instantiated
+			Class<?> factoryImplementationClass = ClassUtils.forName(factoryImplementationName, classLoader);
+			if (!factoryType.isAssignableFrom(factoryImplementationClass)) {
+				throw new IllegalArgumentException(
+						"Class [" + factoryImplementationName + "] is not assignable to factory type [" + factoryType.getName() + "]");
+			}
+			Object factory = GeneratedSpringFactories.instantiate(factoryImplementationName);
+			if (factory == null) {
+				factory = ReflectionUtils.accessibleConstructor(factoryImplementationClass).newInstance();
+			}
+			return (T) factory;
+		}
+		catch (Throwable ex) {
+			throw new IllegalArgumentException(
+				"Unable to instantiate factory class [" + factoryImplementationName + "] for factory type [" + factoryType.getName() + "]",
+				ex);
+		}
+	}
+}
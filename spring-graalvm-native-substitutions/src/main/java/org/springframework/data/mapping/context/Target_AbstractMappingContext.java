@@ -12,6 +12,7 @@ import com.oracle.svm.core.annotate.Alias;
 import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
 
+import org.springframework.data.GeneratedPropertyAccessorFactory;
 import org.springframework.data.mapping.PersistentProperty;
 import org.springframework.data.mapping.model.EntityInstantiators;
 import org.springframework.data.mapping.model.InstantiationAwarePropertyAccessorFactory;
@@ -64,7 +65,9 @@ final class Target_AbstractMappingContext<E extends MutablePersistentEntity<?, P
 		this.persistentPropertyPathFactory = new PersistentPropertyPathFactory<E, P>((AbstractMappingContext)(Object)this);
 
 		EntityInstantiators instantiators = new EntityInstantiators();
-		Target_BeanWrapperPropertyAccessorFactory accessorFactory = Target_BeanWrapperPropertyAccessorFactory.INSTANCE;
+		// Accessors generated while building the image, or the BeanWrapper based one for other entities
+		PersistentPropertyAccessorFactory accessorFactory = new GeneratedPropertyAccessorFactory(
+				Target_BeanWrapperPropertyAccessorFactory.INSTANCE);
 
 		this.persistentPropertyAccessorFactory = new InstantiationAwarePropertyAccessorFactory(accessorFactory,
 				instantiators);
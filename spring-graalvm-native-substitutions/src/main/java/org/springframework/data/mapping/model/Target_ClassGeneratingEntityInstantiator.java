@@ -5,6 +5,7 @@ import com.oracle.svm.core.annotate.Delete;
 import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
 
+import org.springframework.data.GeneratedEntityInstantiators;
 import org.springframework.data.mapping.PersistentEntity;
 import org.springframework.graalvm.substitutions.OnlyIfPresent;
 
@@ -14,6 +15,12 @@ final class Target_ClassGeneratingEntityInstantiator {
 	@Substitute
 	private EntityInstantiator createEntityInstantiator(PersistentEntity<?, ?> entity) {
 
+		// Generated when the image was built, in place of the class generated at runtime on the JVM
+		EntityInstantiator generated = GeneratedEntityInstantiators.get(entity);
+		if (generated != null) {
+			return generated;
+		}
+
 		if (shouldUseReflectionEntityInstantiator(entity)) {
 			return ReflectionEntityInstantiator.INSTANCE;
 		}
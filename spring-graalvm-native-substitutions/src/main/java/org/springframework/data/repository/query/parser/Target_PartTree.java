@@ -0,0 +1,51 @@
+package org.springframework.data.repository.query.parser;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.oracle.svm.core.annotate.Alias;
+import com.oracle.svm.core.annotate.Substitute;
+import com.oracle.svm.core.annotate.TargetClass;
+
+import org.springframework.data.ParsedPartTrees;
+import org.springframework.graalvm.substitutions.OnlyIfPresent;
+import org.springframework.util.Assert;
+
+@TargetClass(className = "org.springframework.data.repository.query.parser.PartTree", onlyWith = { OnlyIfPresent.class })
+final class Target_PartTree {
+
+	@Alias
+	private static Pattern PREFIX_TEMPLATE;
+
+	@Alias
+	private Target_PartTree_Subject subject;
+
+	@Alias
+	private Target_PartTree_Predicate predicate;
+
+	@Substitute
+	public Target_PartTree(String source, Class<?> domainClass) {
+
+		Assert.notNull(source, "Source must not be null");
+		Assert.notNull(domainClass, "Domain class must not be null");
+
+		// Parsed when the image was built, both parts are immutable so they can be shared
+		Target_PartTree parsed = (Target_PartTree) (Object) ParsedPartTrees.get(source, domainClass);
+		if (parsed != null) {
+			this.subject = parsed.subject;
+			this.predicate = parsed.predicate;
+			return;
+		}
+
+		Matcher matcher = PREFIX_TEMPLATE.matcher(source);
+		if (!matcher.find()) {
+			this.subject = new Target_PartTree_Subject(Optional.empty());
+			this.predicate = new Target_PartTree_Predicate(source, domainClass);
+		} else {
+			this.subject = new Target_PartTree_Subject(Optional.of(matcher.group(0)));
+			this.predicate = new Target_PartTree_Predicate(source.substring(matcher.group().length()), domainClass);
+		}
+	}
+
+}
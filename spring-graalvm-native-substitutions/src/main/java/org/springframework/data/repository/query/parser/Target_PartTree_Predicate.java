@@ -0,0 +1,15 @@
+package org.springframework.data.repository.query.parser;
+
+import com.oracle.svm.core.annotate.Alias;
+import com.oracle.svm.core.annotate.TargetClass;
+
+import org.springframework.graalvm.substitutions.OnlyIfPresent;
+
+@TargetClass(className = "org.springframework.data.repository.query.parser.PartTree$Predicate", onlyWith = { OnlyIfPresent.class })
+final class Target_PartTree_Predicate {
+
+	@Alias
+	public Target_PartTree_Predicate(String predicate, Class<?> domainClass) {
+	}
+
+}
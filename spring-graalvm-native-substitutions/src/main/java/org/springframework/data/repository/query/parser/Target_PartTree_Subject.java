@@ -0,0 +1,17 @@
+package org.springframework.data.repository.query.parser;
+
+import java.util.Optional;
+
+import com.oracle.svm.core.annotate.Alias;
+import com.oracle.svm.core.annotate.TargetClass;
+
+import org.springframework.graalvm.substitutions.OnlyIfPresent;
+
+@TargetClass(className = "org.springframework.data.repository.query.parser.PartTree$Subject", onlyWith = { OnlyIfPresent.class })
+final class Target_PartTree_Subject {
+
+	@Alias
+	public Target_PartTree_Subject(Optional<String> subject) {
+	}
+
+}
@@ -0,0 +1,12 @@
+package org.springframework.graalvm.substitutions;
+
+import java.util.function.BooleanSupplier;
+
+public class BuildTimeConditions implements BooleanSupplier {
+
+	@Override
+	public boolean getAsBoolean() {
+		return Boolean.valueOf(System.getProperty("spring.native.build-time-conditions", "false"));
+	}
+
+}
@@ -0,0 +1,13 @@
+package org.springframework.graalvm.substitutions;
+
+import java.util.function.BooleanSupplier;
+
+public class StaticSpringFactories implements BooleanSupplier {
+
+	@Override
+	public boolean getAsBoolean() {
+		return System.getProperty("spring.native.mode", "default").equalsIgnoreCase("default")
+				&& Boolean.valueOf(System.getProperty("spring.native.static-spring-factories", "true"));
+	}
+
+}
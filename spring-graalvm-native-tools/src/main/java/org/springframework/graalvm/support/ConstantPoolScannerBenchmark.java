@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.graalvm.type.ConstantPoolScanner;
+import org.springframework.graalvm.type.ReusableConstantPoolScanner;
+
+/**
+ * Scans every class in a jar with the {@link ConstantPoolScanner} and with the {@link ReusableConstantPoolScanner},
+ * asking each for the class name (the only thing the old scanner still computes), and reports the time taken and the
+ * bytes allocated by the scanning thread. Classes are scanned straight from the jar (as the type system does) and from
+ * bytes already in memory, to separate the cost of the scan from the cost of inflating the entries.
+ */
+public class ConstantPoolScannerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args == null || args.length < 1 || args.length > 2) {
+			System.out.println("Usage: ConstantPoolScannerBenchmark <jar> [<iterations>]");
+			System.exit(1);
+		}
+		int iterations = args.length == 2 ? Integer.parseInt(args[1]) : 5;
+		try (ZipFile jar = new ZipFile(args[0])) {
+			List<byte[]> classes = new ArrayList<>();
+			for (ZipEntry entry : classEntries(jar)) {
+				try (InputStream is = jar.getInputStream(entry)) {
+					classes.add(readAllBytes(is));
+				}
+			}
+			System.out.println("Scanning " + classes.size() + " classes from " + args[0]);
+			for (int i = 0; i < iterations; i++) {
+				measure("jar (ConstantPoolScanner)", () -> {
+					int count = 0;
+					for (ZipEntry entry : classEntries(jar)) {
+						try (InputStream is = jar.getInputStream(entry)) {
+							count += scan(readAllBytes(is));
+						}
+					}
+					return count;
+				});
+				measure("jar (ReusableConstantPoolScanner)", () -> {
+					ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+					int count = 0;
+					for (ZipEntry entry : classEntries(jar)) {
+						try (InputStream is = jar.getInputStream(entry)) {
+							count += scan(scanner.scan(is));
+						}
+					}
+					return count;
+				});
+				measure("memory (ConstantPoolScanner)", () -> {
+					int count = 0;
+					for (byte[] bytes : classes) {
+						count += scan(bytes);
+					}
+					return count;
+				});
+				measure("memory (ReusableConstantPoolScanner)", () -> {
+					ReusableConstantPoolScanner scanner = new ReusableConstantPoolScanner();
+					int count = 0;
+					for (byte[] bytes : classes) {
+						count += scan(scanner.scan(ByteBuffer.wrap(bytes)));
+					}
+					return count;
+				});
+			}
+		}
+	}
+
+	private static int scan(byte[] bytes) {
+		return ConstantPoolScanner.getReferences(bytes).slashedClassName != null ? 1 : 0;
+	}
+
+	private static int scan(ReusableConstantPoolScanner scanner) {
+		return scanner.getClassname() != null ? 1 : 0;
+	}
+
+	private static List<ZipEntry> classEntries(ZipFile jar) {
+		List<ZipEntry> entries = new ArrayList<>();
+		Enumeration<? extends ZipEntry> e = jar.entries();
+		while (e.hasMoreElements()) {
+			ZipEntry entry = e.nextElement();
+			if (entry.getName().endsWith(".class") && !entry.getName().startsWith("META-INF/")) {
+				entries.add(entry);
+			}
+		}
+		return entries;
+	}
+
+	private static byte[] readAllBytes(InputStream is) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = is.read(buffer)) != -1) {
+			baos.write(buffer, 0, read);
+		}
+		return baos.toByteArray();
+	}
+
+	private static void measure(String name, Callable<Integer> task) throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		long t = System.nanoTime();
+		int count = task.call();
+		long ms = (System.nanoTime() - t) / 1000000;
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+		System.out.println(String.format("%-40s %6dms  allocated %6dKB  (#%d)", name, ms, allocated / 1024, count));
+	}
+
+}
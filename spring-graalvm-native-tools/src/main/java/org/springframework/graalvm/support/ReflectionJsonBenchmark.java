@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.graalvm.domain.reflect.ClassDescriptor;
+import org.springframework.graalvm.domain.reflect.Flag;
+import org.springframework.graalvm.domain.reflect.JsonMarshaller;
+import org.springframework.graalvm.domain.reflect.MethodDescriptor;
+import org.springframework.graalvm.json.JSONArray;
+
+/**
+ * Generates a large reflect-config.json file (like those produced by the agent for big services) and reports
+ * the time taken and the peak heap used to read it: one descriptor at a time, into a ReflectionDescriptor, and
+ * by building the JSON tree as the marshaller used to. Run it with a fixed heap, e.g. -Xmx1g, to compare runs.
+ */
+public class ReflectionJsonBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args != null && args.length > 1) {
+			System.out.println("Usage: ReflectionJsonBenchmark [<number-of-classes>]");
+			System.exit(1);
+		}
+		int classes = args != null && args.length == 1 ? Integer.parseInt(args[0]) : 100000;
+		File file = File.createTempFile("reflect-config", ".json");
+		file.deleteOnExit();
+		measure("write (streaming)", () -> {
+			try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+				JsonMarshaller.write(() -> generate(classes), os);
+			}
+			return classes;
+		});
+		System.out.println("Generated " + file + ": " + (file.length() / (1024 * 1024)) + "MB, " + classes + " classes");
+		for (int i = 0; i < 3; i++) {
+			measure("read (one descriptor at a time)", () -> {
+				AtomicInteger count = new AtomicInteger();
+				try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+					JsonMarshaller.read(is, cd -> count.incrementAndGet());
+				}
+				return count.get();
+			});
+			measure("read (ReflectionDescriptor)", () -> {
+				try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+					return JsonMarshaller.read(is).getClassDescriptors().size();
+				}
+			});
+			measure("read (JSON tree)", () -> {
+				return new JSONArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)).length();
+			});
+		}
+	}
+
+	private static Iterator<ClassDescriptor> generate(int classes) {
+		return new Iterator<ClassDescriptor>() {
+
+			int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < classes;
+			}
+
+			@Override
+			public ClassDescriptor next() {
+				ClassDescriptor cd = ClassDescriptor.of("com.example.generated.pkg" + (i % 100) + ".Type" + i);
+				cd.setFlag(Flag.allDeclaredConstructors);
+				if (i % 3 == 0) {
+					cd.setFlag(Flag.allPublicMethods);
+				}
+				for (int m = 0; m < 10; m++) {
+					cd.addMethodDescriptor(MethodDescriptor.of("method" + m, "java.lang.String", "com.example.generated.Type" + m));
+				}
+				i++;
+				return cd;
+			}
+		};
+	}
+
+	private static void measure(String name, Callable<Integer> task) throws Exception {
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			pool.resetPeakUsage();
+		}
+		long t = System.nanoTime();
+		int count = task.call();
+		long ms = (System.nanoTime() - t) / 1000000;
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		System.out.println(String.format("%-35s %6dms  peak heap %5dMB  (#%d)", name, ms, peak / (1024 * 1024), count));
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.graalvm.support;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.graalvm.type.TypeSystem;
+
+/**
+ * Resolves every class in the jars of a classpath with {@link TypeSystem#resolveSlashed(String)}, and reports the
+ * time taken, the resolutions per second and the bytes allocated by the resolving thread. Cold runs create a new
+ * type system (so include indexing the classpath and opening the jars) before resolving, warm runs resolve the
+ * same classes again in a type system that has already resolved them once, bounding its type cache with
+ * -Dspring.native.type-cache-size makes the warm runs read the classes again.
+ */
+public class TypeSystemResolveBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args == null || args.length < 1 || args.length > 2) {
+			System.out.println("Usage: TypeSystemResolveBenchmark <jar>[" + File.pathSeparator + "<jar>...] [<iterations>]");
+			System.exit(1);
+		}
+		List<String> classpath = Arrays.asList(args[0].split(File.pathSeparator));
+		int iterations = args.length == 2 ? Integer.parseInt(args[1]) : 5;
+		List<String> classnames = new ArrayList<>();
+		for (String jar : classpath) {
+			classnames.addAll(classnames(jar));
+		}
+		System.out.println("Resolving " + classnames.size() + " classes from " + classpath.size() + " jars");
+		for (int i = 0; i < iterations; i++) {
+			TypeSystem[] typeSystem = new TypeSystem[1];
+			measure("cold (new TypeSystem)", classnames.size(), () -> {
+				typeSystem[0] = new TypeSystem(classpath);
+				return resolve(typeSystem[0], classnames);
+			});
+			measure("warm", classnames.size(), () -> resolve(typeSystem[0], classnames));
+			typeSystem[0].close();
+		}
+	}
+
+	private static int resolve(TypeSystem typeSystem, List<String> classnames) {
+		int count = 0;
+		for (String classname : classnames) {
+			count += typeSystem.resolveSlashed(classname, true) != null ? 1 : 0;
+		}
+		return count;
+	}
+
+	private static List<String> classnames(String jar) throws Exception {
+		List<String> classnames = new ArrayList<>();
+		try (ZipFile zf = new ZipFile(jar)) {
+			Enumeration<? extends ZipEntry> e = zf.entries();
+			while (e.hasMoreElements()) {
+				String name = e.nextElement().getName();
+				if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) {
+					classnames.add(name.substring(0, name.length() - ".class".length()));
+				}
+			}
+		}
+		return classnames;
+	}
+
+	private static void measure(String name, int classes, Callable<Integer> task) throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		long t = System.nanoTime();
+		int count = task.call();
+		long ns = System.nanoTime() - t;
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+		System.out.println(String.format("%-25s %6dms  %9d resolves/s  allocated %7dKB  (#%d)", name, ns / 1000000,
+				ns == 0 ? 0 : classes * 1000000000L / ns, allocated / 1024, count));
+	}
+
+}